@@ -58,8 +58,9 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -201,22 +202,25 @@ class AsicContainerClientRequestProcessor extends MessageProcessorBase {
     }
 
     private void ensureTimestamped(ClientId id, String queryId, Boolean response, boolean force) throws Exception {
-        final List<MessageRecord> records = LogRecordManager.getByQueryId(queryId, id, response, Function.identity());
+        final List<MessageRecord> notTimestamped = new ArrayList<>();
+        final int count = LogRecordManager.forEachByQueryId(queryId, id, response, record -> {
+            if (record.getTimestampRecord() == null) {
+                notTimestamped.add(record);
+            }
+        });
 
-        if (records.isEmpty()) {
+        if (count == 0) {
             throw new CodedExceptionWithHttpStatus(HttpServletResponse.SC_NOT_FOUND, ErrorCodes.X_NOT_FOUND,
                     DOCUMENTS_NOT_FOUND_FAULT_MESSAGE);
         }
 
-        for (MessageRecord record : records) {
-            if (record.getTimestampRecord() == null) {
-                if (force) {
-                    if (MessageLog.timestamp(record) == null) {
-                        throw new Exception(TIMESTAMPING_FAILED_FAULT_MESSAGE);
-                    }
-                } else {
-                    throw new Exception(MISSING_TIMESTAMP_FAULT_MESSAGE);
+        for (MessageRecord record : notTimestamped) {
+            if (force) {
+                if (MessageLog.timestamp(record) == null) {
+                    throw new Exception(TIMESTAMPING_FAILED_FAULT_MESSAGE);
                 }
+            } else {
+                throw new Exception(MISSING_TIMESTAMP_FAULT_MESSAGE);
             }
         }
     }
@@ -231,36 +235,68 @@ class AsicContainerClientRequestProcessor extends MessageProcessorBase {
         final String filename = AsicUtils.escapeString(queryId)
                 + (response == null ? "" : (response ? "-response" : "-request"));
 
-        LogRecordManager.getByQueryId(queryId, clientId, response, records -> {
-            if (records.isEmpty()) {
-                throw new CodedExceptionWithHttpStatus(HttpServletResponse.SC_NOT_FOUND, ErrorCodes.X_NOT_FOUND,
-                        DOCUMENTS_NOT_FOUND_FAULT_MESSAGE);
-            }
-            try (ZipOutputStream zos = startZipResponse(filename)) {
-                zos.setLevel(0);
-                for (MessageRecord record : records) {
-                    if (record.getTimestampRecord() == null) {
-                        // Only happens if there are matching messages that are sent after
-                        // the ensureTimestamped check was made. Ignore to emulate the previous behavior.
-                        continue;
-                    }
-                    String type = record.isResponse() ? AsicContainerNameGenerator.TYPE_RESPONSE
-                            : AsicContainerNameGenerator.TYPE_REQUEST;
-                    zos.putNextEntry(new ZipEntry(nameGen.getArchiveFilename(queryId, type)));
-
-                    try (EntryStream es = new EntryStream(zos)) {
-                        record.toAsicContainer().write(es);
-                    }
-
-                    zos.closeEntry();
+        final int count;
+        try (ContainerZipWriter writer = new ContainerZipWriter(filename, queryId, nameGen)) {
+            count = LogRecordManager.forEachByQueryId(queryId, clientId, response, writer);
+        }
+
+        if (count == 0) {
+            throw new CodedExceptionWithHttpStatus(HttpServletResponse.SC_NOT_FOUND, ErrorCodes.X_NOT_FOUND,
+                    DOCUMENTS_NOT_FOUND_FAULT_MESSAGE);
+        }
+    }
+
+    /**
+     * Writes the ASiC containers of the records into the zip response as the records are read from the database.
+     * The response is started only when the first record arrives, so that a not found error can still be returned.
+     */
+    private class ContainerZipWriter implements Consumer<MessageRecord>, Closeable {
+
+        private final String filename;
+        private final String queryId;
+        private final AsicContainerNameGenerator nameGen;
+        private ZipOutputStream zos;
+
+        ContainerZipWriter(String filename, String queryId, AsicContainerNameGenerator nameGen) {
+            this.filename = filename;
+            this.queryId = queryId;
+            this.nameGen = nameGen;
+        }
+
+        @Override
+        public void accept(MessageRecord record) {
+            try {
+                if (zos == null) {
+                    zos = startZipResponse(filename);
+                    zos.setLevel(0);
+                }
+                if (record.getTimestampRecord() == null) {
+                    // Only happens if there are matching messages that are sent after
+                    // the ensureTimestamped check was made. Ignore to emulate the previous behavior.
+                    return;
                 }
+                String type = record.isResponse() ? AsicContainerNameGenerator.TYPE_RESPONSE
+                        : AsicContainerNameGenerator.TYPE_REQUEST;
+                zos.putNextEntry(new ZipEntry(nameGen.getArchiveFilename(queryId, type)));
+
+                try (EntryStream es = new EntryStream(zos)) {
+                    record.toAsicContainer().write(es);
+                }
+
+                zos.closeEntry();
             } catch (CodedException ce) {
                 throw ce;
             } catch (Exception e) {
                 throw new CodedException(X_INTERNAL_ERROR, e);
             }
-            return null;
-        });
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (zos != null) {
+                zos.close();
+            }
+        }
     }
 
     /**
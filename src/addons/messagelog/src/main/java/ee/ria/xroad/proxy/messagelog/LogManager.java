@@ -120,6 +120,8 @@ public class LogManager extends AbstractLogManager {
         timestamperJob = createTimestamperJob();
         logArchiver = createArchiver(jobManager);
         logCleaner = createCleaner(jobManager);
+
+        setMessageRecordFactory(LogManager::createMessageRecord);
     }
 
     private ActorRef createTaskQueue() {
@@ -164,12 +166,8 @@ public class LogManager extends AbstractLogManager {
 
         verifyCanLogMessage(shouldTimestampImmediately);
 
-        MessageRecord logRecord;
-        if (message instanceof SoapLogMessage) {
-            logRecord = createMessageRecord((SoapLogMessage)message);
-        } else {
-            logRecord = createMessageRecord((RestLogMessage)message);
-        }
+        MessageRecord logRecord = message.getMessageRecord() != null
+                ? message.getMessageRecord() : createMessageRecord(message);
         logRecord = saveMessageRecord(logRecord);
 
         if (shouldTimestampImmediately) {
@@ -263,6 +261,25 @@ public class LogManager extends AbstractLogManager {
         }
     }
 
+    /**
+     * Creates the message record of the given message. The message and the attachment are compressed if
+     * message compression is enabled. Called concurrently by the threads logging messages.
+     */
+    private static MessageRecord createMessageRecord(LogMessage message) throws Exception {
+        MessageRecord messageRecord;
+        if (message instanceof SoapLogMessage) {
+            messageRecord = createMessageRecord((SoapLogMessage)message);
+        } else {
+            messageRecord = createMessageRecord((RestLogMessage)message);
+        }
+
+        if (MessageLogProperties.isMessageCompressionEnabled()) {
+            messageRecord.compress();
+        }
+
+        return messageRecord;
+    }
+
     private static MessageRecord createMessageRecord(SoapLogMessage message) throws Exception {
         log.trace("createMessageRecord()");
 
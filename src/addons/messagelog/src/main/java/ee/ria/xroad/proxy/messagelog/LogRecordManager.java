@@ -33,11 +33,14 @@ import ee.ria.xroad.common.messagelog.MessageRecord;
 import ee.ria.xroad.common.messagelog.TimestampRecord;
 
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
@@ -47,7 +50,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static ee.ria.xroad.proxy.messagelog.MessageLogDatabaseCtx.doInTransaction;
@@ -59,6 +62,7 @@ import static ee.ria.xroad.proxy.messagelog.MessageLogDatabaseCtx.doInTransactio
 public final class LogRecordManager {
 
     private static final int DEFAULT_BATCH_SIZE = 50;
+    private static final int SCROLL_FETCH_SIZE = 10;
     private static final String GET_BY_QUERY_ID_LOG_FORMAT = "getByQueryId({}, {}, {})";
     private static int configuredBatchSize = 0;
 
@@ -104,19 +108,21 @@ public final class LogRecordManager {
     }
 
     /**
-     * Returns a list of log records for a given message Query Id and sender Client Id.
+     * Passes the log records for a given message Query Id and sender Client Id to the consumer one by one.
+     * The records are read from the database as they are consumed and the session is cleared periodically,
+     * so that the number of matching records does not affect memory usage.
      * @param queryId    the message query id.
      * @param clientId   the sender client id.
      * @param isResponse whether the response record should be retrieved.
-     * @return the log record list or empty list, if no log records were not found in database.
+     * @param consumer   the consumer of the records.
+     * @return the number of records passed to the consumer.
      * @throws Exception if an error occurs while communicating with database.
      */
-    public static <R> R getByQueryId(String queryId, ClientId clientId, Boolean isResponse,
-            Function<List<MessageRecord>, R> processor)
-            throws Exception {
+    public static int forEachByQueryId(String queryId, ClientId clientId, Boolean isResponse,
+            Consumer<MessageRecord> consumer) throws Exception {
         log.trace(GET_BY_QUERY_ID_LOG_FORMAT, queryId, clientId, isResponse);
 
-        return doInTransaction(session -> processor.apply(getMessageRecords(session, queryId, clientId, isResponse)));
+        return doInTransaction(session -> scrollMessageRecords(session, queryId, clientId, isResponse, consumer));
     }
 
     /**
@@ -278,11 +284,25 @@ public final class LogRecordManager {
         return session.createQuery(query).setReadOnly(true).setMaxResults(1).uniqueResult();
     }
 
-    private static List<MessageRecord> getMessageRecords(Session session, String queryId, ClientId
-            clientId,
-            Boolean isResponse) {
+    private static int scrollMessageRecords(Session session, String queryId, ClientId clientId, Boolean isResponse,
+            Consumer<MessageRecord> consumer) {
         final CriteriaQuery<MessageRecord> query = createRecordCriteria(session, queryId, clientId, isResponse);
-        return session.createQuery(query).setReadOnly(true).getResultList();
+        int count = 0;
+
+        try (ScrollableResults results = session.createQuery(query)
+                .setReadOnly(true)
+                .setFetchSize(SCROLL_FETCH_SIZE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((MessageRecord) results.get(0));
+
+                if (++count % SCROLL_FETCH_SIZE == 0) {
+                    session.clear();
+                }
+            }
+        }
+
+        return count;
     }
 
     private static CriteriaQuery<MessageRecord> createRecordCriteria(Session session, String queryId, ClientId clientId,
@@ -291,6 +311,8 @@ public final class LogRecordManager {
         final CriteriaBuilder cb = session.getCriteriaBuilder();
         final CriteriaQuery<MessageRecord> query = cb.createQuery(MessageRecord.class);
         final Root<MessageRecord> m = query.from(MessageRecord.class);
+        // fetch the time-stamp in the same row, otherwise every record would issue a query of its own
+        m.fetch("timestampRecord", JoinType.LEFT);
 
         Predicate pred = cb.and(
                 cb.equal(m.get("queryId"), queryId),
@@ -34,6 +34,7 @@ import ee.ria.xroad.common.messagelog.AbstractLogRecord;
 import ee.ria.xroad.common.messagelog.LogRecord;
 import ee.ria.xroad.common.messagelog.MessageLogProperties;
 import ee.ria.xroad.common.messagelog.MessageRecord;
+import ee.ria.xroad.common.messagelog.SoapLogMessage;
 import ee.ria.xroad.common.messagelog.TimestampRecord;
 import ee.ria.xroad.common.messagelog.archive.DigestEntry;
 import ee.ria.xroad.common.signature.SignatureData;
@@ -62,7 +63,9 @@ import java.io.FileFilter;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -399,6 +402,96 @@ public class MessageLogTest extends AbstractMessageLogTest {
         assertNull(findByQueryId("foo", "02-04-2014 12:34:56.100", "02-04-2014 12:34:59.100"));
     }
 
+    /**
+     * Stream messages by query id and client id.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void forEachByQueryId() throws Exception {
+        log.trace("forEachByQueryId()");
+
+        SoapMessageImpl message = createMessage("streamed");
+        log("02-04-2014 12:34:56.100", message);
+        log("02-04-2014 12:34:57.100", createMessage("streamed"));
+        log("02-04-2014 12:34:58.100", createMessage("other"));
+
+        List<MessageRecord> records = new ArrayList<>();
+        int count = LogRecordManager.forEachByQueryId("streamed", message.getClient(), null, records::add);
+
+        assertEquals(2, count);
+        assertEquals(2, records.size());
+        for (MessageRecord record : records) {
+            assertMessageRecord(record, "streamed");
+        }
+
+        assertEquals(0, LogRecordManager.forEachByQueryId("streamed", message.getClient(), true, records::add));
+        assertEquals(0, LogRecordManager.forEachByQueryId("foo", message.getClient(), null, records::add));
+    }
+
+    /**
+     * Store messages compressed and read them back by query id.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void findCompressedByQueryId() throws Exception {
+        log.trace("findCompressedByQueryId()");
+
+        SoapMessageImpl plain = createMessage("plain");
+        log("02-04-2014 12:34:56.100", plain);
+
+        SoapMessageImpl compressed = createMessage("compressed");
+
+        try {
+            System.setProperty(MessageLogProperties.MESSAGE_COMPRESSION_ENABLED, "true");
+            log("02-04-2014 12:34:57.100", compressed);
+        } finally {
+            System.clearProperty(MessageLogProperties.MESSAGE_COMPRESSION_ENABLED);
+        }
+
+        assertEquals(plain.getXml(), getStoredMessage("plain"));
+        assertTrue(getStoredMessage("compressed").startsWith("{gzip}"));
+
+        LogRecord plainRecord = findByQueryId("plain", "02-04-2014 12:34:50.100", "02-04-2014 12:34:59.100");
+        assertMessageRecord(plainRecord, "plain");
+        assertEquals(plain.getXml(), ((MessageRecord) plainRecord).getMessage());
+
+        List<MessageRecord> records = new ArrayList<>();
+        LogRecordManager.forEachByQueryId("compressed", compressed.getClient(), null, records::add);
+
+        assertEquals(1, records.size());
+        assertTrue(records.get(0).isCompressed());
+        assertEquals(compressed.getXml(), records.get(0).getMessage());
+    }
+
+    /**
+     * Create the compressed message record before the message is sent to the log manager.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void logPreparedCompressedRecord() throws Exception {
+        log.trace("logPreparedCompressedRecord()");
+
+        SoapMessageImpl message = createMessage("prepared");
+        SoapLogMessage logMessage = new SoapLogMessage(message, createSignature(), true);
+
+        try {
+            System.setProperty(MessageLogProperties.MESSAGE_COMPRESSION_ENABLED, "true");
+            AbstractLogManager.prepare(logMessage);
+        } finally {
+            System.clearProperty(MessageLogProperties.MESSAGE_COMPRESSION_ENABLED);
+        }
+
+        assertNotNull(logMessage.getMessageRecord());
+        assertTrue(logMessage.getMessageRecord().isCompressed());
+
+        logRecordTime = getDate("02-04-2014 12:34:58.100");
+        logManager.log(logMessage);
+
+        assertTrue(getStoredMessage("prepared").startsWith("{gzip}"));
+        LogRecord record = findByQueryId("prepared", "02-04-2014 12:34:50.100", "02-04-2014 12:34:59.100");
+        assertEquals(message.getXml(), ((MessageRecord) record).getMessage());
+    }
+
     /**
      * Wants to time-stamp, but no TSP urls configured.
      * @throws Exception in case of any unexpected errors
@@ -586,6 +679,13 @@ public class MessageLogTest extends AbstractMessageLogTest {
         return new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSS").parse(dateStr);
     }
 
+    private static String getStoredMessage(String queryId) throws Exception {
+        return doInTransaction(session -> session
+                .createQuery("select m.message from MessageRecord m where m.queryId = :queryId", String.class)
+                .setParameter("queryId", queryId)
+                .getSingleResult());
+    }
+
     private static int getNumberOfRecords(final boolean archived) throws Exception {
         return doInTransaction(session -> {
             final CriteriaBuilder cb = session.getCriteriaBuilder();
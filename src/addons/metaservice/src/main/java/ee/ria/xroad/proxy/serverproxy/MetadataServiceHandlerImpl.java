@@ -26,6 +26,7 @@
 package ee.ria.xroad.proxy.serverproxy;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.conf.serverconf.ServerConf;
 import ee.ria.xroad.common.conf.serverconf.ServerConfDatabaseCtx;
 import ee.ria.xroad.common.conf.serverconf.dao.ServiceDescriptionDAOImpl;
@@ -48,9 +49,12 @@ import ee.ria.xroad.common.util.XmlUtils;
 import ee.ria.xroad.proxy.common.WsdlRequestData;
 import ee.ria.xroad.proxy.protocol.ProxyMessage;
 
+import com.google.common.base.Ticker;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
@@ -58,6 +62,7 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.w3c.dom.Node;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -106,6 +111,9 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
 
     public static final String WSDL_ENDPOINT_ADDRESS = "http://example.org/xroad-endpoint";
 
+    static final WsdlCache WSDL_CACHE = new WsdlCache(SystemProperties.getWsdlCachePeriod(),
+            SystemProperties.getWsdlCacheSize(), Ticker.systemTicker());
+
     private final ByteArrayOutputStream responseOut =
             new ByteArrayOutputStream();
 
@@ -256,16 +264,20 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
         }
 
         ServiceId serviceId = requestData.toServiceId(request.getService().getClientId());
-        String url = getWsdlUrl(serviceId);
-        if (url == null) {
+        ServiceDescriptionType description = getWsdlDescription(serviceId);
+        if (description == null || description.getUrl() == null) {
             throw new CodedException(X_UNKNOWN_SERVICE,
                     "Could not find wsdl URL for service %s",
                     requestData.toServiceId(
                             request.getService().getClientId()));
         }
 
-        log.info("Downloading WSDL from URL: {}", url);
-        try (InputStream in = modifyWsdl(getWsdl(url, serviceId))) {
+        OverwriteAttributeFilter modification = getModifyWsdlFilter();
+        byte[] wsdl = WSDL_CACHE.get(new WsdlCache.Key(serviceId, modification.getModificationKey()),
+                WsdlCache.Version.of(description),
+                validators -> getWsdl(description.getUrl(), serviceId, validators, modification));
+
+        try (InputStream in = new ByteArrayInputStream(wsdl)) {
             Map<String, String> additionalHeaders = new HashMap<>();
             additionalHeaders.put("Content-Transfer-Encoding", "binary");
             additionalHeaders.put("Content-ID", "<wsdl=" + UUID.randomUUID().toString() + "@x-road.eu>");
@@ -276,14 +288,14 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
 
     // ------------------------------------------------------------------------
 
-    private String getWsdlUrl(ServiceId service) throws Exception {
+    private ServiceDescriptionType getWsdlDescription(ServiceId service) throws Exception {
         ServiceDescriptionType wsdl = ServerConfDatabaseCtx.doInTransaction(
                 session -> new ServiceDescriptionDAOImpl().getServiceDescription(session, service));
         if (wsdl != null && wsdl.getType() != DescriptionType.WSDL) {
             throw new CodedException(X_INVALID_SERVICE_TYPE,
                     "Service is a REST service and does not have a WSDL");
         }
-        return wsdl != null ? wsdl.getUrl() : null;
+        return wsdl;
     }
 
     private static SoapMessageImpl createMethodListResponse(
@@ -336,19 +348,19 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
     }
 
     /**
-     * reads a WSDL from input stream, modifies it and returns input stream to the result
+     * reads a WSDL from input stream, modifies it and returns the result
      *
      * @param wsdl
+     * @param filter
      * @return
      */
-    private InputStream modifyWsdl(InputStream wsdl) {
+    private byte[] modifyWsdl(InputStream wsdl, OverwriteAttributeFilter filter) {
         try {
             TransformerHandler serializer = TRANSFORMER_FACTORY.newTransformerHandler();
             StringWriter writer = new StringWriter();
             StreamResult result = new StreamResult(writer);
             serializer.setResult(result);
 
-            OverwriteAttributeFilter filter = getModifyWsdlFilter();
             filter.setContentHandler(serializer);
 
             XMLReader xmlreader = XmlUtils.createXmlReader();
@@ -362,8 +374,7 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
             String resultString = writer.toString();
             log.debug("result of WSDL cleanup: {}", resultString);
 
-            // offer InputStream into processed String
-            return new ByteArrayInputStream(resultString.getBytes(StandardCharsets.UTF_8));
+            return resultString.getBytes(StandardCharsets.UTF_8);
         } catch (IOException | SAXException | TransformerConfigurationException e) {
             throw new RuntimeException(e);
         }
@@ -373,7 +384,8 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
         return OverwriteAttributeFilter.createOverwriteSoapAddressFilter(WSDL_ENDPOINT_ADDRESS);
     }
 
-    private InputStream getWsdl(String url, ServiceId serviceId)
+    private WsdlCache.Response getWsdl(String url, ServiceId serviceId, WsdlCache.Validators validators,
+            OverwriteAttributeFilter modification)
             throws HttpClientCreator.HttpClientCreatorException, URISyntaxException, IOException {
 
         HttpClient client = wsdlHttpClientCreator.getHttpClient();
@@ -383,15 +395,46 @@ class MetadataServiceHandlerImpl implements ServiceHandler {
         // ServerMessageProcessor uses the same method to pass the ServiceId to CustomSSLSocketFactory
         httpContext.setAttribute(ServiceId.class.getName(), serviceId);
 
-        HttpResponse response = client.execute(new HttpGet(new URI(url)), httpContext);
+        HttpGet get = new HttpGet(new URI(url));
+
+        if (validators != null && validators.getEtag() != null) {
+            get.setHeader(HttpHeaders.IF_NONE_MATCH, validators.getEtag());
+        }
+
+        if (validators != null && validators.getLastModified() != null) {
+            get.setHeader(HttpHeaders.IF_MODIFIED_SINCE, validators.getLastModified());
+        }
+
+        log.info("Downloading WSDL from URL: {}", url);
+
+        HttpResponse response = client.execute(get, httpContext);
 
         StatusLine statusLine = response.getStatusLine();
 
+        if (validators != null && !validators.isEmpty()
+                && HttpStatus.SC_NOT_MODIFIED == statusLine.getStatusCode()) {
+            EntityUtils.consume(response.getEntity());
+
+            return WsdlCache.Response.notModified();
+        }
+
         if (HttpStatus.SC_OK != statusLine.getStatusCode()) {
+            EntityUtils.consume(response.getEntity());
+
             throw new RuntimeException("Received HTTP error: "
                     + statusLine.getStatusCode() + " - " + statusLine.getReasonPhrase());
         }
 
-        return response.getEntity().getContent();
+        try (InputStream in = response.getEntity().getContent()) {
+            return WsdlCache.Response.of(modifyWsdl(in, modification), new WsdlCache.Validators(
+                    getHeaderValue(response, HttpHeaders.ETAG),
+                    getHeaderValue(response, HttpHeaders.LAST_MODIFIED)));
+        }
+    }
+
+    private static String getHeaderValue(HttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+
+        return header != null ? header.getValue() : null;
     }
 }
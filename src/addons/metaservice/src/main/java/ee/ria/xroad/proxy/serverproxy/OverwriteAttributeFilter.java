@@ -69,6 +69,13 @@ public class OverwriteAttributeFilter extends XMLFilterImpl {
                 WSDL_SOAP_ADDRESS_LOCATION_ATTRIBUTE, newValue);
     }
 
+    /**
+     * @return a key that is equal for filters making the same modification
+     */
+    public String getModificationKey() {
+        return element + "/@" + attributeToOverwrite + "=" + newValue;
+    }
+
 
     @Override
     public void startElement(String uri, String localName, String qName,
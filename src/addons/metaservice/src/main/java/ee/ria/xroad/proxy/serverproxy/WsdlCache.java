@@ -0,0 +1,205 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.serverproxy;
+
+import ee.ria.xroad.common.conf.serverconf.model.ServiceDescriptionType;
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the modified WSDLs returned by the getWsdl metaservice in memory.
+ *
+ * A cached WSDL is bound to the version of its service description (the description id, the WSDL URL and
+ * the time the description was last refreshed). When the description is refreshed or its URL changes, the
+ * cached WSDL no longer matches and is downloaded again.
+ *
+ * While a cached WSDL is fresh it is served without contacting the service provider. After that it is
+ * revalidated with a conditional request using the ETag and Last-Modified values of the previous response,
+ * so an unchanged WSDL is not downloaded and modified again.
+ */
+@Slf4j
+class WsdlCache {
+
+    /** Entries that have not been used for this long are dropped */
+    private static final long EXPIRE_AFTER_ACCESS_HOURS = 1;
+
+    private final Cache<Key, Entry> entries;
+    private final Ticker ticker;
+    private final long freshNanos;
+
+    /**
+     * @param periodSeconds how long a WSDL is served without revalidation, non-positive value disables caching
+     * @param maximumSize maximum number of WSDLs to keep
+     * @param ticker time source
+     */
+    WsdlCache(long periodSeconds, long maximumSize, Ticker ticker) {
+        this.ticker = ticker;
+        this.freshNanos = TimeUnit.SECONDS.toNanos(Math.max(0, periodSeconds));
+        this.entries = CacheBuilder.newBuilder()
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS_HOURS, TimeUnit.HOURS)
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the modified WSDL of the given service.
+     * @param key the service and the modification applied to the WSDL
+     * @param version the current version of the service description
+     * @param loader downloads and modifies the WSDL
+     * @return the modified WSDL
+     * @throws Exception if the WSDL cannot be loaded
+     */
+    byte[] get(Key key, Version version, Loader loader) throws Exception {
+        if (freshNanos == 0) {
+            return loader.load(null).getContent();
+        }
+
+        final Entry cached = entries.getIfPresent(key);
+        final Entry previous = cached != null && cached.getVersion().equals(version) ? cached : null;
+
+        if (previous != null && ticker.read() - previous.getValidatedAt() < freshNanos) {
+            log.trace("Serving cached WSDL of {}", key.getService());
+
+            return previous.getContent();
+        }
+
+        final Response response = loader.load(previous != null ? previous.getValidators() : null);
+        final Entry entry;
+
+        if (response.isNotModified() && previous != null) {
+            log.trace("Cached WSDL of {} is still valid", key.getService());
+
+            entry = new Entry(version, previous.getContent(), previous.getValidators(), ticker.read());
+        } else if (!response.isNotModified()) {
+            entry = new Entry(version, response.getContent(), response.getValidators(), ticker.read());
+        } else {
+            throw new IllegalStateException("WSDL reported as not modified, but nothing was cached");
+        }
+
+        entries.put(key, entry);
+
+        return entry.getContent();
+    }
+
+    void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * Downloads and modifies a WSDL.
+     */
+    @FunctionalInterface
+    interface Loader {
+        /**
+         * @param validators validators of the cached WSDL, or null if there is nothing to revalidate
+         * @return the downloaded WSDL, or a not modified response if the cached WSDL is still valid
+         * @throws Exception if the WSDL cannot be loaded
+         */
+        Response load(Validators validators) throws Exception;
+    }
+
+    /**
+     * Identifies a cached WSDL.
+     */
+    @Value
+    static class Key {
+        ServiceId service;
+        String modification;
+    }
+
+    /**
+     * Version of a service description.
+     */
+    @Value
+    static class Version {
+        Long descriptionId;
+        String url;
+        Long refreshedAt;
+
+        static Version of(ServiceDescriptionType description) {
+            return new Version(description.getId(), description.getUrl(),
+                    description.getRefreshedDate() != null ? description.getRefreshedDate().getTime() : null);
+        }
+    }
+
+    /**
+     * HTTP cache validators of a downloaded WSDL.
+     */
+    @Value
+    static class Validators {
+        String etag;
+        String lastModified;
+
+        boolean isEmpty() {
+            return etag == null && lastModified == null;
+        }
+    }
+
+    /**
+     * Result of loading a WSDL.
+     */
+    @Getter
+    static final class Response {
+        private static final Response NOT_MODIFIED = new Response(null, null);
+
+        private final byte[] content;
+        private final Validators validators;
+
+        private Response(byte[] content, Validators validators) {
+            this.content = content;
+            this.validators = validators;
+        }
+
+        static Response notModified() {
+            return NOT_MODIFIED;
+        }
+
+        static Response of(byte[] content, Validators validators) {
+            return new Response(content, validators);
+        }
+
+        boolean isNotModified() {
+            return this == NOT_MODIFIED;
+        }
+    }
+
+    @Value
+    private static class Entry {
+        Version version;
+        byte[] content;
+        Validators validators;
+        long validatedAt;
+    }
+}
@@ -98,6 +98,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
 import static ee.ria.xroad.common.ErrorCodes.X_INVALID_SERVICE_TYPE;
@@ -204,6 +205,7 @@ public class MetadataServiceHandlerTest {
     public void tearDown() throws Exception {
         this.mockServer.stop();
         MetaserviceTestUtil.cleanDB();
+        MetadataServiceHandlerImpl.WSDL_CACHE.invalidateAll();
     }
 
 
@@ -586,6 +588,43 @@ public class MetadataServiceHandlerTest {
                 containsInAnyOrder(expectedEndpointUrls.toArray()));
     }
 
+    @Test
+    public void shouldServeRepeatedGetWsdlFromCache() throws Exception {
+
+        final ServiceId serviceId = ServiceId.create(DEFAULT_CLIENT, GET_WSDL);
+        TestMetadataServiceHandlerImpl handlerToTest = prepareTestConstructsForWsdl(serviceId);
+        handlerToTest.setTestFilter(OverwriteAttributeFilter.createOverwriteSoapAddressFilter("expected-location"));
+
+        handlerToTest.startHandling(mockRequest, mockProxyMessage,
+                httpClientMock, mock(OpMonitoringData.class));
+
+        // a second request for the same WSDL
+        TestMetadataServiceHandlerImpl secondHandler = new TestMetadataServiceHandlerImpl();
+        secondHandler.setTestFilter(OverwriteAttributeFilter.createOverwriteSoapAddressFilter("expected-location"));
+
+        WsdlRequestData wsdlRequestData = new WsdlRequestData();
+        wsdlRequestData.setServiceCode("someServiceWithWsdl122");
+
+        when(mockProxyMessage.getSoapContent()).thenReturn(new TestSoapBuilder()
+                .withClient(DEFAULT_CLIENT)
+                .withService(serviceId)
+                .withModifiedBody(soapBody -> marshaller.marshal(wsdlRequestData, soapBody))
+                .buildAsInputStream());
+
+        secondHandler.canHandle(serviceId, mockProxyMessage);
+        secondHandler.startHandling(mockRequest, mockProxyMessage,
+                httpClientMock, mock(OpMonitoringData.class));
+
+        // verification
+        TestMimeContentHandler handler = parseWsdlResponse(secondHandler.getResponseContent(),
+                secondHandler.getResponseContentType());
+
+        assertThat("Expected to find overwritten endpoint urls",
+                handler.getEndpointUrls(), containsInAnyOrder("expected-location"));
+
+        mockServer.verify(1, getRequestedFor(urlPathEqualTo(EXPECTED_WSDL_QUERY_PATH)));
+    }
+
     @Test
     public void shouldThrowInvalidServiceTypeExWhenGetWsdl() throws Exception {
 
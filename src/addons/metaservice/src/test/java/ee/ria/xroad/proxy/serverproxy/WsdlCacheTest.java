@@ -0,0 +1,160 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.serverproxy;
+
+import ee.ria.xroad.common.FakeTicker;
+import ee.ria.xroad.common.conf.serverconf.model.ServiceDescriptionType;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit test for {@link WsdlCache}
+ */
+public class WsdlCacheTest {
+
+    private static final long PERIOD_SECONDS = 60;
+
+    private static final WsdlCache.Key KEY = new WsdlCache.Key(
+            ServiceId.create(ClientId.create("EE", "GOV", "1234"), "getRandom"), "modification");
+
+    private static final WsdlCache.Validators VALIDATORS = new WsdlCache.Validators("\"v1\"", null);
+
+    private FakeTicker ticker;
+    private WsdlCache cache;
+    private TestLoader loader;
+
+    @Before
+    public void setUp() {
+        ticker = new FakeTicker();
+        cache = new WsdlCache(PERIOD_SECONDS, 10, ticker);
+        loader = new TestLoader();
+    }
+
+    @Test
+    public void freshWsdlIsServedFromCache() throws Exception {
+        WsdlCache.Version version = version(new Date(1000));
+
+        assertArrayEquals(bytes("wsdl-1"), cache.get(KEY, version, loader));
+        ticker.advance(PERIOD_SECONDS - 1, TimeUnit.SECONDS);
+        assertArrayEquals(bytes("wsdl-1"), cache.get(KEY, version, loader));
+
+        assertEquals(1, loader.requests.size());
+        assertNull(loader.requests.get(0));
+    }
+
+    @Test
+    public void staleWsdlIsRevalidated() throws Exception {
+        WsdlCache.Version version = version(new Date(1000));
+
+        cache.get(KEY, version, loader);
+        ticker.advance(PERIOD_SECONDS, TimeUnit.SECONDS);
+        loader.notModified = true;
+
+        assertArrayEquals(bytes("wsdl-1"), cache.get(KEY, version, loader));
+        assertEquals(2, loader.requests.size());
+        assertEquals(VALIDATORS, loader.requests.get(1));
+
+        // revalidation makes the cached WSDL fresh again
+        cache.get(KEY, version, loader);
+        assertEquals(2, loader.requests.size());
+    }
+
+    @Test
+    public void changedWsdlReplacesCachedOne() throws Exception {
+        WsdlCache.Version version = version(new Date(1000));
+
+        cache.get(KEY, version, loader);
+        ticker.advance(PERIOD_SECONDS, TimeUnit.SECONDS);
+
+        assertArrayEquals(bytes("wsdl-2"), cache.get(KEY, version, loader));
+        assertArrayEquals(bytes("wsdl-2"), cache.get(KEY, version, loader));
+        assertEquals(2, loader.requests.size());
+    }
+
+    @Test
+    public void refreshedDescriptionIsDownloadedAgain() throws Exception {
+        cache.get(KEY, version(new Date(1000)), loader);
+
+        assertArrayEquals(bytes("wsdl-2"), cache.get(KEY, version(new Date(2000)), loader));
+        assertEquals(2, loader.requests.size());
+        // the old WSDL must not be revalidated for a new description version
+        assertNull(loader.requests.get(1));
+    }
+
+    @Test
+    public void cachingCanBeDisabled() throws Exception {
+        cache = new WsdlCache(0, 10, ticker);
+        WsdlCache.Version version = version(new Date(1000));
+
+        cache.get(KEY, version, loader);
+        cache.get(KEY, version, loader);
+
+        assertEquals(2, loader.requests.size());
+        assertNull(loader.requests.get(1));
+    }
+
+    private static WsdlCache.Version version(Date refreshedDate) {
+        ServiceDescriptionType description = new ServiceDescriptionType();
+        description.setId(1L);
+        description.setUrl("http://localhost/wsdl");
+        description.setRefreshedDate(refreshedDate);
+
+        return WsdlCache.Version.of(description);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class TestLoader implements WsdlCache.Loader {
+        final List<WsdlCache.Validators> requests = new ArrayList<>();
+        boolean notModified;
+
+        @Override
+        public WsdlCache.Response load(WsdlCache.Validators validators) {
+            requests.add(validators);
+
+            if (notModified && validators != null) {
+                return WsdlCache.Response.notModified();
+            }
+
+            return WsdlCache.Response.of(bytes("wsdl-" + requests.size()), VALIDATORS);
+        }
+    }
+}
@@ -27,6 +27,7 @@ package ee.ria.xroad.proxy.serverproxy;
 
 import ee.ria.xroad.common.CodedException;
 import ee.ria.xroad.common.ErrorCodes;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.conf.monitoringconf.MonitoringConf;
 import ee.ria.xroad.common.conf.serverconf.ServerConf;
 import ee.ria.xroad.common.identifier.ClientId;
@@ -37,15 +38,20 @@ import ee.ria.xroad.common.message.SoapMessageImpl;
 import ee.ria.xroad.common.message.SoapUtils;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.util.XmlUtils;
+import ee.ria.xroad.monitor.common.dto.MetricSetDto;
 import ee.ria.xroad.proxy.ProxyMain;
 import ee.ria.xroad.proxy.protocol.ProxyMessage;
+import ee.ria.xroad.proxy.util.ProxyMetrics;
 import ee.ria.xroad.proxymonitor.ProxyMonitor;
 import ee.ria.xroad.proxymonitor.message.GetSecurityServerMetricsResponse;
 import ee.ria.xroad.proxymonitor.message.MetricSetType;
 import ee.ria.xroad.proxymonitor.message.ObjectFactory;
 import ee.ria.xroad.proxymonitor.message.StringMetricType;
+import ee.ria.xroad.proxymonitor.util.MetricTypes;
 import ee.ria.xroad.proxymonitor.util.MonitorClient;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Snapshot;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.client.HttpClient;
 import org.w3c.dom.Document;
@@ -65,6 +71,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service handler for proxy monitoring
@@ -75,6 +82,7 @@ public class ProxyMonitorServiceHandlerImpl implements ServiceHandler {
     public static final String SERVICE_CODE = "getSecurityServerMetrics";
     public static final String MONITOR_REQ_PARAM_NODE_NAME = "outputField";
     public static final String NS_MONITORING = "http://x-road.eu/xsd/monitoring";
+    public static final String PROXY_STAGE_METRICS = "proxyStageMetrics";
 
     private ProxyMessage requestMessage;
     private static final JAXBContext JAXB_CTX;
@@ -140,8 +148,18 @@ public class ProxyMonitorServiceHandlerImpl implements ServiceHandler {
         version.setValue(ProxyMain.readProxyVersion());
         root.getMetrics().add(version);
 
+        final List<String> metricNames = getMetricNames(proxyRequestMessage);
+
         if (client != null) {
-            root.getMetrics().add(client.getMetrics(getMetricNames(proxyRequestMessage), isOwner()));
+            root.getMetrics().add(client.getMetrics(metricNames, isOwner()));
+        }
+
+        if (isOwner() || !SystemProperties.getEnvMonitorLimitRemoteDataSet()) {
+            final MetricSetDto stageMetrics = getStageMetrics(metricNames);
+
+            if (!stageMetrics.getMetrics().isEmpty()) {
+                root.getMetrics().add(MetricTypes.of(stageMetrics));
+            }
         }
 
         SoapMessageImpl result = createResponse(requestMessage.getSoap(), metricsResponse);
@@ -166,6 +184,37 @@ public class ProxyMonitorServiceHandlerImpl implements ServiceHandler {
         return metricNames;
     }
 
+    /**
+     * Collects the request processing stage times recorded by the proxy. The monitoring schema histogram type
+     * has no percentiles, so each histogram is returned as a set of numeric metrics (in microseconds).
+     *
+     * @param metricNames requested metric names, empty for all
+     * @return metric set containing a metric set per stage histogram
+     */
+    private static MetricSetDto getStageMetrics(List<String> metricNames) {
+        final boolean all = metricNames.isEmpty() || metricNames.contains(PROXY_STAGE_METRICS);
+        final MetricSetDto.Builder builder = new MetricSetDto.Builder(PROXY_STAGE_METRICS);
+
+        for (Map.Entry<String, Histogram> e : ProxyMetrics.getMetrics()
+                .getHistograms((name, metric) -> all || metricNames.contains(name)).entrySet()) {
+            final Snapshot snapshot = e.getValue().getSnapshot();
+
+            builder.withMetric(new MetricSetDto.Builder(e.getKey())
+                    .withSimpleMetric("count", e.getValue().getCount())
+                    .withSimpleMetric("min", snapshot.getMin())
+                    .withSimpleMetric("max", snapshot.getMax())
+                    .withSimpleMetric("mean", snapshot.getMean())
+                    .withSimpleMetric("median", snapshot.getMedian())
+                    .withSimpleMetric("p75", snapshot.get75thPercentile())
+                    .withSimpleMetric("p95", snapshot.get95thPercentile())
+                    .withSimpleMetric("p99", snapshot.get99thPercentile())
+                    .withSimpleMetric("p999", snapshot.get999thPercentile())
+                    .build());
+        }
+
+        return builder.build();
+    }
+
     /**
      * Create XML DOM representation from input stream.
      *
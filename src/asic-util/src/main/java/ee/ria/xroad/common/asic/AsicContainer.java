@@ -28,14 +28,18 @@ package ee.ria.xroad.common.asic;
 import ee.ria.xroad.common.signature.SignatureData;
 import ee.ria.xroad.common.util.MimeTypes;
 
-import lombok.Getter;
-
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import static ee.ria.xroad.common.ErrorCodes.translateException;
@@ -60,15 +64,20 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
  * Encapsulates the creation of the ASiC-container, which is essentially a
- * ZIP file containing the message and signature.
+ * ZIP file containing the message and signature. A container that is read
+ * from a file keeps the file open until it is closed.
  */
-public class AsicContainer {
+public class AsicContainer implements Closeable {
 
     /** Holds the entries in the container. */
     private final Map<String, String> entries = new HashMap<>();
     private final InputStream attachment;
-    @Getter
-    private final byte[] attachmentDigest;
+    private byte[] attachmentDigest;
+
+    /** Container file and the entries that are read from it only when needed. */
+    private final ZipFile zipFile;
+    private final Set<String> fileEntries;
+    private final String attachmentEntry;
 
     AsicContainer(Map<String, String> entries) throws Exception {
         this(entries, null);
@@ -78,6 +87,19 @@ public class AsicContainer {
         this.entries.putAll(entries);
         this.attachment = null;
         this.attachmentDigest = attachmentDigest;
+        this.zipFile = null;
+        this.fileEntries = Collections.emptySet();
+        this.attachmentEntry = null;
+        verifyContents();
+    }
+
+    AsicContainer(Map<String, String> entries, ZipFile zipFile, Set<String> fileEntries, String attachmentEntry)
+            throws Exception {
+        this.entries.putAll(entries);
+        this.attachment = null;
+        this.zipFile = zipFile;
+        this.fileEntries = fileEntries;
+        this.attachmentEntry = attachmentEntry;
         verifyContents();
     }
 
@@ -110,6 +132,9 @@ public class AsicContainer {
         put(ENTRY_SIG_HASH_CHAIN, signature.getHashChain());
         this.attachment = attachment;
         this.attachmentDigest = null;
+        this.zipFile = null;
+        this.fileEntries = Collections.emptySet();
+        this.attachmentEntry = null;
 
         if (timestamp != null) {
             if (isNotBlank(timestamp.getHashChainResult())) { // batch ts
@@ -173,6 +198,22 @@ public class AsicContainer {
         return get(ENTRY_ASIC_MANIFEST);
     }
 
+    /**
+     * Returns the digest of the attachment read from the container, calculated with the default digest algorithm.
+     * @return digest of the attachment, or null if the container was not read or has no attachment
+     */
+    public byte[] getAttachmentDigest() {
+        if (attachmentDigest == null && attachmentEntry != null) {
+            try (InputStream is = AsicHelper.openEntry(zipFile, attachmentEntry)) {
+                attachmentDigest = AsicHelper.calculateAttachmentDigest(is);
+            } catch (Exception e) {
+                throw translateException(e);
+            }
+        }
+
+        return attachmentDigest;
+    }
+
     /**
      * True if the given file is an attachment.
      * @param fileName the file to check
@@ -188,7 +229,8 @@ public class AsicContainer {
      * @return true if the given file is an entry in this container, false otherwise
      */
     public boolean hasEntry(String fileName) {
-        return entries.containsKey(AsicHelper.stripSlash(fileName));
+        String entryName = AsicHelper.stripSlash(fileName);
+        return entries.containsKey(entryName) || fileEntries.contains(entryName);
     }
 
     /**
@@ -197,7 +239,16 @@ public class AsicContainer {
      * @return input stream containing the data for the entry with the given filename
      */
     public InputStream getEntry(String fileName) {
-        String data = get(AsicHelper.stripSlash(fileName));
+        String entryName = AsicHelper.stripSlash(fileName);
+        if (fileEntries.contains(entryName)) {
+            try {
+                return AsicHelper.openEntry(zipFile, entryName);
+            } catch (Exception e) {
+                throw translateException(e);
+            }
+        }
+
+        String data = get(entryName);
         return data != null ? new ByteArrayInputStream(
                 data.getBytes(StandardCharsets.UTF_8)) : null;
     }
@@ -221,6 +272,18 @@ public class AsicContainer {
         return AsicHelper.read(is);
     }
 
+    /**
+     * Create a ASiC container from the given file. Only the ZIP central directory and the small entries are
+     * read, the message and the attachment are read from the file when they are needed. The file is kept open
+     * until the container is closed, and it must not be changed while the container is in use.
+     * @param file the container ZIP file
+     * @return the ASiC container that was read from the file
+     * @throws Exception if errors occurred when reading ZIP entries from the file
+     */
+    public static AsicContainer read(Path file) throws Exception {
+        return AsicHelper.read(file);
+    }
+
     /**
      * Write this container to the given output stream in ZIP format.
      * @param out the stream for writing container
@@ -232,6 +295,18 @@ public class AsicContainer {
         }
     }
 
+    /**
+     * Closes the container file, if the container was read from a file. Streams of the entries that were
+     * opened from the file are closed as well.
+     * @throws IOException if closing the file fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (zipFile != null) {
+            zipFile.close();
+        }
+    }
+
     private void createManifests() throws Exception {
         createOpenDocumentManifest();
         createAsicManifest();
@@ -273,7 +348,13 @@ public class AsicContainer {
 
     private void verifyContents() throws Exception {
         AsicHelper.verifyMimeType(get(ENTRY_MIMETYPE));
-        AsicHelper.verifyMessage(get(ENTRY_MESSAGE));
+        if (fileEntries.contains(ENTRY_MESSAGE)) {
+            try (InputStream message = getEntry(ENTRY_MESSAGE)) {
+                AsicHelper.verifyMessage(message);
+            }
+        } else {
+            AsicHelper.verifyMessage(get(ENTRY_MESSAGE));
+        }
         AsicHelper.verifySignature(get(ENTRY_SIGNATURE),
                 get(ENTRY_SIG_HASH_CHAIN_RESULT), get(ENTRY_SIG_HASH_CHAIN));
 
@@ -288,7 +369,15 @@ public class AsicContainer {
             case ENTRY_TIMESTAMP:
                 return getTimestampValueBase64();
             default:
-                return entries.get(entryName);
+                return fileEntries.contains(entryName) ? readFileEntry(entryName) : entries.get(entryName);
+        }
+    }
+
+    private String readFileEntry(String entryName) {
+        try (InputStream is = AsicHelper.openEntry(zipFile, entryName)) {
+            return AsicHelper.getData(is);
+        } catch (Exception e) {
+            throw translateException(e);
         }
     }
 
@@ -47,6 +47,7 @@ import ee.ria.xroad.common.util.MimeTypes;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.IOUtils;
 import org.apache.xml.security.signature.XMLSignatureInput;
 import org.apache.xml.security.utils.resolver.ResourceResolverContext;
 import org.apache.xml.security.utils.resolver.ResourceResolverException;
@@ -59,10 +60,11 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.tsp.TimeStampToken;
 
 import java.io.ByteArrayInputStream;
-import java.io.FileInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.security.Security;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
@@ -74,20 +76,20 @@ import java.util.Map;
 
 import static ee.ria.xroad.common.ErrorCodes.X_INVALID_SOAP;
 import static ee.ria.xroad.common.ErrorCodes.X_MALFORMED_SIGNATURE;
+import static ee.ria.xroad.common.asic.AsicContainerEntries.ENTRY_MESSAGE;
 import static ee.ria.xroad.common.asic.AsicContainerEntries.ENTRY_TIMESTAMP;
 import static ee.ria.xroad.common.asic.AsicContainerEntries.ENTRY_TS_HASH_CHAIN_RESULT;
 import static ee.ria.xroad.common.util.CryptoUtils.decodeBase64;
 import static ee.ria.xroad.common.util.CryptoUtils.encodeHex;
 import static ee.ria.xroad.common.util.MessageFileNames.MESSAGE;
 import static ee.ria.xroad.common.util.MessageFileNames.SIG_HASH_CHAIN_RESULT;
-import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
- * Controls the validity of ASiC containers.
+ * Controls the validity of ASiC containers. The verifier closes the container when it is closed.
  */
 @Getter(AccessLevel.PUBLIC)
 @RequiredArgsConstructor(access = AccessLevel.PUBLIC)
-public class AsicContainerVerifier {
+public class AsicContainerVerifier implements Closeable {
 
     static {
         Security.addProvider(new BouncyCastleProvider());
@@ -112,14 +114,13 @@ public class AsicContainerVerifier {
 
     /**
      * Constructs a new ASiC container verifier for the ZIP file with the
-     * given filename. Attempts to verify it's contents.
+     * given filename. Attempts to verify it's contents. The message and
+     * attachment are streamed from the file during verification.
      * @param filename name of the ASiC container ZIP file
      * @throws Exception if the file could not be read
      */
     public AsicContainerVerifier(String filename) throws Exception {
-        try (FileInputStream in = new FileInputStream(filename)) {
-            asic = AsicContainer.read(in);
-        }
+        asic = AsicContainer.read(Paths.get(filename));
     }
 
     /**
@@ -127,10 +128,9 @@ public class AsicContainerVerifier {
      * @throws Exception if verification was unsuccessful
      */
     public void verify() throws Exception {
-        String message = asic.getMessage();
         SignatureData signatureData = asic.getSignature();
         signature = new Signature(signatureData.getSignatureXml());
-        signerName = getSigner(message);
+        signerName = getSigner();
 
         SignatureVerifier signatureVerifier =
                 new SignatureVerifier(signature,
@@ -159,6 +159,15 @@ public class AsicContainerVerifier {
                 (BasicOCSPResp) ocsp.getResponseObject());
     }
 
+    /**
+     * Closes the verified container and the entry streams the verification opened from it.
+     * @throws IOException if closing the container fails
+     */
+    @Override
+    public void close() throws IOException {
+        asic.close();
+    }
+
     private void verifyRequiredReferencesExist() throws Exception {
         if (!signature.references(MESSAGE)
                 && !signature.references(SIG_HASH_CHAIN_RESULT)) {
@@ -239,13 +248,10 @@ public class AsicContainerVerifier {
                 (ASN1Sequence) ASN1Sequence.fromByteArray(tsDerDecoded)));
     }
 
-    private static ClientId getSigner(String messageXml) {
-        final byte[] messageBytes = messageXml.getBytes(UTF_8);
-
-        try {
+    private ClientId getSigner() throws IOException {
+        try (InputStream message = asic.getEntry(ENTRY_MESSAGE)) {
             Soap soap = new SaxSoapParserImpl().parse(
-                    MimeTypes.TEXT_XML_UTF8,
-                    new ByteArrayInputStream(messageBytes));
+                    MimeTypes.TEXT_XML_UTF8, message);
             if (!(soap instanceof SoapMessageImpl)) {
                 throw new RuntimeException("Unexpected SOAP: " + soap.getClass());
             }
@@ -254,8 +260,9 @@ public class AsicContainerVerifier {
                     ? msg.getClient() : msg.getService().getClientId();
         } catch (CodedException ce) {
             if (X_INVALID_SOAP.equals(ce.getFaultCode())) {
-                try {
-                    final RestMessage restMessage = RestMessage.of(messageBytes);
+                // REST messages contain only the request line and headers, the body is an attachment
+                try (InputStream message = asic.getEntry(ENTRY_MESSAGE)) {
+                    final RestMessage restMessage = RestMessage.of(IOUtils.toByteArray(message));
                     return restMessage.getSender();
                 } catch (Exception e) {
                     throw new RuntimeException("Invalid message", e);
@@ -32,13 +32,20 @@ import ee.ria.xroad.common.util.CryptoUtils;
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.operator.DigestCalculator;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -83,22 +90,11 @@ final class AsicHelper {
         while ((zipEntry = zip.getNextEntry()) != null) {
             for (Object expectedEntry : AsicContainerEntries.getALL_ENTRIES()) {
                 if (matches(expectedEntry, zipEntry.getName())) {
-                    String data;
-
-                    if (ENTRY_TIMESTAMP.equalsIgnoreCase(zipEntry.getName())) {
-                        data = encodeBase64(getBinaryData(zip));
-                    } else {
-                        data = getData(zip);
-                    }
-
-                    entries.put(zipEntry.getName(), data);
+                    entries.put(zipEntry.getName(), readEntry(zipEntry.getName(), zip));
 
                     break;
                 } else if (matches(ENTRY_ATTACHMENT + "1", zipEntry.getName())) {
-                    final DigestCalculator digest =
-                            CryptoUtils.createDigestCalculator(CryptoUtils.DEFAULT_DIGEST_ALGORITHM_ID);
-                    IOUtils.copy(zip, digest.getOutputStream());
-                    attachmentDigest = digest.getDigest();
+                    attachmentDigest = calculateAttachmentDigest(zip);
                     break;
                 }
             }
@@ -107,6 +103,81 @@ final class AsicHelper {
         return new AsicContainer(entries, attachmentDigest);
     }
 
+    /**
+     * Reads the container from the central directory of the given ZIP file. The message and the attachment
+     * are not read, they are opened from the file when needed. The file is kept open by the returned
+     * container until the container is closed.
+     */
+    static AsicContainer read(Path file) throws Exception {
+        Map<String, String> entries = new HashMap<>();
+        Set<String> fileEntries = new HashSet<>();
+        String attachmentEntry = null;
+
+        ZipFile zip;
+        try {
+            zip = new ZipFile(file.toFile());
+        } catch (ZipException e) {
+            // like a stream that is not a ZIP, the file is verified as a container without entries
+            return new AsicContainer(new HashMap<>());
+        }
+
+        try {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+
+                for (Object expectedEntry : AsicContainerEntries.getALL_ENTRIES()) {
+                    if (matches(expectedEntry, zipEntry.getName())) {
+                        if (ENTRY_MESSAGE.equalsIgnoreCase(zipEntry.getName())) {
+                            fileEntries.add(zipEntry.getName());
+                        } else {
+                            try (InputStream is = zip.getInputStream(zipEntry)) {
+                                entries.put(zipEntry.getName(), readEntry(zipEntry.getName(), is));
+                            }
+                        }
+
+                        break;
+                    } else if (matches(ENTRY_ATTACHMENT + "1", zipEntry.getName())) {
+                        attachmentEntry = zipEntry.getName();
+                        break;
+                    }
+                }
+            }
+
+            return new AsicContainer(entries, zip, fileEntries, attachmentEntry);
+        } catch (Exception e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an entry of the given ZIP file. The stream is also closed when the ZIP file is closed.
+     */
+    static InputStream openEntry(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            throw new FileNotFoundException(name);
+        }
+        return zip.getInputStream(entry);
+    }
+
+    static byte[] calculateAttachmentDigest(InputStream attachment) throws Exception {
+        final DigestCalculator digest =
+                CryptoUtils.createDigestCalculator(CryptoUtils.DEFAULT_DIGEST_ALGORITHM_ID);
+        IOUtils.copy(attachment, digest.getOutputStream());
+        return digest.getDigest();
+    }
+
+    private static String readEntry(String name, InputStream is) throws Exception {
+        if (ENTRY_TIMESTAMP.equalsIgnoreCase(name)) {
+            return encodeBase64(getBinaryData(is));
+        } else {
+            return getData(is);
+        }
+    }
+
     static void write(AsicContainer asic, ZipOutputStream zip) throws Exception {
         zip.setComment("mimetype=" + MIMETYPE);
 
@@ -172,6 +243,18 @@ final class AsicHelper {
         }
     }
 
+    static void verifyMessage(InputStream message) throws IOException {
+        int b;
+        // reads only up to the first character that is not whitespace
+        while ((b = message.read()) != -1) {
+            if (!Character.isWhitespace(b)) {
+                return;
+            }
+        }
+
+        throw fileEmptyException(X_ASIC_MESSAGE_NOT_FOUND, ENTRY_MESSAGE);
+    }
+
     static void verifySignature(String signature, String hashChainResult, String hashChain) {
         if (isBlank(signature)) {
             throw fileEmptyException(X_ASIC_SIGNATURE_NOT_FOUND, ENTRY_SIGNATURE);
@@ -215,12 +298,12 @@ final class AsicHelper {
         }
     }
 
-    private static String getData(ZipInputStream zip) throws Exception {
-        return IOUtils.toString(zip, StandardCharsets.UTF_8);
+    static String getData(InputStream is) throws IOException {
+        return IOUtils.toString(is, StandardCharsets.UTF_8);
     }
 
-    private static byte[] getBinaryData(ZipInputStream zip) throws Exception {
-        return IOUtils.toByteArray(zip);
+    private static byte[] getBinaryData(InputStream is) throws IOException {
+        return IOUtils.toByteArray(is);
     }
 
     private static void addEntry(ZipOutputStream zip, String name, String data) throws IOException {
@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.asic;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static ee.ria.xroad.common.asic.AsicContainerEntries.ENTRY_MESSAGE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests to verify that ASiC containers read from files release the files when closed.
+ */
+public class AsicContainerFileTest {
+
+    private static final Path CONTAINER = Paths.get("src/test/resources/valid-signed-message.asice");
+    private static final int CONTAINER_COUNT = 2000;
+
+    /**
+     * Test to ensure that many containers can be read in a row when the entry streams are left open,
+     * as the signature resolvers of the verifier do.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void readManyContainersInRow() throws Exception {
+        String expectedMessage;
+        try (AsicContainer asic = AsicContainer.read(CONTAINER)) {
+            expectedMessage = asic.getMessage();
+        }
+
+        for (int i = 0; i < CONTAINER_COUNT; i++) {
+            try (AsicContainer asic = AsicContainer.read(CONTAINER)) {
+                InputStream message = asic.getEntry(ENTRY_MESSAGE);
+                assertEquals(expectedMessage, IOUtils.toString(message, StandardCharsets.UTF_8));
+                asic.getEntry(ENTRY_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Test to ensure that closing the container closes the entry streams opened from it.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void closeContainerClosesEntryStreams() throws Exception {
+        InputStream message;
+        try (AsicContainer asic = AsicContainer.read(CONTAINER)) {
+            message = asic.getEntry(ENTRY_MESSAGE);
+        }
+
+        try {
+            message.read();
+            fail("Entry stream should be closed with the container");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
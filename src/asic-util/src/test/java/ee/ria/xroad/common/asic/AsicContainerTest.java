@@ -27,6 +27,7 @@ package ee.ria.xroad.common.asic;
 
 import ee.ria.xroad.common.ExpectedCodedException;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -34,12 +35,18 @@ import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
 import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collection;
 
 import static ee.ria.xroad.common.ErrorCodes.X_ASIC_MESSAGE_NOT_FOUND;
 import static ee.ria.xroad.common.ErrorCodes.X_ASIC_MIME_TYPE_NOT_FOUND;
 import static ee.ria.xroad.common.ErrorCodes.X_ASIC_SIGNATURE_NOT_FOUND;
+import static ee.ria.xroad.common.asic.AsicContainerEntries.ENTRY_MESSAGE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 
 /**
  * Tests to verify correct ASiC container loading behavior.
@@ -91,4 +98,26 @@ public class AsicContainerTest {
             AsicContainer.read(in);
         }
     }
+
+    /**
+     * Test to ensure ASiC container reading from a file gives the same result as reading from a stream.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void testReadFile() throws Exception {
+        thrown.expectError(errorCode);
+
+        try (AsicContainer asic = AsicContainer.read(Paths.get("src/test/resources/" + containerFile));
+                FileInputStream in = new FileInputStream("src/test/resources/" + containerFile)) {
+            AsicContainer expected = AsicContainer.read(in);
+
+            assertEquals(expected.getMessage(), asic.getMessage());
+            assertEquals(expected.getSignature().getSignatureXml(), asic.getSignature().getSignatureXml());
+            assertArrayEquals(expected.getAttachmentDigest(), asic.getAttachmentDigest());
+
+            try (InputStream message = asic.getEntry("/" + ENTRY_MESSAGE)) {
+                assertEquals(expected.getMessage(), IOUtils.toString(message, StandardCharsets.UTF_8));
+            }
+        }
+    }
 }
@@ -39,8 +39,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -49,6 +58,8 @@ import java.util.zip.ZipInputStream;
  */
 public final class AsicVerifierMain {
 
+    private static final String BATCH_OPTION = "--batch";
+
     private AsicVerifierMain() {
     }
 
@@ -60,6 +71,9 @@ public final class AsicVerifierMain {
     public static void main(String[] args) {
         if (args.length == 1 && "--version".equals(args[0])) {
             showVersion();
+        } else if (args.length == 3 && BATCH_OPTION.equals(args[1])) {
+            loadConf(args[0]);
+            verifyBatch(Paths.get(args[2]));
         } else if (args.length != 2) {
             showUsage();
         } else {
@@ -92,9 +106,7 @@ public final class AsicVerifierMain {
     private static void verifyAsic(String fileName) {
         System.out.println("Verifying ASiC container \"" + fileName + "\" ...");
 
-        AsicContainerVerifier verifier = null;
-        try {
-            verifier = new AsicContainerVerifier(fileName);
+        try (AsicContainerVerifier verifier = new AsicContainerVerifier(fileName)) {
             verifier.verify();
 
             onVerificationSucceeded(verifier);
@@ -104,6 +116,100 @@ public final class AsicVerifierMain {
         extractMessage(fileName);
     }
 
+    /**
+     * Verifies the containers in a directory, or in an archive of containers such as a message log archive,
+     * in parallel and prints a summary of the results.
+     */
+    private static void verifyBatch(Path path) {
+        System.out.println("Verifying ASiC containers in \"" + path + "\" ...");
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Path tempDir = null;
+        try {
+            List<Path> containers;
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    containers = files.filter(AsicVerifierMain::isContainer).sorted().collect(Collectors.toList());
+                }
+            } else {
+                // containers are verified from files, since reading them needs random access
+                tempDir = Files.createTempDirectory("asicverifier");
+                containers = extractContainers(path, tempDir);
+            }
+
+            List<Future<String>> results = new ArrayList<>();
+            for (Path container : containers) {
+                results.add(executor.submit(() -> verifyBatchContainer(container)));
+            }
+
+            int failed = 0;
+            for (int i = 0; i < results.size(); i++) {
+                String failure = results.get(i).get();
+                if (failure != null) {
+                    failed++;
+                    System.err.println(containers.get(i).getFileName() + ": " + failure);
+                }
+            }
+
+            System.out.println("Verified " + containers.size() + " containers: "
+                    + (containers.size() - failed) + " successful, " + failed + " failed");
+        } catch (IOException | ExecutionException e) {
+            System.err.println("Unable to verify containers: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            deleteTempDir(tempDir);
+        }
+    }
+
+    /**
+     * @return null if the container is valid, otherwise the reason of the failure
+     */
+    private static String verifyBatchContainer(Path container) {
+        try (AsicContainerVerifier verifier = new AsicContainerVerifier(container.toString())) {
+            verifier.verify();
+            return null;
+        } catch (Exception e) {
+            return AsicUtils.buildFailureOutput(e);
+        }
+    }
+
+    private static List<Path> extractContainers(Path archive, Path targetDir) throws IOException {
+        List<Path> containers = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                Path name = Paths.get(entry.getName()).getFileName();
+                if (!entry.isDirectory() && name != null && isContainer(name)) {
+                    // entry names are not used as paths, so that an archive cannot write outside the directory
+                    Path container = targetDir.resolve(String.format("%06d-%s", containers.size(), name));
+                    Files.copy(zis, container);
+                    containers.add(container);
+                }
+            }
+        }
+        return containers;
+    }
+
+    private static boolean isContainer(Path file) {
+        return file.getFileName().toString().endsWith(".asice");
+    }
+
+    private static void deleteTempDir(Path tempDir) {
+        if (tempDir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(tempDir);
+        } catch (IOException e) {
+            System.err.println("Unable to delete temporary directory " + tempDir);
+        }
+    }
+
     @SuppressWarnings("resource")
     private static void onVerificationSucceeded(AsicContainerVerifier verifier) {
         System.out.println(AsicUtils.buildSuccessOutput(verifier));
@@ -145,7 +251,8 @@ public final class AsicVerifierMain {
     }
 
     private static void showUsage() {
-        System.out.println("Usage: java -jar asicverifier.jar ( --version | <configuration path> <asic container> )");
+        System.out.println("Usage: java -jar asicverifier.jar ( --version | <configuration path> <asic container>"
+                + " | <configuration path> " + BATCH_OPTION + " <directory or archive of asic containers> )");
     }
 
     private static void showVersion() {
@@ -114,7 +114,8 @@ public class AsicContainerVerifierTest {
     }
 
     private static void verify(String fileName) throws Exception {
-        AsicContainerVerifier verifier = new AsicContainerVerifier("src/test/resources/" + fileName);
-        verifier.verify();
+        try (AsicContainerVerifier verifier = new AsicContainerVerifier("src/test/resources/" + fileName)) {
+            verifier.verify();
+        }
     }
 }
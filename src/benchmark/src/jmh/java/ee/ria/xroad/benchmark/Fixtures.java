@@ -0,0 +1,85 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+/**
+ * Resolves the fixtures the benchmarks share with the unit tests of the benchmarked modules.
+ */
+final class Fixtures {
+
+    /** Source tree root, set by the jmh task. Defaults to the parent of the benchmark module. */
+    static final String SOURCE_ROOT = "xroad.benchmark.source-root";
+
+    static final String GLOBALCONF_DIR = "common-util/src/test/resources/globalconf_good_v2";
+    static final String CONFIGURATION_ANCHOR = "common-util/src/test/resources/configuration-anchor1.xml";
+    static final String SIGNATURE = "common-test/src/test/signatures/sign-0.xml";
+    static final String SIGNED_MESSAGE = "common-test/src/test/signatures/message-0.xml";
+    static final String SERVERCONF_DB_PROPERTIES = "serverconf/src/test/resources/hibernate.properties";
+    static final String SIMPLE_QUERY = "proxy/src/test/queries/simple.query";
+
+    private Fixtures() {
+    }
+
+    static Path path(String fixture) {
+        return Paths.get(System.getProperty(SOURCE_ROOT, ".."), fixture).toAbsolutePath().normalize();
+    }
+
+    static String pathString(String fixture) {
+        return path(fixture).toString();
+    }
+
+    static byte[] read(String fixture) throws IOException {
+        return Files.readAllBytes(path(fixture));
+    }
+
+    /**
+     * Returns the simple test query with the request element padded to roughly the given size, so that the
+     * parsers can be measured with realistic bodies as well as with the bare fixture.
+     */
+    static byte[] simpleQuery(int payloadKiB) throws IOException {
+        String query = new String(read(SIMPLE_QUERY), StandardCharsets.UTF_8);
+
+        if (payloadKiB <= 0) {
+            return query.getBytes(StandardCharsets.UTF_8);
+        }
+
+        String item = "<item>" + String.join("", Collections.nCopies(50, "0123456789")) + "</item>";
+        StringBuilder payload = new StringBuilder("<request>");
+
+        while (payload.length() < payloadKiB * 1024) {
+            payload.append(item);
+        }
+
+        return query.replace("<request>", payload).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.conf.globalconf.ConfigurationDirectoryV2;
+import ee.ria.xroad.common.conf.globalconf.GlobalConfImpl;
+import ee.ria.xroad.common.identifier.CentralServiceId;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the global configuration lookups made by the proxies for every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalConfBenchmark {
+
+    private static final ClientId CONSUMER = ClientId.create("EE", "BUSINESS", "consumer");
+    private static final ClientId PRODUCER = ClientId.create("EE", "BUSINESS", "producer");
+    private static final ClientId SUBSYSTEM = ClientId.create("EE", "BUSINESS", "foo", "foosubsystem");
+    private static final CentralServiceId CENTRAL_SERVICE = CentralServiceId.create("EE", "central1");
+    private static final SecurityServerId SERVER =
+            SecurityServerId.create("EE", "BUSINESS", "producer", "producerServerCode");
+
+    private GlobalConfImpl globalConf;
+
+    @Setup
+    public void setUp() throws Exception {
+        String path = Fixtures.pathString(Fixtures.GLOBALCONF_DIR);
+        System.setProperty(SystemProperties.CONFIGURATION_PATH, path);
+
+        globalConf = new GlobalConfImpl(new ConfigurationDirectoryV2(path));
+    }
+
+    @Benchmark
+    public Collection<String> getProviderAddress() {
+        return globalConf.getProviderAddress(PRODUCER);
+    }
+
+    @Benchmark
+    public boolean isSecurityServerClient() {
+        return globalConf.isSecurityServerClient(SUBSYSTEM, SERVER);
+    }
+
+    @Benchmark
+    public String getSecurityServerAddress() {
+        return globalConf.getSecurityServerAddress(SERVER);
+    }
+
+    @Benchmark
+    public String getMemberName() {
+        return globalConf.getMemberName(CONSUMER);
+    }
+
+    @Benchmark
+    public ServiceId getServiceId() {
+        return globalConf.getServiceId(CENTRAL_SERVICE);
+    }
+}
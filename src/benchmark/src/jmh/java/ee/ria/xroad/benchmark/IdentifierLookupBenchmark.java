@@ -0,0 +1,130 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.IdentifierInterner;
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures map and cache lookups with X-Road identifiers, comparing freshly created identifiers
+ * (as parsed from every message) to interned identifiers. Each operation is one client lookup and
+ * one service lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdentifierLookupBenchmark {
+
+    private static final int MEMBERS = 1000;
+
+    private final Map<ClientId, Integer> clientMap = new HashMap<>();
+    private final Cache<ServiceId, Integer> serviceCache = CacheBuilder.newBuilder().build();
+
+    private final ClientId[] internedClients = new ClientId[MEMBERS];
+    private final ServiceId[] internedServices = new ServiceId[MEMBERS];
+
+    private final ClientId[] freshClients = new ClientId[MEMBERS];
+    private final ServiceId[] freshServices = new ServiceId[MEMBERS];
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < MEMBERS; i++) {
+            ClientId client = IdentifierInterner.intern(client(i));
+            clientMap.put(client, i);
+            serviceCache.put(IdentifierInterner.intern(service(i)), i);
+
+            internedClients[i] = IdentifierInterner.intern(client(i));
+            internedServices[i] = IdentifierInterner.intern(service(i));
+        }
+    }
+
+    /**
+     * Fresh identifiers have not computed their hash codes yet, as is the case with parsed messages.
+     */
+    @Setup(Level.Invocation)
+    public void createFreshIdentifiers() {
+        for (int i = 0; i < MEMBERS; i++) {
+            freshClients[i] = client(i);
+            freshServices[i] = service(i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS)
+    public int freshIdentifiers() {
+        return lookup(freshClients, freshServices);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS)
+    public int internedIdentifiers() {
+        return lookup(internedClients, internedServices);
+    }
+
+    private int lookup(ClientId[] clients, ServiceId[] services) {
+        int found = 0;
+        for (int i = 0; i < MEMBERS; i++) {
+            if (clientMap.get(clients[i]) != null) {
+                found++;
+            }
+            if (serviceCache.getIfPresent(services[i]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static ClientId client(int i) {
+        return ClientId.create("EE", i % 2 == 0 ? "GOV" : "COM", "member" + i, "subsystem" + i);
+    }
+
+    private static ServiceId service(int i) {
+        return ServiceId.create(client(i), "getState", "v1");
+    }
+}
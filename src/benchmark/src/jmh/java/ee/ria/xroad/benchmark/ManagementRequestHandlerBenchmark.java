@@ -0,0 +1,152 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import ee.ria.xroad.common.ManagementRequestTestUtils;
+import ee.ria.xroad.common.ManagementRequestTestUtils.SignedRequest;
+import ee.ria.xroad.common.OcspTestUtils;
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.TestCertUtil;
+import ee.ria.xroad.common.TestSecurityUtil;
+import ee.ria.xroad.common.certificateprofile.SignCertificateProfileInfo;
+import ee.ria.xroad.common.certificateprofile.impl.EjbcaSignCertificateProfileInfo;
+import ee.ria.xroad.common.conf.globalconf.EmptyGlobalConf;
+import ee.ria.xroad.common.conf.globalconf.GlobalConf;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+import ee.ria.xroad.common.request.ManagementRequestHandler;
+
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures reading and verifying client registration requests in the central server, as during a registration
+ * campaign where one member registers many subsystems. The requests are signed locally with the test keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManagementRequestHandlerBenchmark {
+
+    private static final ClientId MANAGEMENT_SERVICE = ClientId.create("EE", "GOV", "central");
+    private static final ClientId MEMBER = ClientId.create("EE", "Cybernetica", "consumer");
+    private static final SecurityServerId SECURITY_SERVER = SecurityServerId.create(MEMBER, "server");
+
+    private static final int REQUEST_COUNT = 1000;
+
+    /**
+     * Cache period of verified member certificates in seconds, 0 verifies the certificate for every request.
+     * Every parameter value runs in its own fork, so the value is in effect when the handler is loaded.
+     */
+    @Param({"0", "60"})
+    public String verifiedCertCachePeriod;
+
+    private final List<SignedRequest> requests = new ArrayList<>(REQUEST_COUNT);
+    private final AtomicInteger nextRequest = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws Exception {
+        TestSecurityUtil.initSecurity();
+
+        System.setProperty(SystemProperties.CENTER_VERIFIED_CERT_CACHE_PERIOD, verifiedCertCachePeriod);
+
+        GlobalConf.reload(new EmptyGlobalConf() {
+            @Override
+            public String getInstanceIdentifier() {
+                return MEMBER.getXRoadInstance();
+            }
+
+            @Override
+            public X509Certificate getCaCert(String instanceIdentifier, X509Certificate orgCert) {
+                return TestCertUtil.getCaCert();
+            }
+
+            @Override
+            public SignCertificateProfileInfo getSignCertificateProfileInfo(
+                    SignCertificateProfileInfo.Parameters parameters, X509Certificate cert) {
+                return new EjbcaSignCertificateProfileInfo(parameters);
+            }
+        });
+
+        TestCertUtil.PKCS12 member = TestCertUtil.getConsumer();
+        TestCertUtil.PKCS12 ocspSigner = TestCertUtil.getOcspSigner();
+
+        // a security server sends the same OCSP response with all requests until it is refreshed
+        byte[] ocsp = OcspTestUtils.createOCSPResponse(member.certChain[0], TestCertUtil.getCaCert(),
+                ocspSigner.certChain[0], ocspSigner.key, CertificateStatus.GOOD).getEncoded();
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            ClientId subsystem = ClientId.create(MEMBER.getXRoadInstance(), MEMBER.getMemberClass(),
+                    MEMBER.getMemberCode(), "subsystem" + i);
+
+            requests.add(ManagementRequestTestUtils.createClientRegRequest(MANAGEMENT_SERVICE, SECURITY_SERVER,
+                    subsystem, member, ocsp));
+        }
+    }
+
+    @Benchmark
+    public SoapMessageImpl readClientRegRequest() throws Exception {
+        return readNextRequest();
+    }
+
+    /**
+     * The central server handles management requests of different security servers in parallel.
+     */
+    @Benchmark
+    @Threads(4)
+    public SoapMessageImpl readClientRegRequestConcurrently() throws Exception {
+        return readNextRequest();
+    }
+
+    private SoapMessageImpl readNextRequest() throws Exception {
+        SignedRequest request = requests.get(Math.floorMod(nextRequest.getAndIncrement(), REQUEST_COUNT));
+
+        return ManagementRequestHandler.readRequest(request.getContentType(),
+                new ByteArrayInputStream(request.getContent()));
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+import ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataRequest;
+import ee.ria.xroad.common.util.JsonUtils;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting and serialising operational monitoring records the way the proxy buffer sends them
+ * to the operational monitoring daemon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpMonitoringDataBenchmark {
+
+    private static final Gson GSON = JsonUtils.getSerializer();
+
+    private static final ClientId CLIENT = ClientId.create("EE", "BUSINESS", "consumer", "subsystem");
+    private static final ServiceId SERVICE =
+            ServiceId.create(ClientId.create("EE", "BUSINESS", "producer", "subsystem"), "getRandom", "v1");
+
+    /** Number of records per message; the proxy sends at most 100 by default. */
+    @Param({"1", "100"})
+    public int recordCount;
+
+    private List<OpMonitoringData> records;
+
+    @Setup
+    public void setUp() {
+        records = new ArrayList<>(recordCount);
+
+        for (int i = 0; i < recordCount; i++) {
+            records.add(createRecord(i));
+        }
+    }
+
+    @Benchmark
+    public OpMonitoringData collect() {
+        return createRecord(0);
+    }
+
+    @Benchmark
+    public String serialize() {
+        StoreOpMonitoringDataRequest request = new StoreOpMonitoringDataRequest();
+
+        for (OpMonitoringData record : records) {
+            request.addRecord(record.getData());
+        }
+
+        return GSON.toJson(request);
+    }
+
+    private static OpMonitoringData createRecord(int index) {
+        long now = System.currentTimeMillis();
+
+        OpMonitoringData data = new OpMonitoringData(OpMonitoringData.SecurityServerType.PRODUCER, now);
+        data.setSecurityServerInternalIp("10.0.0.1");
+        data.setClientId(CLIENT);
+        data.setServiceId(SERVICE);
+        data.setMessageId("message-" + index);
+        data.setMessageUserId("EE37702211234");
+        data.setMessageIssue("issue");
+        data.setMessageProtocolVersion("4.0");
+        data.setClientSecurityServerAddress("client.example.org");
+        data.setServiceSecurityServerAddress("service.example.org");
+        data.setRequestOutTs(now + 1);
+        data.setResponseInTs(now + 20);
+        data.setResponseOutTs(now + 21, false);
+        data.setRequestSize(1024);
+        data.setResponseSize(2048);
+        data.setRequestMimeSize(1200);
+        data.setResponseMimeSize(2300);
+        data.setRequestAttachmentCount(0);
+        data.setResponseAttachmentCount(1);
+        data.setSucceeded(true);
+        data.setServiceType("WSDL");
+
+        return data;
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import ee.ria.xroad.common.message.SaxSoapParserImpl;
+import ee.ria.xroad.common.message.SoapFault;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+import ee.ria.xroad.common.signature.SignatureData;
+import ee.ria.xroad.common.util.CryptoUtils;
+import ee.ria.xroad.common.util.MimeTypes;
+import ee.ria.xroad.proxy.protocol.ProxyMessageConsumer;
+import ee.ria.xroad.proxy.protocol.ProxyMessageDecoder;
+import ee.ria.xroad.proxy.protocol.ProxyMessageEncoder;
+
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding the multipart message exchanged between the client and server proxies:
+ * a SOAP message followed by one attachment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProxyMessageCodecBenchmark {
+
+    private static final String HASH_ALGO_ID = CryptoUtils.DEFAULT_DIGEST_ALGORITHM_ID;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    @Param({"0", "64", "1024"})
+    public int attachmentKiB;
+
+    private SoapMessageImpl soap;
+    private byte[] attachment;
+
+    private byte[] encoded;
+    private String encodedContentType;
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() throws Exception {
+        soap = (SoapMessageImpl) new SaxSoapParserImpl().parse(MimeTypes.TEXT_XML_UTF8,
+                new ByteArrayInputStream(Fixtures.simpleQuery(0)));
+
+        attachment = new byte[attachmentKiB * 1024];
+        new Random(attachmentKiB).nextBytes(attachment);
+
+        encodedContentType = encode();
+        encoded = out.toByteArray();
+    }
+
+    @Benchmark
+    public String encode() throws Exception {
+        out.reset();
+
+        ProxyMessageEncoder encoder = new ProxyMessageEncoder(out, HASH_ALGO_ID);
+        encoder.soap(soap, Collections.emptyMap());
+
+        if (attachment.length > 0) {
+            encoder.attachment(MimeTypes.BINARY, new ByteArrayInputStream(attachment), Collections.emptyMap());
+        }
+
+        encoder.close();
+
+        return encoder.getContentType();
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws Exception {
+        ProxyMessageDecoder decoder = new ProxyMessageDecoder(new DrainingConsumer(blackhole),
+                encodedContentType, HASH_ALGO_ID);
+
+        decoder.parse(new ByteArrayInputStream(encoded));
+    }
+
+    /**
+     * Reads every part to the end, as the server proxy does when forwarding the message.
+     */
+    private final class DrainingConsumer implements ProxyMessageConsumer {
+        private final Blackhole blackhole;
+
+        DrainingConsumer(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void soap(SoapMessageImpl message, Map<String, String> additionalHeaders) {
+            blackhole.consume(message);
+        }
+
+        @Override
+        public void restBody(InputStream content) throws Exception {
+            drain(content);
+        }
+
+        @Override
+        public void attachment(String contentType, InputStream content, Map<String, String> additionalHeaders)
+                throws Exception {
+            drain(content);
+        }
+
+        @Override
+        public void ocspResponse(OCSPResp resp) {
+            blackhole.consume(resp);
+        }
+
+        @Override
+        public void signature(SignatureData signature) {
+            blackhole.consume(signature);
+        }
+
+        @Override
+        public void fault(SoapFault fault) {
+            blackhole.consume(fault);
+        }
+
+        private void drain(InputStream content) throws Exception {
+            int count;
+
+            while ((count = content.read(readBuffer)) != -1) {
+                blackhole.consume(count);
+            }
+        }
+    }
+}
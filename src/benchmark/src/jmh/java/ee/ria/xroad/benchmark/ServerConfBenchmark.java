@@ -0,0 +1,182 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.benchmark;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.conf.serverconf.CachingServerConfImpl;
+import ee.ria.xroad.common.conf.serverconf.ServerConfImpl;
+import ee.ria.xroad.common.conf.serverconf.model.AccessRightType;
+import ee.ria.xroad.common.conf.serverconf.model.ClientType;
+import ee.ria.xroad.common.conf.serverconf.model.DescriptionType;
+import ee.ria.xroad.common.conf.serverconf.model.EndpointType;
+import ee.ria.xroad.common.conf.serverconf.model.ServerConfType;
+import ee.ria.xroad.common.conf.serverconf.model.ServiceDescriptionType;
+import ee.ria.xroad.common.conf.serverconf.model.ServiceType;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.identifier.XRoadId;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static ee.ria.xroad.common.conf.serverconf.ServerConfDatabaseCtx.doInTransaction;
+
+/**
+ * Measures the access right check the server proxy makes for every request, against an in-memory
+ * server configuration database. The "direct" implementation queries the database on every call and shows
+ * what a cache miss costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServerConfBenchmark {
+
+    private static final ClientId OWNER = ClientId.create("EE", "BUSINESS", "owner");
+    private static final ClientId PROVIDER = ClientId.create("EE", "BUSINESS", "producer", "provider");
+    private static final ClientId CONSUMER = ClientId.create("EE", "BUSINESS", "consumer", "consumer");
+    private static final ClientId STRANGER = ClientId.create("EE", "BUSINESS", "stranger");
+
+    private static final String SERVICE_CODE = "service";
+    private static final String REST_PATH = "/api/items/42";
+
+    @Param({"caching", "direct"})
+    public String implementation;
+
+    /** Number of services of the provider, each with an access right for a different client. */
+    @Param({"10", "1000"})
+    public int serviceCount;
+
+    private ServerConfImpl serverConf;
+    private ServiceId service;
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty(SystemProperties.DATABASE_PROPERTIES,
+                Fixtures.pathString(Fixtures.SERVERCONF_DB_PROPERTIES));
+
+        doInTransaction(session -> {
+            session.save(createServerConf(session));
+            return null;
+        });
+
+        serverConf = "caching".equals(implementation) ? new CachingServerConfImpl() : new ServerConfImpl();
+        service = ServiceId.create(PROVIDER, SERVICE_CODE + (serviceCount - 1));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        doInTransaction(session -> {
+            session.createSQLQuery("TRUNCATE SCHEMA public AND COMMIT").executeUpdate();
+            return null;
+        });
+    }
+
+    @Benchmark
+    public boolean isQueryAllowed() {
+        return serverConf.isQueryAllowed(CONSUMER, service, null, null);
+    }
+
+    @Benchmark
+    public boolean isRestQueryAllowed() {
+        return serverConf.isQueryAllowed(CONSUMER, service, "GET", REST_PATH);
+    }
+
+    @Benchmark
+    public boolean isQueryDenied() {
+        return serverConf.isQueryAllowed(STRANGER, service, null, null);
+    }
+
+    private ServerConfType createServerConf(Session session) {
+        ServerConfType conf = new ServerConfType();
+        conf.setServerCode("benchmark");
+
+        ClientType owner = createClient(conf, OWNER);
+        conf.setOwner(owner);
+
+        ClientType provider = createClient(conf, PROVIDER);
+
+        ServiceDescriptionType description = new ServiceDescriptionType();
+        description.setClient(provider);
+        description.setUrl("http://provider/wsdl");
+        description.setType(DescriptionType.WSDL);
+        provider.getServiceDescription().add(description);
+
+        for (int i = 0; i < serviceCount; i++) {
+            ServiceType serviceType = new ServiceType();
+            serviceType.setServiceDescription(description);
+            serviceType.setServiceCode(SERVICE_CODE + i);
+            serviceType.setUrl("http://provider/service");
+            description.getService().add(serviceType);
+
+            EndpointType endpoint = new EndpointType(serviceType.getServiceCode(), EndpointType.ANY_METHOD,
+                    EndpointType.ANY_PATH, false);
+            session.persist(endpoint);
+            provider.getEndpoint().add(endpoint);
+
+            XRoadId subject = i == serviceCount - 1
+                    ? CONSUMER : ClientId.create("EE", "BUSINESS", "member" + i);
+            provider.getAcl().add(createAccessRight(endpoint, subject));
+        }
+
+        return conf;
+    }
+
+    private static ClientType createClient(ServerConfType conf, ClientId id) {
+        ClientType client = new ClientType();
+        client.setConf(conf);
+        client.setIdentifier(id);
+        client.setClientStatus(ClientType.STATUS_REGISTERED);
+        conf.getClient().add(client);
+
+        return client;
+    }
+
+    private static AccessRightType createAccessRight(EndpointType endpoint, XRoadId subject) {
+        AccessRightType accessRight = new AccessRightType();
+        accessRight.setEndpoint(endpoint);
+        accessRight.setSubjectId(subject);
+        accessRight.setRightsGiven(new Date());
+
+        return accessRight;
+    }
+}
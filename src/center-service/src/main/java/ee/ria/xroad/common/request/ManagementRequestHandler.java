@@ -26,6 +26,7 @@
 package ee.ria.xroad.common.request;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.certificateprofile.impl.SignCertificateProfileInfoParameters;
 import ee.ria.xroad.common.conf.globalconf.GlobalConf;
 import ee.ria.xroad.common.conf.globalconfextension.GlobalConfExtensions;
@@ -38,15 +39,22 @@ import ee.ria.xroad.common.ocsp.OcspVerifier;
 import ee.ria.xroad.common.ocsp.OcspVerifierOptions;
 import ee.ria.xroad.common.util.MimeUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import lombok.Getter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
 import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.SingleResp;
 
 import java.io.InputStream;
 import java.security.Signature;
 import java.security.cert.X509Certificate;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static ee.ria.xroad.common.ErrorCodes.X_CERT_VALIDATION;
 import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
@@ -55,6 +63,8 @@ import static ee.ria.xroad.common.ErrorCodes.X_INVALID_SIGNATURE_VALUE;
 import static ee.ria.xroad.common.ErrorCodes.translateException;
 import static ee.ria.xroad.common.request.ManagementRequests.CLIENT_REG;
 import static ee.ria.xroad.common.request.ManagementRequests.OWNER_CHANGE;
+import static ee.ria.xroad.common.util.CryptoUtils.SHA256_ID;
+import static ee.ria.xroad.common.util.CryptoUtils.hexDigest;
 import static ee.ria.xroad.common.util.CryptoUtils.readCertificate;
 
 /**
@@ -66,6 +76,18 @@ public final class ManagementRequestHandler {
 
     private static final String DUMMY_CLIENT_ID = "dummy";
 
+    private static final int VERIFIED_CERT_CACHE_MAX_SIZE = 10000;
+
+    /**
+     * Member certificates that have been verified against their OCSP responses, keyed by the certificate and
+     * the OCSP response. Security servers send the same certificate and OCSP response with every request until
+     * the response is refreshed, so e.g. registering many subsystems of a member verifies the certificate once.
+     */
+    private static final Cache<String, VerifiedCert> VERIFIED_CERT_CACHE = CacheBuilder.newBuilder()
+            .expireAfterWrite(SystemProperties.getCenterVerifiedCertCachePeriod(), TimeUnit.SECONDS)
+            .maximumSize(VERIFIED_CERT_CACHE_MAX_SIZE)
+            .build();
+
     private ManagementRequestHandler() {
     }
 
@@ -131,15 +153,12 @@ public final class ManagementRequestHandler {
 
         log.info("Verifying owner certificate");
 
-        OCSPResp ownerCertOcsp = new OCSPResp(cb.getOwnerCertOcsp());
-        verifyCertificate(ownerCert, ownerCertOcsp);
+        ClientId idFromCert = verifyCertificate(ownerCert, cb.getOwnerCert(), cb.getOwnerCertOcsp());
 
         // verify that the subject id from the certificate matches the one
         // in the request (server id)
         AuthCertRegRequestType req = ManagementRequestParser.parseAuthCertRegRequest(soap);
 
-        ClientId idFromCert = getClientIdFromCert(ownerCert);
-
         ClientId idFromReq = req.getServer().getOwner();
 
         if (!idFromReq.equals(idFromCert)) {
@@ -175,16 +194,13 @@ public final class ManagementRequestHandler {
 
         log.info("Verifying client certificate");
 
-        OCSPResp clientCertOcsp = new OCSPResp(cb.getClientCertOcsp());
-        verifyCertificate(clientCert, clientCertOcsp);
+        ClientId idFromCert = verifyCertificate(clientCert, cb.getClientCert(), cb.getClientCertOcsp());
 
         // Verify that the subject id from the certificate matches the one
         // in the request (client). The certificate must belong to the member
         // that is used as a client.
         ClientRequestType req = ManagementRequestParser.parseRequest(soap, managementRequestName);
 
-        ClientId idFromCert = getClientIdFromCert(clientCert);
-
         ClientId idFromReq = req.getClient();
 
         // Separate conditions are needed when the client is 1) subsystem and 2) member:
@@ -216,7 +232,15 @@ public final class ManagementRequestHandler {
         );
     }
 
-    private static void verifyCertificate(X509Certificate memberCert, OCSPResp memberCertOcsp) throws Exception {
+    /**
+     * Verifies the member (owner/client) sign certificate against its OCSP response.
+     * A successful verification is reused for the same certificate and OCSP response until the
+     * cache period passes or the OCSP response is no longer fresh, whichever comes first.
+     *
+     * @return the member identifier from the certificate
+     */
+    private static ClientId verifyCertificate(X509Certificate memberCert, byte[] memberCertBytes,
+                                              byte[] memberCertOcspBytes) throws Exception {
         try {
             memberCert.checkValidity();
         } catch (Exception e) {
@@ -224,10 +248,46 @@ public final class ManagementRequestHandler {
                     e.getMessage());
         }
 
+        String cacheKey = hexDigest(SHA256_ID, memberCertBytes) + hexDigest(SHA256_ID, memberCertOcspBytes);
+        VerifiedCert verified = VERIFIED_CERT_CACHE.getIfPresent(cacheKey);
+
+        if (verified == null || !verified.isFreshAt(new Date())) {
+            verified = verifyCertificate(memberCert, new OCSPResp(memberCertOcspBytes));
+            VERIFIED_CERT_CACHE.put(cacheKey, verified);
+        } else {
+            log.debug("Using cached verification of member certificate (sn = {})", memberCert.getSerialNumber());
+        }
+
+        return verified.getSubjectId();
+    }
+
+    private static VerifiedCert verifyCertificate(X509Certificate memberCert, OCSPResp memberCertOcsp)
+            throws Exception {
+        int ocspFreshnessSeconds = GlobalConf.getOcspFreshnessSeconds(false);
+        boolean verifyNextUpdate = GlobalConfExtensions.getInstance().shouldVerifyOcspNextUpdate();
+
         X509Certificate issuer = GlobalConf.getCaCert(GlobalConf.getInstanceIdentifier(), memberCert);
-        new OcspVerifier(GlobalConf.getOcspFreshnessSeconds(false),
-                new OcspVerifierOptions(GlobalConfExtensions.getInstance().shouldVerifyOcspNextUpdate()))
+        new OcspVerifier(ocspFreshnessSeconds, new OcspVerifierOptions(verifyNextUpdate))
                 .verifyValidityAndStatus(memberCertOcsp, memberCert, issuer);
+
+        // the same bounds the OCSP verifier checks the response against
+        SingleResp singleResp = ((BasicOCSPResp) memberCertOcsp.getResponseObject()).getResponses()[0];
+        Date freshUntil = new Date(singleResp.getThisUpdate().getTime()
+                + TimeUnit.SECONDS.toMillis(ocspFreshnessSeconds));
+
+        if (verifyNextUpdate && singleResp.getNextUpdate() != null
+                && singleResp.getNextUpdate().before(freshUntil)) {
+            freshUntil = singleResp.getNextUpdate();
+        }
+
+        return new VerifiedCert(getClientIdFromCert(memberCert), freshUntil);
+    }
+
+    /**
+     * Discards all cached member certificate verifications.
+     */
+    static void clearVerifiedCertCache() {
+        VERIFIED_CERT_CACHE.invalidateAll();
     }
 
     private static boolean verifySignature(X509Certificate cert,
@@ -246,6 +306,16 @@ public final class ManagementRequestHandler {
         }
     }
 
+    @Value
+    private static class VerifiedCert {
+        ClientId subjectId;
+        Date freshUntil;
+
+        boolean isFreshAt(Date date) {
+            return date.before(freshUntil);
+        }
+    }
+
     @Getter
     static class DecoderCallback implements SoapMessageDecoder.Callback {
 
@@ -0,0 +1,181 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.request;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.ManagementRequestTestUtils;
+import ee.ria.xroad.common.ManagementRequestTestUtils.SignedRequest;
+import ee.ria.xroad.common.OcspTestUtils;
+import ee.ria.xroad.common.TestCertUtil;
+import ee.ria.xroad.common.TestSecurityUtil;
+import ee.ria.xroad.common.certificateprofile.SignCertificateProfileInfo;
+import ee.ria.xroad.common.certificateprofile.impl.EjbcaSignCertificateProfileInfo;
+import ee.ria.xroad.common.conf.globalconf.EmptyGlobalConf;
+import ee.ria.xroad.common.conf.globalconf.GlobalConf;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.X509Certificate;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static ee.ria.xroad.common.ErrorCodes.X_CERT_VALIDATION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that verified member certificates of management requests are cached.
+ */
+public class ManagementRequestHandlerTest {
+
+    private static final ClientId MANAGEMENT_SERVICE = ClientId.create("EE", "GOV", "central");
+    private static final ClientId MEMBER = ClientId.create("EE", "Cybernetica", "consumer");
+    private static final SecurityServerId SECURITY_SERVER = SecurityServerId.create(MEMBER, "server");
+
+    private int caCertLookups;
+
+    /**
+     * Initializes the security providers.
+     */
+    @BeforeClass
+    public static void initSecurity() {
+        TestSecurityUtil.initSecurity();
+    }
+
+    /**
+     * Sets up a global configuration that trusts the test CA and counts how many times
+     * the CA of a member certificate is looked up, i.e. how many times a certificate is verified.
+     */
+    @Before
+    public void setUp() {
+        caCertLookups = 0;
+
+        GlobalConf.reload(new EmptyGlobalConf() {
+            @Override
+            public String getInstanceIdentifier() {
+                return MEMBER.getXRoadInstance();
+            }
+
+            @Override
+            public X509Certificate getCaCert(String instanceIdentifier, X509Certificate orgCert) {
+                caCertLookups++;
+
+                return TestCertUtil.getCaCert();
+            }
+
+            @Override
+            public SignCertificateProfileInfo getSignCertificateProfileInfo(
+                    SignCertificateProfileInfo.Parameters parameters, X509Certificate cert) {
+                return new EjbcaSignCertificateProfileInfo(parameters);
+            }
+        });
+
+        ManagementRequestHandler.clearVerifiedCertCache();
+    }
+
+    /**
+     * Test that the member certificate is verified once for requests with the same certificate and OCSP response.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void verifyCertificateOnceForSameOcspResponse() throws Exception {
+        byte[] ocsp = createOcspResponse(CertificateStatus.GOOD, new Date());
+
+        assertEquals(subsystem("sub1"), readClientRegRequest(subsystem("sub1"), ocsp));
+        assertEquals(subsystem("sub2"), readClientRegRequest(subsystem("sub2"), ocsp));
+
+        assertEquals(1, caCertLookups);
+    }
+
+    /**
+     * Test that the member certificate is verified again when the request carries a new OCSP response.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void verifyCertificateAgainForNewOcspResponse() throws Exception {
+        Date now = new Date();
+
+        readClientRegRequest(subsystem("sub1"), createOcspResponse(CertificateStatus.GOOD, minusMinute(now)));
+        readClientRegRequest(subsystem("sub2"), createOcspResponse(CertificateStatus.GOOD, now));
+
+        assertEquals(2, caCertLookups);
+    }
+
+    /**
+     * Test that failed verifications are not cached.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void doNotCacheFailedVerification() throws Exception {
+        byte[] ocsp = createOcspResponse(new RevokedStatus(new Date(), CRLReason.unspecified), new Date());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                readClientRegRequest(subsystem("sub1"), ocsp);
+                fail("Request with revoked certificate must not be accepted");
+            } catch (CodedException e) {
+                assertEquals(X_CERT_VALIDATION, e.getFaultCode());
+            }
+        }
+
+        assertEquals(2, caCertLookups);
+    }
+
+    private static ClientId subsystem(String subsystemCode) {
+        return ClientId.create(MEMBER.getXRoadInstance(), MEMBER.getMemberClass(), MEMBER.getMemberCode(),
+                subsystemCode);
+    }
+
+    private static ClientId readClientRegRequest(ClientId client, byte[] ocsp) throws Exception {
+        SignedRequest request = ManagementRequestTestUtils.createClientRegRequest(MANAGEMENT_SERVICE,
+                SECURITY_SERVER, client, TestCertUtil.getConsumer(), ocsp);
+
+        SoapMessageImpl soap = ManagementRequestHandler.readRequest(request.getContentType(),
+                new ByteArrayInputStream(request.getContent()));
+
+        return ManagementRequestParser.parseClientRegRequest(soap).getClient();
+    }
+
+    private static byte[] createOcspResponse(CertificateStatus status, Date thisUpdate) throws Exception {
+        TestCertUtil.PKCS12 ocspSigner = TestCertUtil.getOcspSigner();
+
+        return OcspTestUtils.createOCSPResponse(TestCertUtil.getConsumer().certChain[0], TestCertUtil.getCaCert(),
+                ocspSigner.certChain[0], ocspSigner.key, status, thisUpdate, null).getEncoded();
+    }
+
+    private static Date minusMinute(Date date) {
+        return new Date(date.getTime() - TimeUnit.MINUTES.toMillis(1));
+    }
+}
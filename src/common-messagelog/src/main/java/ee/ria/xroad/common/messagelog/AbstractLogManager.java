@@ -45,6 +45,8 @@ public abstract class AbstractLogManager extends UntypedAbstractActor {
     @Getter
     protected static Map<String, DiagnosticsStatus> statusMap = new HashMap<>();
 
+    private static volatile MessageRecordFactory messageRecordFactory;
+
     protected AbstractLogManager(JobManager jobManager) {
         if (jobManager == null) {
             throw new IllegalArgumentException("jobManager cannot be null");
@@ -85,9 +87,44 @@ public abstract class AbstractLogManager extends UntypedAbstractActor {
         }
     }
 
+    /**
+     * Creates the message record of the given message in the calling thread, if the log manager
+     * implementation has set a factory. Creating the record, e.g. compressing the message, then does not
+     * hold up the other messages waiting for the log manager actor.
+     * @param message the message to be logged
+     * @return the message
+     * @throws Exception if creating the message record fails
+     */
+    public static LogMessage prepare(LogMessage message) throws Exception {
+        MessageRecordFactory factory = messageRecordFactory;
+
+        if (factory != null && message.getMessageRecord() == null) {
+            message.setMessageRecord(factory.create(message));
+        }
+
+        return message;
+    }
+
+    /**
+     * Sets the factory used by {@link #prepare(LogMessage)}. The factory is called concurrently by the
+     * threads logging messages.
+     * @param factory the message record factory
+     */
+    protected static void setMessageRecordFactory(MessageRecordFactory factory) {
+        messageRecordFactory = factory;
+    }
+
     protected abstract void log(LogMessage message) throws Exception;
 
     protected abstract LogRecord findByQueryId(String queryId, Date startTime, Date endTime) throws Exception;
 
     protected abstract TimestampRecord timestamp(Long messageRecordId) throws Exception;
+
+    /**
+     * Creates the message record of a logged message.
+     */
+    @FunctionalInterface
+    public interface MessageRecordFactory {
+        MessageRecord create(LogMessage message) throws Exception;
+    }
 }
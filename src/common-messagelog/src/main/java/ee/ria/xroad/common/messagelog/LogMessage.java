@@ -31,6 +31,7 @@ import ee.ria.xroad.common.signature.SignatureData;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /**
  * Message for logging the contained SOAP message and signature data.
@@ -44,6 +45,13 @@ public abstract class LogMessage {
     private final boolean clientSide;
     private final String xRequestId;
 
+    /**
+     * The message record created for this message in the thread of the caller
+     * (see {@link AbstractLogManager#prepare(LogMessage)}), or null if the log manager creates it.
+     */
+    @Setter
+    private MessageRecord messageRecord;
+
     public abstract String getQueryId();
     public abstract ClientId getClient();
     public abstract ServiceId getService();
@@ -122,6 +122,9 @@ public final class MessageLogProperties {
     /** is truncating body in logging allowed **/
     private static final String REST_TRUNCATED_BODY_ALLOWED = PREFIX + "truncated-body-allowed";
 
+    /** Property name for toggling compressed storage of logged messages and REST bodies **/
+    public static final String MESSAGE_COMPRESSION_ENABLED = PREFIX + "message-compression";
+
     public static final int NUM_COMPONENTS = 4;
     public static final int FIRST_COMPONENT = 0;
     public static final int SECOND_COMPONENT = 1;
@@ -295,6 +298,14 @@ public final class MessageLogProperties {
         return Boolean.getBoolean(REST_TRUNCATED_BODY_ALLOWED);
     }
 
+    /**
+     * @return true if logged messages and REST bodies are stored compressed in the database, 'false' by default.
+     * Records are read the same way regardless of this setting.
+     */
+    public static boolean isMessageCompressionEnabled() {
+        return Boolean.getBoolean(MESSAGE_COMPRESSION_ENABLED);
+    }
+
     public static int getCleanTransactionBatchSize() {
         return Integer.getInteger(CLEAN_TRANSACTION_BATCH, DEFAULT_CLEAN_TRANSACTION_BATCH_SIZE);
     }
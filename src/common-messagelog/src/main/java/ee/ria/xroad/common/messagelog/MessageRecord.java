@@ -39,10 +39,19 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Blob;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
+import static ee.ria.xroad.common.ErrorCodes.translateException;
 import static ee.ria.xroad.common.util.CryptoUtils.MD5_ID;
 import static ee.ria.xroad.common.util.CryptoUtils.hexDigest;
 
@@ -50,19 +59,26 @@ import static ee.ria.xroad.common.util.CryptoUtils.hexDigest;
  * A message log record.
  */
 @Slf4j
-@ToString(callSuper = true, exclude = {"attachment"})
+@ToString(callSuper = true, exclude = {"attachment", "decompressedMessage"})
 @EqualsAndHashCode(callSuper = true, exclude = {"attachment"})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class MessageRecord extends AbstractLogRecord {
 
+    /**
+     * Prefix of a message that is stored gzip compressed and base64 encoded. Neither SOAP messages nor REST
+     * message headers start with it, so records stored without compression are read as they are. The attachment
+     * of a record is compressed if and only if the message is.
+     */
+    static final String COMPRESSED_MESSAGE_PREFIX = "{gzip}";
+
     @Getter
     @Setter
     private String queryId;
 
-    @Getter
-    @Setter
     private String message;
 
+    private transient String decompressedMessage;
+
     @Getter
     @Setter
     private String signature;
@@ -152,9 +168,62 @@ public class MessageRecord extends AbstractLogRecord {
         this.xRequestId = xRequestId;
     }
 
+    /**
+     * @return the message, decompressed if it is stored compressed
+     */
+    public String getMessage() {
+        if (!isCompressed()) {
+            return message;
+        }
+
+        if (decompressedMessage == null) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(
+                    CryptoUtils.decodeBase64(message.substring(COMPRESSED_MESSAGE_PREFIX.length()))))) {
+                decompressedMessage = new String(IOUtils.toByteArray(in), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw translateException(e);
+            }
+        }
+
+        return decompressedMessage;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+        this.decompressedMessage = null;
+    }
+
+    /**
+     * @return true if the message and the attachment of this record are stored compressed
+     */
+    public boolean isCompressed() {
+        return message != null && message.startsWith(COMPRESSED_MESSAGE_PREFIX);
+    }
+
+    /**
+     * Compresses the message and the attachment stream of this record before it is saved. The attachment
+     * is compressed in memory, since the size of the stored attachment must be known when it is saved.
+     * @throws IOException if compressing the attachment stream fails
+     */
+    public void compress() throws IOException {
+        if (message == null || isCompressed()) {
+            return;
+        }
+
+        String plainMessage = message;
+        message = COMPRESSED_MESSAGE_PREFIX + CryptoUtils.encodeBase64(gzip(new ByteArrayInputStream(
+                plainMessage.getBytes(StandardCharsets.UTF_8))));
+        decompressedMessage = plainMessage;
+
+        if (attachmentStream != null) {
+            byte[] compressedAttachment = gzip(attachmentStream);
+            setAttachmentStream(new ByteArrayInputStream(compressedAttachment), compressedAttachment.length);
+        }
+    }
+
     @Override
     public Object[] getLinkingInfoFields() {
-        return new Object[] {getId(), getTime(), queryId, message, signature,
+        return new Object[] {getId(), getTime(), queryId, getMessage(), signature,
                 memberClass, memberCode, subsystemCode};
     }
 
@@ -175,8 +244,15 @@ public class MessageRecord extends AbstractLogRecord {
                     timestampHashChain);
         }
 
-        return new AsicContainer(message, signatureData, timestamp,
-                (attachment != null) ? attachment.getBinaryStream() : null);
+        return new AsicContainer(getMessage(), signatureData, timestamp, getAttachmentContent());
+    }
+
+    private InputStream getAttachmentContent() throws Exception {
+        if (attachment == null) {
+            return null;
+        }
+
+        return isCompressed() ? new GZIPInputStream(attachment.getBinaryStream()) : attachment.getBinaryStream();
     }
 
     public void setAttachmentStream(InputStream stream, long size) {
@@ -193,6 +269,16 @@ public class MessageRecord extends AbstractLogRecord {
         return hexDigest(MD5_ID, queryId);
     }
 
+    private static byte[] gzip(InputStream data) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try (OutputStream gzip = new GZIPOutputStream(bos)) {
+            IOUtils.copy(data, gzip);
+        }
+
+        return bos.toByteArray();
+    }
+
     static String decodeBase64(String base64Encoded) {
         return (base64Encoded != null && !base64Encoded.isEmpty())
                 ? new String(CryptoUtils.decodeBase64(base64Encoded)) : null;
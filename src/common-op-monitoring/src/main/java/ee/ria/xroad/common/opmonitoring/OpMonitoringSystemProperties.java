@@ -140,6 +140,18 @@ public final class OpMonitoringSystemProperties {
     private static final String OP_MONITOR_KEEP_RECORDS_FOR_DAYS =
             PREFIX + "op-monitor.keep-records-for-days";
 
+    /**
+     * Property name of the period in days for keeping per-minute operational data rollups in the database.
+     */
+    private static final String OP_MONITOR_KEEP_MINUTE_ROLLUPS_FOR_DAYS =
+            PREFIX + "op-monitor.keep-minute-rollups-for-days";
+
+    /**
+     * Property name of the period in days for keeping per-hour operational data rollups in the database.
+     */
+    private static final String OP_MONITOR_KEEP_HOUR_ROLLUPS_FOR_DAYS =
+            PREFIX + "op-monitor.keep-hour-rollups-for-days";
+
     /**
      * Property name of the interval for running the operational monitoring data cleanup operation represented as a
      * Cron expression.
@@ -259,6 +271,20 @@ public final class OpMonitoringSystemProperties {
         return Integer.parseInt(System.getProperty(OP_MONITOR_KEEP_RECORDS_FOR_DAYS, "7"));
     }
 
+    /**
+     * @return the period in days for keeping per-minute operational data rollups in the database, 30 days by default.
+     */
+    public static int getOpMonitorKeepMinuteRollupsForDays() {
+        return Integer.parseInt(System.getProperty(OP_MONITOR_KEEP_MINUTE_ROLLUPS_FOR_DAYS, "30"));
+    }
+
+    /**
+     * @return the period in days for keeping per-hour operational data rollups in the database, 365 days by default.
+     */
+    public static int getOpMonitorKeepHourRollupsForDays() {
+        return Integer.parseInt(System.getProperty(OP_MONITOR_KEEP_HOUR_ROLLUPS_FOR_DAYS, "365"));
+    }
+
     /**
      * @return the time interval as a Cron expression for running the operational monitoring data cleanup operation,
      * '0 0 0/12 1/1 * ? *' by default.
@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.message.ProtocolVersion;
+import ee.ria.xroad.common.message.SoapBuilder;
+import ee.ria.xroad.common.message.SoapHeader;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+import ee.ria.xroad.common.request.ClientRequestType;
+import ee.ria.xroad.common.request.ObjectFactory;
+import ee.ria.xroad.common.util.MimeTypes;
+
+import lombok.Value;
+import org.eclipse.jetty.util.MultiPartOutputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+
+import java.io.ByteArrayOutputStream;
+import java.security.Signature;
+import java.util.UUID;
+
+import static ee.ria.xroad.common.request.ManagementRequests.CLIENT_REG;
+import static ee.ria.xroad.common.util.CryptoUtils.SHA512WITHRSA_ID;
+import static ee.ria.xroad.common.util.MimeUtils.HEADER_SIG_ALGO_ID;
+import static ee.ria.xroad.common.util.MimeUtils.mpRelatedContentType;
+
+/**
+ * Contains utility methods for creating signed management requests, as sent by the security server
+ * to the central server.
+ */
+public final class ManagementRequestTestUtils {
+
+    private static final JAXBContext JAXB_CTX = initJaxbContext();
+
+    private ManagementRequestTestUtils() {
+    }
+
+    /**
+     * A signed management request in its multipart wire format.
+     */
+    @Value
+    public static class SignedRequest {
+        String contentType;
+        byte[] content;
+    }
+
+    /**
+     * Creates a client registration request signed with the given member sign key.
+     * @param managementService the central management service the request is sent to
+     * @param securityServer the security server the client is registered to
+     * @param client the client to register
+     * @param signer sign certificate and key of the client's member
+     * @param signerCertOcsp encoded OCSP response of the sign certificate
+     * @return the signed request
+     * @throws Exception in case of any errors
+     */
+    public static SignedRequest createClientRegRequest(ClientId managementService, SecurityServerId securityServer,
+            ClientId client, TestCertUtil.PKCS12 signer, byte[] signerCertOcsp) throws Exception {
+        ClientRequestType request = new ObjectFactory().createClientRequestType();
+        request.setServer(securityServer);
+        request.setClient(client);
+
+        SoapMessageImpl soap = buildMessage(managementService, securityServer.getOwner(),
+                new JAXBElement<>(new QName(SoapHeader.NS_XROAD, CLIENT_REG), ClientRequestType.class, request));
+
+        Signature signature = Signature.getInstance(SHA512WITHRSA_ID);
+        signature.initSign(signer.key);
+        signature.update(soap.getBytes());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MultiPartOutputStream multipart = new MultiPartOutputStream(out);
+
+        multipart.startPart(MimeTypes.TEXT_XML_UTF8);
+        multipart.write(soap.getBytes());
+        multipart.startPart(MimeTypes.BINARY, new String[] {HEADER_SIG_ALGO_ID + ": " + SHA512WITHRSA_ID});
+        multipart.write(signature.sign());
+        multipart.startPart(MimeTypes.BINARY);
+        multipart.write(signer.certChain[0].getEncoded());
+        multipart.startPart(MimeTypes.BINARY);
+        multipart.write(signerCertOcsp);
+        multipart.close();
+
+        return new SignedRequest(mpRelatedContentType(multipart.getBoundary(), MimeTypes.BINARY), out.toByteArray());
+    }
+
+    private static SoapMessageImpl buildMessage(ClientId receiver, ClientId sender, JAXBElement<?> body)
+            throws Exception {
+        SoapHeader header = new SoapHeader();
+        header.setClient(sender);
+        header.setService(ServiceId.create(receiver, body.getName().getLocalPart()));
+        header.setQueryId(UUID.randomUUID().toString());
+        header.setProtocolVersion(new ProtocolVersion());
+
+        SoapBuilder builder = new SoapBuilder();
+        builder.setHeader(header);
+        builder.setRpcEncoded(false);
+        builder.setCreateBodyCallback(soapBody -> JAXB_CTX.createMarshaller().marshal(body, soapBody));
+
+        return builder.build();
+    }
+
+    private static JAXBContext initJaxbContext() {
+        try {
+            return JAXBContext.newInstance(ObjectFactory.class);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
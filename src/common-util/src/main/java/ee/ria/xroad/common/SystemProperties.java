@@ -193,6 +193,14 @@ public final class SystemProperties {
 
     public static final String SERVER_CONF_ACL_CACHE_SIZE = PREFIX + "proxy.server-conf-acl-cache-size";
 
+    public static final String WSDL_CACHE_PERIOD = PREFIX + "proxy.wsdl-cache-period";
+
+    public static final String WSDL_CACHE_SIZE = PREFIX + "proxy.wsdl-cache-size";
+
+    public static final String PROXY_STAGE_METRICS_ENABLED = PREFIX + "proxy.stage-metrics-enabled";
+
+    public static final String PROXY_STAGE_METRICS_SAMPLE_INTERVAL = PREFIX + "proxy.stage-metrics-sample-interval";
+
 
     /** Property name of the idle time that connections to the ServerProxy Connector are allowed, in milliseconds */
     private static final String SERVERPROXY_CONNECTOR_MAX_IDLE_TIME =
@@ -282,6 +290,8 @@ public final class SystemProperties {
 
     private static final String DEFAULT_CENTER_AUTO_APPROVE_OWNER_CHANGE_REQUESTS = "false";
 
+    private static final String DEFAULT_CENTER_VERIFIED_CERT_CACHE_PERIOD = "60";
+
     private static final String DEFAULT_SERVERPROXY_CONNECTOR_MAX_IDLE_TIME = "0";
 
     private static final String DEFAULT_PROXY_CONNECTOR_INITIAL_IDLE_TIME = "30000";
@@ -383,6 +393,21 @@ public final class SystemProperties {
 
     private static final String DEFAULT_SIGNER_OCSP_RETRY_DELAY = "60";
 
+    public static final String SIGNER_OCSP_FETCH_THREADS =
+            PREFIX + "signer.ocsp-fetch-threads";
+
+    private static final String DEFAULT_SIGNER_OCSP_FETCH_THREADS = "8";
+
+    public static final String SIGNER_OCSP_FETCH_MAX_CONCURRENT_PER_RESPONDER =
+            PREFIX + "signer.ocsp-fetch-max-concurrent-per-responder";
+
+    private static final String DEFAULT_SIGNER_OCSP_FETCH_MAX_CONCURRENT_PER_RESPONDER = "4";
+
+    public static final String SIGNER_OCSP_FETCH_TIMEOUT =
+            PREFIX + "signer.ocsp-fetch-timeout";
+
+    private static final String DEFAULT_SIGNER_OCSP_FETCH_TIMEOUT = "300";
+
     public static final String SIGNER_MODULE_MANAGER_UPDATE_INTERVAL =
             PREFIX + "signer.module-manager-update-interval";
 
@@ -434,6 +459,9 @@ public final class SystemProperties {
     public static final String CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS =
             PREFIX + "configuration-client.allowed-federations";
 
+    public static final String CONFIGURATION_CLIENT_DOWNLOAD_THREADS =
+            PREFIX + "configuration-client.download-threads";
+
     /**
      * A constant to describe the X-Road instances this security server federates with.
      * {@link #CUSTOM} means a list of named, comma-separated X-Road instances to allow.
@@ -475,6 +503,10 @@ public final class SystemProperties {
     public static final String CENTER_AUTO_APPROVE_OWNER_CHANGE_REQUESTS =
             PREFIX + "center.auto-approve-owner-change-requests";
 
+    /** Property name of the cache period of verified member certificates in management requests. */
+    public static final String CENTER_VERIFIED_CERT_CACHE_PERIOD =
+            PREFIX + "center.verified-cert-cache-period";
+
     // Misc -------------------------------------------------------------------
 
     /** Property name of the configuration files path. */
@@ -566,6 +598,10 @@ public final class SystemProperties {
     public static final String CONFIGURATION_PROXY_ADDRESS =
             PREFIX + "configuration-proxy.address";
 
+    /** Property name of the number of threads the confproxy uses to build signed directories. */
+    public static final String CONFIGURATION_PROXY_THREAD_POOL_SIZE =
+            PREFIX + "configuration-proxy.thread-pool-size";
+
     // Environmental Monitoring  -------------------------- //
 
     /** Property name of environmental monitor port. */
@@ -923,6 +959,29 @@ public final class SystemProperties {
                 DEFAULT_SIGNER_OCSP_RETRY_DELAY));
     }
 
+    /**
+     * @return the number of threads used by signer for fetching OCSP responses in parallel, 8 by default
+     */
+    public static int getOcspFetchThreads() {
+        return Integer.parseInt(System.getProperty(SIGNER_OCSP_FETCH_THREADS, DEFAULT_SIGNER_OCSP_FETCH_THREADS));
+    }
+
+    /**
+     * @return the maximum number of concurrent requests signer sends to a single OCSP responder, 4 by default
+     */
+    public static int getOcspFetchMaxConcurrentPerResponder() {
+        return Integer.parseInt(System.getProperty(SIGNER_OCSP_FETCH_MAX_CONCURRENT_PER_RESPONDER,
+                DEFAULT_SIGNER_OCSP_FETCH_MAX_CONCURRENT_PER_RESPONDER));
+    }
+
+    /**
+     * @return the time in seconds after which the unfinished OCSP response queries of a refresh cycle are
+     * cancelled, 300 by default
+     */
+    public static int getOcspFetchTimeout() {
+        return Integer.parseInt(System.getProperty(SIGNER_OCSP_FETCH_TIMEOUT, DEFAULT_SIGNER_OCSP_FETCH_TIMEOUT));
+    }
+
     /**
      * @return the module manager update interval in seconds that should be set for signer, 60 by default
      */
@@ -976,6 +1035,13 @@ public final class SystemProperties {
         return System.getProperty(CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS, AllowedFederationMode.NONE.name());
     }
 
+    /**
+     * @return the maximum number of federated configuration sources that are downloaded concurrently, '4' by default.
+     */
+    public static int getConfigurationClientDownloadThreads() {
+        return Integer.parseInt(System.getProperty(CONFIGURATION_CLIENT_DOWNLOAD_THREADS, "4"));
+    }
+
     /**
      * @return the HTTP port on which the server proxy OCSP responder is listening, '5577' by default.
      */
@@ -1076,6 +1142,17 @@ public final class SystemProperties {
                 DEFAULT_CENTER_AUTO_APPROVE_OWNER_CHANGE_REQUESTS));
     }
 
+    /**
+     * @return the period in seconds for which a verified member certificate and its OCSP response are cached when
+     * handling management requests, '60' by default. Limited by the OCSP verifier cache period maximum, 0 disables
+     * the cache.
+     */
+    public static int getCenterVerifiedCertCachePeriod() {
+        int period = Integer.parseInt(System.getProperty(CENTER_VERIFIED_CERT_CACHE_PERIOD,
+                DEFAULT_CENTER_VERIFIED_CERT_CACHE_PERIOD));
+        return Math.max(0, Math.min(period, OCSP_VERIFIER_CACHE_PERIOD_MAX));
+    }
+
     /**
      * @return the HTTP port on which the monitor agent listens for administrative commands, '5588' by default.
      */
@@ -1157,6 +1234,14 @@ public final class SystemProperties {
         return System.getProperty(CONFIGURATION_PROXY_ADDRESS, DEFAULT_CONNECTOR_HOST);
     }
 
+    /**
+     * @return the number of threads the configuration proxy uses for downloading global configuration
+     * and building signed directories of different instances and versions concurrently, '4' by default.
+     */
+    public static int getConfigurationProxyThreadPoolSize() {
+        return Integer.parseInt(System.getProperty(CONFIGURATION_PROXY_THREAD_POOL_SIZE, "4"));
+    }
+
     /**
      * @return the interval in seconds at which proxy monitor agent collects monitoring data, '60' by default.
      */
@@ -1569,6 +1654,37 @@ public final class SystemProperties {
         return Long.getLong(SERVER_CONF_ACL_CACHE_SIZE, 100_000);
     }
 
+    /**
+     * @return the time in seconds a modified WSDL returned by the getWsdl metaservice is served from memory
+     * before it is revalidated against the service provider, or 0 to disable caching
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public static int getWsdlCachePeriod() {
+        return Integer.getInteger(WSDL_CACHE_PERIOD, 60);
+    }
+
+    /**
+     * @return maximum number of modified WSDLs kept in memory
+     */
+    @SuppressWarnings("checkstyle:MagicNumber")
+    public static long getWsdlCacheSize() {
+        return Long.getLong(WSDL_CACHE_SIZE, 100);
+    }
+
+    /**
+     * @return whether the proxy collects request processing stage times into its metrics, 'true' by default
+     */
+    public static boolean isProxyStageMetricsEnabled() {
+        return "true".equalsIgnoreCase(System.getProperty(PROXY_STAGE_METRICS_ENABLED, "true"));
+    }
+
+    /**
+     * @return every how many requests the proxy logs the stage times of a single request, or 0 to disable
+     */
+    public static int getProxyStageMetricsSampleInterval() {
+        return Integer.getInteger(PROXY_STAGE_METRICS_SAMPLE_INTERVAL, 0);
+    }
+
     private static void checkVersionValidity(int version, int current, String defaultVersion) {
         if (version > current || version < 1) {
             throw new IllegalArgumentException("Illegal minimum global configuration version in system parameters");
@@ -63,6 +63,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ee.ria.xroad.common.ErrorCodes.translateException;
+import static ee.ria.xroad.common.identifier.IdentifierInterner.intern;
 import static ee.ria.xroad.common.util.CryptoUtils.encodeBase64;
 import static ee.ria.xroad.common.util.CryptoUtils.readCertificate;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
@@ -97,19 +98,19 @@ public class SharedParametersV2 extends AbstractXmlConf<SharedParametersTypeV2>
     }
 
     ClientId createMemberId(MemberType member) {
-        return ClientId.create(confType.getInstanceIdentifier(),
-                member.getMemberClass().getCode(), member.getMemberCode());
+        return intern(ClientId.create(confType.getInstanceIdentifier(),
+                member.getMemberClass().getCode(), member.getMemberCode()));
     }
 
     ClientId createSubsystemId(MemberType member, SubsystemType subsystem) {
-        return ClientId.create(confType.getInstanceIdentifier(),
+        return intern(ClientId.create(confType.getInstanceIdentifier(),
                 member.getMemberClass().getCode(), member.getMemberCode(),
-                subsystem.getSubsystemCode());
+                subsystem.getSubsystemCode()));
     }
 
     GlobalGroupId createGlobalGroupId(GlobalGroupType globalGroup) {
-        return GlobalGroupId.create(confType.getInstanceIdentifier(),
-                globalGroup.getGroupCode());
+        return intern(GlobalGroupId.create(confType.getInstanceIdentifier(),
+                globalGroup.getGroupCode()));
     }
 
     String getInstanceIdentifier() {
@@ -266,10 +267,10 @@ public class SharedParametersV2 extends AbstractXmlConf<SharedParametersTypeV2>
             addServerClient(createMemberId(owner), securityServer);
 
             // cache security server information by serverId
-            SecurityServerId securityServerId = SecurityServerId.create(
+            SecurityServerId securityServerId = intern(SecurityServerId.create(
                     confType.getInstanceIdentifier(),
                     owner.getMemberClass().getCode(),
-                    owner.getMemberCode(), securityServer.getServerCode());
+                    owner.getMemberCode(), securityServer.getServerCode()));
             securityServersById.put(securityServerId, securityServer);
 
             // Add clients of the security server.
@@ -300,10 +301,10 @@ public class SharedParametersV2 extends AbstractXmlConf<SharedParametersTypeV2>
         }
 
         MemberType owner = getOwner(server);
-        SecurityServerId securityServerId = SecurityServerId.create(
+        SecurityServerId securityServerId = intern(SecurityServerId.create(
                 confType.getInstanceIdentifier(),
                 owner.getMemberClass().getCode(),
-                owner.getMemberCode(), server.getServerCode());
+                owner.getMemberCode(), server.getServerCode()));
 
         addToMap(securityServerClients, securityServerId, client);
     }
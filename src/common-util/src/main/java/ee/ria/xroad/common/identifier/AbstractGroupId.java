@@ -25,6 +25,8 @@
  */
 package ee.ria.xroad.common.identifier;
 
+import java.util.Objects;
+
 /**
  * Base class for group IDs.
  */
@@ -55,4 +57,14 @@ public abstract class AbstractGroupId extends XRoadId {
     public String[] getFieldsForStringFormat() {
         return new String[] {groupCode};
     }
+
+    @Override
+    boolean identifierFieldsEqual(XRoadId other) {
+        return Objects.equals(groupCode, ((AbstractGroupId) other).groupCode);
+    }
+
+    @Override
+    int identifierFieldsHashCode() {
+        return Objects.hashCode(groupCode);
+    }
 }
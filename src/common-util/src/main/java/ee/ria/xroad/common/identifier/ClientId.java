@@ -29,6 +29,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import java.util.Objects;
+
 import static ee.ria.xroad.common.identifier.XRoadObjectType.MEMBER;
 import static ee.ria.xroad.common.identifier.XRoadObjectType.SUBSYSTEM;
 
@@ -122,6 +124,19 @@ public final class ClientId extends XRoadId {
         return new String[] {memberClass, memberCode, subsystemCode};
     }
 
+    @Override
+    boolean identifierFieldsEqual(XRoadId other) {
+        final ClientId o = (ClientId) other;
+        return Objects.equals(memberCode, o.memberCode)
+                && Objects.equals(subsystemCode, o.subsystemCode)
+                && Objects.equals(memberClass, o.memberClass);
+    }
+
+    @Override
+    int identifierFieldsHashCode() {
+        return Objects.hash(memberClass, memberCode, subsystemCode);
+    }
+
     /**
      * Factory method for creating a new Subsystem.
      * @param xRoadInstance instance of the new subsystem
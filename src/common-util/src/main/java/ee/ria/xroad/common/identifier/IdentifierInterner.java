@@ -0,0 +1,60 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.identifier;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Provides canonical instances of X-Road identifiers.
+ *
+ * Identifiers that are used as keys of frequently accessed caches and maps should be interned where they are
+ * created, so that lookups with equal identifiers become reference comparisons. The canonical instances are
+ * weakly referenced and garbage collected when no longer used.
+ */
+public final class IdentifierInterner {
+
+    private static final Interner<XRoadId> INTERNER = Interners.newWeakInterner();
+
+    private IdentifierInterner() {
+    }
+
+    /**
+     * Returns the canonical instance of the given identifier. Identifiers that have been persisted
+     * to the database are returned as is, since their database id must not leak into the shared instance.
+     * @param id the identifier, may be null
+     * @param <T> type of the identifier
+     * @return the canonical identifier equal to the given one
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends XRoadId> T intern(T id) {
+        if (id == null || id.getId() != null) {
+            return id;
+        }
+        // equal identifiers are always of the same class
+        return (T) INTERNER.intern(id);
+    }
+}
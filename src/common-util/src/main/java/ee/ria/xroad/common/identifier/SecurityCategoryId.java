@@ -27,6 +27,8 @@ package ee.ria.xroad.common.identifier;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import java.util.Objects;
+
 /**
  * Security category ID.
  */
@@ -58,6 +60,16 @@ public final class SecurityCategoryId extends XRoadId {
         return new String[] {securityCategory};
     }
 
+    @Override
+    boolean identifierFieldsEqual(XRoadId other) {
+        return Objects.equals(securityCategory, ((SecurityCategoryId) other).securityCategory);
+    }
+
+    @Override
+    int identifierFieldsHashCode() {
+        return Objects.hashCode(securityCategory);
+    }
+
     /**
      * Factory method for creating a new GlobalGroupId.
      * @param xRoadInstance instance of the new security category
@@ -27,6 +27,8 @@ package ee.ria.xroad.common.identifier;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import java.util.Objects;
+
 /**
  * Security server ID.
  */
@@ -87,6 +89,19 @@ public final class SecurityServerId extends XRoadId {
         return new String[] {memberClass, memberCode, serverCode};
     }
 
+    @Override
+    boolean identifierFieldsEqual(XRoadId other) {
+        final SecurityServerId o = (SecurityServerId) other;
+        return Objects.equals(serverCode, o.serverCode)
+                && Objects.equals(memberCode, o.memberCode)
+                && Objects.equals(memberClass, o.memberClass);
+    }
+
+    @Override
+    int identifierFieldsHashCode() {
+        return Objects.hash(memberClass, memberCode, serverCode);
+    }
+
     /**
      * Factory method for creating a new SecurityServerId.
      * @param xRoadInstance instance of the new security server
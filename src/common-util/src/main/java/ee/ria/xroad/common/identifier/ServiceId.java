@@ -29,6 +29,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
+import java.util.Objects;
+
 /**
  * Service ID.
  */
@@ -121,6 +123,21 @@ public class ServiceId extends XRoadId {
                 serviceVersion };
     }
 
+    @Override
+    boolean identifierFieldsEqual(XRoadId other) {
+        final ServiceId o = (ServiceId) other;
+        return Objects.equals(serviceCode, o.serviceCode)
+                && Objects.equals(memberCode, o.memberCode)
+                && Objects.equals(serviceVersion, o.serviceVersion)
+                && Objects.equals(subsystemCode, o.subsystemCode)
+                && Objects.equals(memberClass, o.memberClass);
+    }
+
+    @Override
+    int identifierFieldsHashCode() {
+        return Objects.hash(memberClass, memberCode, serviceVersion, subsystemCode, serviceCode);
+    }
+
     /**
      * Factory method for creating a new ServiceId.
      * @param client ID of the service provider
@@ -27,12 +27,11 @@ package ee.ria.xroad.common.identifier;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.builder.EqualsBuilder;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 
 /**
@@ -46,6 +45,8 @@ public abstract class XRoadId implements Serializable {
 
     private Long id; // used for references in database
 
+    private transient int hash; // cached hash code, 0 if not computed yet
+
     XRoadId() {
         this(null, null);
     }
@@ -78,16 +79,54 @@ public abstract class XRoadId implements Serializable {
     public boolean equals(Object obj) {
         // exclude 'id' field, because it is not part of identifier
         // and all identifiers are unique
-        return EqualsBuilder.reflectionEquals(this, obj, new String[] {"id"});
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+
+        final XRoadId other = (XRoadId) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+
+        return type == other.type
+                && Objects.equals(xRoadInstance, other.xRoadInstance)
+                && identifierFieldsEqual(other);
     }
 
     @Override
     public int hashCode() {
         // exclude 'id' field, because it is not part of identifier
         // and all identifiers are unique
-        return HashCodeBuilder.reflectionHashCode(this, new String[] {"id"});
+        int h = hash;
+        if (h == 0) {
+            h = type == null ? 0 : type.name().hashCode();
+            h = 31 * h + Objects.hashCode(xRoadInstance);
+            h = 31 * h + identifierFieldsHashCode();
+            // Hibernate populates the fields after construction, do not cache
+            // the hash code of an incomplete identifier (local group ids
+            // have no instance and are simply never cached)
+            if (xRoadInstance != null) {
+                hash = h;
+            }
+        }
+        return h;
     }
 
+    /**
+     * Compares the subclass specific fields of this identifier.
+     * @param other identifier of the same class
+     * @return true if the fields are equal
+     */
+    abstract boolean identifierFieldsEqual(XRoadId other);
+
+    /**
+     * @return hash code of the subclass specific fields of this identifier
+     */
+    abstract int identifierFieldsHashCode();
+
     @Override
     public String toString() {
         return type + ":" + toShortString();
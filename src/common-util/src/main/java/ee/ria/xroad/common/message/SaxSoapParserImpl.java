@@ -75,6 +75,7 @@ import static ee.ria.xroad.common.ErrorCodes.X_MISSING_BODY;
 import static ee.ria.xroad.common.ErrorCodes.X_MISSING_HEADER;
 import static ee.ria.xroad.common.ErrorCodes.X_MISSING_HEADER_FIELD;
 import static ee.ria.xroad.common.ErrorCodes.translateException;
+import static ee.ria.xroad.common.identifier.IdentifierInterner.intern;
 import static ee.ria.xroad.common.message.SoapUtils.validateMimeType;
 import static ee.ria.xroad.common.util.MimeUtils.UTF8;
 import static ee.ria.xroad.common.util.MimeUtils.hasUtf8Charset;
@@ -871,11 +872,11 @@ public class SaxSoapParserImpl implements SoapParser {
 
         @Override
         public void closeTag() {
-            onClientCallback.accept(ClientId.create(
+            onClientCallback.accept(intern(ClientId.create(
                     getValue(QNAME_ID_INSTANCE),
                     getValue(QNAME_ID_MEMBER_CLASS),
                     getValue(QNAME_ID_MEMBER_CODE),
-                    getValue(QNAME_ID_SUBSYSTEM_CODE)));
+                    getValue(QNAME_ID_SUBSYSTEM_CODE))));
         }
     }
 
@@ -903,13 +904,13 @@ public class SaxSoapParserImpl implements SoapParser {
 
         @Override
         protected void closeTag() {
-            onServiceCallback.accept(ServiceId.create(
+            onServiceCallback.accept(intern(ServiceId.create(
                     getValue(QNAME_ID_INSTANCE),
                     getValue(QNAME_ID_MEMBER_CLASS),
                     getValue(QNAME_ID_MEMBER_CODE),
                     getValue(QNAME_ID_SUBSYSTEM_CODE),
                     getValue(QNAME_ID_SERVICE_CODE),
-                    getValue(QNAME_ID_SERVICE_VERSION)));
+                    getValue(QNAME_ID_SERVICE_VERSION))));
         }
     }
 
@@ -994,9 +995,9 @@ public class SaxSoapParserImpl implements SoapParser {
 
         @Override
         protected void closeTag() {
-            onServiceCallback.accept(CentralServiceId.create(
+            onServiceCallback.accept(intern(CentralServiceId.create(
                     getValue(QNAME_ID_INSTANCE),
-                    getValue(QNAME_ID_SERVICE_CODE)));
+                    getValue(QNAME_ID_SERVICE_CODE))));
         }
     }
 
@@ -1023,11 +1024,11 @@ public class SaxSoapParserImpl implements SoapParser {
 
         @Override
         protected void closeTag() {
-            onServiceCallback.accept(SecurityServerId.create(
+            onServiceCallback.accept(intern(SecurityServerId.create(
                     getValue(QNAME_ID_INSTANCE),
                     getValue(QNAME_ID_MEMBER_CLASS),
                     getValue(QNAME_ID_MEMBER_CODE),
-                    getValue(QNAME_ID_SERVER_CODE)));
+                    getValue(QNAME_ID_SERVER_CODE))));
         }
     }
 
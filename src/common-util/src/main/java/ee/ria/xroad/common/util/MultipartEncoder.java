@@ -45,6 +45,8 @@ public class MultipartEncoder implements AutoCloseable {
     private static final byte[] CRLF = {'\r', '\n'};
     private static final byte[] DASHDASH = {'-', '-'};
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     protected final Stack<String> parts = new Stack<>();
 
     protected final String topBoundary;
@@ -53,6 +55,9 @@ public class MultipartEncoder implements AutoCloseable {
 
     protected boolean inPart = false;
 
+    // reused for every streamed part
+    private byte[] copyBuffer;
+
     /**
      * Constructs a new multipart encoder with the given output stream.
      * @param out the output stream into which this encoder should write
@@ -203,7 +208,11 @@ public class MultipartEncoder implements AutoCloseable {
      * @throws IOException in case an I/O error occurred
      */
     public void write(InputStream content) throws IOException {
-        IOUtils.copy(content, out);
+        if (copyBuffer == null) {
+            copyBuffer = new byte[COPY_BUFFER_SIZE];
+        }
+
+        IOUtils.copyLarge(content, out, copyBuffer);
     }
 
     @Override
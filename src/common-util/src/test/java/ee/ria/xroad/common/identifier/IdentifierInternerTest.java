@@ -0,0 +1,113 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.identifier;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link IdentifierInterner}
+ */
+public class IdentifierInternerTest {
+
+    @Test
+    public void equalIdentifiersShareCanonicalInstance() {
+        ClientId first = IdentifierInterner.intern(ClientId.create("EE", "BUSINESS", "member", "sub"));
+        ClientId second = IdentifierInterner.intern(ClientId.create("EE", "BUSINESS", "member", "sub"));
+        ClientId member = IdentifierInterner.intern(ClientId.create("EE", "BUSINESS", "member"));
+
+        assertSame(first, second);
+        assertNotSame(first, member);
+
+        ServiceId service = IdentifierInterner.intern(ServiceId.create(first, "getState", "v1"));
+        assertSame(service, IdentifierInterner.intern(ServiceId.create("EE", "BUSINESS", "member", "sub",
+                "getState", "v1")));
+        assertNotSame(service, IdentifierInterner.intern(ServiceId.create(first, "getState")));
+    }
+
+    @Test
+    public void identifiersOfDifferentTypesAreNotMixed() {
+        ServiceId service = IdentifierInterner.intern(ServiceId.create("EE", "BUSINESS", "member", null, "code"));
+        CentralServiceId central = IdentifierInterner.intern(CentralServiceId.create("EE", "code"));
+        GlobalGroupId group = IdentifierInterner.intern(GlobalGroupId.create("EE", "code"));
+        SecurityCategoryId category = IdentifierInterner.intern(SecurityCategoryId.create("EE", "code"));
+
+        assertEquals(XRoadObjectType.SERVICE, service.getObjectType());
+        assertEquals(XRoadObjectType.CENTRALSERVICE, central.getObjectType());
+        assertEquals(XRoadObjectType.GLOBALGROUP, group.getObjectType());
+        assertEquals(XRoadObjectType.SECURITYCATEGORY, category.getObjectType());
+    }
+
+    @Test
+    public void persistedIdentifiersAreNotInterned() throws Exception {
+        ClientId persisted = ClientId.create("EE", "BUSINESS", "persisted");
+        setDatabaseId(persisted, 1L);
+
+        assertSame(persisted, IdentifierInterner.intern(persisted));
+
+        ClientId canonical = IdentifierInterner.intern(ClientId.create("EE", "BUSINESS", "persisted"));
+        assertNotSame(persisted, canonical);
+        assertEquals(persisted, canonical);
+        assertNull(canonical.getId());
+    }
+
+    @Test
+    public void nullIsInternedAsNull() {
+        assertNull(IdentifierInterner.intern(null));
+    }
+
+    @Test
+    public void hashCodeIsNotCachedBeforeHibernatePopulatesFields() throws Exception {
+        // Hibernate creates identifiers with the no-arg constructor and sets the fields afterwards
+        ClientId loaded = new ClientId();
+        loaded.hashCode();
+
+        setField(XRoadId.class, loaded, "type", XRoadObjectType.MEMBER);
+        setField(XRoadId.class, loaded, "xRoadInstance", "EE");
+        setField(ClientId.class, loaded, "memberClass", "BUSINESS");
+        setField(ClientId.class, loaded, "memberCode", "member");
+
+        ClientId created = ClientId.create("EE", "BUSINESS", "member");
+        assertEquals(created.hashCode(), loaded.hashCode());
+        assertEquals(created, loaded);
+    }
+
+    private static void setDatabaseId(XRoadId identifier, Long id) throws Exception {
+        setField(XRoadId.class, identifier, "id", id);
+    }
+
+    private static void setField(Class<?> clazz, XRoadId identifier, String name, Object value) throws Exception {
+        Field field = clazz.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(identifier, value);
+    }
+}
@@ -35,17 +35,27 @@ import lombok.extern.slf4j.Slf4j;
 import java.io.FileNotFoundException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static ee.ria.xroad.common.ErrorCodes.X_INVALID_XML;
 
 /**
  * Configuration client downloads the configuration from sources found in the configuration anchor.
+ * The additional (federated) sources are downloaded concurrently, so that a slow source does not
+ * delay the others.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -150,17 +160,49 @@ class ConfigurationClient {
         FederationConfigurationSourceFilter filter =
                 new FederationConfigurationSourceFilterImpl(configurationAnchor.getInstanceIdentifier());
 
+        List<ConfigurationSource> sourcesToDownload = new ArrayList<>();
         for (Set<ConfigurationSource> sources : additionalSources.values()) {
             for (ConfigurationSource source : sources) {
-                if (!filter.shouldDownloadConfigurationFor(source.getInstanceIdentifier())) {
-                    continue;
+                if (filter.shouldDownloadConfigurationFor(source.getInstanceIdentifier())) {
+                    sourcesToDownload.add(source);
                 }
+            }
+        }
+
+        if (sourcesToDownload.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.max(1, Math.min(SystemProperties.getConfigurationClientDownloadThreads(),
+                sourcesToDownload.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new DownloadThreadFactory());
 
-                DownloadResult result = downloader.download(
-                        source, ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS);
-                handleResult(result, source.getInstanceIdentifier().equals(
-                        configurationAnchor.getInstanceIdentifier()));
+        try {
+            List<Future<DownloadResult>> results = new ArrayList<>();
+            for (ConfigurationSource source : sourcesToDownload) {
+                results.add(executor.submit(() -> downloader.download(
+                        source, ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS)));
+            }
+
+            // results are handled in this thread, in the original order of the sources
+            for (int i = 0; i < sourcesToDownload.size(); i++) {
+                handleResult(getResult(results.get(i)), sourcesToDownload.get(i).getInstanceIdentifier()
+                        .equals(configurationAnchor.getInstanceIdentifier()));
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DownloadResult getResult(Future<DownloadResult> result) throws Exception {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw e;
         }
     }
 
@@ -214,4 +256,16 @@ class ConfigurationClient {
     private void putAdditionalConfigurationSources(String instanceIdentifier, Collection<ConfigurationSource> sources) {
         additionalSources.put(instanceIdentifier, new HashSet<>(sources));
     }
+
+    private static final class DownloadThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "configuration-download-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
 }
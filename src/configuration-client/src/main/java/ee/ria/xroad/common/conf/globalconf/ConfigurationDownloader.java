@@ -34,23 +34,27 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.bouncycastle.operator.DigestCalculator;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static ee.ria.xroad.common.ErrorCodes.X_HTTP_ERROR;
 import static ee.ria.xroad.common.ErrorCodes.X_IO_ERROR;
 import static ee.ria.xroad.common.ErrorCodes.X_MALFORMED_GLOBALCONF;
 import static ee.ria.xroad.common.util.CryptoUtils.createDigestCalculator;
@@ -68,6 +72,11 @@ import static ee.ria.xroad.common.util.CryptoUtils.getAlgorithmId;
  * then traversed to find the first location where configuration * can be
  * downloaded. The successful location is remembered and used first next time
  * the configuration is downloaded.
+ *
+ * The configuration directory is requested conditionally (ETag and
+ * Last-Modified validators) and content files whose local copy has already been
+ * verified against the directory hash are not hashed again. Different
+ * configuration sources may be downloaded concurrently.
  */
 @Slf4j
 class ConfigurationDownloader {
@@ -79,11 +88,19 @@ class ConfigurationDownloader {
     private final int version;
 
     private Map<ConfigurationSource, ConfigurationLocation>
-            lastSuccessfulLocation = new HashMap<>();
+            lastSuccessfulLocation = new ConcurrentHashMap<>();
 
     @Getter
     protected final Map<String, Set<ConfigurationSource>> additionalSources =
-            new HashMap<>();
+            new ConcurrentHashMap<>();
+
+    // validators and content of the last valid directory per download URL
+    private final Map<String, DirectoryValidator> directoryValidators =
+            new ConcurrentHashMap<>();
+
+    // content files whose hash has been verified, by local file name
+    private final Map<Path, VerifiedFile> verifiedFiles =
+            new ConcurrentHashMap<>();
 
     ConfigurationDownloader(FileNameProvider fileNameProvider, int version,
             String... instanceIdentifiers) {
@@ -93,7 +110,12 @@ class ConfigurationDownloader {
     }
 
     ConfigurationParser getParser() {
-        return new ConfigurationParser(instanceIdentifiers);
+        return new ConfigurationParser(instanceIdentifiers) {
+            @Override
+            protected InputStream getInputStream() throws Exception {
+                return openDirectory(configuration.getLocation());
+            }
+        };
     }
 
     @SneakyThrows
@@ -164,12 +186,65 @@ class ConfigurationDownloader {
 
         additionalSources.clear();
 
-        Configuration configuration =
-                getParser().parse(location, contentIdentifiers);
+        try {
+            Configuration configuration =
+                    getParser().parse(location, contentIdentifiers);
 
-        configuration.eachFile(this::handle);
+            configuration.eachFile(this::handle);
 
-        return configuration;
+            return configuration;
+        } catch (Exception e) {
+            // do not replay an invalid directory on "not modified"
+            directoryValidators.remove(location.getDownloadURL());
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the configuration directory of the given location. If the
+     * directory has not been modified since it was last downloaded, the
+     * previously downloaded directory is returned.
+     * @param location the configuration location
+     * @return input stream of the configuration directory
+     * @throws Exception if an error occurs
+     */
+    InputStream openDirectory(ConfigurationLocation location)
+            throws Exception {
+        String url = location.getDownloadURL();
+        DirectoryValidator validator = directoryValidators.get(url);
+
+        try {
+            URLConnection connection =
+                    ConfigurationLocation.getDownloadURLConnection(url);
+
+            if (validator != null && connection instanceof HttpURLConnection) {
+                validator.apply(connection);
+
+                if (((HttpURLConnection) connection).getResponseCode()
+                        == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    log.trace("Configuration directory {} not modified", url);
+
+                    return new ByteArrayInputStream(validator.content);
+                }
+            }
+
+            byte[] content;
+            try (InputStream in = connection.getInputStream()) {
+                content = IOUtils.toByteArray(in);
+            }
+
+            DirectoryValidator received =
+                    DirectoryValidator.of(connection, content);
+            if (received != null) {
+                directoryValidators.put(url, received);
+            } else {
+                directoryValidators.remove(url);
+            }
+
+            return new ByteArrayInputStream(content);
+        } catch (IOException e) {
+            throw new CodedException(X_HTTP_ERROR, e);
+        }
     }
 
     @SneakyThrows
@@ -187,6 +262,7 @@ class ConfigurationDownloader {
             handleContent(content, file);
 
             persistContent(content, contentFileName, file);
+            rememberVerified(contentFileName, file.getHash());
         } else {
             log.trace("{} is up to date", file.getContentLocation());
 
@@ -202,6 +278,11 @@ class ConfigurationDownloader {
 
         if (Files.exists(file)) {
             String contentHash = configurationFile.getHash();
+            VerifiedFile verified = verifiedFiles.get(file);
+            if (verified != null && verified.matches(file, contentHash)) {
+                return false;
+            }
+
             String existingHash = encodeBase64(hash(file,
                     configurationFile.getHashAlgorithmId()));
             if (!StringUtils.equals(existingHash, contentHash)) {
@@ -210,6 +291,7 @@ class ConfigurationDownloader {
                             existingHash, contentHash});
                 return true;
             } else {
+                rememberVerified(file, contentHash);
                 return false;
             }
         }
@@ -335,6 +417,18 @@ class ConfigurationDownloader {
         return connection;
     }
 
+    private void rememberVerified(Path file, String contentHash) {
+        try {
+            BasicFileAttributes attributes =
+                    Files.readAttributes(file, BasicFileAttributes.class);
+            verifiedFiles.put(file, new VerifiedFile(contentHash,
+                    attributes.size(),
+                    attributes.lastModifiedTime().toMillis()));
+        } catch (IOException e) {
+            verifiedFiles.remove(file);
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     static byte[] hash(Path file, String algoId) throws Exception {
@@ -345,4 +439,74 @@ class ConfigurationDownloader {
             return dc.getDigest();
         }
     }
+
+    /**
+     * HTTP validators of a downloaded configuration directory.
+     */
+    private static final class DirectoryValidator {
+        private final String etag;
+        private final long lastModified;
+        private final byte[] content;
+
+        private DirectoryValidator(String etag, long lastModified,
+                byte[] content) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.content = content;
+        }
+
+        static DirectoryValidator of(URLConnection connection,
+                byte[] content) {
+            String etag = connection.getHeaderField("ETag");
+            long lastModified = connection.getLastModified();
+
+            if (etag == null && lastModified <= 0) {
+                return null;
+            }
+
+            return new DirectoryValidator(etag, lastModified, content);
+        }
+
+        void apply(URLConnection connection) {
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+
+            if (lastModified > 0) {
+                connection.setIfModifiedSince(lastModified);
+            }
+        }
+    }
+
+    /**
+     * Local content file whose hash has been verified.
+     */
+    private static final class VerifiedFile {
+        private final String hash;
+        private final long size;
+        private final long lastModified;
+
+        private VerifiedFile(String hash, long size, long lastModified) {
+            this.hash = hash;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        boolean matches(Path file, String expectedHash) {
+            if (!hash.equals(expectedHash)) {
+                return false;
+            }
+
+            try {
+                BasicFileAttributes attributes =
+                        Files.readAttributes(file, BasicFileAttributes.class);
+
+                return attributes.size() == size
+                        && attributes.lastModifiedTime().toMillis()
+                        == lastModified;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
 }
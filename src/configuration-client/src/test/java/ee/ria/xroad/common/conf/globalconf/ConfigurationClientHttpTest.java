@@ -0,0 +1,371 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.common.conf.globalconf;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.TestCertUtil;
+import ee.ria.xroad.common.util.CryptoUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Signature;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ee.ria.xroad.common.conf.globalconf.ConfigurationConstants.CONTENT_ID_SHARED_PARAMETERS;
+import static ee.ria.xroad.common.util.CryptoUtils.encodeBase64;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests configuration downloading from local HTTP servers with injected latency.
+ */
+@Slf4j
+public class ConfigurationClientHttpTest {
+
+    private static final long LATENCY_MILLIS = 1000;
+    private static final String SHARED_PARAMS =
+            "src/test/resources/test-conf-simple/EE/" + ConfigurationDirectoryV2.SHARED_PARAMETERS_XML;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final Map<String, ServedDirectory> directories = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger activeDirectoryRequests = new AtomicInteger();
+    private final AtomicInteger maxActiveDirectoryRequests = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private byte[] sharedParams;
+    private String originalAllowedFederations;
+
+    @Before
+    public void setUp() throws Exception {
+        sharedParams = Files.readAllBytes(Paths.get(SHARED_PARAMS));
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        originalAllowedFederations = System.getProperty(SystemProperties.CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS);
+        System.setProperty(SystemProperties.CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS, "all");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+
+        if (originalAllowedFederations == null) {
+            System.clearProperty(SystemProperties.CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS);
+        } else {
+            System.setProperty(SystemProperties.CONFIGURATION_CLIENT_ALLOWED_FEDERATIONS,
+                    originalAllowedFederations);
+        }
+    }
+
+    /**
+     * Test to ensure that an unmodified directory and unchanged content are not downloaded again.
+     * @throws Exception in case of any errors
+     */
+    @Test
+    public void unchangedConfigurationIsNotDownloadedAgain() throws Exception {
+        serve("EE", "SHARED-PARAMETERS", "/shared-params.xml", 0);
+        ConfigurationDownloader downloader = getDownloader();
+        ConfigurationSource source = getSource("EE");
+
+        DownloadResult first = downloader.download(source, CONTENT_ID_SHARED_PARAMETERS);
+        assertTrue(first.isSuccess());
+        assertEquals(1, first.getConfiguration().getFiles().size());
+        assertEquals(1, requestCount("/shared-params.xml"));
+        assertTrue(Files.exists(downloader.getFileName(first.getConfiguration().getFiles().get(0))));
+
+        DownloadResult second = downloader.download(source, CONTENT_ID_SHARED_PARAMETERS);
+        assertTrue(second.isSuccess());
+        assertEquals(1, second.getConfiguration().getFiles().size());
+        assertEquals(2, requestCount("/EE/conf"));
+        assertEquals(1, notModified.get());
+        assertEquals(1, requestCount("/shared-params.xml"));
+    }
+
+    /**
+     * Test to ensure that a changed directory is downloaded again.
+     * @throws Exception in case of any errors
+     */
+    @Test
+    public void changedDirectoryIsDownloaded() throws Exception {
+        serve("EE", "SHARED-PARAMETERS", "/shared-params.xml", 0);
+        ConfigurationDownloader downloader = getDownloader();
+        ConfigurationSource source = getSource("EE");
+
+        assertTrue(downloader.download(source, CONTENT_ID_SHARED_PARAMETERS).isSuccess());
+
+        serve("EE", "FOO", "/foo.xml", 0);
+        DownloadResult result = downloader.download(source, CONTENT_ID_SHARED_PARAMETERS);
+
+        assertTrue(result.isSuccess());
+        assertEquals(0, result.getConfiguration().getFiles().size());
+        assertEquals(0, notModified.get());
+    }
+
+    /**
+     * Test to ensure that slow federated sources are downloaded concurrently.
+     * @throws Exception in case of any errors
+     */
+    @Test
+    public void slowSourcesAreDownloadedConcurrently() throws Exception {
+        serve("EE", "SHARED-PARAMETERS", "/shared-params.xml", 0);
+
+        Set<ConfigurationSource> federated = new HashSet<>();
+        for (String instance : new String[] {"AA", "BB", "CC"}) {
+            serve(instance, "FOO", "/foo.xml", LATENCY_MILLIS);
+            federated.add(getSource(instance));
+        }
+
+        Map<String, Set<ConfigurationSource>> additional = new HashMap<>();
+        additional.put("EE", federated);
+
+        ConfigurationDownloader downloader = new ConfigurationDownloader(
+                new FileNameProviderImpl(tempFolder.getRoot().toString()),
+                SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION) {
+            @Override
+            public Map<String, Set<ConfigurationSource>> getAdditionalSources() {
+                return additional;
+            }
+        };
+
+        DownloadedFiles downloadedFiles = new DownloadedFiles(tempFolder.getRoot().toString()) {
+            @Override
+            void save() {
+                // do not write the file list
+            }
+        };
+
+        ConfigurationClient client = new ConfigurationClient(downloadedFiles, downloader,
+                SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION, getAnchor());
+
+        client.execute();
+
+        log.info("At most {} directories were downloaded concurrently", maxActiveDirectoryRequests.get());
+
+        assertEquals(1, requestCount("/AA/conf"));
+        assertEquals(1, requestCount("/BB/conf"));
+        assertEquals(1, requestCount("/CC/conf"));
+        assertTrue("Sources were not downloaded concurrently", maxActiveDirectoryRequests.get() > 1);
+    }
+
+    // ------------------------------------------------------------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+
+        try {
+            ServedDirectory directory = directories.get(path);
+
+            if (directory != null) {
+                maxActiveDirectoryRequests.accumulateAndGet(activeDirectoryRequests.incrementAndGet(), Math::max);
+
+                try {
+                    Thread.sleep(directory.latencyMillis);
+                } finally {
+                    activeDirectoryRequests.decrementAndGet();
+                }
+
+                if (directory.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    exchange.getResponseHeaders().add("ETag", directory.etag);
+                    respond(exchange, directory.content);
+                }
+            } else if ("/shared-params.xml".equals(path)) {
+                respond(exchange, sharedParams);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, byte[] content) throws IOException {
+        exchange.sendResponseHeaders(200, content.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+    }
+
+    private int requestCount(String path) {
+        AtomicInteger count = requests.get(path);
+
+        return count == null ? 0 : count.get();
+    }
+
+    private void serve(String instance, String contentIdentifier, String contentLocation, long latencyMillis)
+            throws Exception {
+        byte[] content = createDirectory(instance, contentIdentifier, contentLocation);
+
+        directories.put("/" + instance + "/conf", new ServedDirectory(content,
+                "\"" + GenerateTestData.hash(content) + "\"", latencyMillis));
+    }
+
+    private byte[] createDirectory(String instance, String contentIdentifier, String contentLocation)
+            throws Exception {
+        String expireDate = OffsetDateTime.now(ZoneOffset.UTC).plusDays(1)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'"));
+
+        String parts = "--innerboundary\nExpire-date: " + expireDate + "\n\n"
+                + "\n--innerboundary\n"
+                + "Content-type: application/octet-stream\n"
+                + "Content-transfer-encoding: base64\n"
+                + "Content-identifier: " + contentIdentifier + "; instance=\"" + instance + "\"\n"
+                + "Content-location: " + contentLocation + "\n"
+                + "Hash-algorithm-id: http://www.w3.org/2001/04/xmlenc#sha512\n\n"
+                + GenerateTestData.hash(sharedParams);
+
+        Signature sig = Signature.getInstance(CryptoUtils.SHA512WITHRSA_ID);
+        sig.initSign(GenerateTestData.getSignCert().key);
+        sig.update(parts.getBytes(StandardCharsets.UTF_8));
+
+        String directory = "Content-Type: multipart/related; charset=UTF-8;boundary=envelopeboundary\n\n"
+                + "--envelopeboundary\n"
+                + "Content-Type: multipart/mixed; charset=UTF-8;boundary=innerboundary\n\n"
+                + parts
+                + "\n--envelopeboundary\n"
+                + "Content-type: application/octet-stream\n"
+                + "Content-transfer-encoding: base64\n"
+                + "Signature-algorithm-id: http://www.w3.org/2001/04/xmldsig-more#rsa-sha512\n"
+                + "Verification-certificate-hash: "
+                + GenerateTestData.hash(GenerateTestData.getSignCert().certChain[0].getEncoded())
+                + "; hash-algorithm-id=\"http://www.w3.org/2001/04/xmlenc#sha512\"\n"
+                + "\n" + encodeBase64(sig.sign()) + "\n"
+                + "--envelopeboundary--";
+
+        return directory.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ConfigurationDownloader getDownloader() {
+        return new ConfigurationDownloader(new FileNameProviderImpl(tempFolder.getRoot().toString()),
+                SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION);
+    }
+
+    private String getDownloadUrl(String instance) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + "/" + instance + "/conf";
+    }
+
+    private List<ConfigurationLocation> getLocations(ConfigurationSource source, String instance) {
+        try {
+            return Collections.singletonList(new ConfigurationLocation(source, getDownloadUrl(instance),
+                    Collections.singletonList(TestCertUtil.getConsumer().certChain[0].getEncoded())));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ConfigurationSource getSource(String instance) {
+        return new ConfigurationSource() {
+            @Override
+            public String getInstanceIdentifier() {
+                return instance;
+            }
+
+            @Override
+            public List<ConfigurationLocation> getLocations() {
+                return ConfigurationClientHttpTest.this.getLocations(this, instance);
+            }
+
+            @Override
+            public boolean hasChanged() {
+                return false;
+            }
+        };
+    }
+
+    private ConfigurationAnchorV2 getAnchor() {
+        return new ConfigurationAnchorV2((String) null) {
+            @Override
+            public boolean hasChanged() {
+                return false;
+            }
+
+            @Override
+            public List<ConfigurationLocation> getLocations() {
+                return ConfigurationClientHttpTest.this.getLocations(this, "EE");
+            }
+
+            @Override
+            public String getInstanceIdentifier() {
+                return "EE";
+            }
+        };
+    }
+
+    private static final class ServedDirectory {
+        private final byte[] content;
+        private final String etag;
+        private final long latencyMillis;
+
+        ServedDirectory(byte[] content, String etag, long latencyMillis) {
+            this.content = content;
+            this.etag = etag;
+            this.latencyMillis = latencyMillis;
+        }
+    }
+}
@@ -34,6 +34,12 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Defines a configuration proxy instance and carries out it's main operations.
@@ -42,6 +48,8 @@ import java.nio.file.Paths;
 public class ConfProxy {
     protected ConfProxyProperties conf;
 
+    private final List<Future<OutputBuilder>> builds = new ArrayList<>();
+
     /**
      * Initializes a new configuration proxy instance.
      * @param instance name of this proxy instance
@@ -58,21 +66,82 @@ public class ConfProxy {
      * @throws Exception in case of any errors
      */
     public final void execute() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            startBuilds(executor);
+            publish();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Starts downloading and signing every supported global configuration version using the given executor.
+     * The signed directories are published by {@link #publish()}.
+     * @param executor executor to run the builds in
+     * @throws Exception if outdated generations could not be purged
+     */
+    public final void startBuilds(ExecutorService executor) throws Exception {
         log.debug("Purge outdated generations");
         ConfProxyHelper.purgeOutdatedGenerations(conf);
         for (int version = SystemProperties.CURRENT_GLOBAL_CONFIGURATION_VERSION;
                 version >= SystemProperties.getMinimumConfigurationProxyGlobalConfigurationVersion();
                 version--) {
-            log.debug("Download global configuration version {}. Minimum version {}", version,
-                    SystemProperties.getMinimumConfigurationProxyGlobalConfigurationVersion());
-            ConfigurationDirectory confDir = download(version);
-            log.debug("Create output builder");
-            OutputBuilder output = new OutputBuilder(confDir, conf, version);
+            int buildVersion = version;
+            builds.add(executor.submit(() -> build(buildVersion)));
+        }
+    }
+
+    /**
+     * Moves the signed directories to the public distribution directory, newest version first. As when the
+     * versions were built one after another, a failed version is not published and neither are the versions
+     * after it.
+     * @throws Exception in case of any errors
+     */
+    public final void publish() throws Exception {
+        try {
+            while (!builds.isEmpty()) {
+                OutputBuilder output = getBuild(builds.remove(0));
+                log.debug("Move and cleanup");
+                output.moveAndCleanup();
+                log.debug("Finished execute");
+            }
+        } finally {
+            while (!builds.isEmpty()) {
+                discard(builds.remove(0));
+            }
+        }
+    }
+
+    private OutputBuilder build(int version) throws Exception {
+        log.debug("Download global configuration version {}. Minimum version {}", version,
+                SystemProperties.getMinimumConfigurationProxyGlobalConfigurationVersion());
+        ConfigurationDirectory confDir = download(version);
+        log.debug("Create output builder");
+        OutputBuilder output = new OutputBuilder(confDir, conf, version);
+        try {
             log.debug("Build signed directory");
             output.buildSignedDirectory();
-            log.debug("Move and cleanup");
-            output.moveAndCleanup();
-            log.debug("Finished execute");
+        } catch (Exception e) {
+            output.cleanup();
+            throw e;
+        }
+        return output;
+    }
+
+    private static OutputBuilder getBuild(Future<OutputBuilder> build) throws Exception {
+        try {
+            return build.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static void discard(Future<OutputBuilder> build) {
+        try {
+            getBuild(build).cleanup();
+        } catch (Exception e) {
+            log.debug("Discarded signed directory build failed", e);
         }
     }
 
@@ -25,6 +25,7 @@
  */
 package ee.ria.xroad.confproxy;
 
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.SystemPropertiesLoader;
 import ee.ria.xroad.confproxy.util.ConfProxyHelper;
 import ee.ria.xroad.signer.protocol.SignerClient;
@@ -33,8 +34,11 @@ import akka.actor.ActorSystem;
 import com.typesafe.config.ConfigFactory;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static ee.ria.xroad.common.SystemProperties.CONF_FILE_CONFPROXY;
 
@@ -89,7 +93,8 @@ public final class ConfProxyMain {
     }
 
     /**
-     * Executes all configuration proxy instances in sequence.
+     * Executes all configuration proxy instances. Global configuration of all instances and versions is
+     * downloaded and signed concurrently, after which each instance publishes its signed directories.
      * @param args program arguments
      * @throws Exception if not able to get list of available instances
      */
@@ -104,15 +109,32 @@ public final class ConfProxyMain {
             log.debug("Instances from available instances: {}", instances);
         }
 
-        for (String instance: instances) {
-            try {
-                ConfProxy proxy = new ConfProxy(instance);
-                log.info("ConfProxy executing for instance {}", instance);
-                proxy.execute();
-            } catch (Exception ex) {
-                log.error("Error when executing configuration-proxy '{}'",
-                        instance, ex);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, SystemProperties.getConfigurationProxyThreadPoolSize()));
+        List<ConfProxy> proxies = new ArrayList<>();
+        try {
+            for (String instance: instances) {
+                try {
+                    ConfProxy proxy = new ConfProxy(instance);
+                    log.info("ConfProxy executing for instance {}", instance);
+                    proxy.startBuilds(executor);
+                    proxies.add(proxy);
+                } catch (Exception ex) {
+                    log.error("Error when executing configuration-proxy '{}'",
+                            instance, ex);
+                }
+            }
+
+            for (ConfProxy proxy: proxies) {
+                try {
+                    proxy.publish();
+                } catch (Exception ex) {
+                    log.error("Error when executing configuration-proxy '{}'",
+                            proxy.conf.getInstance(), ex);
+                }
             }
+        } finally {
+            executor.shutdown();
         }
     }
 
@@ -41,12 +41,17 @@ import ee.ria.xroad.signer.protocol.message.SignResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.TeeOutputStream;
+import org.bouncycastle.operator.DigestCalculator;
 import org.eclipse.jetty.util.MultiPartWriter;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -55,9 +60,9 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static ee.ria.xroad.common.util.CryptoUtils.calculateDigest;
+import static ee.ria.xroad.common.util.CryptoUtils.createDigestCalculator;
 import static ee.ria.xroad.common.util.CryptoUtils.encodeBase64;
 import static ee.ria.xroad.common.util.MimeUtils.HEADER_CONTENT_IDENTIFIER;
 import static ee.ria.xroad.common.util.MimeUtils.HEADER_CONTENT_LOCATION;
@@ -82,6 +87,8 @@ public class OutputBuilder {
     public static final String SIGNED_DIRECTORY_NAME = "conf";
     private static final DateTimeFormatter DATETIME_FORMAT =
             DateTimeFormatter.ISO_OFFSET_DATE_TIME.withZone(ZoneId.of("UTC"));
+    // generation timestamps are directory names, builders running in parallel must not share one
+    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong();
 
     private final ConfigurationDirectory confDir;
     private final ConfProxyProperties conf;
@@ -114,22 +121,27 @@ public class OutputBuilder {
 
     /**
      * Generates a signed directory MIME for the global configuration and
-     * writes the directory contents to a temporary location.
+     * writes the directory contents to a temporary location. The directory content
+     * is streamed to the signed directory file and digested while it is generated.
      * @throws Exception if errors occur when reading global configuration files
      */
     public final void buildSignedDirectory() throws Exception {
-        try (ByteArrayOutputStream mimeContent = new ByteArrayOutputStream()) {
-            build(mimeContent);
+        DigestCalculator digestCalculator = createDigestCalculator(conf.getSignatureDigestAlgorithmId());
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempConfPath));
 
-            log.debug("Generated directory content:\n{}\n", mimeContent.toString());
+        try (MultipartEncoder encoder = new MultipartEncoder(out, envelopeBoundary)) {
+            out.write(envelopeHeader.getBytes());
+            encoder.startPart(mpMixedContentType(dataBoundary));
 
-            byte[] contentBytes = mimeContent.toByteArray();
-            mimeContent.reset();
-            sign(contentBytes, mimeContent);
-            Files.write(tempConfPath, mimeContent.toByteArray());
+            try (OutputStream mimeContent = new TeeOutputStream(new CloseShieldOutputStream(out),
+                    digestCalculator.getOutputStream())) {
+                build(mimeContent);
+            }
 
-            log.debug("Written signed directory to '{}'", tempConfPath);
+            sign(digestCalculator.getDigest(), encoder);
         }
+
+        log.debug("Written signed directory to '{}'", tempConfPath);
     }
 
     /**
@@ -153,6 +165,17 @@ public class OutputBuilder {
         FileUtils.deleteDirectory(tempDirPath.toFile());
     }
 
+    /**
+     * Removes the temporary files of a signed global configuration that is not going to be published.
+     * @throws IOException in case of unsuccessful file operations
+     */
+    public final void cleanup() throws IOException {
+        log.debug("Removing '{}' and '{}'", tempDirPath, tempConfPath);
+
+        Files.deleteIfExists(tempConfPath);
+        FileUtils.deleteDirectory(tempDirPath.toFile());
+    }
+
     /**
      * Setup reference data and temporary directory for the output builder.
      * @throws Exception if temporary directory could not be created
@@ -162,7 +185,7 @@ public class OutputBuilder {
         String hashAlgURI = conf.getHashAlgorithmURI();
 
         hashCalculator = new HashCalculator(hashAlgURI);
-        timestamp = Long.toString(new Date().getTime());
+        timestamp = Long.toString(nextTimestamp());
         tempConfPath = Paths.get(tempDir, String.format("%s-v%d", SIGNED_DIRECTORY_NAME, version));
         tempDirPath = Paths.get(tempDir, timestamp);
 
@@ -180,12 +203,21 @@ public class OutputBuilder {
                 MultiPartWriter.MULTIPART_MIXED) + "\n\n";
     }
 
+    /**
+     * @return the current time in milliseconds, or a later time if it has already been used as a timestamp
+     */
+    private static long nextTimestamp() {
+        long now = System.currentTimeMillis();
+
+        return LAST_TIMESTAMP.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
     /**
      * Generates global configuration directory content MIME.
      * @param mimeContent output stream to write to
      * @throws Exception if reading global configuration files fails
      */
-    private void build(final ByteArrayOutputStream mimeContent) throws Exception {
+    private void build(final OutputStream mimeContent) throws Exception {
         try (MultipartEncoder encoder = new MultipartEncoder(mimeContent, dataBoundary)) {
             OffsetDateTime expireDate = OffsetDateTime.now().plusSeconds(conf.getValidityIntervalSeconds());
             encoder.startPart(null, new String[] {
@@ -205,44 +237,29 @@ public class OutputBuilder {
     }
 
     /**
-     * Signs the global configuration directory content.
-     * @param contentBytes configuration directory content bytes
-     * @param mimeContent  output stream to write to
+     * Signs the global configuration directory content and appends the signature to the signed directory.
+     * @param digest  digest of the configuration directory content
+     * @param encoder signed directory encoder, positioned after the directory content
      * @throws Exception if errors are encountered while writing
      *                   the signed directory content to a temporary location
      */
-    private void sign(final byte[] contentBytes, final ByteArrayOutputStream mimeContent) throws Exception {
+    private void sign(final byte[] digest, final MultipartEncoder encoder) throws Exception {
         String keyId = conf.getActiveSigningKey();
-        String digestAlgorithmId = conf.getSignatureDigestAlgorithmId();
-        String signAlgoId = getSignatureAlgorithmId(keyId, digestAlgorithmId);
-        byte[] digest = calculateDigest(digestAlgorithmId, contentBytes);
+        String signAlgoId = getSignatureAlgorithmId(keyId, conf.getSignatureDigestAlgorithmId());
 
         log.debug("Signing directory with signing key '{}' and signing algorithm '{}'", keyId, signAlgoId);
 
         String signature = getSignature(keyId, signAlgoId, digest);
-
-        mimeContent.write(envelopeHeader.getBytes());
-
-        try (MultipartEncoder encoder = new MultipartEncoder(mimeContent, envelopeBoundary)) {
-            encoder.startPart(mpMixedContentType(dataBoundary));
-            encoder.write(contentBytes);
-            String algURI = CryptoUtils.getSignatureAlgorithmURI(signAlgoId);
-            String hashURI = hashCalculator.getAlgoURI();
-            Path verificationCertPath = conf.getCertPath(keyId);
-
-            encoder.startPart(MimeTypes.BINARY, new String[] {
-                    HEADER_CONTENT_TRANSFER_ENCODING + ": base64",
-                    HEADER_SIG_ALGO_ID + ": " + algURI,
-                    HEADER_VERIFICATION_CERT_HASH + ": " + getVerificationCertHash(verificationCertPath) + "; "
-                            + HEADER_HASH_ALGORITHM_ID + "=" + hashURI});
-            encoder.write(signature.getBytes());
-        }
-
-        log.debug("Generated signed directory:\n{}\n", mimeContent.toString());
-
-        Files.write(tempConfPath, mimeContent.toByteArray());
-
-        log.debug("Written signed directory to '{}'", tempConfPath);
+        String algURI = CryptoUtils.getSignatureAlgorithmURI(signAlgoId);
+        String hashURI = hashCalculator.getAlgoURI();
+        Path verificationCertPath = conf.getCertPath(keyId);
+
+        encoder.startPart(MimeTypes.BINARY, new String[] {
+                HEADER_CONTENT_TRANSFER_ENCODING + ": base64",
+                HEADER_SIG_ALGO_ID + ": " + algURI,
+                HEADER_VERIFICATION_CERT_HASH + ": " + getVerificationCertHash(verificationCertPath) + "; "
+                        + HEADER_HASH_ALGORITHM_ID + "=" + hashURI});
+        encoder.write(signature.getBytes());
     }
 
     /**
@@ -27,10 +27,10 @@ package ee.ria.xroad.monitor;
 
 import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.monitor.common.SystemMetricNames;
-import ee.ria.xroad.monitor.executablelister.OsInfoLister;
-import ee.ria.xroad.monitor.executablelister.PackageLister;
-import ee.ria.xroad.monitor.executablelister.ProcessLister;
-import ee.ria.xroad.monitor.executablelister.XroadProcessLister;
+import ee.ria.xroad.monitor.executablelister.CachedPackageLister;
+import ee.ria.xroad.monitor.executablelister.ProcFsOsInfoLister;
+import ee.ria.xroad.monitor.executablelister.ProcFsProcessLister;
+import ee.ria.xroad.monitor.executablelister.ProcFsXroadProcessLister;
 
 import com.codahale.metrics.Metric;
 import lombok.extern.slf4j.Slf4j;
@@ -41,13 +41,19 @@ import java.util.ArrayList;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Sensor which collects data by running external commands and
- * parsing output from those.
+ * Sensor which collects process, package and operating system data. Processes and
+ * operating system information are read from /proc, packages are listed by running
+ * the package manager whenever the package database has changed.
  */
 @Slf4j
 public class ExecListingSensor extends AbstractSensor {
 
     private MetricRegistryHolder registryHolder;
+    private final ProcFsProcessLister processLister = new ProcFsProcessLister();
+    private final ProcFsXroadProcessLister xroadProcessLister = new ProcFsXroadProcessLister();
+    private final CachedPackageLister packageLister = new CachedPackageLister();
+    private final ProcFsOsInfoLister osInfoLister = new ProcFsOsInfoLister();
+
     /**
      * Constructor
      */
@@ -84,22 +90,22 @@ public class ExecListingSensor extends AbstractSensor {
         createOrUpdateMetricPair(
                 SystemMetricNames.PROCESSES,
                 SystemMetricNames.PROCESS_STRINGS,
-                new ProcessLister().list()
+                processLister.list()
         );
 
         createOrUpdateMetricPair(
                 SystemMetricNames.XROAD_PROCESSES,
                 SystemMetricNames.XROAD_PROCESS_STRINGS,
-                new XroadProcessLister().list()
+                xroadProcessLister.list()
         );
 
         createOrUpdateMetricPair(
                 SystemMetricNames.PACKAGES,
                 SystemMetricNames.PACKAGE_STRINGS,
-                new PackageLister().list()
+                packageLister.list()
         );
 
-        createOsStringMetric(SystemMetricNames.OS_INFO, new OsInfoLister().list());
+        createOsStringMetric(SystemMetricNames.OS_INFO, osInfoLister.list());
     }
 
     @Override
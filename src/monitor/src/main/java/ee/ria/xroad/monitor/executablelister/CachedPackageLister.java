@@ -0,0 +1,92 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.monitor.executablelister;
+
+import ee.ria.xroad.monitor.JmxStringifiedData;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Package lister that runs the package manager only when the package database has changed since the previous
+ * listing. If no known package database is found, packages are listed every time.
+ */
+@Slf4j
+public class CachedPackageLister extends PackageLister {
+
+    private static final List<Path> PACKAGE_DATABASES = Arrays.asList(
+            Paths.get("/var/lib/dpkg/status"),
+            Paths.get("/var/lib/rpm/rpmdb.sqlite"),
+            Paths.get("/var/lib/rpm/Packages"));
+
+    private final List<Path> packageDatabases;
+
+    private String listedVersion;
+    private JmxStringifiedData<PackageInfo> listed;
+
+    /**
+     * Creates a lister watching the dpkg and rpm databases
+     */
+    public CachedPackageLister() {
+        this(PACKAGE_DATABASES);
+    }
+
+    CachedPackageLister(List<Path> packageDatabases) {
+        this.packageDatabases = packageDatabases;
+    }
+
+    @Override
+    public synchronized JmxStringifiedData<PackageInfo> list() throws ExecListingFailedException {
+        // read before listing, so that changes made during the listing are seen next time
+        String version = getPackageDatabaseVersion();
+        if (listed == null || version == null || !version.equals(listedVersion)) {
+            log.debug("Package database {} changed, listing packages", version);
+            listed = super.list();
+            listedVersion = version;
+        }
+        return listed;
+    }
+
+    private String getPackageDatabaseVersion() {
+        for (Path database : packageDatabases) {
+            try {
+                if (Files.exists(database)) {
+                    return database + ":" + Files.getLastModifiedTime(database).toMillis() + ":"
+                            + Files.size(database);
+                }
+            } catch (IOException e) {
+                log.debug("Could not read package database {}", database, e);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.monitor.executablelister;
+
+import ee.ria.xroad.monitor.JmxStringifiedData;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Reads the operating system information from /proc/version, instead of forking cat like {@link OsInfoLister}.
+ */
+public class ProcFsOsInfoLister {
+
+    private final Path versionPath;
+
+    /**
+     * Creates a lister reading /proc/version
+     */
+    public ProcFsOsInfoLister() {
+        this(Paths.get("/proc/version"));
+    }
+
+    ProcFsOsInfoLister(Path versionPath) {
+        this.versionPath = versionPath;
+    }
+
+    /**
+     * @return the operating system information line
+     * @throws ExecListingFailedException if the information could not be read
+     */
+    public JmxStringifiedData<String> list() throws ExecListingFailedException {
+        if (!SystemUtils.IS_OS_LINUX) {
+            throw new ExecListingFailedException("only linux is supported");
+        }
+        try {
+            String version = ProcFsProcessLister.readFirstLine(versionPath);
+            JmxStringifiedData<String> data = new JmxStringifiedData<>();
+            data.setDtoData(new ArrayList<>(Collections.singletonList(version)));
+            data.setJmxStringData(new ArrayList<>(Collections.singletonList(version)));
+            return data;
+        } catch (IOException e) {
+            throw new ExecListingFailedException(e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.monitor.executablelister;
+
+import ee.ria.xroad.monitor.JmxStringifiedData;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Lists processes by reading /proc/&lt;pid&gt;/stat and /proc/&lt;pid&gt;/status directly, instead of
+ * forking ps like {@link ProcessLister}. The values are computed the same way ps computes its user, pcpu,
+ * start_time, pmem, pid and comm columns.
+ */
+@Slf4j
+public class ProcFsProcessLister {
+
+    static final String HEADER = "USER %CPU START %MEM PID COMMAND";
+
+    // USER_HZ, the unit of the time values in /proc/<pid>/stat, is 100 on all architectures
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+    private static final long PER_MILLE = 1000;
+    private static final long MAX_PER_MILLE = 9999;
+    private static final int UTIME_FIELD = 11;
+    private static final int STIME_FIELD = 12;
+    private static final int STARTTIME_FIELD = 19;
+    private static final int EFFECTIVE_UID_INDEX = 1;
+    private static final int PER_MILLE_DIGITS = 10;
+    private static final DateTimeFormatter START_TIME_TODAY = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter START_TIME_THIS_YEAR =
+            DateTimeFormatter.ofPattern("MMMdd", Locale.ENGLISH);
+    private static final DateTimeFormatter START_TIME_EARLIER = DateTimeFormatter.ofPattern("yyyy");
+
+    private final Path procPath;
+    private final Path passwdPath;
+    private final Clock clock;
+
+    /**
+     * Creates a lister reading /proc and /etc/passwd
+     */
+    public ProcFsProcessLister() {
+        this(Paths.get("/proc"), Paths.get("/etc/passwd"), Clock.systemDefaultZone());
+    }
+
+    ProcFsProcessLister(Path procPath, Path passwdPath, Clock clock) {
+        this.procPath = procPath;
+        this.passwdPath = passwdPath;
+        this.clock = clock;
+    }
+
+    /**
+     * @return processes sorted by process id, the JMX representation has a header row like ps output
+     * @throws ExecListingFailedException if the process information could not be read
+     */
+    public JmxStringifiedData<ProcessInfo> list() throws ExecListingFailedException {
+        validateSupportedOs();
+        try {
+            Map<String, String> userNames = readUserNames();
+            long bootTime = readBootTime();
+            long uptimeSeconds = readUptimeSeconds();
+            long memTotalKb = readMemTotalKb();
+
+            ArrayList<ProcessInfo> processes = new ArrayList<>();
+            ArrayList<String> jmxRepresentation = new ArrayList<>();
+            jmxRepresentation.add(HEADER);
+
+            for (Map.Entry<Long, Path> process : listProcessDirectories().entrySet()) {
+                ProcessInfo info;
+                try {
+                    info = readProcess(process.getKey(), process.getValue(), userNames, bootTime, uptimeSeconds,
+                            memTotalKb);
+                } catch (NoSuchFileException e) {
+                    log.trace("Process {} exited while it was being read", process.getKey());
+                    continue;
+                }
+                if (info != null) {
+                    processes.add(info);
+                    jmxRepresentation.add(String.join(" ", info.getUserId(), info.getCpuLoad(),
+                            info.getStartTime(), info.getMemUsed(), info.getProcessId(), info.getCommand()));
+                }
+            }
+
+            JmxStringifiedData<ProcessInfo> data = new JmxStringifiedData<>();
+            data.setDtoData(processes);
+            data.setJmxStringData(jmxRepresentation);
+            return data;
+        } catch (IOException e) {
+            throw new ExecListingFailedException(e);
+        }
+    }
+
+    /**
+     * @param userName effective user name of the process
+     * @param name process name, as in /proc/&lt;pid&gt;/stat
+     * @return whether the process should be listed
+     */
+    protected boolean accept(String userName, String name) {
+        return true;
+    }
+
+    /**
+     * @param name process name, as in /proc/&lt;pid&gt;/stat
+     * @param processPath /proc/&lt;pid&gt; directory of the process
+     * @return command that is shown for the process
+     * @throws IOException if reading the process information fails
+     */
+    protected String getCommand(String name, Path processPath) throws IOException {
+        return name;
+    }
+
+    void validateSupportedOs() throws ExecListingFailedException {
+        if (!SystemUtils.IS_OS_LINUX) {
+            throw new ExecListingFailedException("only linux is supported");
+        }
+    }
+
+    private ProcessInfo readProcess(long pid, Path processPath, Map<String, String> userNames, long bootTime,
+            long uptimeSeconds, long memTotalKb) throws IOException {
+        String stat = readFirstLine(processPath.resolve("stat"));
+        // the process name is in parentheses and may itself contain spaces and parentheses
+        int nameStart = stat.indexOf('(');
+        int nameEnd = stat.lastIndexOf(')');
+        String name = stat.substring(nameStart + 1, nameEnd);
+        String[] fields = stat.substring(nameEnd + 2).split(" ");
+
+        Map<String, String> status = readStatus(processPath.resolve("status"));
+        String uid = status.get("Uid").split("\\s+")[EFFECTIVE_UID_INDEX];
+        String userName = userNames.getOrDefault(uid, uid);
+
+        if (!accept(userName, name)) {
+            return null;
+        }
+
+        long cpuTicks = Long.parseLong(fields[UTIME_FIELD]) + Long.parseLong(fields[STIME_FIELD]);
+        long startTicks = Long.parseLong(fields[STARTTIME_FIELD]);
+        long runningSeconds = uptimeSeconds - startTicks / CLOCK_TICKS_PER_SECOND;
+        long cpuPerMille = runningSeconds > 0 ? cpuTicks * PER_MILLE / CLOCK_TICKS_PER_SECOND / runningSeconds : 0;
+
+        String rss = status.get("VmRSS");
+        long rssKb = rss != null ? Long.parseLong(rss.split("\\s+")[0]) : 0;
+        long memPerMille = memTotalKb > 0 ? rssKb * PER_MILLE / memTotalKb : 0;
+
+        ProcessInfo info = new ProcessInfo();
+        info.setUserId(userName);
+        info.setCpuLoad(formatPerMille(cpuPerMille));
+        info.setStartTime(formatStartTime(bootTime + startTicks / CLOCK_TICKS_PER_SECOND));
+        info.setMemUsed(formatPerMille(memPerMille));
+        info.setProcessId(Long.toString(pid));
+        info.setCommand(getCommand(name, processPath));
+        return info;
+    }
+
+    private Map<Long, Path> listProcessDirectories() throws IOException {
+        Map<Long, Path> processes = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(procPath,
+                p -> p.getFileName().toString().chars().allMatch(Character::isDigit))) {
+            for (Path processPath : stream) {
+                processes.put(Long.parseLong(processPath.getFileName().toString()), processPath);
+            }
+        }
+        return processes;
+    }
+
+    private Map<String, String> readUserNames() throws IOException {
+        Map<String, String> userNames = new HashMap<>();
+        for (String line : Files.readAllLines(passwdPath, StandardCharsets.UTF_8)) {
+            String[] columns = line.split(":");
+            if (columns.length > 2) {
+                userNames.putIfAbsent(columns[2], columns[0]);
+            }
+        }
+        return userNames;
+    }
+
+    private long readBootTime() throws IOException {
+        return Long.parseLong(findValue(procPath.resolve("stat"), "btime "));
+    }
+
+    private long readUptimeSeconds() throws IOException {
+        String uptime = readFirstLine(procPath.resolve("uptime"));
+        return (long) Double.parseDouble(uptime.substring(0, uptime.indexOf(' ')));
+    }
+
+    private long readMemTotalKb() throws IOException {
+        return Long.parseLong(findValue(procPath.resolve("meminfo"), "MemTotal:").split("\\s+")[0]);
+    }
+
+    private String formatStartTime(long startSeconds) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime start = ZonedDateTime.ofInstant(Instant.ofEpochSecond(startSeconds), clock.getZone());
+        if (start.getYear() != now.getYear()) {
+            return START_TIME_EARLIER.format(start);
+        }
+        return start.getDayOfYear() == now.getDayOfYear()
+                ? START_TIME_TODAY.format(start) : START_TIME_THIS_YEAR.format(start);
+    }
+
+    private static String formatPerMille(long perMille) {
+        long value = Math.min(perMille, MAX_PER_MILLE);
+        return value / PER_MILLE_DIGITS + "." + value % PER_MILLE_DIGITS;
+    }
+
+    private static Map<String, String> readStatus(Path statusPath) throws IOException {
+        Map<String, String> status = new HashMap<>();
+        for (String line : Files.readAllLines(statusPath, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(':');
+            if (separator > 0) {
+                status.put(line.substring(0, separator), line.substring(separator + 1).trim());
+            }
+        }
+        return status;
+    }
+
+    private static String findValue(Path path, String prefix) throws IOException {
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.startsWith(prefix)) {
+                return line.substring(prefix.length()).trim();
+            }
+        }
+        throw new ExecListingFailedException(prefix.trim() + " not found in " + path);
+    }
+
+    static String readFirstLine(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        return lines.isEmpty() ? "" : lines.get(0);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.monitor.executablelister;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+
+/**
+ * Lists the java processes of the xroad user from /proc, like {@link XroadProcessLister} does with ps and pgrep.
+ * The command of a process is its full command line.
+ */
+public class ProcFsXroadProcessLister extends ProcFsProcessLister {
+
+    private static final String XROAD_USER = "xroad";
+    private static final String JAVA_PROCESS_NAME = "java";
+
+    /**
+     * Creates a lister reading /proc and /etc/passwd
+     */
+    public ProcFsXroadProcessLister() {
+        super();
+    }
+
+    ProcFsXroadProcessLister(Path procPath, Path passwdPath, Clock clock) {
+        super(procPath, passwdPath, clock);
+    }
+
+    @Override
+    protected boolean accept(String userName, String name) {
+        return XROAD_USER.equals(userName) && name.contains(JAVA_PROCESS_NAME);
+    }
+
+    @Override
+    protected String getCommand(String name, Path processPath) throws IOException {
+        // arguments are separated by NUL characters, kernel threads have no command line
+        String commandLine = new String(Files.readAllBytes(processPath.resolve("cmdline")), StandardCharsets.UTF_8)
+                .replace('\0', ' ').trim();
+        return commandLine.isEmpty() ? "[" + name + "]" : commandLine;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.monitor.executablelister;
+
+import ee.ria.xroad.monitor.JmxStringifiedData;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the cached package lister
+ */
+public class CachedPackageListerTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void listsPackagesOnlyWhenDatabaseChanges() throws Exception {
+        Path database = tempFolder.newFile("status").toPath();
+        Files.write(database, "one".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger executions = new AtomicInteger();
+
+        CachedPackageLister lister = new CachedPackageLister(Collections.singletonList(database)) {
+            @Override
+            ProcessOutputs executeProcess() throws IOException, InterruptedException {
+                executions.incrementAndGet();
+                ProcessOutputs fakeOutputs = new ProcessOutputs();
+                fakeOutputs.setOut("xroad-proxy/6.25.0-1\nxroad-signer/6.25.0-1\n");
+                return fakeOutputs;
+            }
+        };
+
+        JmxStringifiedData<PackageInfo> data = lister.list();
+        assertEquals(2, data.getDtoData().size());
+        assertSame(data, lister.list());
+        assertEquals(1, executions.get());
+
+        Files.write(database, "one two".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(database, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        lister.list();
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void listsPackagesEveryTimeWithoutDatabase() {
+        AtomicInteger executions = new AtomicInteger();
+
+        CachedPackageLister lister = new CachedPackageLister(
+                Collections.singletonList(tempFolder.getRoot().toPath().resolve("missing"))) {
+            @Override
+            ProcessOutputs executeProcess() throws IOException, InterruptedException {
+                executions.incrementAndGet();
+                ProcessOutputs fakeOutputs = new ProcessOutputs();
+                fakeOutputs.setOut("xroad-proxy/6.25.0-1\n");
+                return fakeOutputs;
+            }
+        };
+
+        lister.list();
+        lister.list();
+        assertEquals(2, executions.get());
+    }
+}
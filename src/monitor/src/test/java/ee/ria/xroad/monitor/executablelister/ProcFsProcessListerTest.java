@@ -0,0 +1,104 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.monitor.executablelister;
+
+import ee.ria.xroad.monitor.JmxStringifiedData;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the /proc based listers, using a fixture of /proc files
+ */
+public class ProcFsProcessListerTest {
+
+    private static final String RESOURCE_PATH = "src/test/resources/";
+    private static final Path PROC_PATH = Paths.get(RESOURCE_PATH, "procfs");
+    private static final Path PASSWD_PATH = Paths.get(RESOURCE_PATH, "passwd");
+    // fixture boot time is 1600000000 and uptime 100000 seconds
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochSecond(1600100000L), ZoneOffset.UTC);
+
+    @Test
+    public void testProcessList() {
+        JmxStringifiedData<ProcessInfo> data = new ProcFsProcessLister(PROC_PATH, PASSWD_PATH, CLOCK).list();
+        assertEquals(4, data.getDtoData().size());
+        assertEquals(5, data.getJmxStringData().size()); // header row included
+
+        ProcessInfo info = data.getDtoData().get(0);
+        assertEquals("root", info.getUserId());
+        assertEquals("70.0", info.getCpuLoad());
+        assertEquals("Sep13", info.getStartTime());
+        assertEquals("0.2", info.getMemUsed());
+        assertEquals("1", info.getProcessId());
+        assertEquals("init", info.getCommand());
+
+        // kernel thread without resident memory
+        info = data.getDtoData().get(1);
+        assertEquals("0.0", info.getCpuLoad());
+        assertEquals("0.0", info.getMemUsed());
+        assertEquals("kthreadd", info.getCommand());
+
+        // started today
+        info = data.getDtoData().get(3);
+        assertEquals("janne", info.getUserId());
+        assertEquals("15:13", info.getStartTime());
+        assertEquals("0.1", info.getMemUsed());
+        assertEquals("java", info.getCommand());
+
+        assertEquals(ProcFsProcessLister.HEADER, data.getJmxStringData().get(0));
+        assertEquals("root 70.0 Sep13 0.2 1 init", data.getJmxStringData().get(1));
+    }
+
+    @Test
+    public void testXroadProcessList() {
+        JmxStringifiedData<ProcessInfo> data = new ProcFsXroadProcessLister(PROC_PATH, PASSWD_PATH, CLOCK).list();
+        assertEquals(1, data.getDtoData().size());
+
+        ProcessInfo info = data.getDtoData().get(0);
+        assertEquals("xroad", info.getUserId());
+        assertEquals("10.0", info.getCpuLoad());
+        assertEquals("15:13", info.getStartTime());
+        assertEquals("10.0", info.getMemUsed());
+        assertEquals("2303", info.getProcessId());
+        assertEquals("/usr/bin/java -Xmx512m -jar proxy.jar", info.getCommand());
+    }
+
+    @Test
+    public void testOsInfo() {
+        JmxStringifiedData<String> data = new ProcFsOsInfoLister(PROC_PATH.resolve("version")).list();
+        assertEquals(1, data.getDtoData().size());
+        assertEquals(data.getDtoData().get(0), data.getJmxStringData().get(0));
+        assertTrue(data.getDtoData().get(0).startsWith("Linux version 5.4.0-48-generic"));
+    }
+}
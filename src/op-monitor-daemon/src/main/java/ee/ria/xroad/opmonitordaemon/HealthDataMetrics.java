@@ -29,25 +29,16 @@ import ee.ria.xroad.common.identifier.ServiceId;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
 
-import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
-import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingTimeWindowReservoir;
+import com.google.common.collect.MapMaker;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
-
-import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getLastRequestTimestampGaugeName;
-import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestCounterName;
-import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestDurationName;
-import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestSizeName;
-import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getResponseSizeName;
-import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getServiceTypeName;
+import java.util.stream.Stream;
 
 /**
  * Health data metrics forwarded over JMX. Also, these metrics are used when
@@ -66,13 +57,15 @@ final class HealthDataMetrics {
     static final String MONITORING_STARTUP_TIMESTAMP =
             "monitoringStartupTimestamp";
 
-    // The timestamps of last successful and unsuccessful requests are stored
-    // for each service that is handled for, and are provided when the
-    // respective gauge is queried.
-    private static Map<String, Long> requestTimestamps = new HashMap<>();
+    // Batches of at least this many records are processed in parallel.
+    private static final int PARALLEL_PROCESSING_THRESHOLD = 50;
 
-    // Stores the service types of the services
-    private static Map<String, String> serviceTypes = new HashMap<>();
+    // The handles to the metrics of each service that has been handled for,
+    // per metric registry. The registries are weakly referenced so that
+    // discarded registries (in tests) do not keep their metrics alive.
+    private static final ConcurrentMap<MetricRegistry,
+            ConcurrentMap<ServiceMetricsKey, ServiceHealthMetrics>>
+            SERVICE_METRICS = new MapMaker().weakKeys().makeMap();
 
     private HealthDataMetrics() {
     }
@@ -93,112 +86,53 @@ final class HealthDataMetrics {
     /**
      * Pick the required health data from all the records and update the
      * metrics registry. If necessary, new metrics are registered.
+     * This method may be called concurrently, large batches of records are
+     * processed in parallel.
      * @param registry the metric registry of the operational monitoring daemon
      * @param records  a list of operational data records that will be
      *                 analyzed for health metrics
      */
     static void processRecords(MetricRegistry registry,
             List<OperationalDataRecord> records) {
-        for (OperationalDataRecord rec : records) {
-            if (!rec.getSecurityServerType().equals(
-                    OpMonitoringData.SecurityServerType.PRODUCER)) {
-                // Health data is computed over the requests that are handled
-                // in the producer role only.
-                continue;
-            }
-
-            ServiceId serviceId = HealthDataMetricsUtil.getServiceId(rec);
-
-            if (serviceId == null) {
-                // Ignore records without service ID.
-                continue;
-            }
-
-            registerOrUpdateGauges(registry, serviceId, rec);
-            registerOrUpdateCounters(registry, serviceId, rec);
-
-            if (rec.getSucceeded()) {
-                // Statistics of request duration and the sizes of the request
-                // and response are computed over the successful requests only.
-                registerOrUpdateHistograms(registry, serviceId, rec);
-            }
-        }
-    }
+        ConcurrentMap<ServiceMetricsKey, ServiceHealthMetrics> serviceMetrics =
+                SERVICE_METRICS.computeIfAbsent(registry,
+                        r -> new ConcurrentHashMap<>());
 
-    private static void registerOrUpdateGauges(MetricRegistry registry,
-            ServiceId serviceId, OperationalDataRecord rec) {
-        // last request timestamp
-        String expectedGaugeName = getLastRequestTimestampGaugeName(serviceId,
-                rec.getSucceeded());
-        requestTimestamps.put(expectedGaugeName, rec.getResponseOutTs());
-        Gauge gauge = HealthDataMetricsUtil.findGauge(registry,
-                expectedGaugeName);
-        if (gauge == null) {
-            registry.register(expectedGaugeName,
-                    (Gauge<Long>) () -> requestTimestamps.get(
-                            expectedGaugeName));
-        }
+        Stream<OperationalDataRecord> stream =
+                records.size() >= PARALLEL_PROCESSING_THRESHOLD
+                        ? records.parallelStream() : records.stream();
 
-        // service type
-        String serviceTypeGaugeName = getServiceTypeName(serviceId);
-        serviceTypes.put(serviceTypeGaugeName, rec.getServiceType());
-        Gauge serviceTypeGauge = HealthDataMetricsUtil.findGauge(registry,
-                serviceTypeGaugeName);
-        if (serviceTypeGauge == null) {
-            registry.register(serviceTypeGaugeName,
-                    (Gauge<String>) () -> serviceTypes.get(serviceTypeGaugeName));
-        }
+        stream.forEach(rec -> processRecord(registry, serviceMetrics, rec));
     }
 
-    private static void registerOrUpdateCounters(MetricRegistry registry,
-            ServiceId serviceId, OperationalDataRecord rec) {
-        String expectedCounterName = getRequestCounterName(serviceId,
-                rec.getSucceeded());
-        Counter counter = HealthDataMetricsUtil.findCounter(registry,
-                expectedCounterName);
-
-        if (counter == null) {
-            // Register and increment a new counter.
-            counter = new SlidingTimeWindowCounter(
-                    OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS, TimeUnit.SECONDS);
-            registry.register(expectedCounterName, counter);
+    private static void processRecord(MetricRegistry registry,
+            ConcurrentMap<ServiceMetricsKey, ServiceHealthMetrics> serviceMetrics,
+            OperationalDataRecord rec) {
+        if (!OpMonitoringData.SecurityServerType.PRODUCER.equals(
+                rec.getSecurityServerType())) {
+            // Health data is computed over the requests that are handled
+            // in the producer role only.
+            return;
         }
 
-        counter.inc();
-    }
-
-    private static void registerOrUpdateHistograms(MetricRegistry registry,
-            ServiceId serviceId, OperationalDataRecord rec) {
-        registerOrUpdateHistogram(registry, getRequestDurationName(serviceId), getRequestDuration(rec));
+        ServiceHealthMetrics metrics = serviceMetrics.computeIfAbsent(
+                ServiceMetricsKey.of(rec),
+                key -> createServiceMetrics(registry, rec));
 
-        registerOrUpdateHistogram(registry, getRequestSizeName(serviceId), rec.getRequestSize());
-        registerOrUpdateHistogram(registry, getResponseSizeName(serviceId), rec.getResponseSize());
-    }
-
-    private static void registerOrUpdateHistogram(MetricRegistry registry, String histogramName, Long newValue) {
-
-        if (newValue == null) return;
-
-        Histogram histogram = HealthDataMetricsUtil.findHistogram(registry, histogramName);
-
-        if (histogram == null) {
-            // Add a histogram corresponding to the service and update it.
-            histogram = registry.register(histogramName,
-                    new Histogram(new SlidingTimeWindowReservoir(
-                            OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS,
-                            TimeUnit.SECONDS)));
+        if (metrics == null) {
+            // Ignore records without service ID.
+            return;
         }
 
-        histogram.update(newValue);
+        metrics.update(rec);
     }
 
-    /**
-     * @param record an operational data record
-     * @return the duration of the request (the difference between the
-     * response out timestamp and the request in timestamp of the request.
-     */
-    private static Long getRequestDuration(OperationalDataRecord record) {
-        return record.getResponseOutTs() - record.getRequestInTs();
+    private static ServiceHealthMetrics createServiceMetrics(
+            MetricRegistry registry, OperationalDataRecord rec) {
+        ServiceId serviceId = HealthDataMetricsUtil.getServiceId(rec);
+
+        return serviceId == null ? null : new ServiceHealthMetrics(registry,
+                serviceId, OP_MONITOR_HEALTH_STATS_PERIOD_SECONDS);
     }
 
     /**
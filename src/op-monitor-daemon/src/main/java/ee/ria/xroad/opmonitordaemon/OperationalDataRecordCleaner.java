@@ -28,6 +28,7 @@ package ee.ria.xroad.opmonitordaemon;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
 import ee.ria.xroad.common.util.JobManager;
 import ee.ria.xroad.common.util.MessageSendingJob;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
 
 import akka.actor.ActorSelection;
 import akka.actor.ActorSystem;
@@ -44,7 +45,7 @@ import java.util.concurrent.TimeUnit;
 import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
 
 /**
- * Deletes outdated operational data records from the database.
+ * Deletes outdated operational data records and rollups from the database.
  */
 @Slf4j
 final class OperationalDataRecordCleaner extends UntypedAbstractActor {
@@ -86,8 +87,14 @@ final class OperationalDataRecordCleaner extends UntypedAbstractActor {
     }
 
     private static void handleCleanup() throws Exception {
-        cleanRecords(
-                Instant.now().minus(OpMonitoringSystemProperties.getOpMonitorKeepRecordsForDays(), ChronoUnit.DAYS));
+        Instant now = Instant.now();
+
+        cleanRecords(now.minus(OpMonitoringSystemProperties.getOpMonitorKeepRecordsForDays(), ChronoUnit.DAYS));
+
+        cleanRollups(Granularity.MINUTE,
+                now.minus(OpMonitoringSystemProperties.getOpMonitorKeepMinuteRollupsForDays(), ChronoUnit.DAYS));
+        cleanRollups(Granularity.HOUR,
+                now.minus(OpMonitoringSystemProperties.getOpMonitorKeepHourRollupsForDays(), ChronoUnit.DAYS));
     }
 
     static int cleanRecords(Instant before) throws Exception {
@@ -112,6 +119,23 @@ final class OperationalDataRecordCleaner extends UntypedAbstractActor {
         });
     }
 
+    static int cleanRollups(Granularity granularity, Instant before) throws Exception {
+        log.trace("cleanRollups({}, {})", granularity, before);
+
+        return doInTransaction(session -> {
+            int removed = session.createQuery("delete OperationalDataRollup r"
+                    + " where r.granularity = :granularity and r.periodStart < :periodStart")
+                    .setParameter("granularity", granularity.getSeconds())
+                    .setParameter("periodStart", TimeUnit.MILLISECONDS.toSeconds(before.toEpochMilli()))
+                    .executeUpdate();
+
+            log.info("Removed {} outdated operational data rollups of granularity {} from the database",
+                    removed, granularity);
+
+            return removed;
+        });
+    }
+
     private static void registerCronJob(JobManager jobManager,
             ActorSystem actorSystem, Object message, String cronExpression) {
         ActorSelection actor = actorSystem.actorSelection(
@@ -0,0 +1,353 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Represents a single database record of pre-aggregated operational monitoring
+ * data. Each such record sums up the requests between one client and one
+ * service, as seen by one security server role, during one period.
+ *
+ * Like in the health data, the statistics of request duration and the sizes of
+ * the request and response are computed over the successful requests only.
+ */
+@ToString
+@SuppressWarnings("checkstyle:magicnumber")
+public class OperationalDataRollup {
+
+    /**
+     * The length of the aggregation period.
+     */
+    public enum Granularity {
+        MINUTE(60),
+        HOUR(3600);
+
+        @Getter
+        private final int seconds;
+
+        Granularity(int seconds) {
+            this.seconds = seconds;
+        }
+
+        /**
+         * @param epochSecond a Unix timestamp in seconds
+         * @return the start of the period the timestamp belongs to
+         */
+        long periodStart(long epochSecond) {
+            return epochSecond - Math.floorMod(epochSecond, seconds);
+        }
+    }
+
+    // Upper bounds (inclusive, in milliseconds) of the request duration
+    // histogram buckets. The last bucket collects everything above.
+    static final long[] DURATION_BUCKET_BOUNDS =
+            {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private static final String HISTOGRAM_SEPARATOR = ",";
+
+    // The unique ID of the record in the database.
+    @Getter
+    @Setter
+    private Long id;
+
+    // The length of the period in seconds, see Granularity.
+    @Getter
+    @Setter
+    private Integer granularity;
+
+    // The Unix timestamp (in seconds) of the start of the period. The requests
+    // are assigned to periods by their request in timestamp.
+    @Getter
+    @Setter
+    private Long periodStart;
+
+    @Getter
+    @Setter
+    private String securityServerType;
+
+    @Getter
+    @Setter
+    private String clientXRoadInstance;
+
+    @Getter
+    @Setter
+    private String clientMemberClass;
+
+    @Getter
+    @Setter
+    private String clientMemberCode;
+
+    @Getter
+    @Setter
+    private String clientSubsystemCode;
+
+    @Getter
+    @Setter
+    private String serviceXRoadInstance;
+
+    @Getter
+    @Setter
+    private String serviceMemberClass;
+
+    @Getter
+    @Setter
+    private String serviceMemberCode;
+
+    @Getter
+    @Setter
+    private String serviceSubsystemCode;
+
+    @Getter
+    @Setter
+    private String serviceCode;
+
+    @Getter
+    @Setter
+    private String serviceVersion;
+
+    @Getter
+    @Setter
+    private long requestCount;
+
+    @Getter
+    @Setter
+    private long successfulRequestCount;
+
+    // The sum, minimum and maximum of the request durations in milliseconds.
+    @Getter
+    @Setter
+    private long durationSum;
+
+    @Getter
+    @Setter
+    private Long durationMin;
+
+    @Getter
+    @Setter
+    private Long durationMax;
+
+    // The request counts of the duration buckets, separated by commas.
+    @Getter
+    @Setter
+    private String durationHistogram;
+
+    // The sums of the request and response sizes in bytes.
+    @Getter
+    @Setter
+    private long requestSizeSum;
+
+    @Getter
+    @Setter
+    private long responseSizeSum;
+
+    OperationalDataRollup() {
+    }
+
+    OperationalDataRollup(Granularity granularity, OperationalDataRecord record) {
+        Key key = Key.of(granularity, record);
+
+        this.granularity = key.getGranularity();
+        this.periodStart = key.getPeriodStart();
+        this.securityServerType = key.getSecurityServerType();
+        this.clientXRoadInstance = key.getClientXRoadInstance();
+        this.clientMemberClass = key.getClientMemberClass();
+        this.clientMemberCode = key.getClientMemberCode();
+        this.clientSubsystemCode = key.getClientSubsystemCode();
+        this.serviceXRoadInstance = key.getServiceXRoadInstance();
+        this.serviceMemberClass = key.getServiceMemberClass();
+        this.serviceMemberCode = key.getServiceMemberCode();
+        this.serviceSubsystemCode = key.getServiceSubsystemCode();
+        this.serviceCode = key.getServiceCode();
+        this.serviceVersion = key.getServiceVersion();
+    }
+
+    Key getKey() {
+        return new Key(granularity, periodStart, securityServerType,
+                clientXRoadInstance, clientMemberClass, clientMemberCode, clientSubsystemCode,
+                serviceXRoadInstance, serviceMemberClass, serviceMemberCode, serviceSubsystemCode,
+                serviceCode, serviceVersion);
+    }
+
+    /**
+     * Adds the request described by the record to the aggregates.
+     * @param record an operational data record belonging to this rollup
+     */
+    void add(OperationalDataRecord record) {
+        requestCount++;
+
+        if (!Boolean.TRUE.equals(record.getSucceeded())) {
+            return;
+        }
+
+        successfulRequestCount++;
+
+        long duration = record.getResponseOutTs() - record.getRequestInTs();
+        durationSum += duration;
+        durationMin = durationMin == null ? duration : Math.min(durationMin, duration);
+        durationMax = durationMax == null ? duration : Math.max(durationMax, duration);
+
+        long[] histogram = getDurationBuckets();
+        histogram[bucketOf(duration)]++;
+        setDurationBuckets(histogram);
+
+        requestSizeSum += record.getRequestSize() != null ? record.getRequestSize() : 0;
+        responseSizeSum += record.getResponseSize() != null ? record.getResponseSize() : 0;
+    }
+
+    /**
+     * Adds the aggregates of another rollup of the same key to this rollup.
+     * @param other the other rollup
+     */
+    void merge(OperationalDataRollup other) {
+        requestCount += other.requestCount;
+        successfulRequestCount += other.successfulRequestCount;
+        durationSum += other.durationSum;
+        durationMin = minOf(durationMin, other.durationMin);
+        durationMax = maxOf(durationMax, other.durationMax);
+        requestSizeSum += other.requestSizeSum;
+        responseSizeSum += other.responseSizeSum;
+
+        long[] histogram = getDurationBuckets();
+        long[] otherHistogram = other.getDurationBuckets();
+
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += otherHistogram[i];
+        }
+
+        setDurationBuckets(histogram);
+    }
+
+    /**
+     * @return the average duration of the successful requests in milliseconds or null if there were none
+     */
+    Double getDurationAverage() {
+        return successfulRequestCount > 0 ? (double) durationSum / successfulRequestCount : null;
+    }
+
+    /**
+     * Estimates a percentile of the request duration from the histogram. The estimate is
+     * the upper bound of the bucket the percentile falls in, capped by the maximum duration.
+     * @param percentile the percentile, between 0 and 100
+     * @return the estimated duration in milliseconds or null if there were no successful requests
+     */
+    Long getDurationPercentile(double percentile) {
+        if (successfulRequestCount == 0) {
+            return null;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100 * successfulRequestCount);
+        long[] histogram = getDurationBuckets();
+        long seen = 0;
+
+        for (int i = 0; i < DURATION_BUCKET_BOUNDS.length; i++) {
+            seen += histogram[i];
+
+            if (seen >= rank) {
+                return Math.min(DURATION_BUCKET_BOUNDS[i], durationMax);
+            }
+        }
+
+        return durationMax;
+    }
+
+    long[] getDurationBuckets() {
+        long[] buckets = new long[DURATION_BUCKET_BOUNDS.length + 1];
+
+        if (durationHistogram != null && !durationHistogram.isEmpty()) {
+            String[] counts = durationHistogram.split(HISTOGRAM_SEPARATOR);
+
+            for (int i = 0; i < counts.length && i < buckets.length; i++) {
+                buckets[i] = Long.parseLong(counts[i]);
+            }
+        }
+
+        return buckets;
+    }
+
+    private void setDurationBuckets(long[] buckets) {
+        durationHistogram = Arrays.stream(buckets)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(HISTOGRAM_SEPARATOR));
+    }
+
+    private static int bucketOf(long duration) {
+        int bucket = 0;
+
+        while (bucket < DURATION_BUCKET_BOUNDS.length && duration > DURATION_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        return bucket;
+    }
+
+    private static Long minOf(Long a, Long b) {
+        return a == null ? b : (b == null ? a : Long.valueOf(Math.min(a, b)));
+    }
+
+    private static Long maxOf(Long a, Long b) {
+        return a == null ? b : (b == null ? a : Long.valueOf(Math.max(a, b)));
+    }
+
+    /**
+     * Identifies the rollup a request belongs to.
+     */
+    @Value
+    static class Key {
+        int granularity;
+        long periodStart;
+        String securityServerType;
+        String clientXRoadInstance;
+        String clientMemberClass;
+        String clientMemberCode;
+        String clientSubsystemCode;
+        String serviceXRoadInstance;
+        String serviceMemberClass;
+        String serviceMemberCode;
+        String serviceSubsystemCode;
+        String serviceCode;
+        String serviceVersion;
+
+        static Key of(Granularity granularity, OperationalDataRecord record) {
+            long requestInSeconds = TimeUnit.MILLISECONDS.toSeconds(record.getRequestInTs());
+
+            return new Key(granularity.getSeconds(), granularity.periodStart(requestInSeconds),
+                    record.getSecurityServerType().getTypeString(),
+                    record.getClientXRoadInstance(), record.getClientMemberClass(),
+                    record.getClientMemberCode(), record.getClientSubsystemCode(),
+                    record.getServiceXRoadInstance(), record.getServiceMemberClass(),
+                    record.getServiceMemberCode(), record.getServiceSubsystemCode(),
+                    record.getServiceCode(), record.getServiceVersion());
+        }
+    }
+}
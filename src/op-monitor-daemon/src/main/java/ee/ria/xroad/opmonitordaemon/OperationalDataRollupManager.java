@@ -0,0 +1,272 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Key;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.CLIENT_MEMBER_CLASS;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.CLIENT_MEMBER_CODE;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.CLIENT_SUBSYSTEM_CODE;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.CLIENT_XROAD_INSTANCE;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.SERVICE_MEMBER_CLASS;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.SERVICE_MEMBER_CODE;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.SERVICE_SUBSYSTEM_CODE;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringData.SERVICE_XROAD_INSTANCE;
+import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
+
+/**
+ * This class encapsulates all the database access related to the
+ * operational_data_rollup table, mapped by the OperationalDataRollup class.
+ */
+@Slf4j
+final class OperationalDataRollupManager {
+
+    private static final String GRANULARITY = "granularity";
+    private static final String PERIOD_START = "periodStart";
+    private static final String SECURITY_SERVER_TYPE = "securityServerType";
+    private static final String SERVICE_CODE = "serviceCode";
+    private static final String SERVICE_VERSION = "serviceVersion";
+
+    // Rollup keys matched by one query when loading the stored rollups.
+    private static final int KEYS_PER_QUERY = 100;
+
+    @Setter
+    private static int maxRollupsInPayload = OpMonitoringSystemProperties.getOpMonitorMaxRecordsInPayload();
+
+    private OperationalDataRollupManager() {
+    }
+
+    /**
+     * Adds the stored operational data records to the rollups of all
+     * granularities. The rollups are updated by one thread at a time, so that
+     * concurrent store requests cannot create duplicate rollups or lose each
+     * other's updates.
+     * @param records the stored records
+     * @throws Exception if an error occurs while communicating with database
+     */
+    static synchronized void storeRollups(List<OperationalDataRecord> records) throws Exception {
+        Map<Key, OperationalDataRollup> rollups = aggregate(records);
+
+        if (!rollups.isEmpty()) {
+            doInTransaction(session -> mergeInTransaction(session, rollups));
+        }
+    }
+
+    static QueryResult queryRollups(Granularity granularity, long recordsFrom, long recordsTo) throws Exception {
+        return queryRollups(granularity, recordsFrom, recordsTo, null, null);
+    }
+
+    /**
+     * Queries the rollups of the periods overlapping the given time interval. The number of returned rollups
+     * is limited by the configured value maxRollupsInPayload, but the rollups of one period are never split.
+     * @param granularity           the granularity of the rollups
+     * @param recordsFrom           rollups from timestamp seconds
+     * @param recordsTo             rollups to timestamp seconds
+     * @param clientFilter          filter rollups by client in either role (if not null)
+     * @param serviceProviderFilter filter rollups by service provider (if not null)
+     * @return the rollups ordered by period and the start of the next period to query, if the result was limited
+     * @throws Exception if an error occurs while communicating with database
+     */
+    static QueryResult queryRollups(Granularity granularity, long recordsFrom, long recordsTo,
+            ClientId clientFilter, ClientId serviceProviderFilter) throws Exception {
+        long periodsFrom = granularity.periodStart(recordsFrom);
+
+        return doInTransaction(session -> {
+            List<OperationalDataRollup> rollups = createQuery(session, granularity, periodsFrom, recordsTo,
+                    clientFilter, serviceProviderFilter, maxRollupsInPayload);
+
+            if (rollups.size() < maxRollupsInPayload) {
+                return new QueryResult(rollups, null);
+            }
+
+            long lastPeriodStart = rollups.get(rollups.size() - 1).getPeriodStart();
+
+            if (rollups.get(0).getPeriodStart() == lastPeriodStart) {
+                // A single period does not fit in the limit, return it whole.
+                long nextPeriodStart = lastPeriodStart + granularity.getSeconds();
+
+                return new QueryResult(createQuery(session, granularity, lastPeriodStart, lastPeriodStart,
+                        clientFilter, serviceProviderFilter, Integer.MAX_VALUE),
+                        nextPeriodStart <= recordsTo ? nextPeriodStart : null);
+            }
+
+            log.debug("Rollups overflow, set nextRecordsFrom to {}", lastPeriodStart);
+
+            rollups.removeIf(r -> r.getPeriodStart() == lastPeriodStart);
+
+            return new QueryResult(rollups, lastPeriodStart);
+        });
+    }
+
+    static Map<Key, OperationalDataRollup> aggregate(List<OperationalDataRecord> records) {
+        Map<Key, OperationalDataRollup> rollups = new HashMap<>();
+
+        for (OperationalDataRecord record : records) {
+            for (Granularity granularity : Granularity.values()) {
+                rollups.computeIfAbsent(Key.of(granularity, record),
+                        k -> new OperationalDataRollup(granularity, record)).add(record);
+            }
+        }
+
+        return rollups;
+    }
+
+    private static Void mergeInTransaction(Session session, Map<Key, OperationalDataRollup> rollups) {
+        Map<Key, OperationalDataRollup> stored = loadStoredRollups(session, rollups.keySet());
+
+        for (Map.Entry<Key, OperationalDataRollup> entry : rollups.entrySet()) {
+            OperationalDataRollup existing = stored.get(entry.getKey());
+
+            if (existing != null) {
+                // Flushed by dirty checking when the transaction commits.
+                existing.merge(entry.getValue());
+            } else {
+                session.save(entry.getValue());
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Loads the stored rollups with the given keys. The key columns are matched in the query, so that only
+     * the rollups being updated are loaded, not all the rollups of their periods.
+     */
+    private static Map<Key, OperationalDataRollup> loadStoredRollups(Session session, Set<Key> keys) {
+        Map<Key, OperationalDataRollup> stored = new HashMap<>();
+        List<Key> keyList = new ArrayList<>(keys);
+
+        for (int i = 0; i < keyList.size(); i += KEYS_PER_QUERY) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<OperationalDataRollup> query = cb.createQuery(OperationalDataRollup.class);
+            Root<OperationalDataRollup> from = query.from(OperationalDataRollup.class);
+
+            query.select(from).where(cb.or(keyList.subList(i, Math.min(i + KEYS_PER_QUERY, keyList.size()))
+                    .stream()
+                    .map(key -> getKeyCriterion(cb, from, key))
+                    .toArray(Predicate[]::new)));
+
+            session.createQuery(query).getResultList().forEach(r -> stored.put(r.getKey(), r));
+        }
+
+        return stored;
+    }
+
+    private static Predicate getKeyCriterion(CriteriaBuilder cb, Root<OperationalDataRollup> from, Key key) {
+        return cb.and(
+                cb.equal(from.get(GRANULARITY), key.getGranularity()),
+                cb.equal(from.get(PERIOD_START), key.getPeriodStart()),
+                equalOrNull(cb, from, SECURITY_SERVER_TYPE, key.getSecurityServerType()),
+                equalOrNull(cb, from, CLIENT_XROAD_INSTANCE, key.getClientXRoadInstance()),
+                equalOrNull(cb, from, CLIENT_MEMBER_CLASS, key.getClientMemberClass()),
+                equalOrNull(cb, from, CLIENT_MEMBER_CODE, key.getClientMemberCode()),
+                equalOrNull(cb, from, CLIENT_SUBSYSTEM_CODE, key.getClientSubsystemCode()),
+                equalOrNull(cb, from, SERVICE_XROAD_INSTANCE, key.getServiceXRoadInstance()),
+                equalOrNull(cb, from, SERVICE_MEMBER_CLASS, key.getServiceMemberClass()),
+                equalOrNull(cb, from, SERVICE_MEMBER_CODE, key.getServiceMemberCode()),
+                equalOrNull(cb, from, SERVICE_SUBSYSTEM_CODE, key.getServiceSubsystemCode()),
+                equalOrNull(cb, from, SERVICE_CODE, key.getServiceCode()),
+                equalOrNull(cb, from, SERVICE_VERSION, key.getServiceVersion()));
+    }
+
+    private static Predicate equalOrNull(CriteriaBuilder cb, Root<OperationalDataRollup> from, String attribute,
+            String value) {
+        return value == null ? cb.isNull(from.get(attribute)) : cb.equal(from.get(attribute), value);
+    }
+
+    private static List<OperationalDataRollup> createQuery(Session session, Granularity granularity,
+            long periodsFrom, long periodsTo, ClientId clientFilter, ClientId serviceProviderFilter,
+            int maxResults) {
+        CriteriaBuilder cb = session.getCriteriaBuilder();
+        CriteriaQuery<OperationalDataRollup> query = cb.createQuery(OperationalDataRollup.class);
+        Root<OperationalDataRollup> from = query.from(OperationalDataRollup.class);
+
+        Predicate pred = cb.and(
+                cb.equal(from.get(GRANULARITY), granularity.getSeconds()),
+                cb.between(from.get(PERIOD_START), periodsFrom, periodsTo));
+
+        if (clientFilter != null) {
+            pred = cb.and(pred, cb.or(getMemberCriterion(cb, from, clientFilter, true),
+                    getMemberCriterion(cb, from, clientFilter, false)));
+        }
+
+        if (serviceProviderFilter != null) {
+            pred = cb.and(pred, getMemberCriterion(cb, from, serviceProviderFilter, false));
+        }
+
+        query.select(from).where(pred).orderBy(cb.asc(from.get(PERIOD_START)));
+
+        return session.createQuery(query)
+                .setReadOnly(true)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    private static Predicate getMemberCriterion(CriteriaBuilder cb, Root<OperationalDataRollup> from,
+            ClientId member, boolean isClient) {
+        return cb.and(
+                cb.equal(from.get(isClient ? CLIENT_XROAD_INSTANCE : SERVICE_XROAD_INSTANCE),
+                        member.getXRoadInstance()),
+                cb.equal(from.get(isClient ? CLIENT_MEMBER_CLASS : SERVICE_MEMBER_CLASS),
+                        member.getMemberClass()),
+                cb.equal(from.get(isClient ? CLIENT_MEMBER_CODE : SERVICE_MEMBER_CODE),
+                        member.getMemberCode()),
+                member.getSubsystemCode() == null
+                        ? cb.isNull(from.get(isClient ? CLIENT_SUBSYSTEM_CODE : SERVICE_SUBSYSTEM_CODE))
+                        : cb.equal(from.get(isClient ? CLIENT_SUBSYSTEM_CODE : SERVICE_SUBSYSTEM_CODE),
+                                member.getSubsystemCode()));
+    }
+
+    /**
+     * The rollups returned by a query.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static final class QueryResult {
+        private final List<OperationalDataRollup> rollups;
+        private final Long nextRecordsFrom;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+import ee.ria.xroad.common.util.TimeUtils;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.QueryResult;
+import ee.ria.xroad.opmonitordaemon.message.GetSecurityServerOperationalDataRollupsResponseType;
+import ee.ria.xroad.opmonitordaemon.message.GetSecurityServerOperationalDataRollupsType;
+import ee.ria.xroad.opmonitordaemon.message.RollupType;
+import ee.ria.xroad.opmonitordaemon.message.RollupsType;
+import ee.ria.xroad.opmonitordaemon.message.SearchCriteriaType;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
+
+/**
+ * Query handler for operational data rollup requests. The rollups are
+ * subject to the same access rules as the operational data records.
+ */
+@Slf4j
+@SuppressWarnings("checkstyle:magicnumber")
+class OperationalDataRollupRequestHandler extends OperationalDataRequestHandler {
+
+    @Override
+    public void handle(SoapMessageImpl requestSoap, OutputStream out,
+            Consumer<String> contentTypeCallback) throws Exception {
+        log.trace("handle()");
+
+        ClientId clientId = requestSoap.getClient();
+        SecurityServerId serverId = requestSoap.getSecurityServer();
+
+        GetSecurityServerOperationalDataRollupsType requestData = getRequestData(
+                requestSoap, GetSecurityServerOperationalDataRollupsType.class);
+
+        SearchCriteriaType searchCriteria = requestData.getSearchCriteria();
+        long recordsFrom = searchCriteria.getRecordsFrom();
+        long recordsTo = searchCriteria.getRecordsTo();
+
+        // Rollups of the current period are available while they are being
+        // updated, so only timestamps in the future are rejected.
+        checkTimestamps(recordsFrom, recordsTo, TimeUtils.getEpochSecond() + 1);
+
+        Granularity granularity = requestData.getGranularity() == null
+                ? Granularity.HOUR : Granularity.valueOf(requestData.getGranularity().value());
+        ClientId serviceProviderId = searchCriteria.getClient();
+
+        log.debug("Handle getSecurityServerOperationalDataRollups: clientId: {},"
+                        + " recordsFrom: {}, recordsTo: {}, granularity: {},"
+                        + " serviceProviderId: {}",
+                clientId, recordsFrom, recordsTo, granularity,
+                serviceProviderId);
+
+        QueryResult result = getRollups(granularity, recordsFrom, recordsTo,
+                getClientForFilter(clientId, serverId), serviceProviderId);
+
+        SoapMessageImpl response = createResponse(requestSoap,
+                OBJECT_FACTORY.createGetSecurityServerOperationalDataRollupsResponse(
+                        buildRollupsResponse(granularity, result)));
+
+        contentTypeCallback.accept(response.getContentType());
+        out.write(response.getBytes());
+    }
+
+    private static QueryResult getRollups(Granularity granularity,
+            long recordsFrom, long recordsTo, ClientId filterByClient,
+            ClientId filterByServiceProvider) {
+        try {
+            return OperationalDataRollupManager.queryRollups(granularity,
+                    recordsFrom, recordsTo, filterByClient,
+                    filterByServiceProvider);
+        } catch (Exception e) {
+            log.error("Failed to get rollups for response", e);
+
+            throw new CodedException(X_INTERNAL_ERROR,
+                    "Failed to get rollups for response: " + e.getMessage());
+        }
+    }
+
+    private static GetSecurityServerOperationalDataRollupsResponseType
+            buildRollupsResponse(Granularity granularity, QueryResult result) {
+        GetSecurityServerOperationalDataRollupsResponseType rollupsResponse =
+                OBJECT_FACTORY
+                        .createGetSecurityServerOperationalDataRollupsResponseType();
+
+        rollupsResponse.setPeriodSeconds(granularity.getSeconds());
+
+        RollupsType rollups = OBJECT_FACTORY.createRollupsType();
+        result.getRollups().forEach(r -> rollups.getRollup().add(buildRollup(r)));
+        rollupsResponse.setRollups(rollups);
+
+        rollupsResponse.setNextRecordsFrom(result.getNextRecordsFrom());
+
+        return rollupsResponse;
+    }
+
+    private static RollupType buildRollup(OperationalDataRollup rollup) {
+        RollupType rollupType = OBJECT_FACTORY.createRollupType();
+
+        rollupType.setPeriodStart(rollup.getPeriodStart());
+        rollupType.setSecurityServerType(rollup.getSecurityServerType());
+
+        if (rollup.getClientXRoadInstance() != null
+                && rollup.getClientMemberClass() != null
+                && rollup.getClientMemberCode() != null) {
+            rollupType.setClient(ClientId.create(
+                    rollup.getClientXRoadInstance(),
+                    rollup.getClientMemberClass(),
+                    rollup.getClientMemberCode(),
+                    rollup.getClientSubsystemCode()));
+        }
+
+        if (rollup.getServiceXRoadInstance() != null
+                && rollup.getServiceMemberClass() != null
+                && rollup.getServiceMemberCode() != null
+                && rollup.getServiceCode() != null) {
+            rollupType.setService(ServiceId.create(
+                    rollup.getServiceXRoadInstance(),
+                    rollup.getServiceMemberClass(),
+                    rollup.getServiceMemberCode(),
+                    rollup.getServiceSubsystemCode(),
+                    rollup.getServiceCode(),
+                    rollup.getServiceVersion()));
+        }
+
+        rollupType.setSuccessfulRequestCount(rollup.getSuccessfulRequestCount());
+        rollupType.setUnsuccessfulRequestCount(
+                rollup.getRequestCount() - rollup.getSuccessfulRequestCount());
+
+        rollupType.setRequestMinDuration(rollup.getDurationMin());
+        rollupType.setRequestAverageDuration(rollup.getDurationAverage());
+        rollupType.setRequestMaxDuration(rollup.getDurationMax());
+        rollupType.setRequestDurationPercentile50(rollup.getDurationPercentile(50));
+        rollupType.setRequestDurationPercentile95(rollup.getDurationPercentile(95));
+        rollupType.setRequestDurationPercentile99(rollup.getDurationPercentile(99));
+
+        rollupType.setRequestTotalSize(rollup.getRequestSizeSum());
+        rollupType.setResponseTotalSize(rollup.getResponseSizeSum());
+
+        return rollupType;
+    }
+}
@@ -46,11 +46,12 @@ import java.util.function.Consumer;
 
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_HEALTH_DATA;
 import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_OPERATIONAL_DATA;
+import static ee.ria.xroad.common.opmonitoring.OpMonitoringRequests.GET_SECURITY_SERVER_OPERATIONAL_DATA_ROLLUPS;
 
 /**
  * The processor class for operational monitoring query requests.
- * Processes getSecurityServerOperationalData and getSecurityServerHealthData
- * SOAP requests.
+ * Processes getSecurityServerOperationalData, getSecurityServerHealthData and
+ * getSecurityServerOperationalDataRollups SOAP requests.
  */
 @Slf4j
 class QueryRequestProcessor {
@@ -63,6 +64,7 @@ class QueryRequestProcessor {
 
     private final OperationalDataRequestHandler operationalDataHandler;
     private final HealthDataRequestHandler healthDataHandler;
+    private final OperationalDataRollupRequestHandler rollupHandler;
 
     QueryRequestProcessor(HttpServletRequest servletRequest,
             HttpServletResponse servletResponse,
@@ -73,6 +75,7 @@ class QueryRequestProcessor {
         this.operationalDataHandler = new OperationalDataRequestHandler();
         this.healthDataHandler = new HealthDataRequestHandler(
                 healthMetricRegistry);
+        this.rollupHandler = new OperationalDataRollupRequestHandler();
 
         GlobalConf.verifyValidity();
     }
@@ -114,6 +117,11 @@ class QueryRequestProcessor {
                             servletResponse.getOutputStream(),
                             responseContentTypeAssigner());
                     break;
+                case GET_SECURITY_SERVER_OPERATIONAL_DATA_ROLLUPS:
+                    rollupHandler.handle(requestSoap,
+                            servletResponse.getOutputStream(),
+                            responseContentTypeAssigner());
+                    break;
                 default:
                     throw new CodedException(ErrorCodes.X_INTERNAL_ERROR,
                             "Unknown service: '%s'", requestSoap.getService());
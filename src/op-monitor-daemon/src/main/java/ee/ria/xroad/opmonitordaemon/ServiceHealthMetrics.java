@@ -0,0 +1,216 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.identifier.ServiceId;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingTimeWindowReservoir;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getLastRequestTimestampGaugeName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestCounterName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestDurationName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestSizeName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getResponseSizeName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getServiceTypeName;
+
+/**
+ * Handles to the health data metrics of a single service. The metric names
+ * are computed once per service and each metric is registered in the
+ * metric registry the first time it is needed, after which updates go
+ * directly to the metric objects. All the methods are safe to be called
+ * concurrently without locking.
+ */
+final class ServiceHealthMetrics {
+
+    private final long statisticsPeriodSeconds;
+
+    private final AtomicLong lastSuccessfulRequestTimestamp = new AtomicLong();
+    private final AtomicLong lastUnsuccessfulRequestTimestamp =
+            new AtomicLong();
+
+    private volatile String serviceType;
+
+    private final LazyMetric<Gauge> lastSuccessfulRequestTimestampGauge;
+    private final LazyMetric<Gauge> lastUnsuccessfulRequestTimestampGauge;
+    private final LazyMetric<Gauge> serviceTypeGauge;
+
+    private final LazyMetric<Counter> successfulRequestCounter;
+    private final LazyMetric<Counter> unsuccessfulRequestCounter;
+
+    private final LazyMetric<Histogram> requestDurationHistogram;
+    private final LazyMetric<Histogram> requestSizeHistogram;
+    private final LazyMetric<Histogram> responseSizeHistogram;
+
+    /**
+     * Creates the metric handles of the given service.
+     * @param registry the metric registry of the operational monitoring daemon
+     * @param serviceId the service ID as obtained using getServiceId()
+     * @param statisticsPeriodSeconds the period of the sliding time windows
+     */
+    ServiceHealthMetrics(MetricRegistry registry, ServiceId serviceId,
+            long statisticsPeriodSeconds) {
+        this.statisticsPeriodSeconds = statisticsPeriodSeconds;
+
+        lastSuccessfulRequestTimestampGauge = gauge(registry,
+                getLastRequestTimestampGaugeName(serviceId, true),
+                lastSuccessfulRequestTimestamp::get);
+        lastUnsuccessfulRequestTimestampGauge = gauge(registry,
+                getLastRequestTimestampGaugeName(serviceId, false),
+                lastUnsuccessfulRequestTimestamp::get);
+        serviceTypeGauge = gauge(registry, getServiceTypeName(serviceId),
+                () -> serviceType);
+
+        successfulRequestCounter = counter(registry,
+                getRequestCounterName(serviceId, true));
+        unsuccessfulRequestCounter = counter(registry,
+                getRequestCounterName(serviceId, false));
+
+        requestDurationHistogram = histogram(registry,
+                getRequestDurationName(serviceId));
+        requestSizeHistogram = histogram(registry,
+                getRequestSizeName(serviceId));
+        responseSizeHistogram = histogram(registry,
+                getResponseSizeName(serviceId));
+    }
+
+    /**
+     * Updates the metrics of the service with the data of the given record.
+     * @param rec an operational data record of a request handled in the
+     * producer role
+     */
+    void update(OperationalDataRecord rec) {
+        boolean succeeded = rec.getSucceeded();
+
+        updateGauges(rec, succeeded);
+
+        (succeeded ? successfulRequestCounter : unsuccessfulRequestCounter)
+                .get().inc();
+
+        if (succeeded) {
+            // Statistics of request duration and the sizes of the request
+            // and response are computed over the successful requests only.
+            updateHistogram(requestDurationHistogram, getRequestDuration(rec));
+            updateHistogram(requestSizeHistogram, rec.getRequestSize());
+            updateHistogram(responseSizeHistogram, rec.getResponseSize());
+        }
+    }
+
+    private void updateGauges(OperationalDataRecord rec, boolean succeeded) {
+        if (succeeded) {
+            updateTimestamp(lastSuccessfulRequestTimestamp,
+                    lastSuccessfulRequestTimestampGauge, rec.getResponseOutTs());
+        } else {
+            updateTimestamp(lastUnsuccessfulRequestTimestamp,
+                    lastUnsuccessfulRequestTimestampGauge,
+                    rec.getResponseOutTs());
+        }
+
+        serviceType = rec.getServiceType();
+        serviceTypeGauge.get();
+    }
+
+    private static void updateTimestamp(AtomicLong timestamp,
+            LazyMetric<Gauge> gauge, Long newValue) {
+        if (newValue != null) {
+            // Records of a batch may be processed in any order, so the
+            // latest timestamp is kept instead of the last one processed.
+            timestamp.accumulateAndGet(newValue, Math::max);
+        }
+
+        gauge.get();
+    }
+
+    private static void updateHistogram(LazyMetric<Histogram> histogram,
+            Long newValue) {
+        if (newValue != null) {
+            histogram.get().update(newValue);
+        }
+    }
+
+    /**
+     * @param record an operational data record
+     * @return the duration of the request (the difference between the
+     * response out timestamp and the request in timestamp of the request.
+     */
+    private static Long getRequestDuration(OperationalDataRecord record) {
+        return record.getResponseOutTs() - record.getRequestInTs();
+    }
+
+    private static LazyMetric<Gauge> gauge(MetricRegistry registry,
+            String name, Gauge<?> gauge) {
+        return new LazyMetric<>(() -> registry.gauge(name, () -> gauge));
+    }
+
+    private LazyMetric<Counter> counter(MetricRegistry registry,
+            String name) {
+        return new LazyMetric<>(() -> registry.counter(name,
+                () -> new SlidingTimeWindowCounter(statisticsPeriodSeconds,
+                        TimeUnit.SECONDS)));
+    }
+
+    private LazyMetric<Histogram> histogram(MetricRegistry registry,
+            String name) {
+        return new LazyMetric<>(() -> registry.histogram(name,
+                () -> new Histogram(new SlidingTimeWindowReservoir(
+                        statisticsPeriodSeconds, TimeUnit.SECONDS))));
+    }
+
+    /**
+     * A metric that is registered on first access. MetricRegistry returns
+     * the already registered metric if another thread got there first, so
+     * a race only costs a redundant registry lookup.
+     */
+    private static final class LazyMetric<T extends Metric> {
+
+        private final Supplier<T> registration;
+
+        private volatile T metric;
+
+        LazyMetric(Supplier<T> registration) {
+            this.registration = registration;
+        }
+
+        T get() {
+            T result = metric;
+
+            if (result == null) {
+                result = registration.get();
+                metric = result;
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import java.util.Objects;
+
+/**
+ * Lookup key of the cached health metrics of a service. The key is built
+ * directly from the service identifier fields of an operational data record
+ * and its hash code is computed once, so that looking up the metrics of an
+ * already known service does not require creating and validating a
+ * ServiceId or formatting any metric names.
+ */
+final class ServiceMetricsKey {
+
+    private final String xRoadInstance;
+    private final String memberClass;
+    private final String memberCode;
+    private final String subsystemCode;
+    private final String serviceCode;
+    private final String serviceVersion;
+
+    private final int hash;
+
+    private ServiceMetricsKey(String xRoadInstance, String memberClass,
+            String memberCode, String subsystemCode, String serviceCode,
+            String serviceVersion) {
+        this.xRoadInstance = xRoadInstance;
+        this.memberClass = memberClass;
+        this.memberCode = memberCode;
+        this.subsystemCode = subsystemCode;
+        this.serviceCode = serviceCode;
+        this.serviceVersion = serviceVersion;
+
+        this.hash = Objects.hash(xRoadInstance, memberClass, memberCode,
+                subsystemCode, serviceCode, serviceVersion);
+    }
+
+    /**
+     * @param rec an operational data record
+     * @return the key of the service the record describes
+     */
+    static ServiceMetricsKey of(OperationalDataRecord rec) {
+        return new ServiceMetricsKey(rec.getServiceXRoadInstance(),
+                rec.getServiceMemberClass(), rec.getServiceMemberCode(),
+                rec.getServiceSubsystemCode(), rec.getServiceCode(),
+                rec.getServiceVersion());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ServiceMetricsKey)) {
+            return false;
+        }
+
+        ServiceMetricsKey other = (ServiceMetricsKey) o;
+
+        return hash == other.hash
+                && Objects.equals(serviceCode, other.serviceCode)
+                && Objects.equals(memberCode, other.memberCode)
+                && Objects.equals(subsystemCode, other.subsystemCode)
+                && Objects.equals(serviceVersion, other.serviceVersion)
+                && Objects.equals(memberClass, other.memberClass)
+                && Objects.equals(xRoadInstance, other.xRoadInstance);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -79,6 +79,18 @@ class StoreRequestProcessor {
         OperationalDataRecordManager.storeRecords(records, getEpochSecond());
 
         HealthDataMetrics.processRecords(healthMetricRegistry, records);
+
+        updateRollups(records);
+    }
+
+    // The records have already been stored, so failing the request would
+    // only make the sender store them again.
+    private static void updateRollups(List<OperationalDataRecord> records) {
+        try {
+            OperationalDataRollupManager.storeRollups(records);
+        } catch (Exception e) {
+            log.error("Failed to update operational data rollups", e);
+        }
     }
 
     // Get usable operational data to be stored. If no such data is found,
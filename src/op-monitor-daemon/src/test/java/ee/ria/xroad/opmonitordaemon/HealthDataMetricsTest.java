@@ -0,0 +1,178 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.identifier.ServiceId;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.findCounter;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.findGauge;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.findHistogram;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getLastRequestTimestampGaugeName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestCounterName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getRequestDurationName;
+import static ee.ria.xroad.opmonitordaemon.HealthDataMetricsUtil.getServiceTypeName;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.GSON;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.formatFullOperationalDataAsJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for verifying that health data metrics are updated correctly when
+ * store requests are processed concurrently.
+ */
+public class HealthDataMetricsTest {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 25;
+    private static final int SERVICES = 5;
+
+    // Large enough for the records of one request to be processed
+    // in parallel.
+    private static final int RECORDS_PER_REQUEST = 100;
+
+    private static final long RESPONSE_OUT_TS = 1474968979000L;
+
+    @Test
+    public void processConcurrentStoreRequests() throws Exception {
+        MetricRegistry registry = new MetricRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Callable<Void>> storeRequests = new ArrayList<>();
+
+            for (int i = 0; i < THREADS * REQUESTS_PER_THREAD; i++) {
+                List<OperationalDataRecord> records = createRecords(i);
+
+                storeRequests.add(() -> {
+                    HealthDataMetrics.processRecords(registry, records);
+
+                    return null;
+                });
+            }
+
+            for (Future<Void> result : executor.invokeAll(storeRequests)) {
+                // Rethrows any exception thrown during processing.
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Every other record of a service is successful.
+        long expectedCount = (long) THREADS * REQUESTS_PER_THREAD
+                * RECORDS_PER_REQUEST / SERVICES / 2;
+
+        for (int s = 0; s < SERVICES; s++) {
+            ServiceId serviceId = createServiceId(s);
+
+            assertEquals(expectedCount, findCounter(registry,
+                    getRequestCounterName(serviceId, true)).getCount());
+            assertEquals(expectedCount, findCounter(registry,
+                    getRequestCounterName(serviceId, false)).getCount());
+            assertEquals(expectedCount, findHistogram(registry,
+                    getRequestDurationName(serviceId)).getCount());
+
+            assertEquals(RESPONSE_OUT_TS + THREADS * REQUESTS_PER_THREAD - 1,
+                    findGauge(registry, getLastRequestTimestampGaugeName(
+                            serviceId, true)).getValue());
+            assertEquals("REST", findGauge(registry,
+                    getServiceTypeName(serviceId)).getValue());
+        }
+    }
+
+    @Test
+    public void ignoreRecordsOfConsumerAndWithoutServiceId() {
+        MetricRegistry registry = new MetricRegistry();
+        List<OperationalDataRecord> records = new ArrayList<>();
+
+        OperationalDataRecord consumerRecord = createRecord(0, true, 0);
+        consumerRecord.setSecurityServerType(
+                OpMonitoringData.SecurityServerType.CLIENT.getTypeString());
+        records.add(consumerRecord);
+
+        OperationalDataRecord recordWithoutServiceId = createRecord(1, true, 0);
+        recordWithoutServiceId.setServiceCode(null);
+        records.add(recordWithoutServiceId);
+
+        HealthDataMetrics.processRecords(registry, records);
+
+        assertNull(findCounter(registry,
+                getRequestCounterName(createServiceId(0), true)));
+        assertEquals(0, registry.getMetrics().size());
+    }
+
+    private static List<OperationalDataRecord> createRecords(int request) {
+        List<OperationalDataRecord> records = new ArrayList<>();
+
+        for (int i = 0; i < RECORDS_PER_REQUEST; i++) {
+            records.add(createRecord(i % SERVICES, (i / SERVICES) % 2 == 0,
+                    request));
+        }
+
+        return records;
+    }
+
+    private static OperationalDataRecord createRecord(int service,
+            boolean success, int request) {
+        ServiceId serviceId = createServiceId(service);
+
+        OperationalDataRecord record = GSON.fromJson(
+                formatFullOperationalDataAsJson(),
+                OperationalDataRecord.class);
+        record.setServiceXRoadInstance(serviceId.getXRoadInstance());
+        record.setServiceMemberClass(serviceId.getMemberClass());
+        record.setServiceMemberCode(serviceId.getMemberCode());
+        record.setServiceSubsystemCode(serviceId.getSubsystemCode());
+        record.setServiceCode(serviceId.getServiceCode());
+        record.setServiceVersion(serviceId.getServiceVersion());
+        record.setSecurityServerType(
+                OpMonitoringData.SecurityServerType.PRODUCER.getTypeString());
+        record.setServiceType("REST");
+        record.setSucceeded(success);
+        record.setRequestInTs(RESPONSE_OUT_TS + request - 100);
+        record.setResponseOutTs(RESPONSE_OUT_TS + request);
+        record.setRequestSize(999L);
+        record.setResponseSize(888L);
+
+        return record;
+    }
+
+    private static ServiceId createServiceId(int service) {
+        return ServiceId.create("XTEE-CI-XM", "GOV", "00000001", "System1",
+                "xroadGetRandom" + service, "v1");
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.opmonitordaemon;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollup.Granularity;
+import ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.QueryResult;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static ee.ria.xroad.opmonitordaemon.OpMonitorDaemonDatabaseCtx.doInTransaction;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.queryRollups;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataRollupManager.storeRollups;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.GSON;
+import static ee.ria.xroad.opmonitordaemon.OperationalDataTestUtil.formatFullOperationalDataAsJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test cases related to the pre-aggregated operational data at the level of
+ * OperationalDataRollupManager.
+ */
+@Slf4j
+public class OperationalDataRollupManagerTest extends BaseTestUsingDB {
+
+    // The start of a minute, 36 minutes into the hour starting at 1474966800.
+    private static final long MINUTE_START = 1474968960L;
+    private static final long HOUR_START = 1474966800L;
+
+    /**
+     * Cleanup the stored rollups before each test.
+     * @throws Exception if an error occurs.
+     */
+    @Before
+    public void beforeTest() throws Exception {
+        int cleaned = doInTransaction(
+                session -> session.createQuery("delete OperationalDataRollup")
+                .executeUpdate());
+
+        log.info("Cleaned {} rollups", cleaned);
+
+        OperationalDataRollupManager.setMaxRollupsInPayload(
+                OpMonitoringSystemProperties.getOpMonitorMaxRecordsInPayload());
+    }
+
+    @Test
+    public void storeAndQueryRollups() throws Exception {
+        storeRollups(Arrays.asList(
+                createRecord(MINUTE_START, 100, true),
+                createRecord(MINUTE_START + 10, 300, true)));
+        // A later batch of the same minute is merged to the stored rollup.
+        storeRollups(Collections.singletonList(
+                createRecord(MINUTE_START + 59, 5, false)));
+
+        QueryResult result = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 59);
+        assertEquals(1, result.getRollups().size());
+        assertNull(result.getNextRecordsFrom());
+
+        OperationalDataRollup rollup = result.getRollups().get(0);
+        assertEquals(MINUTE_START, rollup.getPeriodStart().longValue());
+        assertEquals("Client", rollup.getSecurityServerType());
+        assertEquals("xroadGetRandom", rollup.getServiceCode());
+        assertEquals(3, rollup.getRequestCount());
+        assertEquals(2, rollup.getSuccessfulRequestCount());
+        assertEquals(100, rollup.getDurationMin().longValue());
+        assertEquals(300, rollup.getDurationMax().longValue());
+        assertEquals(200.0, rollup.getDurationAverage(), 0.0);
+        assertEquals(100, rollup.getDurationPercentile(50).longValue());
+        assertEquals(300, rollup.getDurationPercentile(99).longValue());
+        assertEquals(2048, rollup.getRequestSizeSum());
+        assertEquals(4096, rollup.getResponseSizeSum());
+
+        // Any timestamp within the period selects the whole period.
+        result = queryRollups(Granularity.HOUR, MINUTE_START + 30, MINUTE_START + 30);
+        assertEquals(1, result.getRollups().size());
+        assertEquals(HOUR_START, result.getRollups().get(0).getPeriodStart().longValue());
+        assertEquals(3, result.getRollups().get(0).getRequestCount());
+    }
+
+    @Test
+    public void storeRollupsOfSeveralPeriodsAndClients() throws Exception {
+        OperationalDataRecord otherClient = createRecord(MINUTE_START, 100, true);
+        otherClient.setClientMemberCode("00000002");
+
+        storeRollups(Arrays.asList(
+                createRecord(MINUTE_START, 100, true),
+                createRecord(MINUTE_START + 60, 100, true),
+                createRecord(MINUTE_START + 120, 100, true),
+                otherClient));
+
+        assertEquals(4, queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 120).getRollups().size());
+        assertEquals(2, queryRollups(Granularity.HOUR, MINUTE_START, MINUTE_START + 120).getRollups().size());
+
+        ClientId client = ClientId.create("XTEE-CI-XM", "GOV", "00000002", "System1");
+        QueryResult result = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 120, client, null);
+        assertEquals(1, result.getRollups().size());
+        assertEquals("00000002", result.getRollups().get(0).getClientMemberCode());
+
+        // The service provider matches in the client role too.
+        ClientId serviceProvider = ClientId.create("XTEE-CI-XM", "GOV", "00000000", "Center");
+        result = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 120, serviceProvider, null);
+        assertEquals(4, result.getRollups().size());
+    }
+
+    @Test
+    public void mergeRollupsMatchingAllKeyColumns() throws Exception {
+        List<OperationalDataRecord> records = new ArrayList<>();
+
+        // more keys than are matched by one query
+        for (int i = 0; i < 150; i++) {
+            OperationalDataRecord record = createRecord(MINUTE_START, 100, true);
+            record.setClientMemberCode(String.format("%08d", i));
+            records.add(record);
+        }
+
+        OperationalDataRecord nullColumns = createRecord(MINUTE_START, 100, true);
+        nullColumns.setClientSubsystemCode(null);
+        nullColumns.setServiceVersion(null);
+        records.add(nullColumns);
+
+        storeRollups(records);
+        storeRollups(records);
+
+        QueryResult result = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START);
+        assertEquals(151, result.getRollups().size());
+        result.getRollups().forEach(r -> assertEquals(2, r.getRequestCount()));
+    }
+
+    @Test
+    public void queryRollupsCausingOverflow() throws Exception {
+        OperationalDataRecord otherClient = createRecord(MINUTE_START, 100, true);
+        otherClient.setClientMemberCode("00000002");
+
+        storeRollups(Arrays.asList(
+                createRecord(MINUTE_START, 100, true),
+                otherClient,
+                createRecord(MINUTE_START + 60, 100, true),
+                createRecord(MINUTE_START + 120, 100, true)));
+
+        // The last period may be incomplete, leave it to the next query.
+        OperationalDataRollupManager.setMaxRollupsInPayload(3);
+        QueryResult result = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 120);
+        assertEquals(2, result.getRollups().size());
+        assertEquals(MINUTE_START + 60, result.getNextRecordsFrom().longValue());
+
+        // The rollups of a single period are never split.
+        OperationalDataRollupManager.setMaxRollupsInPayload(1);
+        result = queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 120);
+        assertEquals(2, result.getRollups().size());
+        assertEquals(MINUTE_START + 60, result.getNextRecordsFrom().longValue());
+
+        result = queryRollups(Granularity.MINUTE, MINUTE_START + 120, MINUTE_START + 120);
+        assertEquals(1, result.getRollups().size());
+        assertNull(result.getNextRecordsFrom());
+    }
+
+    @Test
+    public void cleanupRollups() throws Exception {
+        storeRollups(Arrays.asList(
+                createRecord(MINUTE_START, 100, true),
+                createRecord(MINUTE_START + 60, 100, true)));
+
+        OperationalDataRecordCleaner.cleanRollups(Granularity.MINUTE, Instant.ofEpochSecond(MINUTE_START + 60));
+
+        assertEquals(1, queryRollups(Granularity.MINUTE, MINUTE_START, MINUTE_START + 60).getRollups().size());
+        assertEquals(1, queryRollups(Granularity.HOUR, MINUTE_START, MINUTE_START + 60).getRollups().size());
+    }
+
+    private static OperationalDataRecord createRecord(long requestInSeconds, long duration, boolean succeeded) {
+        OperationalDataRecord record = GSON.fromJson(
+                formatFullOperationalDataAsJson(), OperationalDataRecord.class);
+
+        record.setRequestInTs(requestInSeconds * 1000);
+        record.setResponseOutTs(requestInSeconds * 1000 + duration);
+        record.setSucceeded(succeeded);
+        record.setRequestSize(1024L);
+        record.setResponseSize(2048L);
+
+        return record;
+    }
+}
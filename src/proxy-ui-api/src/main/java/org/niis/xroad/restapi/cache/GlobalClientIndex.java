@@ -0,0 +1,167 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.restapi.cache;
+
+import ee.ria.xroad.common.conf.globalconf.MemberInfo;
+import ee.ria.xroad.common.identifier.ClientId;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.restapi.facade.GlobalConfFacade;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory index of the members and subsystems in globalconf, used for client searches.
+ * <p>
+ * The index is rebuilt only when {@link org.niis.xroad.restapi.scheduling.GlobalConfChecker} reports
+ * that globalconf was reloaded with a different shared parameters version. Until a version has been
+ * reported (e.g. on slave nodes, which skip globalconf updates) every snapshot is built from scratch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GlobalClientIndex {
+
+    private final GlobalConfFacade globalConfFacade;
+
+    private volatile String globalConfVersion;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Tell the index that globalconf has been reloaded. The index is invalidated if the version differs
+     * from the previously reported one.
+     * @param version shared parameters version that was read before the reload, or null if unknown
+     */
+    public void globalConfReloaded(String version) {
+        if (version == null || !version.equals(globalConfVersion)) {
+            log.debug("Globalconf version changed to {}, invalidating client index", version);
+            globalConfVersion = version;
+            snapshot = null;
+        }
+    }
+
+    /**
+     * @return current snapshot of the globalconf clients
+     */
+    public Snapshot getSnapshot() {
+        String version = globalConfVersion;
+        Snapshot current = snapshot;
+        if (current != null && version != null && version.equals(current.version)) {
+            return current;
+        }
+        Snapshot rebuilt = new Snapshot(version, globalConfFacade.getMembers());
+        if (version != null) {
+            snapshot = rebuilt;
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Immutable set of indexed clients
+     */
+    public static final class Snapshot {
+        private final String version;
+        @Getter
+        private final List<Entry> entries;
+        private final Map<ClientId, Entry> entriesById;
+
+        private Snapshot(String version, List<MemberInfo> members) {
+            this.version = version;
+            List<Entry> indexed = new ArrayList<>(members.size());
+            Map<ClientId, Entry> byId = new HashMap<>(members.size() * 2);
+            for (MemberInfo member : members) {
+                Entry entry = new Entry(member.getId(), member.getName());
+                if (byId.putIfAbsent(entry.getId(), entry) == null) {
+                    indexed.add(entry);
+                }
+            }
+            this.entries = Collections.unmodifiableList(indexed);
+            this.entriesById = byId;
+        }
+
+        /**
+         * @param id client id
+         * @return entry of the client, or null if the client is not in globalconf
+         */
+        public Entry get(ClientId id) {
+            return entriesById.get(id);
+        }
+
+        /**
+         * @param id client id
+         * @return entry of the client, or an entry without a member name if the client is not in globalconf
+         */
+        public Entry getOrCreate(ClientId id) {
+            Entry entry = entriesById.get(id);
+            return entry != null ? entry : new Entry(id, null);
+        }
+
+        /**
+         * @param id client id
+         * @return member name of the client, or null if the client is not in globalconf
+         */
+        public String getMemberName(ClientId id) {
+            Entry entry = entriesById.get(id);
+            return entry != null ? entry.getMemberName() : null;
+        }
+    }
+
+    /**
+     * Indexed client with lower case search fields
+     */
+    @Getter
+    public static final class Entry {
+        private final ClientId id;
+        private final String memberName;
+        private final String lowerCaseMemberName;
+        private final String lowerCaseInstance;
+        private final String lowerCaseMemberClass;
+        private final String lowerCaseMemberCode;
+        private final String lowerCaseSubsystemCode;
+
+        Entry(ClientId id, String memberName) {
+            this.id = id;
+            this.memberName = memberName;
+            this.lowerCaseMemberName = toLowerCase(memberName);
+            this.lowerCaseInstance = toLowerCase(id.getXRoadInstance());
+            this.lowerCaseMemberClass = toLowerCase(id.getMemberClass());
+            this.lowerCaseMemberCode = toLowerCase(id.getMemberCode());
+            this.lowerCaseSubsystemCode = toLowerCase(id.getSubsystemCode());
+        }
+
+        private static String toLowerCase(String value) {
+            return value != null ? value.toLowerCase(Locale.ROOT) : null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.restapi.cache;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
+import ee.ria.xroad.signer.protocol.dto.KeyInfo;
+import ee.ria.xroad.signer.protocol.dto.KeyUsageInfo;
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tokens read from signer with one ListTokens call, indexed by token, key and certificate ids
+ * and by the members of the certificates.
+ * A snapshot is never updated, {@link #getChangeCount()} tells which signer changes it includes
+ * (see {@link org.niis.xroad.restapi.facade.SignerProxyFacade#getTokenChangeCount()}).
+ */
+public final class TokenSnapshot {
+    @Getter
+    private final List<TokenInfo> tokens;
+    @Getter
+    private final long changeCount;
+
+    private final Map<String, TokenInfo> tokensById = new HashMap<>();
+    private final Map<String, KeyInfo> keysById = new HashMap<>();
+    private final Map<String, TokenInfo> tokensByKeyId = new HashMap<>();
+    private final Map<String, CertificateInfo> certificatesById = new HashMap<>();
+    private final Map<String, KeyInfo> keysByCertificateId = new HashMap<>();
+    private final Map<ClientId, List<CertificateInfo>> certificatesByMemberId = new HashMap<>();
+    private final Map<ClientId, List<CertificateInfo>> signCertificatesByMemberId = new HashMap<>();
+    private final List<CertificateInfo> authCertificates = new ArrayList<>();
+
+    /**
+     * @param tokens tokens as returned by signer
+     * @param changeCount token change count at the time the tokens were requested
+     */
+    public TokenSnapshot(List<TokenInfo> tokens, long changeCount) {
+        this.tokens = tokens;
+        this.changeCount = changeCount;
+        for (TokenInfo token : tokens) {
+            tokensById.putIfAbsent(token.getId(), token);
+            for (KeyInfo key : token.getKeyInfo()) {
+                keysById.putIfAbsent(key.getId(), key);
+                tokensByKeyId.putIfAbsent(key.getId(), token);
+                for (CertificateInfo certificate : key.getCerts()) {
+                    certificatesById.putIfAbsent(certificate.getId(), certificate);
+                    keysByCertificateId.putIfAbsent(certificate.getId(), key);
+                    if (certificate.getMemberId() != null) {
+                        ClientId memberId = certificate.getMemberId().getMemberId();
+                        certificatesByMemberId.computeIfAbsent(memberId, id -> new ArrayList<>()).add(certificate);
+                        if (key.isForSigning()) {
+                            signCertificatesByMemberId.computeIfAbsent(memberId, id -> new ArrayList<>())
+                                    .add(certificate);
+                        }
+                    }
+                    if (KeyUsageInfo.AUTHENTICATION.equals(key.getUsage())) {
+                        authCertificates.add(certificate);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the token, or null if not found
+     */
+    public TokenInfo getToken(String tokenId) {
+        return tokensById.get(tokenId);
+    }
+
+    /**
+     * @return the key, or null if not found
+     */
+    public KeyInfo getKey(String keyId) {
+        return keysById.get(keyId);
+    }
+
+    /**
+     * @return the token which contains the key, or null if key was not found
+     */
+    public TokenInfo getTokenForKeyId(String keyId) {
+        return tokensByKeyId.get(keyId);
+    }
+
+    /**
+     * @return the certificate, or null if not found
+     */
+    public CertificateInfo getCertificate(String certificateId) {
+        return certificatesById.get(certificateId);
+    }
+
+    /**
+     * @return the key which contains the certificate, or null if certificate was not found
+     */
+    public KeyInfo getKeyForCertificateId(String certificateId) {
+        return keysByCertificateId.get(certificateId);
+    }
+
+    /**
+     * @param clientId member or subsystem, certificates of the member are returned
+     * @param onlySignCertificates if true, return only certificates of signing keys
+     * @return the certificates of the member, in token order
+     */
+    public List<CertificateInfo> getCertificates(ClientId clientId, boolean onlySignCertificates) {
+        Map<ClientId, List<CertificateInfo>> index = onlySignCertificates
+                ? signCertificatesByMemberId : certificatesByMemberId;
+        return Collections.unmodifiableList(index.getOrDefault(clientId.getMemberId(), Collections.emptyList()));
+    }
+
+    /**
+     * @return the certificates of authentication keys
+     */
+    public List<CertificateInfo> getAuthCertificates() {
+        return Collections.unmodifiableList(authCertificates);
+    }
+}
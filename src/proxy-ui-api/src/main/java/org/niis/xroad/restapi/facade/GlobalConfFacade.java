@@ -26,20 +26,30 @@
 package org.niis.xroad.restapi.facade;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.certificateprofile.SignCertificateProfileInfo;
 import ee.ria.xroad.common.certificateprofile.impl.SignCertificateProfileInfoParameters;
 import ee.ria.xroad.common.conf.globalconf.ApprovedCAInfo;
+import ee.ria.xroad.common.conf.globalconf.ConfigurationDirectory;
 import ee.ria.xroad.common.conf.globalconf.GlobalConf;
 import ee.ria.xroad.common.conf.globalconf.GlobalGroupInfo;
 import ee.ria.xroad.common.conf.globalconf.MemberInfo;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.identifier.GlobalGroupId;
 import ee.ria.xroad.common.identifier.SecurityServerId;
+import ee.ria.xroad.common.util.CryptoUtils;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -54,6 +64,8 @@ import java.util.Set;
 @Component
 public class GlobalConfFacade {
 
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
     /**
      * {@link GlobalConf#getMemberName(ClientId)}
      */
@@ -214,6 +226,52 @@ public class GlobalConfFacade {
         GlobalConf.reload();
     }
 
+    /**
+     * Returns a version of the global configuration the configuration client has downloaded: a digest of the
+     * names and contents of the files in the configuration directory and in all instance directories under it.
+     * Bookkeeping files that the configuration client rewrites on every download (the expiration metadata,
+     * the list of files and temporary files) are not part of the version.
+     * {@link SystemProperties#getConfigurationPath()}
+     * @return the version, or null if the configuration directory does not exist or could not be read
+     */
+    public String getConfigurationVersion() {
+        File[] entries = new File(SystemProperties.getConfigurationPath()).listFiles();
+        if (entries == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance(CryptoUtils.SHA256_ID);
+            digestFiles(digest, "", entries);
+            return CryptoUtils.encodeHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.warn("Could not read global configuration version", e);
+            return null;
+        }
+    }
+
+    private static void digestFiles(MessageDigest digest, String prefix, File[] entries) throws IOException {
+        Arrays.sort(entries);
+        for (File entry : entries) {
+            if (entry.isDirectory()) {
+                File[] instanceEntries = entry.listFiles();
+                if (prefix.isEmpty() && instanceEntries != null) {
+                    digestFiles(digest, entry.getName() + '/', instanceEntries);
+                }
+            } else if (isVersionedFile(entry.getName())) {
+                byte[] content = Files.readAllBytes(entry.toPath());
+                digest.update((prefix + entry.getName() + ':' + content.length + '\n')
+                        .getBytes(StandardCharsets.UTF_8));
+                digest.update(content);
+            }
+        }
+    }
+
+    private static boolean isVersionedFile(String fileName) {
+        return !fileName.equals(ConfigurationDirectory.FILES)
+                && !fileName.endsWith(ConfigurationDirectory.METADATA_SUFFIX)
+                && !fileName.endsWith(TEMP_FILE_SUFFIX);
+    }
+
     /**
      * {@link GlobalConf#reload()}
      */
@@ -41,20 +41,41 @@ import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * SignerProxy facade.
- * Pure facade / wrapper, just delegates to SignerProxy. Zero business logic.
+ * Delegates to SignerProxy, and in addition counts the calls that may change tokens, keys or
+ * certificates, so that cached token snapshots can be invalidated (see {@link #getTokenChangeCount()}).
  * Exists to make testing easier by offering non-static methods.
  */
 @Slf4j
 @Component
 public class SignerProxyFacade {
+    private static final AtomicLong TOKEN_CHANGE_COUNT = new AtomicLong();
+
+    /**
+     * Returns a counter that is incremented after every signer call that may have changed tokens,
+     * keys or certificates. A token snapshot that was read when the counter had a different value
+     * may be stale.
+     */
+    public static long getTokenChangeCount() {
+        return TOKEN_CHANGE_COUNT.get();
+    }
+
+    private static void tokensChanged() {
+        TOKEN_CHANGE_COUNT.incrementAndGet();
+    }
+
     /**
      * {@link SignerProxy#initSoftwareToken(char[])}
      */
     public void initSoftwareToken(char[] password) throws Exception {
-        SignerProxy.initSoftwareToken(password);
+        try {
+            SignerProxy.initSoftwareToken(password);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
@@ -75,35 +96,55 @@ public class SignerProxyFacade {
      * {@link SignerProxy#activateToken(String, char[])}
      */
     public void activateToken(String tokenId, char[] password) throws Exception {
-        SignerProxy.activateToken(tokenId, password);
+        try {
+            SignerProxy.activateToken(tokenId, password);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#deactivateToken(String)}
      */
     public void deactivateToken(String tokenId) throws Exception {
-        SignerProxy.deactivateToken(tokenId);
+        try {
+            SignerProxy.deactivateToken(tokenId);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#setTokenFriendlyName(String, String)}
      */
     public void setTokenFriendlyName(String tokenId, String friendlyName) throws Exception {
-        SignerProxy.setTokenFriendlyName(tokenId, friendlyName);
+        try {
+            SignerProxy.setTokenFriendlyName(tokenId, friendlyName);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#setKeyFriendlyName(String, String)}
      */
     public void setKeyFriendlyName(String keyId, String friendlyName) throws Exception {
-        SignerProxy.setKeyFriendlyName(keyId, friendlyName);
+        try {
+            SignerProxy.setKeyFriendlyName(keyId, friendlyName);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#generateKey(String, String)}
      */
     public KeyInfo generateKey(String tokenId, String keyLabel) throws Exception {
-        return SignerProxy.generateKey(tokenId, keyLabel);
+        try {
+            return SignerProxy.generateKey(tokenId, keyLabel);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
@@ -111,36 +152,56 @@ public class SignerProxyFacade {
      */
     public byte[] generateSelfSignedCert(String keyId, ClientId memberId, KeyUsageInfo keyUsage,
             String commonName, Date notBefore, Date notAfter) throws Exception {
-        return SignerProxy.generateSelfSignedCert(keyId, memberId, keyUsage,
-                commonName, notBefore, notAfter);
+        try {
+            return SignerProxy.generateSelfSignedCert(keyId, memberId, keyUsage,
+                    commonName, notBefore, notAfter);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#importCert(byte[], String)}
      */
     public String importCert(byte[] certBytes, String initialStatus) throws Exception {
-        return SignerProxy.importCert(certBytes, initialStatus);
+        try {
+            return SignerProxy.importCert(certBytes, initialStatus);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#importCert(byte[], String, ClientId)}
      */
     public String importCert(byte[] certBytes, String initialStatus, ClientId clientId) throws Exception {
-        return SignerProxy.importCert(certBytes, initialStatus, clientId);
+        try {
+            return SignerProxy.importCert(certBytes, initialStatus, clientId);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#activateCert(String)}
      */
     public void activateCert(String certId) throws Exception {
-        SignerProxy.activateCert(certId);
+        try {
+            SignerProxy.activateCert(certId);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#deactivateCert(String)}
      */
     public void deactivateCert(String certId) throws Exception {
-        SignerProxy.deactivateCert(certId);
+        try {
+            SignerProxy.deactivateCert(certId);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
@@ -149,7 +210,11 @@ public class SignerProxyFacade {
      */
     public GeneratedCertRequestInfo generateCertRequest(String keyId, ClientId memberId, KeyUsageInfo keyUsage,
             String subjectName, CertificateRequestFormat format) throws Exception {
-        return SignerProxy.generateCertRequest(keyId, memberId, keyUsage, subjectName, format);
+        try {
+            return SignerProxy.generateCertRequest(keyId, memberId, keyUsage, subjectName, format);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
@@ -157,35 +222,55 @@ public class SignerProxyFacade {
      */
     public GeneratedCertRequestInfo regenerateCertRequest(String certRequestId, CertificateRequestFormat format)
             throws Exception {
-        return SignerProxy.regenerateCertRequest(certRequestId, format);
+        try {
+            return SignerProxy.regenerateCertRequest(certRequestId, format);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#deleteCertRequest(String)}
      */
     public void deleteCertRequest(String certRequestId) throws Exception {
-        SignerProxy.deleteCertRequest(certRequestId);
+        try {
+            SignerProxy.deleteCertRequest(certRequestId);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#deleteCert(String)}
      */
     public void deleteCert(String certId) throws Exception {
-        SignerProxy.deleteCert(certId);
+        try {
+            SignerProxy.deleteCert(certId);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#deleteKey(String, boolean)}
      */
     public void deleteKey(String keyId, boolean deleteFromToken) throws Exception {
-        SignerProxy.deleteKey(keyId, deleteFromToken);
+        try {
+            SignerProxy.deleteKey(keyId, deleteFromToken);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
      * {@link SignerProxy#setCertStatus(String, String)}
      */
     public void setCertStatus(String certId, String status) throws Exception {
-        SignerProxy.setCertStatus(certId, status);
+        try {
+            SignerProxy.setCertStatus(certId, status);
+        } finally {
+            tokensChanged();
+        }
     }
 
     /**
@@ -97,6 +97,7 @@ import org.niis.xroad.restapi.wsdl.InvalidWsdlException;
 import org.niis.xroad.restapi.wsdl.OpenApiParser;
 import org.niis.xroad.restapi.wsdl.WsdlParser;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -106,10 +107,13 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import java.security.cert.CertificateException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -143,6 +147,9 @@ import static org.niis.xroad.restapi.openapi.ApiUtil.createCreatedResponse;
 @PreAuthorize("denyAll")
 @RequiredArgsConstructor
 public class ClientsApiController implements ClientsApi {
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final String SORT_BY_ID = "id";
+
     private final ClientConverter clientConverter;
     private final ClientService clientService;
     private final LocalGroupConverter localGroupConverter;
@@ -163,7 +170,8 @@ public class ClientsApiController implements ClientsApi {
     private final ClientSortingComparator clientSortingComparator;
 
     /**
-     * Finds clients matching search terms
+     * Finds clients matching search terms. The results are sorted and paged before they are converted,
+     * so that only the requested page is built and serialised
      * @param name
      * @param instance
      * @param memberClass
@@ -171,20 +179,56 @@ public class ClientsApiController implements ClientsApi {
      * @param subsystemCode
      * @param showMembers include members (without susbsystemCode) in the results
      * @param internalSearch search only in the local clients
+     * @param offset index of the first client to return
+     * @param limit maximum number of clients to return, all if null
+     * @param sort sort by member name and client id, or by client id only
+     * @param desc sort in descending order
      * @return
      */
     @Override
     @PreAuthorize("hasAuthority('VIEW_CLIENTS')")
     public ResponseEntity<List<Client>> findClients(String name, String instance, String memberClass,
             String memberCode, String subsystemCode, Boolean showMembers, Boolean internalSearch,
-            Boolean localValidSignCert, Boolean excludeLocal) {
+            Boolean localValidSignCert, Boolean excludeLocal, Integer offset, Integer limit, String sort,
+            Boolean desc) {
+        if ((offset != null && offset < 0) || (limit != null && limit < 1)) {
+            throw new BadRequestException("invalid offset or limit");
+        }
         boolean unboxedShowMembers = Boolean.TRUE.equals(showMembers);
         boolean unboxedInternalSearch = Boolean.TRUE.equals(internalSearch);
-        List<Client> clients = clientConverter.convert(clientService.findClients(name,
+        List<ClientType> clientTypes = clientService.findClients(name,
                 instance, memberClass, memberCode, subsystemCode, unboxedShowMembers, unboxedInternalSearch,
-                localValidSignCert, excludeLocal));
-        Collections.sort(clients, clientSortingComparator);
-        return new ResponseEntity<>(clients, HttpStatus.OK);
+                Boolean.TRUE.equals(localValidSignCert), Boolean.TRUE.equals(excludeLocal));
+        List<ClientType> page = sortAndPage(clientTypes, SORT_BY_ID.equals(sort), Boolean.TRUE.equals(desc),
+                offset != null ? offset : 0, limit);
+        List<Client> clients = clientConverter.convert(page);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(TOTAL_COUNT_HEADER, String.valueOf(clientTypes.size()));
+        return new ResponseEntity<>(clients, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Sort clients with {@link ClientSortingComparator} and return one page of them. Only the sort keys
+     * (encoded id and member name) are built for all clients
+     */
+    private List<ClientType> sortAndPage(List<ClientType> clientTypes, boolean sortById, boolean descending,
+            int offset, Integer limit) {
+        Map<ClientId, String> memberNames = sortById ? Collections.emptyMap()
+                : clientService.getMemberNames(clientTypes);
+        List<Map.Entry<Client, ClientType>> keyedClients = new ArrayList<>(clientTypes.size());
+        for (ClientType clientType : clientTypes) {
+            Client sortKey = new Client();
+            sortKey.setId(clientConverter.convertId(clientType.getIdentifier()));
+            sortKey.setMemberName(memberNames.get(clientType.getIdentifier()));
+            keyedClients.add(new AbstractMap.SimpleImmutableEntry<>(sortKey, clientType));
+        }
+        Comparator<Client> comparator = descending ? clientSortingComparator.reversed() : clientSortingComparator;
+        return keyedClients.stream()
+                .sorted(Map.Entry.comparingByKey(comparator))
+                .skip(offset)
+                .limit(limit != null ? limit : Long.MAX_VALUE)
+                .map(Map.Entry::getValue)
+                .collect(toList());
     }
 
     @Override
@@ -33,10 +33,12 @@ import ee.ria.xroad.common.identifier.SecurityServerId;
 import ee.ria.xroad.common.util.CertUtils;
 import ee.ria.xroad.signer.protocol.dto.AuthKeyInfo;
 import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
-import ee.ria.xroad.signer.protocol.dto.KeyUsageInfo;
 import ee.ria.xroad.signer.protocol.message.GetAuthKey;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.restapi.cache.GlobalClientIndex;
+import org.niis.xroad.restapi.cache.TokenSnapshot;
 import org.niis.xroad.restapi.facade.GlobalConfFacade;
 import org.niis.xroad.restapi.facade.SignerProxyFacade;
 import org.niis.xroad.restapi.service.BackupRestoreEvent;
@@ -45,8 +47,14 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 
 import static ee.ria.xroad.common.ErrorCodes.translateException;
 import static ee.ria.xroad.common.SystemProperties.NodeType.SLAVE;
@@ -54,6 +62,11 @@ import static ee.ria.xroad.common.util.CryptoUtils.readCertificate;
 
 /**
  * Job that checks whether globalconf has changed.
+ *
+ * The outcome of the last check is remembered, so that a run is incremental: globalconf is reloaded only when
+ * its configuration version has changed, and only clients whose global registration or local status has
+ * changed since the previous check are reconciled. Authentication certificate statuses are reconciled on
+ * every run.
  */
 @Component
 @Slf4j
@@ -63,14 +76,17 @@ public class GlobalConfChecker {
     private final GlobalConfCheckerHelper globalConfCheckerHelper;
     private final GlobalConfFacade globalConfFacade;
     private final SignerProxyFacade signerProxyFacade;
+    private final GlobalClientIndex globalClientIndex;
     private volatile boolean restoreInProgress = false;
+    private volatile CheckedState checkedState;
 
     @Autowired
     public GlobalConfChecker(GlobalConfCheckerHelper globalConfCheckerHelper, GlobalConfFacade globalConfFacade,
-            SignerProxyFacade signerProxyFacade) {
+            SignerProxyFacade signerProxyFacade, GlobalClientIndex globalClientIndex) {
         this.globalConfCheckerHelper = globalConfCheckerHelper;
         this.globalConfFacade = globalConfFacade;
         this.signerProxyFacade = signerProxyFacade;
+        this.globalClientIndex = globalClientIndex;
     }
 
     /**
@@ -109,31 +125,82 @@ public class GlobalConfChecker {
     @EventListener
     protected void onEvent(BackupRestoreEvent e) {
         restoreInProgress = BackupRestoreEvent.START.equals(e);
+        // restored serverconf may differ from the checked one in any way
+        checkedState = null;
     }
 
     private void checkGlobalConf() {
         globalConfFacade.verifyValidity();
 
-        log.debug("Reloading globalconf");
-        globalConfFacade.reload(); // XXX: temporary fix
+        // read the version before reloading, so that the reloaded globalconf is at least as new as the version
+        String globalConfVersion = globalConfFacade.getConfigurationVersion();
+        CheckedState previous = checkedState;
+        boolean globalConfChanged = globalConfVersion == null || previous == null
+                || !globalConfVersion.equals(previous.globalConfVersion);
+
+        if (globalConfChanged) {
+            log.debug("Reloading globalconf");
+            globalConfFacade.reload(); // XXX: temporary fix
+            globalClientIndex.globalConfReloaded(globalConfVersion);
+        } else {
+            log.debug("Globalconf version {} has not changed - checking only local changes", globalConfVersion);
+        }
 
         ServerConfType serverConf = globalConfCheckerHelper.getServerConf();
         SecurityServerId securityServerId = null;
 
         try {
-            if (globalConfFacade.getServerOwner(buildSecurityServerId(serverConf)) == null) {
+            if ((globalConfChanged || localClientsChanged(serverConf, previous))
+                    && globalConfFacade.getServerOwner(buildSecurityServerId(serverConf)) == null) {
                 log.debug("Server owner not found in globalconf - owner may have changed");
                 updateOwner(serverConf);
             }
             securityServerId = buildSecurityServerId(serverConf);
             log.debug("Security Server ID is \"{}\"", securityServerId);
-            updateClientStatuses(serverConf, securityServerId);
+
+            // registrations checked for another server id are of no use
+            Map<String, ClientState> previousClients = previous != null
+                    && securityServerId.equals(previous.securityServerId)
+                    ? previous.clients : Collections.emptyMap();
+            Map<String, ClientState> clients = updateClientStatuses(serverConf, securityServerId, previousClients,
+                    globalConfChanged);
+
+            // auth certs may be changed by the signer or signer-console at any time, so they are always checked
             updateAuthCertStatuses(securityServerId);
+
+            rememberCheckedState(new CheckedState(globalConfVersion, securityServerId, clients));
         } catch (Exception e) {
+            checkedState = null;
             throw translateException(e);
         }
     }
 
+    private boolean localClientsChanged(ServerConfType serverConf, CheckedState previous) {
+        if (previous == null || previous.clients.size() != serverConf.getClient().size()) {
+            return true;
+        }
+        return serverConf.getClient().stream()
+                .anyMatch(c -> !previous.clients.containsKey(c.getIdentifier().toShortString()));
+    }
+
+    /**
+     * Remembers the checked state for the next run. The state is forgotten if the current transaction does not
+     * commit, since then the statuses it describes were never stored.
+     */
+    private void rememberCheckedState(CheckedState state) {
+        checkedState = state;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        checkedState = null;
+                    }
+                }
+            });
+        }
+    }
+
     private SecurityServerId buildSecurityServerId(ClientId ownerId, String serverCode) {
         return SecurityServerId.create(
                 ownerId.getXRoadInstance(), ownerId.getMemberClass(),
@@ -185,60 +252,78 @@ public class GlobalConfChecker {
         return null;
     }
 
-    private void updateClientStatuses(ServerConfType serverConf,
-            SecurityServerId securityServerId) throws Exception {
+    /**
+     * Updates statuses of the clients whose registration in globalconf or whose local status has changed
+     * since the previous check
+     * @param previousClients client states from the previous check, keyed by client id short string
+     * @param globalConfChanged whether registrations need to be read from globalconf again
+     * @return client states after the update
+     */
+    private Map<String, ClientState> updateClientStatuses(ServerConfType serverConf,
+            SecurityServerId securityServerId, Map<String, ClientState> previousClients,
+            boolean globalConfChanged) throws Exception {
         log.debug("Updating client statuses");
 
+        Map<String, ClientState> clients = new HashMap<>();
         for (ClientType client : serverConf.getClient()) {
-            boolean registered = globalConfFacade.isSecurityServerClient(
-                    client.getIdentifier(), securityServerId);
-
-            log.debug("Client '{}' registered = '{}'", client.getIdentifier(),
-                    registered);
-
-            if (registered && client.getClientStatus() != null) {
-                switch (client.getClientStatus()) {
-                    case ClientType.STATUS_REGISTERED:
-                        // do nothing
-                        break;
-                    case ClientType.STATUS_SAVED: // FALL-THROUGH
-                    case ClientType.STATUS_REGINPROG: // FALL-THROUGH
-                    case ClientType.STATUS_GLOBALERR:
-                        client.setClientStatus(ClientType.STATUS_REGISTERED);
-                        log.debug("Setting client '{}' status to '{}'",
-                                client.getIdentifier(),
-                                client.getClientStatus());
-                        break;
-                    default:
-                        log.warn("Unexpected status {} for client '{}'",
-                                client.getIdentifier(),
-                                client.getClientStatus());
-                }
+            // keyed by short string, identifiers loaded by hibernate may be proxies
+            String key = client.getIdentifier().toShortString();
+            ClientState previousState = previousClients.get(key);
+            boolean registered = !globalConfChanged && previousState != null
+                    ? previousState.registered
+                    : globalConfFacade.isSecurityServerClient(client.getIdentifier(), securityServerId);
+
+            if (previousState == null || previousState.registered != registered
+                    || !Objects.equals(previousState.status, client.getClientStatus())) {
+                updateClientStatus(client, registered);
             }
+            clients.put(key, new ClientState(registered, client.getClientStatus()));
+        }
+        return clients;
+    }
 
-            if (!registered && ClientType.STATUS_REGISTERED.equals(
-                    client.getClientStatus())) {
-                client.setClientStatus(ClientType.STATUS_GLOBALERR);
+    private void updateClientStatus(ClientType client, boolean registered) {
+        log.debug("Client '{}' registered = '{}'", client.getIdentifier(),
+                registered);
 
-                log.debug("Setting client '{}' status to '{}'",
-                        client.getIdentifier(), client.getClientStatus());
+        if (registered && client.getClientStatus() != null) {
+            switch (client.getClientStatus()) {
+                case ClientType.STATUS_REGISTERED:
+                    // do nothing
+                    break;
+                case ClientType.STATUS_SAVED: // FALL-THROUGH
+                case ClientType.STATUS_REGINPROG: // FALL-THROUGH
+                case ClientType.STATUS_GLOBALERR:
+                    client.setClientStatus(ClientType.STATUS_REGISTERED);
+                    log.debug("Setting client '{}' status to '{}'",
+                            client.getIdentifier(),
+                            client.getClientStatus());
+                    break;
+                default:
+                    log.warn("Unexpected status {} for client '{}'",
+                            client.getIdentifier(),
+                            client.getClientStatus());
             }
         }
+
+        if (!registered && ClientType.STATUS_REGISTERED.equals(
+                client.getClientStatus())) {
+            client.setClientStatus(ClientType.STATUS_GLOBALERR);
+
+            log.debug("Setting client '{}' status to '{}'",
+                    client.getIdentifier(), client.getClientStatus());
+        }
     }
 
     private void updateAuthCertStatuses(SecurityServerId securityServerId)
             throws Exception {
         log.debug("Updating auth cert statuses");
 
-        signerProxyFacade.getTokens().stream().flatMap(t -> t.getKeyInfo().stream())
-                .filter(k -> KeyUsageInfo.AUTHENTICATION.equals(k.getUsage()))
-                .flatMap(k -> k.getCerts().stream()).forEach(certInfo -> {
-                    try {
-                        updateCertStatus(securityServerId, certInfo);
-                    } catch (Exception e) {
-                        throw translateException(e);
-                    }
-                });
+        TokenSnapshot tokenSnapshot = new TokenSnapshot(signerProxyFacade.getTokens(),
+                SignerProxyFacade.getTokenChangeCount());
+        for (CertificateInfo certInfo : tokenSnapshot.getAuthCertificates()) {
+            updateCertStatus(securityServerId, certInfo);
+        }
     }
 
     private void updateCertStatus(SecurityServerId securityServerId,
@@ -281,4 +366,20 @@ public class GlobalConfChecker {
                     CertificateInfo.STATUS_GLOBALERR);
         }
     }
+
+    @AllArgsConstructor
+    private static final class ClientState {
+        private final boolean registered;
+        private final String status;
+    }
+
+    /**
+     * Outcome of a successful check
+     */
+    @AllArgsConstructor
+    private static final class CheckedState {
+        private final String globalConfVersion;
+        private final SecurityServerId securityServerId;
+        private final Map<String, ClientState> clients;
+    }
 }
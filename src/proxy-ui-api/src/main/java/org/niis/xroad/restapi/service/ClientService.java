@@ -40,6 +40,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.hibernate.Hibernate;
 import org.niis.xroad.restapi.cache.CurrentSecurityServerId;
 import org.niis.xroad.restapi.cache.CurrentSecurityServerSignCertificates;
+import org.niis.xroad.restapi.cache.GlobalClientIndex;
 import org.niis.xroad.restapi.config.audit.AuditDataHelper;
 import org.niis.xroad.restapi.exceptions.DeviationAwareRuntimeException;
 import org.niis.xroad.restapi.exceptions.ErrorDeviation;
@@ -60,7 +61,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -102,6 +105,7 @@ public class ClientService {
     private final ManagementRequestSenderService managementRequestSenderService;
     private final CurrentSecurityServerId currentSecurityServerId;
     private final AuditDataHelper auditDataHelper;
+    private final GlobalClientIndex globalClientIndex;
 
     // request scoped contains all certificates of type sign
     private final CurrentSecurityServerSignCertificates currentSecurityServerSignCertificates;
@@ -155,16 +159,33 @@ public class ClientService {
      * @return
      */
     public List<ClientType> getAllGlobalClients() {
-        return globalConfFacade.getMembers()
+        return globalClientIndex.getSnapshot().getEntries()
                 .stream()
-                .map(memberInfo -> {
-                    ClientType clientType = new ClientType();
-                    clientType.setIdentifier(memberInfo.getId());
-                    return clientType;
-                })
+                .map(entry -> createGlobalClient(entry.getId()))
                 .collect(Collectors.toList());
     }
 
+    private ClientType createGlobalClient(ClientId clientId) {
+        ClientType clientType = new ClientType();
+        clientType.setIdentifier(clientId);
+        return clientType;
+    }
+
+    /**
+     * Return member names of clients from the global client index
+     *
+     * @param clients
+     * @return member names by client id, null for clients that do not exist in globalconf
+     */
+    public Map<ClientId, String> getMemberNames(List<ClientType> clients) {
+        GlobalClientIndex.Snapshot index = globalClientIndex.getSnapshot();
+        Map<ClientId, String> memberNames = new HashMap<>(clients.size() * 2);
+        for (ClientType client : clients) {
+            memberNames.put(client.getIdentifier(), index.getMemberName(client.getIdentifier()));
+        }
+        return memberNames;
+    }
+
     /**
      * Return one client, or null if not found.
      * This method does NOT trigger load of lazy loaded properties.
@@ -384,14 +405,15 @@ public class ClientService {
      */
     public List<ClientType> findLocalClients(String name, String instance, String propertyClass, String memberCode,
             String subsystemCode, boolean showMembers, boolean localValidSignCert) {
-        Predicate<ClientType> matchingSearchTerms = buildClientSearchPredicate(name, instance, propertyClass,
-                memberCode, subsystemCode, localValidSignCert);
+        GlobalClientIndex.Snapshot index = globalClientIndex.getSnapshot();
+        Predicate<GlobalClientIndex.Entry> matchingSearchTerms = buildClientSearchPredicate(name, instance,
+                propertyClass, memberCode, subsystemCode, localValidSignCert);
 
         List<ClientType> allLocalClients = getAllLocalClients();
 
         return allLocalClients.stream()
-                .filter(matchingSearchTerms)
                 .filter(ct -> showMembers || ct.getIdentifier().getSubsystemCode() != null)
+                .filter(ct -> matchingSearchTerms.test(index.getOrCreate(ct.getIdentifier())))
                 .collect(Collectors.toList());
     }
 
@@ -408,11 +430,12 @@ public class ClientService {
      */
     public List<ClientType> findGlobalClients(String name, String instance, String propertyClass, String memberCode,
             String subsystemCode, boolean showMembers) {
-        Predicate<ClientType> matchingSearchTerms = buildClientSearchPredicate(name, instance, propertyClass,
-                memberCode, subsystemCode, false);
-        return getAllGlobalClients().stream()
+        Predicate<GlobalClientIndex.Entry> matchingSearchTerms = buildClientSearchPredicate(name, instance,
+                propertyClass, memberCode, subsystemCode, false);
+        return globalClientIndex.getSnapshot().getEntries().stream()
+                .filter(entry -> showMembers || entry.getId().getSubsystemCode() != null)
                 .filter(matchingSearchTerms)
-                .filter(clientType -> showMembers || clientType.getIdentifier().getSubsystemCode() != null)
+                .map(entry -> createGlobalClient(entry.getId()))
                 .collect(Collectors.toList());
     }
 
@@ -423,13 +446,12 @@ public class ClientService {
      * @return
      */
     public Optional<ClientType> findByClientId(ClientId clientId) {
-        List<ClientType> localClients = getAllLocalClients();
-        List<ClientType> globalClients = getAllGlobalClients();
-        List<ClientType> distinctClients = mergeClientListsDistinctively(globalClients, localClients);
-        return distinctClients.stream()
-                .filter(clientType -> clientType.getIdentifier().toShortString().trim()
-                        .equals(clientId.toShortString().trim()))
-                .findFirst();
+        ClientType localClient = getLocalClient(clientId);
+        if (localClient != null) {
+            return Optional.of(localClient);
+        }
+        return Optional.ofNullable(globalClientIndex.getSnapshot().get(clientId))
+                .map(entry -> createGlobalClient(entry.getId()));
     }
 
     /**
@@ -475,8 +497,9 @@ public class ClientService {
      */
     private List<ClientType> subtractLocalFromGlobalClients(List<ClientType> globalClients,
             List<ClientType> localClients) {
-        List<String> localClientIds = localClients.stream().map(localClient ->
-                localClient.getIdentifier().toShortString()).collect(Collectors.toList());
+        Set<String> localClientIds = localClients.stream()
+                .map(localClient -> localClient.getIdentifier().toShortString())
+                .collect(Collectors.toSet());
 
         return globalClients.stream()
                 .filter(globalClient -> !localClientIds.contains(globalClient.getIdentifier().toShortString()))
@@ -608,58 +631,51 @@ public class ClientService {
      * @return
      */
     private List<ClientType> mergeClientListsDistinctively(List<ClientType> clients, List<ClientType> moreClients) {
-        Map<String, ClientType> uniqueClientMap = new HashMap<>();
-        // add clients into the HashMap with client identifier string as the key
+        Map<String, ClientType> uniqueClientMap = new LinkedHashMap<>(clients.size() * 2);
+        // add clients into the map with client identifier string as the key
         clients.forEach(clientType -> uniqueClientMap.put(clientType.getIdentifier().toShortString(), clientType));
         /*
-          add other clients into the HashMap with client identifier string as the key
+          add other clients into the map with client identifier string as the key
           this conveniently overwrites all duplicate keys
          */
         moreClients.forEach(clientType -> uniqueClientMap.put(clientType.getIdentifier().toShortString(), clientType));
         return new ArrayList<>(uniqueClientMap.values());
     }
 
-    private Predicate<ClientType> buildClientSearchPredicate(String name, String instance,
+    private Predicate<GlobalClientIndex.Entry> buildClientSearchPredicate(String name, String instance,
             String memberClass, String memberCode, String subsystemCode, boolean localValidSignCert) {
-        Predicate<ClientType> clientTypePredicate = clientType -> true;
+        Predicate<GlobalClientIndex.Entry> clientPredicate = entry -> true;
         if (!StringUtils.isEmpty(name)) {
-            clientTypePredicate = clientTypePredicate.and(ct -> {
-                String memberName = globalConfFacade.getMemberName(ct.getIdentifier());
-                return memberName != null && memberName.toLowerCase().contains(name.toLowerCase());
-            });
+            String term = name.toLowerCase(Locale.ROOT);
+            clientPredicate = clientPredicate.and(entry -> containsTerm(entry.getLowerCaseMemberName(), term));
         }
         if (!StringUtils.isEmpty(instance)) {
-            clientTypePredicate = clientTypePredicate.and(ct -> ct.getIdentifier().getXRoadInstance().toLowerCase()
-                    .contains(instance.toLowerCase()));
+            String term = instance.toLowerCase(Locale.ROOT);
+            clientPredicate = clientPredicate.and(entry -> containsTerm(entry.getLowerCaseInstance(), term));
         }
         if (!StringUtils.isEmpty(memberClass)) {
-            clientTypePredicate = clientTypePredicate.and(ct -> ct.getIdentifier().getMemberClass().toLowerCase()
-                    .contains(memberClass.toLowerCase()));
+            String term = memberClass.toLowerCase(Locale.ROOT);
+            clientPredicate = clientPredicate.and(entry -> containsTerm(entry.getLowerCaseMemberClass(), term));
         }
         if (!StringUtils.isEmpty(memberCode)) {
-            clientTypePredicate = clientTypePredicate.and(ct -> ct.getIdentifier().getMemberCode().toLowerCase()
-                    .contains(memberCode.toLowerCase()));
+            String term = memberCode.toLowerCase(Locale.ROOT);
+            clientPredicate = clientPredicate.and(entry -> containsTerm(entry.getLowerCaseMemberCode(), term));
         }
         if (!StringUtils.isEmpty(subsystemCode)) {
-            clientTypePredicate = clientTypePredicate.and(ct -> ct.getIdentifier().getSubsystemCode() != null
-                    && ct.getIdentifier().getSubsystemCode().toLowerCase().contains(subsystemCode.toLowerCase()));
+            String term = subsystemCode.toLowerCase(Locale.ROOT);
+            clientPredicate = clientPredicate.and(entry -> containsTerm(entry.getLowerCaseSubsystemCode(), term));
         }
         if (localValidSignCert) {
-            clientTypePredicate = clientTypePredicate.and(this::hasValidLocalSignCertCheck);
+            List<CertificateInfo> signCertificateInfos = currentSecurityServerSignCertificates
+                    .getSignCertificateInfos();
+            clientPredicate = clientPredicate.and(entry -> ClientUtils.hasValidLocalSignCert(entry.getId(),
+                    signCertificateInfos));
         }
-        return clientTypePredicate;
+        return clientPredicate;
     }
 
-    /**
-     * Check whether client has valid local sign cert
-     *
-     * @param clientType
-     * @return
-     */
-    private boolean hasValidLocalSignCertCheck(ClientType clientType) {
-        List<CertificateInfo> signCertificateInfos = currentSecurityServerSignCertificates
-                .getSignCertificateInfos();
-        return ClientUtils.hasValidLocalSignCert(clientType.getIdentifier(), signCertificateInfos);
+    private static boolean containsTerm(String lowerCaseValue, String lowerCaseTerm) {
+        return lowerCaseValue != null && lowerCaseValue.contains(lowerCaseTerm);
     }
 
     /**
@@ -42,11 +42,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static ee.ria.xroad.common.ErrorCodes.SIGNER_X;
@@ -82,17 +80,12 @@ public class KeyService {
      * @throws KeyNotFoundException if key was not found
      */
     public KeyInfo getKey(String keyId) throws KeyNotFoundException {
-        Collection<TokenInfo> tokens = tokenService.getAllTokens();
-        Optional<KeyInfo> keyInfo = tokens.stream()
-                .map(TokenInfo::getKeyInfo)
-                .flatMap(List::stream)
-                .filter(key -> keyId.equals(key.getId()))
-                .findFirst();
-        if (!keyInfo.isPresent()) {
+        KeyInfo keyInfo = tokenService.getTokenSnapshot().getKey(keyId);
+        if (keyInfo == null) {
             throw new KeyNotFoundException("key with id " + keyId + " not found");
         }
 
-        return keyInfo.get();
+        return keyInfo;
     }
 
     /**
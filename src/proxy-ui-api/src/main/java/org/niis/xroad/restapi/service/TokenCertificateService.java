@@ -43,6 +43,7 @@ import ee.ria.xroad.signer.protocol.message.CertificateRequestFormat;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.restapi.cache.TokenSnapshot;
 import org.niis.xroad.restapi.config.audit.AuditDataHelper;
 import org.niis.xroad.restapi.config.audit.AuditEventHelper;
 import org.niis.xroad.restapi.config.audit.RestApiAuditEvent;
@@ -870,27 +871,24 @@ public class TokenCertificateService {
      */
     public void deleteCertificates(List<CertificateInfo> certificateInfos)
             throws CertificateNotFoundException, ActionNotPossibleException {
-        List<TokenInfo> tokenInfos = tokenService.getAllTokens();
+        TokenSnapshot tokenSnapshot = tokenService.getTokenSnapshot();
         for (CertificateInfo certificateInfo: certificateInfos) {
-            deleteCertificate(certificateInfo.getId(), tokenInfos);
+            deleteCertificate(certificateInfo.getId(), tokenSnapshot);
         }
     }
 
-    private void deleteCertificate(String certificateId, List<TokenInfo> allTokens) throws
+    private void deleteCertificate(String certificateId, TokenSnapshot tokenSnapshot) throws
             CertificateNotFoundException, ActionNotPossibleException {
         // find token, key, and certificate info
-        for (TokenInfo tokenInfo: allTokens) {
-            for (KeyInfo keyInfo: tokenInfo.getKeyInfo()) {
-                for (CertificateInfo certificateInfo: keyInfo.getCerts()) {
-                    if (certificateInfo.getId().equals(certificateId)) {
-                        auditDataHelper.addCertificateHash(certificateInfo);
-                        deleteCertificate(certificateInfo, keyInfo, tokenInfo);
-                        return;
-                    }
-                }
-            }
+        CertificateInfo certificateInfo = tokenSnapshot.getCertificate(certificateId);
+        if (certificateInfo == null) {
+            throw new CertificateNotFoundException("did not find certificate with id " + certificateId
+                    + " in tokens");
         }
-        throw new CertificateNotFoundException("did not find certificate with id " + certificateId + " in tokens");
+        KeyInfo keyInfo = tokenSnapshot.getKeyForCertificateId(certificateId);
+        TokenInfo tokenInfo = tokenSnapshot.getTokenForKeyId(keyInfo.getId());
+        auditDataHelper.addCertificateHash(certificateInfo);
+        deleteCertificate(certificateInfo, keyInfo, tokenInfo);
     }
 
     /**
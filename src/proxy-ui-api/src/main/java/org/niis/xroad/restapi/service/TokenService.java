@@ -28,13 +28,13 @@ package org.niis.xroad.restapi.service;
 import ee.ria.xroad.common.CodedException;
 import ee.ria.xroad.common.conf.serverconf.model.ClientType;
 import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
-import ee.ria.xroad.signer.protocol.dto.KeyInfo;
 import ee.ria.xroad.signer.protocol.dto.TokenInfo;
 import ee.ria.xroad.signer.protocol.dto.TokenInfoAndKeyId;
 import ee.ria.xroad.signer.protocol.dto.TokenStatusInfo;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.niis.xroad.restapi.cache.TokenSnapshot;
 import org.niis.xroad.restapi.config.audit.AuditDataHelper;
 import org.niis.xroad.restapi.dto.TokenInitStatusInfo;
 import org.niis.xroad.restapi.exceptions.ErrorDeviation;
@@ -42,10 +42,10 @@ import org.niis.xroad.restapi.facade.SignerProxyFacade;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.List;
-import java.util.Optional;
-import java.util.function.Predicate;
 
 import static ee.ria.xroad.common.ErrorCodes.SIGNER_X;
 import static ee.ria.xroad.common.ErrorCodes.X_CERT_NOT_FOUND;
@@ -55,7 +55,6 @@ import static ee.ria.xroad.common.ErrorCodes.X_LOGIN_FAILED;
 import static ee.ria.xroad.common.ErrorCodes.X_PIN_INCORRECT;
 import static ee.ria.xroad.common.ErrorCodes.X_TOKEN_NOT_ACTIVE;
 import static ee.ria.xroad.common.ErrorCodes.X_TOKEN_NOT_FOUND;
-import static java.util.stream.Collectors.toList;
 import static org.niis.xroad.restapi.config.audit.RestApiAuditProperty.TOKEN_FRIENDLY_NAME;
 import static org.niis.xroad.restapi.exceptions.DeviationCodes.ERROR_PIN_INCORRECT;
 import static org.niis.xroad.restapi.exceptions.DeviationCodes.ERROR_TOKEN_NOT_ACTIVE;
@@ -71,21 +70,66 @@ import static org.niis.xroad.restapi.service.PossibleActionsRuleEngine.SOFTWARE_
 @RequiredArgsConstructor
 public class TokenService {
 
+    private static final String TOKEN_SNAPSHOT_ATTRIBUTE = TokenSnapshot.class.getName();
+
     private final SignerProxyFacade signerProxyFacade;
     private final PossibleActionsRuleEngine possibleActionsRuleEngine;
     private final AuditDataHelper auditDataHelper;
 
     /**
-     * get all tokens
+     * get all tokens.
+     * Tokens are read from signer once per request, and read again only if tokens have been changed
+     * through {@link SignerProxyFacade} after that. Outside requests (e.g. in scheduled jobs) tokens
+     * are always read from signer.
      *
      * @return
      */
     public List<TokenInfo> getAllTokens() {
+        TokenSnapshot cached = getCachedTokenSnapshot();
+        if (cached != null) {
+            return cached.getTokens();
+        }
+        long changeCount = SignerProxyFacade.getTokenChangeCount();
+        List<TokenInfo> tokens;
         try {
-            return signerProxyFacade.getTokens();
+            tokens = signerProxyFacade.getTokens();
         } catch (Exception e) {
             throw new SignerNotReachableException("could not list all tokens", e);
         }
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(TOKEN_SNAPSHOT_ATTRIBUTE, new TokenSnapshot(tokens, changeCount),
+                    RequestAttributes.SCOPE_REQUEST);
+        }
+        return tokens;
+    }
+
+    /**
+     * get all tokens indexed by token, key and certificate ids. Uses the same per request
+     * cache as {@link #getAllTokens()}.
+     *
+     * @return
+     */
+    public TokenSnapshot getTokenSnapshot() {
+        List<TokenInfo> tokens = getAllTokens();
+        TokenSnapshot cached = getCachedTokenSnapshot();
+        if (cached != null && cached.getTokens() == tokens) {
+            return cached;
+        }
+        return new TokenSnapshot(tokens, SignerProxyFacade.getTokenChangeCount());
+    }
+
+    /**
+     * @return the token snapshot of the current request, or null if there is none or it is out of date
+     */
+    private TokenSnapshot getCachedTokenSnapshot() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+        TokenSnapshot cached = (TokenSnapshot) requestAttributes.getAttribute(TOKEN_SNAPSHOT_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        return cached != null && cached.getChangeCount() == SignerProxyFacade.getTokenChangeCount() ? cached : null;
     }
 
     /**
@@ -118,17 +162,7 @@ public class TokenService {
      * @return
      */
     private List<CertificateInfo> getCertificates(ClientType clientType, boolean onlySignCertificates) {
-        List<TokenInfo> tokenInfos = getAllTokens();
-        Predicate<KeyInfo> keyInfoPredicate = keyInfo -> true;
-        if (onlySignCertificates) {
-            keyInfoPredicate = keyInfo -> keyInfo.isForSigning();
-        }
-        return tokenInfos.stream()
-                .flatMap(tokenInfo -> tokenInfo.getKeyInfo().stream())
-                .filter(keyInfoPredicate)
-                .flatMap(keyInfo -> keyInfo.getCerts().stream())
-                .filter(certificateInfo -> clientType.getIdentifier().memberEquals(certificateInfo.getMemberId()))
-                .collect(toList());
+        return getTokenSnapshot().getCertificates(clientType.getIdentifier(), onlySignCertificates);
     }
 
     /**
@@ -202,6 +236,11 @@ public class TokenService {
      * @throws TokenNotFoundException if token was not found
      */
     public TokenInfo getToken(String id) throws TokenNotFoundException {
+        TokenSnapshot cached = getCachedTokenSnapshot();
+        TokenInfo tokenInfo = cached != null ? cached.getToken(id) : null;
+        if (tokenInfo != null) {
+            return tokenInfo;
+        }
         try {
             return signerProxyFacade.getToken(id);
         } catch (CodedException e) {
@@ -294,6 +333,11 @@ public class TokenService {
      * Get TokenInfo for key id
      */
     public TokenInfo getTokenForKeyId(String keyId) throws KeyNotFoundException {
+        TokenSnapshot cached = getCachedTokenSnapshot();
+        TokenInfo tokenInfo = cached != null ? cached.getTokenForKeyId(keyId) : null;
+        if (tokenInfo != null) {
+            return tokenInfo;
+        }
         try {
             return signerProxyFacade.getTokenForKeyId(keyId);
         } catch (CodedException e) {
@@ -334,14 +378,10 @@ public class TokenService {
      */
     public boolean isSoftwareTokenInitialized() {
         boolean isSoftwareTokenInitialized = false;
-        List<TokenInfo> tokens = getAllTokens();
-        Optional<TokenInfo> firstSoftwareToken = tokens.stream()
-                .filter(tokenInfo -> tokenInfo.getId().equals(SOFTWARE_TOKEN_ID))
-                .findFirst();
+        TokenInfo softwareToken = getTokenSnapshot().getToken(SOFTWARE_TOKEN_ID);
 
-        if (firstSoftwareToken.isPresent()) {
-            TokenInfo token = firstSoftwareToken.get();
-            isSoftwareTokenInitialized = token.getStatus() != TokenStatusInfo.NOT_INITIALIZED;
+        if (softwareToken != null) {
+            isSoftwareTokenInitialized = softwareToken.getStatus() != TokenStatusInfo.NOT_INITIALIZED;
         }
         return isSoftwareTokenInitialized;
     }
@@ -0,0 +1,106 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.restapi.cache;
+
+import ee.ria.xroad.common.conf.globalconf.MemberInfo;
+import ee.ria.xroad.common.identifier.ClientId;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.niis.xroad.restapi.facade.GlobalConfFacade;
+import org.niis.xroad.restapi.util.TestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * test GlobalClientIndex
+ */
+public class GlobalClientIndexTest {
+
+    private static final ClientId MEMBER = TestUtils.getClientId(TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV,
+            TestUtils.MEMBER_CODE_M1, null);
+    private static final ClientId SUBSYSTEM = TestUtils.getClientId(TestUtils.INSTANCE_FI,
+            TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1, TestUtils.SUBSYSTEM1);
+
+    private GlobalConfFacade globalConfFacade;
+    private GlobalClientIndex globalClientIndex;
+
+    @Before
+    public void setup() {
+        List<MemberInfo> members = Arrays.asList(
+                TestUtils.getMemberInfo(TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1,
+                        null),
+                TestUtils.getMemberInfo(TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1,
+                        TestUtils.SUBSYSTEM1));
+        globalConfFacade = mock(GlobalConfFacade.class);
+        when(globalConfFacade.getMembers()).thenReturn(members);
+        globalClientIndex = new GlobalClientIndex(globalConfFacade);
+    }
+
+    @Test
+    public void indexesMembersAndSubsystems() {
+        GlobalClientIndex.Snapshot snapshot = globalClientIndex.getSnapshot();
+        assertEquals(2, snapshot.getEntries().size());
+        assertEquals(TestUtils.NAME_FOR + TestUtils.SUBSYSTEM1, snapshot.getMemberName(SUBSYSTEM));
+        assertEquals(TestUtils.SUBSYSTEM1.toLowerCase(), snapshot.get(SUBSYSTEM).getLowerCaseSubsystemCode());
+        assertNull(snapshot.get(MEMBER).getLowerCaseSubsystemCode());
+
+        ClientId unknown = TestUtils.getClientId(TestUtils.INSTANCE_EE, TestUtils.MEMBER_CLASS_PRO,
+                TestUtils.MEMBER_CODE_M2, null);
+        assertNull(snapshot.get(unknown));
+        assertNull(snapshot.getOrCreate(unknown).getMemberName());
+        assertEquals(TestUtils.MEMBER_CODE_M2.toLowerCase(), snapshot.getOrCreate(unknown).getLowerCaseMemberCode());
+    }
+
+    @Test
+    public void rebuildsOnlyWhenVersionChanges() {
+        // without a known version nothing is cached
+        assertNotSame(globalClientIndex.getSnapshot(), globalClientIndex.getSnapshot());
+
+        globalClientIndex.globalConfReloaded("v1");
+        GlobalClientIndex.Snapshot snapshot = globalClientIndex.getSnapshot();
+        globalClientIndex.globalConfReloaded("v1");
+        assertSame(snapshot, globalClientIndex.getSnapshot());
+        verify(globalConfFacade, times(3)).getMembers();
+
+        when(globalConfFacade.getMembers()).thenReturn(Collections.emptyList());
+        globalClientIndex.globalConfReloaded("v2");
+        assertEquals(0, globalClientIndex.getSnapshot().getEntries().size());
+        assertNull(globalClientIndex.getSnapshot().get(MEMBER));
+        verify(globalConfFacade, times(4)).getMembers();
+    }
+}
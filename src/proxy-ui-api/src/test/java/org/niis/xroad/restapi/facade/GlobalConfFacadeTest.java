@@ -0,0 +1,116 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.niis.xroad.restapi.facade;
+
+import ee.ria.xroad.common.SystemProperties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test GlobalConfFacade
+ */
+public class GlobalConfFacadeTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final GlobalConfFacade globalConfFacade = new GlobalConfFacade();
+
+    private String originalConfigurationPath;
+
+    @Before
+    public void setup() {
+        originalConfigurationPath = System.getProperty(SystemProperties.CONFIGURATION_PATH);
+        System.setProperty(SystemProperties.CONFIGURATION_PATH, tempFolder.getRoot().getAbsolutePath());
+    }
+
+    @After
+    public void tearDown() {
+        if (originalConfigurationPath == null) {
+            System.clearProperty(SystemProperties.CONFIGURATION_PATH);
+        } else {
+            System.setProperty(SystemProperties.CONFIGURATION_PATH, originalConfigurationPath);
+        }
+    }
+
+    @Test
+    public void configurationVersionMissingDirectory() throws Exception {
+        System.setProperty(SystemProperties.CONFIGURATION_PATH, new File(tempFolder.getRoot(), "missing").getPath());
+        assertNull(globalConfFacade.getConfigurationVersion());
+    }
+
+    @Test
+    public void configurationVersionChangesWithAnyConfigurationFile() throws Exception {
+        write("instance-identifier", "EE");
+        write("EE/shared-params.xml", "shared");
+        write("EE/private-params.xml", "private");
+        String version = globalConfFacade.getConfigurationVersion();
+        assertEquals(version, globalConfFacade.getConfigurationVersion());
+
+        write("EE/private-params.xml", "private changed");
+        String privateParamsChanged = globalConfFacade.getConfigurationVersion();
+        assertNotEquals(version, privateParamsChanged);
+
+        write("FI/shared-params.xml", "federated");
+        assertNotEquals(privateParamsChanged, globalConfFacade.getConfigurationVersion());
+    }
+
+    @Test
+    public void configurationVersionIgnoresDownloadBookkeeping() throws Exception {
+        write("instance-identifier", "EE");
+        write("files", "EE/shared-params.xml");
+        write("EE/shared-params.xml", "shared");
+        write("EE/shared-params.xml.metadata", "{\"expirationDate\":\"2020-01-01T00:00:00Z\"}");
+        String version = globalConfFacade.getConfigurationVersion();
+
+        // every download cycle rewrites the metadata, even when the parameters have not changed
+        write("files", "EE/shared-params.xml\nEE/private-params.xml");
+        write("EE/shared-params.xml.metadata", "{\"expirationDate\":\"2020-01-01T00:10:00Z\"}");
+        write("EE/shared-params.xml", "shared");
+        new File(tempFolder.getRoot(), "EE/shared-params.xml").setLastModified(0);
+        write("EE/123.tmp", "partial");
+
+        assertEquals(version, globalConfFacade.getConfigurationVersion());
+    }
+
+    private void write(String fileName, String content) throws Exception {
+        File file = new File(tempFolder.getRoot(), fileName);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -167,7 +167,8 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void getAllClients() {
         ResponseEntity<List<Client>> response =
-                clientsApiController.findClients(null, null, null, null, null, true, false, false, false);
+                clientsApiController.findClients(null, null, null, null, null, true, false, false, false, null, null,
+                        null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(11, response.getBody().size());
     }
@@ -176,7 +177,8 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void ownerMemberFlag() {
         ResponseEntity<List<Client>> response =
-                clientsApiController.findClients(null, null, null, null, null, true, false, false, false);
+                clientsApiController.findClients(null, null, null, null, null, true, false, false, false, null, null,
+                        null, null);
         assertEquals(11, response.getBody().size());
         List<Client> owners = response.getBody().stream()
                 .filter(Client::getOwner)
@@ -189,7 +191,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void getAllLocalClients() {
         ResponseEntity<List<Client>> response = clientsApiController.findClients(null, null, null, null, null, true,
-                true, false, false);
+                true, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(7, response.getBody().size());
         Client client = response.getBody().get(0);
@@ -287,7 +289,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     public void forbidden() {
         try {
             ResponseEntity<List<Client>> response = clientsApiController.findClients(null, null, null, null, null, null,
-                    null, false, false);
+                    null, false, false, null, null, null, null);
             fail("should throw AccessDeniedException");
         } catch (AccessDeniedException expected) {
         }
@@ -439,7 +441,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(
                 TestUtils.NAME_FOR + TestUtils.SUBSYSTEM1,
                 TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1, TestUtils.SUBSYSTEM1,
-                false, false, false, false);
+                false, false, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
         List<Client> clients = clientsResponse.getBody();
@@ -456,16 +458,44 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void findAllClients() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(null, null, null, null, null,
-                true, false, false, false);
+                true, false, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(11, clientsResponse.getBody().size());
     }
 
+    @Test
+    @WithMockUser(authorities = "VIEW_CLIENTS")
+    public void findClientsPaged() {
+        List<Client> allClients = clientsApiController.findClients(null, null, null, null, null,
+                true, false, false, false, null, null, null, null).getBody();
+        ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(null, null, null, null, null,
+                true, false, false, false, 2, 3, null, null);
+        assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
+        assertEquals("11", clientsResponse.getHeaders().getFirst(ClientsApiController.TOTAL_COUNT_HEADER));
+        assertEquals(allClients.subList(2, 5), clientsResponse.getBody());
+
+        clientsResponse = clientsApiController.findClients(null, null, null, null, null,
+                true, false, false, false, 10, 3, null, null);
+        assertEquals(1, clientsResponse.getBody().size());
+        assertEquals(allClients.get(10), clientsResponse.getBody().get(0));
+
+        clientsResponse = clientsApiController.findClients(null, null, null, null, null,
+                true, false, false, false, null, 1, "id", true);
+        String lastId = allClients.stream().map(Client::getId).max(String::compareToIgnoreCase).get();
+        assertEquals(lastId, clientsResponse.getBody().get(0).getId());
+    }
+
+    @Test(expected = BadRequestException.class)
+    @WithMockUser(authorities = "VIEW_CLIENTS")
+    public void findClientsWithInvalidLimit() {
+        clientsApiController.findClients(null, null, null, null, null, true, false, false, false, null, 0, null, null);
+    }
+
     @Test
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void findAllClientsByMemberCodeIncludeMembers() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(null, null, null,
-                TestUtils.MEMBER_CODE_M1, null, true, false, false, false);
+                TestUtils.MEMBER_CODE_M1, null, true, false, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(5, clientsResponse.getBody().size());
     }
@@ -475,7 +505,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     public void findAllClientsByMemberClassIncludeMembers() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(null, null,
                 TestUtils.MEMBER_CLASS_PRO,
-                null, null, true, false, false, false);
+                null, null, true, false, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(3, clientsResponse.getBody().size());
     }
@@ -485,12 +515,12 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     public void findAllClientsByNameIncludeMembers() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(
                 TestUtils.NAME_FOR + TestUtils.SUBSYSTEM2,
-                null, null, null, null, false, true, false, false);
+                null, null, null, null, false, true, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
         // not found
         clientsResponse = clientsApiController.findClients("DOES_NOT_EXIST", null, null, null, null, true, false,
-                false, false);
+                false, false, null, null, null, null);
         assertEquals(0, clientsResponse.getBody().size());
     }
 
@@ -500,7 +530,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(
                 TestUtils.NAME_FOR + TestUtils.SUBSYSTEM1,
                 TestUtils.INSTANCE_FI, TestUtils.MEMBER_CLASS_GOV, TestUtils.MEMBER_CODE_M1, TestUtils.SUBSYSTEM1,
-                false, true, false, false);
+                false, true, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
     }
@@ -509,12 +539,12 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = "VIEW_CLIENTS")
     public void findInternalClientsBySubsystemExcludeMembers() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(null, null, null, null,
-                TestUtils.SUBSYSTEM2, false, true, false, false);
+                TestUtils.SUBSYSTEM2, false, true, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
         // not found
         clientsResponse = clientsApiController.findClients(null, null, null, null, TestUtils.SUBSYSTEM3, false, true,
-                false, false);
+                false, false, null, null, null, null);
         assertEquals(0, clientsResponse.getBody().size());
     }
 
@@ -582,7 +612,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = { "VIEW_CLIENTS" })
     public void findAllClientsByPartialNameIncludeMembers() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(TestUtils.SUBSYSTEM3, null,
-                null, null, null, false, false, false, false);
+                null, null, null, false, false, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
     }
@@ -591,7 +621,7 @@ public class ClientsApiControllerIntegrationTest extends AbstractApiControllerTe
     @WithMockUser(authorities = { "VIEW_CLIENTS" })
     public void findAllClientsByPartialSearchTermsIncludeMembers() {
         ResponseEntity<List<Client>> clientsResponse = clientsApiController.findClients(null, "F",
-                "OV", "1", "1", false, true, false, false);
+                "OV", "1", "1", false, true, false, false, null, null, null, null);
         assertEquals(HttpStatus.OK, clientsResponse.getStatusCode());
         assertEquals(1, clientsResponse.getBody().size());
     }
@@ -51,6 +51,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -60,6 +61,9 @@ import java.util.Optional;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -186,6 +190,64 @@ public class GlobalConfCheckerTest extends AbstractFacadeMockingTestContext {
         assertEquals(ClientType.STATUS_REGISTERED, subsystem.getClientStatus());
     }
 
+    @Test
+    public void skipUnchangedGlobalConf() throws Exception {
+        when(globalConfFacade.getConfigurationVersion()).thenReturn("version-1");
+        when(globalConfFacade.isSecurityServerClient(any(), any())).thenReturn(true);
+        ClientType subsystem = clientService.getLocalClient(SUBSYSTEM);
+
+        globalConfChecker.updateServerConf();
+        verify(globalConfFacade, times(1)).reload();
+        verify(signerProxyFacade, times(1)).getTokens();
+        assertEquals(ClientType.STATUS_REGISTERED, subsystem.getClientStatus());
+
+        // Global conf version has not changed => globalconf is neither reloaded nor asked again,
+        // auth certs are still checked
+        when(globalConfFacade.isSecurityServerClient(SUBSYSTEM, SS_ID)).thenReturn(false);
+        globalConfChecker.updateServerConf();
+        verify(globalConfFacade, times(1)).reload();
+        verify(signerProxyFacade, times(2)).getTokens();
+        assertEquals(ClientType.STATUS_REGISTERED, subsystem.getClientStatus());
+
+        // Client status changed locally => only that client is reconciled
+        subsystem.setClientStatus(ClientType.STATUS_REGINPROG);
+        globalConfChecker.updateServerConf();
+        verify(globalConfFacade, times(1)).reload();
+        assertEquals(ClientType.STATUS_REGISTERED, subsystem.getClientStatus());
+
+        // New global conf version => registrations are read again
+        when(globalConfFacade.getConfigurationVersion()).thenReturn("version-2");
+        globalConfChecker.updateServerConf();
+        verify(globalConfFacade, times(2)).reload();
+        verify(signerProxyFacade, times(4)).getTokens();
+        assertEquals(ClientType.STATUS_GLOBALERR, subsystem.getClientStatus());
+    }
+
+    @Test
+    public void reconcileAuthCertChangedInSigner() throws Exception {
+        when(globalConfFacade.getConfigurationVersion()).thenReturn("version-1");
+        when(globalConfFacade.isSecurityServerClient(any(), any())).thenReturn(true);
+        when(globalConfFacade.getServerId(any())).thenReturn(SS_ID);
+
+        globalConfChecker.updateServerConf();
+        verify(signerProxyFacade, never()).setCertStatus(any(), any());
+
+        // Auth cert is imported again through signer-console, global conf has not changed
+        when(signerProxyFacade.getTokens()).thenReturn(Collections.singletonList(
+                new TokenTestUtils.TokenInfoBuilder()
+                        .key(new TokenTestUtils.KeyInfoBuilder()
+                                .id(KEY_AUTH_ID)
+                                .keyUsageInfo(KeyUsageInfo.AUTHENTICATION)
+                                .cert(new CertificateTestUtils.CertificateInfoBuilder()
+                                        .id(CERT_AUTH_HASH)
+                                        .certificateStatus(CertificateInfo.STATUS_SAVED)
+                                        .build())
+                                .build())
+                        .build()));
+        globalConfChecker.updateServerConf();
+        verify(signerProxyFacade).setCertStatus(CERT_AUTH_HASH, CertificateInfo.STATUS_REGISTERED);
+    }
+
     @Test
     public void registerMemberAndChangeSecurityServerOwner() throws Exception {
         assertEquals(OWNER_MEMBER.toString(), serverConfService.getSecurityServerOwnerId().toString());
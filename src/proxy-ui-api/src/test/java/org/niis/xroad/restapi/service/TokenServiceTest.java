@@ -26,7 +26,11 @@
 package org.niis.xroad.restapi.service;
 
 import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.conf.serverconf.model.ClientType;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
 import ee.ria.xroad.signer.protocol.dto.KeyInfo;
+import ee.ria.xroad.signer.protocol.dto.KeyUsageInfo;
 import ee.ria.xroad.signer.protocol.dto.TokenInfo;
 
 import lombok.extern.slf4j.Slf4j;
@@ -34,15 +38,28 @@ import org.junit.Before;
 import org.junit.Test;
 import org.niis.xroad.restapi.config.audit.AuditDataHelper;
 import org.niis.xroad.restapi.dto.TokenInitStatusInfo;
+import org.niis.xroad.restapi.util.CertificateTestUtils;
 import org.niis.xroad.restapi.util.TokenTestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.niis.xroad.restapi.service.PossibleActionsRuleEngine.SOFTWARE_TOKEN_ID;
 import static org.niis.xroad.restapi.service.TokenService.CKR_PIN_INCORRECT_MESSAGE;
 import static org.niis.xroad.restapi.service.TokenService.LOGIN_FAILED_FAULT_CODE;
 import static org.niis.xroad.restapi.service.TokenService.PIN_INCORRECT_FAULT_CODE;
@@ -223,6 +240,67 @@ public class TokenServiceTest extends AbstractServiceTestContext {
         assertEquals(TokenInitStatusInfo.UNKNOWN, tokenStatus);
     }
 
+    @Test
+    public void getAllTokensReadsTokensOncePerRequest() throws Exception {
+        TokenInfo softwareToken = new TokenTestUtils.TokenInfoBuilder().id(SOFTWARE_TOKEN_ID).build();
+        when(signerProxyFacade.getTokens()).thenReturn(Collections.singletonList(softwareToken));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            tokenService.getAllTokens();
+            assertTrue(tokenService.isSoftwareTokenInitialized());
+            assertEquals(softwareToken, tokenService.getTokenSnapshot().getToken(SOFTWARE_TOKEN_ID));
+            verify(signerProxyFacade, times(1)).getTokens();
+
+            // tokens are read again after the request, and outside requests
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            tokenService.getAllTokens();
+            RequestContextHolder.resetRequestAttributes();
+            tokenService.getAllTokens();
+            tokenService.getAllTokens();
+            verify(signerProxyFacade, times(4)).getTokens();
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void getTokenAndCertificatesFromRequestSnapshot() throws Exception {
+        ClientId memberId = ClientId.create("FI", "GOV", "M1");
+        CertificateInfo signCert = new CertificateTestUtils.CertificateInfoBuilder().id("sign-cert")
+                .clientId(memberId).build();
+        CertificateInfo authCert = new CertificateTestUtils.CertificateInfoBuilder().id("auth-cert")
+                .clientId(memberId).build();
+        CertificateInfo otherCert = new CertificateTestUtils.CertificateInfoBuilder().id("other-cert")
+                .clientId(ClientId.create("FI", "GOV", "M2")).build();
+        KeyInfo signKey = new TokenTestUtils.KeyInfoBuilder().id("sign-key").keyUsageInfo(KeyUsageInfo.SIGNING)
+                .cert(signCert).cert(otherCert).build();
+        KeyInfo authKey = new TokenTestUtils.KeyInfoBuilder().id("auth-key")
+                .keyUsageInfo(KeyUsageInfo.AUTHENTICATION).cert(authCert).build();
+        TokenInfo token = new TokenTestUtils.TokenInfoBuilder().id("snapshot-token").key(signKey).key(authKey)
+                .build();
+        when(signerProxyFacade.getTokens()).thenReturn(Collections.singletonList(token));
+        ClientType client = new ClientType();
+        client.setIdentifier(ClientId.create("FI", "GOV", "M1", "SS1"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            tokenService.getAllTokens();
+            assertEquals(token, tokenService.getToken("snapshot-token"));
+            assertEquals(token, tokenService.getTokenForKeyId("auth-key"));
+            assertEquals(Collections.singletonList(signCert), tokenService.getSignCertificates(client));
+            assertEquals(new HashSet<>(Arrays.asList(signCert, authCert)),
+                    new HashSet<>(tokenService.getAllCertificates(client)));
+            assertEquals(Collections.singletonList(authCert), tokenService.getTokenSnapshot().getAuthCertificates());
+            verify(signerProxyFacade, times(1)).getTokens();
+            verify(signerProxyFacade, never()).getToken(any());
+            verify(signerProxyFacade, never()).getTokenForKeyId(any());
+
+            // tokens which are not in the snapshot are still looked up from signer
+            assertEquals(GOOD_TOKEN_NAME, tokenService.getToken(GOOD_TOKEN_ID).getFriendlyName());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
     private void mockServices(PossibleActionsRuleEngine possibleActionsRuleEngineParam) {
         // override instead of mocking for better performance
         tokenService = new TokenService(signerProxyFacade, possibleActionsRuleEngineParam, auditDataHelper);
@@ -45,6 +45,7 @@ import ee.ria.xroad.common.util.StartStop;
 import ee.ria.xroad.common.util.healthcheck.HealthCheckPort;
 import ee.ria.xroad.proxy.addon.AddOn;
 import ee.ria.xroad.proxy.clientproxy.ClientProxy;
+import ee.ria.xroad.proxy.conf.KeyConfChangeListener;
 import ee.ria.xroad.proxy.messagelog.MessageLog;
 import ee.ria.xroad.proxy.opmonitoring.OpMonitoring;
 import ee.ria.xroad.proxy.serverproxy.ServerProxy;
@@ -183,6 +184,7 @@ public final class ProxyMain {
 
         MonitorAgent.init(actorSystem);
         SignerClient.init(actorSystem);
+        KeyConfChangeListener.init(actorSystem);
         BatchSigner.init(actorSystem);
         MessageLog.init(actorSystem, jobManager);
         OpMonitoring.init(actorSystem);
@@ -31,23 +31,48 @@ import ee.ria.xroad.common.util.SystemMetrics;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Manages the incoming connections and prevents system resource exhaustion.
+ *
+ * Every known partner has its own lock-free connection queue. Partners with
+ * waiting connections are served in round-robin order, so that a partner
+ * opening lots of connections cannot starve the others. Accepting a
+ * connection does not take a lock or look at global configuration; the
+ * known partners and the resource usage are refreshed periodically by
+ * {@link #syncDatabase()} and {@link #sampleResources()}.
  */
 @Slf4j
 class AntiDosConnectionManager<T extends SocketChannelWrapper> {
 
     // Tiny wrapper class for active connections of a partner
     private class HostData {
-        final Deque<T> connections = new LinkedBlockingDeque<>();
+        final Deque<T> connections = new ConcurrentLinkedDeque<>();
+
+        // true while the partner is in the active partners queue
+        final AtomicBoolean active = new AtomicBoolean();
+    }
+
+    // Snapshot of the resource usage
+    private static final class ResourceSample {
+        final long freeFileDescriptorCount;
+        final double cpuLoad;
+        final double heapUsage;
+
+        ResourceSample(long freeFileDescriptorCount, double cpuLoad, double heapUsage) {
+            this.freeFileDescriptorCount = freeFileDescriptorCount;
+            this.cpuLoad = cpuLoad;
+            this.heapUsage = heapUsage;
+        }
     }
 
     // The IP used for unknown members
@@ -56,8 +81,8 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
     // Holds the configuration
     protected final AntiDosConfiguration configuration;
 
-    // IP to HostData mapping
-    protected Map<String, HostData> database = new HashMap<>();
+    // IP to HostData mapping, replaced as a whole when the known partners change
+    protected volatile Map<String, HostData> database;
 
     // Buffer of partners with waiting connections
     protected LinkedBlockingQueue<HostData> activePartners =
@@ -67,6 +92,9 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
     // Used to determine if should sync the database when conf changed.
     private Set<String> previousKnownOrganizations = new HashSet<>();
 
+    // Latest resource usage, null until the first sample is taken
+    private volatile ResourceSample resources;
+
     AntiDosConnectionManager(AntiDosConfiguration configuration) {
         if (configuration == null) {
             throw new IllegalArgumentException("configuration cannot be null");
@@ -74,7 +102,7 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
 
         this.configuration = configuration;
         this.previousKnownOrganizations.add(UNKNOWN_ORG_IP);
-        this.database.put(UNKNOWN_ORG_IP, new HostData());
+        this.database = Collections.singletonMap(UNKNOWN_ORG_IP, new HostData());
     }
 
     void init() throws Exception {
@@ -87,7 +115,7 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
      * we have at least one free file handle.
      */
     boolean canAccept() {
-        long freeFileHandles = getFreeFileDescriptorCount();
+        long freeFileHandles = getResources().freeFileDescriptorCount;
         log.trace("canAccept({})", freeFileHandles);
         return freeFileHandles > 0;
     }
@@ -95,10 +123,7 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
     /**
      * Adds the connection into the partner's connection queue.
      */
-    synchronized void accept(T connection) {
-        // We need to synchronize the database with the existing members.
-        syncDatabase();
-
+    void accept(T connection) {
         // Find the host data for the incoming connection and register
         // the new connection to this host data
         HostData currentPartner = getHostData(connection.getHostAddress());
@@ -106,9 +131,7 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
 
         // If the host data is not for an active partner,
         // add it to the connection buffer as the newest partner.
-        if (!activePartners.contains(currentPartner)) {
-            activePartners.add(currentPartner);
-        }
+        activate(currentPartner);
     }
 
     /**
@@ -138,14 +161,22 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
 
         // Take the oldest connection.
         T sock = oldestPartner.connections.pollLast();
-        if (sock == null) {
-            return null;
-        }
 
         // If there are more connections left for this partner, add the partner
-        // back to the buffer as the first partner.
+        // back to the buffer as the newest partner. Otherwise the partner
+        // becomes inactive, unless a connection was added meanwhile.
         if (!oldestPartner.connections.isEmpty()) {
             activePartners.add(oldestPartner);
+        } else {
+            oldestPartner.active.set(false);
+
+            if (!oldestPartner.connections.isEmpty()) {
+                activate(oldestPartner);
+            }
+        }
+
+        if (sock == null) {
+            return null;
         }
 
         // Processing a connection consumes file handles and other resources
@@ -163,30 +194,19 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
         return null;
     }
 
-    protected long getFreeFileDescriptorCount() {
-        return SystemMetrics.getFreeFileDescriptorCount();
-    }
-
-    protected double getCpuLoad() {
-        try {
-            return SystemMetrics.getStats().getSystemCpuLoad();
-        } catch (InternalError err) {
-            log.error("Error getting cpu load", err);
-
-            return -1;
-        }
-    }
-
-    protected double getHeapUsage() {
-        return SystemMetrics.getHeapUsage();
-    }
-
-    private HostData getHostData(String ip) {
-        return database.containsKey(ip)
-                ? database.get(ip) : database.get(UNKNOWN_ORG_IP);
+    /**
+     * Takes a new sample of the resource usage. Called periodically, so that
+     * the resources are not queried for each connection.
+     */
+    void sampleResources() {
+        resources = new ResourceSample(getFreeFileDescriptorCount(), getCpuLoad(), getHeapUsage());
     }
 
-    private void syncDatabase() {
+    /**
+     * Synchronizes the partner database with the members' addresses in
+     * global configuration. Existing connection queues are retained.
+     */
+    void syncDatabase() {
         Set<String> knownAddresses = getAllAddresses();
 
         if (previousKnownOrganizations.equals(knownAddresses)) {
@@ -194,17 +214,18 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
             return;
         }
 
+        Map<String, HostData> currentDatabase = database;
         Map<String, HostData> newDatabase = new HashMap<>();
 
         // Retain existing members connections
-        database.keySet().stream()
+        currentDatabase.keySet().stream()
                 .filter(knownAddresses::contains)
                 .forEach(existingAddress -> newDatabase.put(
-                        existingAddress, database.get(existingAddress)));
+                        existingAddress, currentDatabase.get(existingAddress)));
 
         // Add new members
         knownAddresses.stream()
-                .filter(knownAddress -> !database.containsKey(knownAddress))
+                .filter(knownAddress -> !currentDatabase.containsKey(knownAddress))
                 .forEach(knownAddress ->
                         registerHostData(newDatabase, knownAddress));
 
@@ -212,30 +233,70 @@ class AntiDosConnectionManager<T extends SocketChannelWrapper> {
         database = newDatabase;
     }
 
+    protected long getFreeFileDescriptorCount() {
+        return SystemMetrics.getFreeFileDescriptorCount();
+    }
+
+    protected double getCpuLoad() {
+        try {
+            return SystemMetrics.getStats().getSystemCpuLoad();
+        } catch (InternalError err) {
+            log.error("Error getting cpu load", err);
+
+            return -1;
+        }
+    }
+
+    protected double getHeapUsage() {
+        return SystemMetrics.getHeapUsage();
+    }
+
+    private void activate(HostData partner) {
+        if (partner.active.compareAndSet(false, true)) {
+            activePartners.add(partner);
+        }
+    }
+
+    private HostData getHostData(String ip) {
+        Map<String, HostData> currentDatabase = database;
+        HostData hostData = currentDatabase.get(ip);
+
+        return hostData != null ? hostData : currentDatabase.get(UNKNOWN_ORG_IP);
+    }
+
     private void registerHostData(
             Map<String, HostData> newDatabase, String knownAddress) {
         log.trace("Registering HostData for " + knownAddress);
         newDatabase.put(knownAddress, new HostData());
     }
 
+    private ResourceSample getResources() {
+        ResourceSample current = resources;
+
+        if (current == null) {
+            sampleResources();
+            current = resources;
+        }
+
+        return current;
+    }
+
     private boolean hasSufficientResources() {
-        long freeFileDescriptorCount = getFreeFileDescriptorCount();
+        ResourceSample current = getResources();
         int minFreeFileHandles = configuration.getMinFreeFileHandles();
-        double cpuLoad = getCpuLoad();
         double maxCpuLoad = configuration.getMaxCpuLoad();
-        double heapUsage = getHeapUsage();
         double maxHeapUsage = configuration.getMaxHeapUsage();
 
         log.trace("Resource usage when considering connection:\n"
                 + "freeFileDescriptorCount: {} ( >= {})\n"
                 + "cpuLoad: {} ( < {})\n"
                 + "heapUsage: {} ( < {})",
-                new Object[] {freeFileDescriptorCount, minFreeFileHandles,
-                    cpuLoad, maxCpuLoad, heapUsage, maxHeapUsage});
+                new Object[] {current.freeFileDescriptorCount, minFreeFileHandles,
+                    current.cpuLoad, maxCpuLoad, current.heapUsage, maxHeapUsage});
 
-        return freeFileDescriptorCount >= minFreeFileHandles
-                && cpuLoad < maxCpuLoad
-                && heapUsage < maxHeapUsage;
+        return current.freeFileDescriptorCount >= minFreeFileHandles
+                && current.cpuLoad < maxCpuLoad
+                && current.heapUsage < maxHeapUsage;
     }
 
     private static Set<String> getAllAddresses() {
@@ -40,6 +40,7 @@ import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class implements a connector that prevents DoS attacks.
@@ -54,10 +55,17 @@ import java.util.concurrent.Semaphore;
  * making lots of connections only gets a small amount of connections
  * "approved", and is a trade-off since non-attackers connections might
  * also get closed.
+ *
+ * Resource usage and the known partners are refreshed on a fixed cadence
+ * instead of for every connection.
  */
 @Slf4j
 public class AntiDosConnector extends ServerConnector {
 
+    private static final long RESOURCE_SAMPLE_INTERVAL_MS = 100;
+
+    private static final long PARTNER_SYNC_INTERVAL_MS = 5000;
+
     private final AntiDosConfiguration configuration = new AntiDosConfiguration();
 
     private final Semaphore semaphore = new Semaphore(configuration.getMaxParallelConnections());
@@ -98,10 +106,30 @@ public class AntiDosConnector extends ServerConnector {
         super.doStart();
 
         manager.init();
+        manager.sampleResources();
+
+        schedulePeriodically(manager::sampleResources, RESOURCE_SAMPLE_INTERVAL_MS);
+        schedulePeriodically(manager::syncDatabase, PARTNER_SYNC_INTERVAL_MS);
 
         getExecutor().execute(new QueueManager());
     }
 
+    private void schedulePeriodically(Runnable task, long intervalMs) {
+        getScheduler().schedule(() -> {
+            if (!isRunning()) {
+                return;
+            }
+
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Error in periodic AntiDos task", e);
+            } finally {
+                schedulePeriodically(task, intervalMs);
+            }
+        }, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public void accept(int acceptorID) throws IOException {
         if (manager.canAccept()) {
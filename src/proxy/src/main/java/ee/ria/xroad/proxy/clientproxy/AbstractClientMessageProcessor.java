@@ -40,6 +40,7 @@ import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.util.HttpSender;
 import ee.ria.xroad.proxy.ProxyMain;
 import ee.ria.xroad.proxy.util.MessageProcessorBase;
+import ee.ria.xroad.proxy.util.StageTimer;
 
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
@@ -121,6 +122,7 @@ abstract class AbstractClientMessageProcessor extends MessageProcessorBase {
         updateOpMonitoringServiceSecurityServerAddress(addresses, httpSender);
 
         httpSender.setAttribute(ID_TARGETS, addresses);
+        httpSender.setAttribute(StageTimer.class.getName(), stageTimer);
 
         if (SystemProperties.isEnableClientProxyPooledConnectionReuse()) {
             // set the servers with this subsystem as the user token, this will pool the connections per groups of
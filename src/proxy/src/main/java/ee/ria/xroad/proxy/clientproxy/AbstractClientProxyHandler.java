@@ -36,6 +36,8 @@ import ee.ria.xroad.common.util.HandlerBase;
 import ee.ria.xroad.common.util.PerformanceLogger;
 import ee.ria.xroad.proxy.opmonitoring.OpMonitoring;
 import ee.ria.xroad.proxy.util.MessageProcessorBase;
+import ee.ria.xroad.proxy.util.ProxyMetrics;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -143,7 +145,11 @@ abstract class AbstractClientProxyHandler extends HandlerBase {
                 if (storeOpMonitoringData) {
                     updateOpMonitoringResponseOutTs(opMonitoringData);
 
-                    OpMonitoring.store(opMonitoringData);
+                    storeOpMonitoringData(processor, opMonitoringData);
+                }
+
+                if (processor != null) {
+                    ProxyMetrics.record(ProxyMetrics.CLIENT_PROXY, processor);
                 }
 
                 logPerformanceEnd(start);
@@ -151,6 +157,16 @@ abstract class AbstractClientProxyHandler extends HandlerBase {
         }
     }
 
+    private static void storeOpMonitoringData(MessageProcessorBase processor, OpMonitoringData opMonitoringData) {
+        long start = System.nanoTime();
+
+        OpMonitoring.store(opMonitoringData);
+
+        if (processor != null) {
+            processor.getStageTimer().stop(Stage.OPMONITORING, start);
+        }
+    }
+
     private static void success(MessageProcessorBase processor, long start, OpMonitoringData opMonitoringData) {
         final boolean success = processor.verifyMessageExchangeSucceeded();
         final MessageInfo messageInfo = processor.createRequestMessageInfo();
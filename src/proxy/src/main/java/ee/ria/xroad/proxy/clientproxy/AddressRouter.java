@@ -0,0 +1,196 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.clientproxy;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a health score for every provider address the client proxy connects to and decides whether
+ * a connection can go straight to the best address or whether the addresses need to be raced.
+ *
+ * The score of an address consists of exponentially weighted moving averages of the TCP connect time and
+ * the TLS handshake time plus a penalty for recent failures. The failure count decays over time, so an
+ * address that has recovered will eventually be considered again.
+ *
+ * An address is routed to directly only when all candidate addresses have a fresh score and the best one
+ * is clearly better than the runner-up. Otherwise the caller should race the addresses, which in turn
+ * refreshes the scores.
+ */
+final class AddressRouter {
+
+    /** Weight of a new sample in the moving averages */
+    static final double SAMPLE_WEIGHT = 0.3;
+
+    /** Time after which a failure counts only half */
+    static final long FAILURE_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /** Score penalty of one (undecayed) failure, in milliseconds */
+    static final double FAILURE_PENALTY_MILLIS = 5000;
+
+    /** Scores closer than this (in milliseconds) are considered equal */
+    static final double MIN_SCORE_GAP_MILLIS = 2;
+
+    /** Scores closer than this fraction of the best score are considered equal */
+    static final double RELATIVE_SCORE_GAP = 0.25;
+
+    private final Cache<URI, AddressScore> scores;
+    private final Ticker ticker;
+    private final long staleAfterNanos;
+
+    /**
+     * @param staleAfterSeconds how long a score is considered fresh, non-positive value disables routing
+     * @param maximumSize maximum number of addresses to keep scores for
+     * @param ticker time source
+     */
+    AddressRouter(long staleAfterSeconds, long maximumSize, Ticker ticker) {
+        this.ticker = ticker;
+        this.staleAfterNanos = TimeUnit.SECONDS.toNanos(Math.max(0, staleAfterSeconds));
+        this.scores = CacheBuilder.newBuilder()
+                .expireAfterAccess(Math.max(1, staleAfterNanos), TimeUnit.NANOSECONDS)
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Selects the address to connect to directly.
+     * @param candidates provider addresses
+     * @return the best scored address or null if the addresses should be raced
+     */
+    URI route(URI[] candidates) {
+        if (candidates.length < 2 || staleAfterNanos == 0) {
+            return null;
+        }
+
+        final long now = ticker.read();
+        URI best = null;
+        double bestScore = Double.MAX_VALUE;
+        double runnerUpScore = Double.MAX_VALUE;
+
+        for (URI candidate : candidates) {
+            final AddressScore score = scores.getIfPresent(candidate);
+            if (score == null) {
+                return null;
+            }
+            final double value = score.value(now, staleAfterNanos);
+            if (Double.isNaN(value)) {
+                return null;
+            }
+            if (value < bestScore) {
+                runnerUpScore = bestScore;
+                bestScore = value;
+                best = candidate;
+            } else if (value < runnerUpScore) {
+                runnerUpScore = value;
+            }
+        }
+
+        if (bestScore >= FAILURE_PENALTY_MILLIS) {
+            // every address has failed recently, find out which ones are back
+            return null;
+        }
+        if (runnerUpScore - bestScore < Math.max(MIN_SCORE_GAP_MILLIS, bestScore * RELATIVE_SCORE_GAP)) {
+            return null;
+        }
+        return best;
+    }
+
+    void recordConnect(URI address, long nanos) {
+        score(address).recordConnect(ticker.read(), nanos);
+    }
+
+    void recordHandshake(URI address, long nanos) {
+        score(address).recordHandshake(ticker.read(), nanos);
+    }
+
+    void recordFailure(URI address) {
+        score(address).recordFailure(ticker.read());
+    }
+
+    private AddressScore score(URI address) {
+        return scores.asMap().computeIfAbsent(address, a -> new AddressScore());
+    }
+
+    private static final class AddressScore {
+        private double connectMillis = Double.NaN;
+        private double handshakeMillis = Double.NaN;
+        private double failures;
+        private long failuresUpdated;
+        private long updated;
+
+        synchronized void recordConnect(long now, long nanos) {
+            connectMillis = average(connectMillis, toMillis(nanos));
+            updated = now;
+        }
+
+        synchronized void recordHandshake(long now, long nanos) {
+            handshakeMillis = average(handshakeMillis, toMillis(nanos));
+            updated = now;
+        }
+
+        synchronized void recordFailure(long now) {
+            failures = decayedFailures(now) + 1;
+            failuresUpdated = now;
+            updated = now;
+        }
+
+        /**
+         * @return the score in milliseconds (lower is better) or NaN if the score is stale
+         */
+        synchronized double value(long now, long staleAfterNanos) {
+            if (now - updated > staleAfterNanos) {
+                return Double.NaN;
+            }
+            double latency = 0;
+            if (!Double.isNaN(connectMillis)) {
+                // addresses that only took part in races have no handshake samples, assume that the
+                // handshake takes about as long as connecting does
+                latency = connectMillis + (Double.isNaN(handshakeMillis) ? connectMillis : handshakeMillis);
+            }
+            return latency + decayedFailures(now) * FAILURE_PENALTY_MILLIS;
+        }
+
+        private double decayedFailures(long now) {
+            if (failures == 0) {
+                return 0;
+            }
+            return failures * Math.pow(0.5, (double)(now - failuresUpdated) / FAILURE_HALF_LIFE_NANOS);
+        }
+
+        private static double average(double current, double sample) {
+            return Double.isNaN(current) ? sample : current + SAMPLE_WEIGHT * (sample - current);
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -47,10 +47,12 @@ import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.util.HttpSender;
 import ee.ria.xroad.common.util.MimeUtils;
 import ee.ria.xroad.proxy.conf.KeyConf;
+import ee.ria.xroad.proxy.conf.SigningCtx;
 import ee.ria.xroad.proxy.messagelog.MessageLog;
 import ee.ria.xroad.proxy.protocol.ProxyMessage;
 import ee.ria.xroad.proxy.protocol.ProxyMessageDecoder;
 import ee.ria.xroad.proxy.protocol.ProxyMessageEncoder;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -139,6 +141,9 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
     /** Holds the response from server proxy. */
     private ProxyMessage response;
 
+    /** Start of parsing the request, only accessed by the request handler thread. */
+    private long requestParseStart;
+
     private static final ExecutorService SOAP_HANDLER_EXECUTOR =
             createSoapHandlerExecutor();
 
@@ -182,6 +187,8 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
             // Check that incoming identifiers do not contain illegal characters
             checkRequestIdentifiers();
 
+            long serverConfStart = stageTimer.start();
+
             // Verify that the client is registered.
             ClientId client = requestSoap.getClient();
             verifyClientStatus(client);
@@ -189,6 +196,8 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
             // Check client authentication mode.
             verifyClientAuthentication(client);
 
+            stageTimer.stop(Stage.SERVERCONF, serverConfStart);
+
             processRequest();
 
             if (response != null) {
@@ -260,6 +269,8 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
             // Add unique id to distinguish request/response pairs
             httpSender.addHeader(HEADER_REQUEST_ID, xRequestId);
 
+            long remoteStart = stageTimer.start();
+
             try {
                 opMonitoringData.setRequestOutTs(getEpochMillisecond());
                 httpSender.doPost(getServiceAddress(addresses), reqIns, CHUNKED_LENGTH, outputContentType);
@@ -270,6 +281,8 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
 
                 // Rethrow
                 throw e;
+            } finally {
+                stageTimer.stop(Stage.REMOTE, remoteStart);
             }
         } finally {
             if (reqIns != null) {
@@ -285,10 +298,13 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
 
         ProxyMessageDecoder decoder = new ProxyMessageDecoder(response, httpSender.getResponseContentType(),
                 getHashAlgoId(httpSender));
+        long parseStart = stageTimer.start();
         try {
             decoder.parse(httpSender.getResponseContent());
         } catch (CodedException ex) {
             throw ex.withPrefix(X_SERVICE_FAILED_X);
+        } finally {
+            stageTimer.stop(Stage.PARSE, parseStart);
         }
 
         updateOpMonitoringDataByResponse(decoder);
@@ -296,7 +312,9 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
         // Ensure we have the required parts.
         checkResponse();
 
+        long verifyStart = stageTimer.start();
         decoder.verify(requestServiceId.getClientId(), response.getSignature());
+        stageTimer.stop(Stage.VERIFY, verifyStart);
     }
 
     private void updateOpMonitoringDataByResponse(ProxyMessageDecoder decoder) {
@@ -369,7 +387,9 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
     private void logResponseMessage() throws Exception {
         log.trace("logResponseMessage()");
 
+        long start = stageTimer.start();
         MessageLog.log(response.getSoap(), response.getSignature(), true, xRequestId);
+        stageTimer.stop(Stage.MESSAGELOG, start);
     }
 
     private void sendResponse() throws Exception {
@@ -456,6 +476,7 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
                     handler, new RequestSoapParserImpl());
             try {
                 originalSoapAction = validateSoapActionHeader(servletRequest.getHeader("SOAPAction"));
+                requestParseStart = stageTimer.start();
                 soapMessageDecoder.parse(servletRequest.getInputStream());
             } catch (Exception ex) {
                 throw new ClientException(translateException(ex));
@@ -477,6 +498,9 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
                 log.trace("soap({})", message.getXml());
             }
 
+            // The rest of the request is streamed to the server proxy, so only the SOAP part counts as parsing.
+            stageTimer.stop(Stage.PARSE, requestParseStart);
+
             requestSoap = (SoapMessageImpl) message;
             requestServiceId = requestSoap.getService();
 
@@ -525,7 +549,14 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
             updateOpMonitoringData();
 
             try {
-                request.sign(KeyConf.getSigningCtx(requestSoap.getClient()));
+                long start = stageTimer.start();
+                SigningCtx signingCtx = KeyConf.getSigningCtx(requestSoap.getClient());
+                stageTimer.stop(Stage.SIGNING_CONTEXT, start);
+
+                start = stageTimer.start();
+                request.sign(signingCtx);
+                stageTimer.stop(Stage.SIGN, start);
+
                 logRequestMessage();
                 request.writeSignature();
             } catch (Exception ex) {
@@ -544,7 +575,9 @@ class ClientMessageProcessor extends AbstractClientMessageProcessor {
         private void logRequestMessage() throws Exception {
             log.trace("logRequestMessage()");
 
+            long start = stageTimer.start();
             MessageLog.log(requestSoap, request.getSignature(), true, xRequestId);
+            stageTimer.stop(Stage.MESSAGELOG, start);
         }
 
         @Override
@@ -36,15 +36,18 @@ import ee.ria.xroad.common.message.RestResponse;
 import ee.ria.xroad.common.monitoring.MessageInfo;
 import ee.ria.xroad.common.monitoring.MonitorAgent;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+import ee.ria.xroad.common.util.CacheInputStream;
 import ee.ria.xroad.common.util.CachingStream;
 import ee.ria.xroad.common.util.CryptoUtils;
 import ee.ria.xroad.common.util.HttpSender;
 import ee.ria.xroad.common.util.MimeUtils;
 import ee.ria.xroad.proxy.conf.KeyConf;
+import ee.ria.xroad.proxy.conf.SigningCtx;
 import ee.ria.xroad.proxy.messagelog.MessageLog;
 import ee.ria.xroad.proxy.protocol.ProxyMessage;
 import ee.ria.xroad.proxy.protocol.ProxyMessageDecoder;
 import ee.ria.xroad.proxy.protocol.ProxyMessageEncoder;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
@@ -112,6 +115,7 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
         updateOpMonitoringClientSecurityServerAddress();
 
         try {
+            long parseStart = stageTimer.start();
             restRequest = new RestRequest(
                     servletRequest.getMethod(),
                     servletRequest.getRequestURI(),
@@ -119,6 +123,7 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
                     headers(servletRequest),
                     xRequestId
             );
+            stageTimer.stop(Stage.PARSE, parseStart);
 
             // Check that incoming identifiers do not contain illegal characters
             checkRequestIdentifiers();
@@ -126,8 +131,10 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
             senderId = restRequest.getClientId();
             requestServiceId = restRequest.getServiceId();
 
+            long serverConfStart = stageTimer.start();
             verifyClientStatus(senderId);
             verifyClientAuthentication(senderId);
+            stageTimer.stop(Stage.SERVERCONF, serverConfStart);
 
             processRequest();
             if (response != null) {
@@ -187,6 +194,7 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
         // Add unique id to distinguish request/response pairs
         httpSender.addHeader(HEADER_REQUEST_ID, xRequestId);
 
+        long remoteStart = stageTimer.start();
         try {
             final String contentType = MimeUtils.mpMixedContentType("xtop" + RandomStringUtils.randomAlphabetic(30));
             opMonitoringData.setRequestOutTs(getEpochMillisecond());
@@ -195,6 +203,8 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
         } catch (Exception e) {
             MonitorAgent.serverProxyFailed(createRequestMessageInfo());
             throw e;
+        } finally {
+            stageTimer.stop(Stage.REMOTE, remoteStart);
         }
     }
 
@@ -202,16 +212,21 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
         response = new ProxyMessage(httpSender.getResponseHeaders().get(HEADER_ORIGINAL_CONTENT_TYPE));
         ProxyMessageDecoder decoder = new ProxyMessageDecoder(response, httpSender.getResponseContentType(),
                 getHashAlgoId(httpSender));
+        long parseStart = stageTimer.start();
         try {
             decoder.parse(httpSender.getResponseContent());
         } catch (CodedException ex) {
             throw ex.withPrefix(X_SERVICE_FAILED_X);
+        } finally {
+            stageTimer.stop(Stage.PARSE, parseStart);
         }
         updateOpMonitoringDataByResponse(decoder);
         // Ensure we have the required parts.
         checkResponse();
         opMonitoringData.setRestResponseStatusCode(response.getRestResponse().getResponseCode());
+        long verifyStart = stageTimer.start();
         decoder.verify(requestServiceId.getClientId(), response.getSignature());
+        stageTimer.stop(Stage.VERIFY, verifyStart);
     }
 
     @Override
@@ -267,10 +282,12 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
     }
 
     private void logResponseMessage() {
+        long start = stageTimer.start();
         MessageLog.log(restRequest,
                 response.getRestResponse(),
                 response.getSignature(),
                 response.getRestBody(), true, xRequestId);
+        stageTimer.stop(Stage.MESSAGELOG, start);
     }
 
     private void sendResponse() throws Exception {
@@ -350,15 +367,14 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
                         try (TeeInputStream tee = new TeeInputStream(in, cache)) {
                             cache.write(buf, 0, count);
                             enc.restBody(buf, count, tee);
-                            enc.sign(KeyConf.getSigningCtx(senderId));
-                            MessageLog.log(restRequest, enc.getSignature(), cache.getCachedContents(), true,
-                                    xRequestId);
+                            sign(enc);
+                            logRequestMessage(enc, cache.getCachedContents());
                         } finally {
                             cache.consume();
                         }
                     } else {
-                        enc.sign(KeyConf.getSigningCtx(senderId));
-                        MessageLog.log(restRequest, enc.getSignature(), null, true, xRequestId);
+                        sign(enc);
+                        logRequestMessage(enc, null);
                     }
                 }
 
@@ -375,6 +391,23 @@ class ClientRestMessageProcessor extends AbstractClientMessageProcessor {
             }
         }
 
+        // The entity is written while the request is being sent, so these stages are excluded from the remote stage
+        private void sign(ProxyMessageEncoder enc) throws Exception {
+            long start = stageTimer.start();
+            SigningCtx signingCtx = KeyConf.getSigningCtx(senderId);
+            stageTimer.stopWithin(Stage.REMOTE, Stage.SIGNING_CONTEXT, start);
+
+            start = stageTimer.start();
+            enc.sign(signingCtx);
+            stageTimer.stopWithin(Stage.REMOTE, Stage.SIGN, start);
+        }
+
+        private void logRequestMessage(ProxyMessageEncoder enc, CacheInputStream body) {
+            long start = stageTimer.start();
+            MessageLog.log(restRequest, enc.getSignature(), body, true, xRequestId);
+            stageTimer.stopWithin(Stage.REMOTE, Stage.MESSAGELOG, start);
+        }
+
         @Override
         public boolean isStreaming() {
             return true;
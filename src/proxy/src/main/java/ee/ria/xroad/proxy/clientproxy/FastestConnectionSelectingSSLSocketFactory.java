@@ -30,9 +30,10 @@ import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
 import ee.ria.xroad.common.util.CryptoUtils;
 import ee.ria.xroad.proxy.clientproxy.FastestSocketSelector.SocketInfo;
+import ee.ria.xroad.proxy.util.StageTimer;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.base.Ticker;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHost;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
@@ -49,7 +50,6 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.URI;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
 
 import static ee.ria.xroad.common.ErrorCodes.X_INTERNAL_ERROR;
 import static ee.ria.xroad.common.ErrorCodes.X_NETWORK_ERROR;
@@ -62,8 +62,10 @@ import static ee.ria.xroad.proxy.clientproxy.AuthTrustVerifier.verify;
  * The fastest target address is selected by initializing socket connection
  * to all provided addresses and choosing the first one to respond.
  *
- * If an SSL session already exists to one of the provided addresses, then
- * that address is selected immediately without previous selection algorithm.
+ * The connect times, TLS handshake times and failures of the addresses are
+ * tracked by an {@link AddressRouter}. If the router has fresh scores for all
+ * provided addresses and one of them is clearly the best, then that address is
+ * selected immediately without the selection algorithm.
  */
 @Slf4j
 class FastestConnectionSelectingSSLSocketFactory
@@ -74,7 +76,7 @@ class FastestConnectionSelectingSSLSocketFactory
      */
     public static final String ID_TARGETS = "ee.ria.xroad.serverproxy.targets";
     /**
-     * The timeout when connecting to previously selected "fastest" provider
+     * The timeout when connecting to the best scored provider selected by the router
      */
     public static final int CACHED_TIMEOUT = 5000;
 
@@ -84,17 +86,13 @@ class FastestConnectionSelectingSSLSocketFactory
 
     private final javax.net.ssl.SSLSocketFactory socketfactory;
 
-    private final Cache<CacheKey, URI> selectedHosts;
-    private final boolean cachingEnabled;
+    private final AddressRouter router;
 
     FastestConnectionSelectingSSLSocketFactory(SSLContext sslContext) {
         super(sslContext, null, SystemProperties.getXroadTLSCipherSuites(), (HostnameVerifier)null);
         this.socketfactory = sslContext.getSocketFactory();
-        this.selectedHosts = CacheBuilder.newBuilder()
-                .expireAfterWrite(SystemProperties.getClientProxyFastestConnectingSslUriCachePeriod(), TimeUnit.SECONDS)
-                .maximumSize(CACHE_MAXIMUM_SIZE)
-                .build();
-        this.cachingEnabled = SystemProperties.getClientProxyFastestConnectingSslUriCachePeriod() > 0;
+        this.router = new AddressRouter(SystemProperties.getClientProxyFastestConnectingSslUriCachePeriod(),
+                CACHE_MAXIMUM_SIZE, Ticker.systemTicker());
     }
 
     @Override
@@ -109,36 +107,30 @@ class FastestConnectionSelectingSSLSocketFactory
         // Discard dummy socket.
         closeQuietly(socket);
 
+        final StageTimer stageTimer = (StageTimer) context.getAttribute(StageTimer.class.getName());
+        final long connectStart = System.nanoTime();
+
         // Read target addresses from the context.
         final URI[] addressesFromContext = getAddressesFromContext(context);
-        final boolean useCache = cachingEnabled && (addressesFromContext.length > 1);
-        final FastestSocketSelector selector = new FastestSocketSelector();
-
-        CacheKey cacheKey = null;
-        URI cachedURI = null;
+        final FastestSocketSelector selector = new FastestSocketSelector(router);
 
         if (log.isTraceEnabled()) {
             log.trace("addresses from context {} current thread id {}", addressesFromContext,
                     Thread.currentThread().getId());
         }
 
-        // If URI cache is enabled, check for a previously selected host, avoiding the selection process.
-        if (useCache) {
-            cacheKey = new CacheKey(addressesFromContext);
-            cachedURI = selectedHosts.getIfPresent(cacheKey);
+        // Connect directly to the best scored host if there is one, avoiding the selection process.
+        URI routedURI = router.route(addressesFromContext);
 
-            if (cachedURI != null) {
-                log.trace("Use cached URI {}", cachedURI);
-                selector.add(cachedURI);
-            }
-        }
-
-        if (selector.isEmpty()) {
+        if (routedURI != null) {
+            log.trace("Use routed URI {}", routedURI);
+            selector.add(routedURI);
+        } else {
             selector.addAll(addressesFromContext);
         }
 
         Exception deferredException = null;
-        int connectTimeout = (cachedURI == null ? timeout : CACHED_TIMEOUT);
+        int connectTimeout = (routedURI == null ? timeout : CACHED_TIMEOUT);
         while (!selector.isEmpty()) {
             SocketInfo selectedSocket = null;
             SSLSocket sslSocket = null;
@@ -147,14 +139,14 @@ class FastestConnectionSelectingSSLSocketFactory
                 // see also FastestSocketSelector
                 selectedSocket = selector.select(connectTimeout);
                 sslSocket = wrapToSSLSocket(selectedSocket.getSocket(), connectTimeout);
+                final long handshakeStart = System.nanoTime();
                 prepareAndVerify(sslSocket, selectedSocket.getUri(), context);
+                router.recordHandshake(selectedSocket.getUri(), System.nanoTime() - handshakeStart);
                 configureSocket(sslSocket);
                 log.trace("Connected to {}", selectedSocket.getUri());
                 updateOpMonitoringData(context, selectedSocket);
-
-                if (useCache && cachedURI == null) {
-                    log.trace("Store the fastest provider URI to cache {}", selectedSocket.getUri());
-                    selectedHosts.put(cacheKey, selectedSocket.getUri());
+                if (stageTimer != null) {
+                    stageTimer.stopWithin(Stage.REMOTE, Stage.CONNECT, connectStart);
                 }
                 return sslSocket;
             } catch (IOException | RuntimeException e) {
@@ -162,15 +154,15 @@ class FastestConnectionSelectingSSLSocketFactory
                 closeQuietly(sslSocket);
                 if (selectedSocket != null) {
                     log.trace("Failed to connect to {}", selectedSocket.getUri(), e);
+                    router.recordFailure(selectedSocket.getUri());
                     closeQuietly(selectedSocket.getSocket());
                 } else {
                     log.debug("Failed to connect", e);
                 }
-                if (cachedURI != null) {
-                    selectedHosts.asMap().remove(cacheKey, cachedURI);
+                if (routedURI != null) {
                     selector.addAll(addressesFromContext);
-                    selector.remove(cachedURI);
-                    cachedURI = null;
+                    selector.remove(routedURI);
+                    routedURI = null;
                     connectTimeout = timeout;
                 } else {
                     if (selectedSocket == null) {
@@ -278,32 +270,4 @@ class FastestConnectionSelectingSSLSocketFactory
         }
     }
 
-    static final class CacheKey {
-        private final URI[] addresses;
-        private final int hash;
-
-        CacheKey(URI[] addresses) {
-            // address lists are small, using an sorted arraylist as a key
-            // will have a lower overhead than using a hashset or treeset
-            final URI[] tmp = addresses.clone();
-            Arrays.sort(tmp);
-            this.addresses = tmp;
-            this.hash = Arrays.hashCode(this.addresses);
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof CacheKey)) return false;
-            final CacheKey key = (CacheKey)o;
-            if (hash != key.hash) return false;
-            return Arrays.equals(addresses, key.addresses);
-        }
-
-        @Override
-        public int hashCode() {
-            return hash;
-        }
-    }
-
 }
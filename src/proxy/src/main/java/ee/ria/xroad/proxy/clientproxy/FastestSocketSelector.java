@@ -33,22 +33,22 @@ import javax.net.SocketFactory;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.net.StandardSocketOptions;
 import java.net.URI;
-import java.nio.channels.SelectionKey;
-import java.nio.channels.Selector;
-import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static ee.ria.xroad.proxy.clientproxy.FastestConnectionSelectingSSLSocketFactory.closeQuietly;
 
 /**
  * Given a list of addresses, selects the first one to respond.
- * More specifically, we initiate a connection to all specified addresses and
- * wait for any connection events using Selector. We return the first address
- * from the selector or null, if no connections can be made.
+ * More specifically, we initiate a connection to all specified addresses on the
+ * {@link SharedConnectSelector} thread and return the first address to connect,
+ * or fail if no connections can be made.
+ *
+ * Connect times and connection failures are recorded to the given {@link AddressRouter}.
  *
  * Note! During selection, the selector will remove addresses from the provided list if the address is
  * unresolvable or there is an error during connecting to the address.
@@ -62,8 +62,13 @@ final class FastestSocketSelector {
         private final Socket socket;
     }
 
+    private final AddressRouter router;
     private List<URI> addresses = new ArrayList<>();
 
+    FastestSocketSelector(AddressRouter router) {
+        this.router = router;
+    }
+
     void add(URI address) {
         addresses.add(address);
     }
@@ -100,10 +105,13 @@ final class FastestSocketSelector {
         try {
             socket = SocketFactory.getDefault().createSocket();
             final InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort());
+            final long start = System.nanoTime();
             socket.connect(address, timeout);
+            router.recordConnect(uri, System.nanoTime() - start);
             return new SocketInfo(uri, socket);
         } catch (Exception e) {
             addresses.remove(uri);
+            router.recordFailure(uri);
             log.error("Could not connect to '{}'", uri, e);
             closeQuietly(socket);
             throw e;
@@ -112,62 +120,7 @@ final class FastestSocketSelector {
 
     private SocketInfo doSelect(int timeout) throws IOException {
         log.trace("select()");
-        Selector selector = Selector.open();
-        try {
-            initConnections(selector);
-            SelectionKey key = selectFirstConnectedSocketChannel(selector, timeout);
-            final SocketChannel channel = (SocketChannel)key.channel();
-            key.cancel();
-            channel.configureBlocking(true);
-            return new SocketInfo((URI)key.attachment(), channel.socket());
-        } finally {
-            try {
-                closeSelector(selector);
-            } catch (Exception e) {
-                log.error("Error while closing selector", e);
-            }
-        }
-    }
-
-    private SelectionKey selectFirstConnectedSocketChannel(Selector selector, long connectTimeout) throws
-            IOException {
-        log.trace("selectFirstConnectedSocketChannel()");
-
-        while (!selector.keys().isEmpty()) {
-            if (selector.select(connectTimeout) == 0) { // Block until something happens
-                break;
-            }
-            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-            while (it.hasNext()) {
-                SelectionKey key = it.next();
-                if (isConnected(key)) {
-                    return key;
-                }
-                it.remove();
-            }
-        }
-        throw new IOException("Unable to connect to any of the provided addresses.");
-    }
-
-    private boolean isConnected(SelectionKey key) {
-        if (key.isValid() && key.isConnectable()) {
-            SocketChannel channel = (SocketChannel)key.channel();
-            try {
-                return channel.finishConnect();
-            } catch (Exception e) {
-                //connection failed, do not consider this address any more
-                addresses.remove(key.attachment());
-                key.cancel();
-                closeQuietly(channel);
-                log.trace("Error connecting socket channel: {}", e.getMessage());
-            }
-        }
-        return false;
-    }
-
-    private void initConnections(Selector selector) {
-        log.trace("initConnections()");
-
+        final Map<URI, InetSocketAddress> targets = new LinkedHashMap<>();
         for (Iterator<URI> iterator = addresses.iterator(); iterator.hasNext();) {
             final URI target = iterator.next();
             final InetSocketAddress address = new InetSocketAddress(target.getHost(), target.getPort());
@@ -175,34 +128,17 @@ final class FastestSocketSelector {
                 iterator.remove();
                 continue;
             }
-            SocketChannel channel = null;
-            SelectionKey key = null;
-            try {
-                channel = SocketChannel.open();
-                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
-                channel.configureBlocking(false);
-                key = channel.register(selector, SelectionKey.OP_CONNECT, target);
-                if (channel.connect(address)) {
-                    // connected immediately
-                    break;
-                }
-            } catch (Exception e) {
-                if (key != null) {
-                    key.cancel();
-                    iterator.remove();
-                }
-                closeQuietly(channel);
-                log.trace("Error connecting to '{}': {}", target, e);
-            }
+            targets.put(target, address);
+        }
+        if (targets.isEmpty()) {
+            throw new IOException("Unable to connect to any of the provided addresses.");
         }
-    }
 
-    private static void closeSelector(Selector selector) throws IOException {
-        for (SelectionKey key : selector.keys()) {
-            if (key.isValid()) {
-                closeQuietly(key.channel());
-            }
+        final SharedConnectSelector.Race race = SharedConnectSelector.getInstance().race(targets, timeout, router);
+        try {
+            return race.await();
+        } finally {
+            addresses.removeAll(race.getFailed());
         }
-        selector.close();
     }
 }
@@ -0,0 +1,321 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.clientproxy;
+
+import ee.ria.xroad.proxy.clientproxy.FastestSocketSelector.SocketInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static ee.ria.xroad.proxy.clientproxy.FastestConnectionSelectingSSLSocketFactory.closeQuietly;
+
+/**
+ * Runs connection races for all {@link FastestSocketSelector}s on a single selector thread.
+ *
+ * A race initiates a non-blocking connection to every target address. The first connected channel is handed
+ * to the caller in blocking mode. The remaining attempts are kept open for a short while so that their connect
+ * times can be recorded to the {@link AddressRouter}; afterwards they are closed.
+ */
+@Slf4j
+final class SharedConnectSelector {
+
+    /** How long the losing attempts of a race are followed after the race has been won */
+    static final long PROBE_AFTER_WIN_MILLIS = 1000;
+
+    private static final long AWAIT_GRACE_MILLIS = 1000;
+
+    private static final class InstanceHolder {
+        private static final SharedConnectSelector INSTANCE = new SharedConnectSelector();
+    }
+
+    private final Selector selector;
+    private final Queue<Race> pending = new ConcurrentLinkedQueue<>();
+    // accessed only by the selector thread
+    private final List<Race> active = new ArrayList<>();
+
+    private SharedConnectSelector() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open connection selector", e);
+        }
+        final Thread thread = new Thread(this::run, "fastest-connection-selector");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    static SharedConnectSelector getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Starts a race between the given addresses.
+     * @param targets resolved addresses of the race
+     * @param timeoutMillis connect timeout
+     * @param router router that receives the connect times and failures
+     * @return the race
+     */
+    Race race(Map<URI, InetSocketAddress> targets, long timeoutMillis, AddressRouter router) {
+        final Race race = new Race(targets, timeoutMillis, router);
+        pending.add(race);
+        selector.wakeup();
+        return race;
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                selector.select(nextTimeout());
+                startPending();
+                processSelected();
+                expire();
+            } catch (Exception e) {
+                log.error("Unexpected error in connection selector", e);
+            }
+        }
+    }
+
+    private long nextTimeout() {
+        if (active.isEmpty()) {
+            return 0;
+        }
+        final long now = System.nanoTime();
+        long timeout = Long.MAX_VALUE;
+        for (Race race : active) {
+            timeout = Math.min(timeout, TimeUnit.NANOSECONDS.toMillis(race.deadline - now));
+        }
+        return Math.max(1, timeout);
+    }
+
+    private void startPending() {
+        Race race;
+        while ((race = pending.poll()) != null) {
+            active.add(race);
+            for (Map.Entry<URI, InetSocketAddress> target : race.targets.entrySet()) {
+                start(race, target.getKey(), target.getValue());
+            }
+            if (race.keys.isEmpty()) {
+                race.result.completeExceptionally(noConnectionException());
+            }
+        }
+    }
+
+    private void start(Race race, URI target, InetSocketAddress address) {
+        SocketChannel channel = null;
+        SelectionKey key = null;
+        try {
+            channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+            key = channel.register(selector, SelectionKey.OP_CONNECT, new Attempt(race, target));
+            race.keys.add(key);
+            if (channel.connect(address)) {
+                connected(key);
+            }
+        } catch (Exception e) {
+            log.trace("Error connecting to '{}': {}", target, e.getMessage());
+            if (key != null) {
+                race.keys.remove(key);
+                key.cancel();
+            }
+            race.failed.add(target);
+            race.router.recordFailure(target);
+            closeQuietly(channel);
+        }
+    }
+
+    private void processSelected() {
+        final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            final SelectionKey key = it.next();
+            it.remove();
+            if (!key.isValid() || !key.isConnectable()) {
+                continue;
+            }
+            try {
+                if (((SocketChannel)key.channel()).finishConnect()) {
+                    connected(key);
+                }
+            } catch (Exception e) {
+                log.trace("Error connecting socket channel: {}", e.getMessage());
+                failed(key);
+            }
+        }
+    }
+
+    private void connected(SelectionKey key) throws IOException {
+        final Attempt attempt = (Attempt)key.attachment();
+        final Race race = attempt.race;
+        final SocketChannel channel = (SocketChannel)key.channel();
+
+        race.router.recordConnect(attempt.target, System.nanoTime() - race.started);
+        race.keys.remove(key);
+        key.cancel();
+
+        if (!race.result.isDone()) {
+            channel.configureBlocking(true);
+            if (race.result.complete(new SocketInfo(attempt.target, channel.socket()))) {
+                race.deadline = Math.min(race.deadline,
+                        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_AFTER_WIN_MILLIS));
+                return;
+            }
+        }
+        closeQuietly(channel);
+    }
+
+    private void failed(SelectionKey key) {
+        final Attempt attempt = (Attempt)key.attachment();
+        final Race race = attempt.race;
+
+        race.failed.add(attempt.target);
+        race.router.recordFailure(attempt.target);
+        race.keys.remove(key);
+        key.cancel();
+        closeQuietly(key.channel());
+
+        if (race.keys.isEmpty()) {
+            race.result.completeExceptionally(noConnectionException());
+        }
+    }
+
+    private void expire() {
+        final long now = System.nanoTime();
+        for (Iterator<Race> it = active.iterator(); it.hasNext();) {
+            final Race race = it.next();
+            if (race.keys.isEmpty()) {
+                it.remove();
+            } else if (now - race.deadline >= 0 || race.result.isCompletedExceptionally()) {
+                final boolean won = race.result.isDone() && !race.result.isCompletedExceptionally();
+                for (SelectionKey key : race.keys) {
+                    final Attempt attempt = (Attempt)key.attachment();
+                    if (won) {
+                        // slower than the winner by at least this much
+                        race.router.recordConnect(attempt.target, now - race.started);
+                    } else if (now - race.deadline >= 0) {
+                        race.router.recordFailure(attempt.target);
+                    }
+                    key.cancel();
+                    closeQuietly(key.channel());
+                }
+                race.keys.clear();
+                race.result.completeExceptionally(noConnectionException());
+                it.remove();
+            }
+        }
+    }
+
+    private static IOException noConnectionException() {
+        return new IOException("Unable to connect to any of the provided addresses.");
+    }
+
+    private static final class Attempt {
+        private final Race race;
+        private final URI target;
+
+        Attempt(Race race, URI target) {
+            this.race = race;
+            this.target = target;
+        }
+    }
+
+    /**
+     * A single connection race.
+     */
+    static final class Race {
+        private final Map<URI, InetSocketAddress> targets;
+        private final long timeoutMillis;
+        private final AddressRouter router;
+        private final long started = System.nanoTime();
+        private final CompletableFuture<SocketInfo> result = new CompletableFuture<>();
+        private final Set<URI> failed = ConcurrentHashMap.newKeySet();
+        // accessed only by the selector thread
+        private final List<SelectionKey> keys = new ArrayList<>();
+        private long deadline;
+
+        Race(Map<URI, InetSocketAddress> targets, long timeoutMillis, AddressRouter router) {
+            this.targets = targets;
+            this.timeoutMillis = timeoutMillis;
+            this.router = router;
+            this.deadline = started + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        /**
+         * Waits for the first connected socket.
+         * @return the winner of the race
+         * @throws IOException if none of the addresses could be connected to in time
+         */
+        SocketInfo await() throws IOException {
+            try {
+                return result.get(timeoutMillis + AWAIT_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while connecting");
+            } catch (TimeoutException e) {
+                cancel();
+                throw noConnectionException();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException)e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+
+        /**
+         * @return addresses that refused the connection
+         */
+        Set<URI> getFailed() {
+            return failed;
+        }
+
+        private void cancel() {
+            if (!result.completeExceptionally(noConnectionException()) && !result.isCompletedExceptionally()) {
+                closeQuietly(result.join().getSocket());
+            }
+        }
+    }
+}
@@ -26,13 +26,11 @@
 package ee.ria.xroad.proxy.conf;
 
 import ee.ria.xroad.common.CodedException;
-import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.cert.CertChain;
 import ee.ria.xroad.common.conf.globalconf.AuthKey;
 import ee.ria.xroad.common.conf.serverconf.ServerConf;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.identifier.SecurityServerId;
-import ee.ria.xroad.common.util.FileContentChangeChecker;
 import ee.ria.xroad.signer.protocol.SignerClient;
 import ee.ria.xroad.signer.protocol.dto.MemberSigningInfo;
 import ee.ria.xroad.signer.protocol.message.GetAuthKey;
@@ -48,21 +46,37 @@ import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static ee.ria.xroad.common.ErrorCodes.X_CANNOT_CREATE_SIGNATURE;
 import static ee.ria.xroad.common.util.CryptoUtils.readCertificate;
 
 /**
  * Encapsulates KeyConf related functionality.
+ *
+ * Signing info and the authentication key are cached. The caches are
+ * reloaded in the background when {@link #refresh()} is called, either
+ * because the signer has published a change or ahead of cache expiry
+ * (see {@link KeyConfChangeListener}). Request threads only load data
+ * themselves when it is missing from the cache or no longer valid.
  */
 @Slf4j
 class CachingKeyConfImpl extends KeyConfImpl {
 
     // Specifies how long data is cached
-    private static final int CACHE_PERIOD_SECONDS = 300;
+    static final int CACHE_PERIOD_SECONDS = 300;
+
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "keyconf-refresh");
+        thread.setDaemon(true);
 
-    private final FileContentChangeChecker keyConfChangeChecker;
+        return thread;
+    });
+
+    private static final AtomicBoolean REFRESH_PENDING = new AtomicBoolean();
 
     private static final Cache<ClientId, SigningInfo> SIGNING_INFO_CACHE;
 
@@ -81,20 +95,9 @@ class CachingKeyConfImpl extends KeyConfImpl {
                 .build();
     }
 
-    CachingKeyConfImpl() throws Exception {
-        keyConfChangeChecker = getKeyConfChangeChecker();
-    }
-
-    protected FileContentChangeChecker getKeyConfChangeChecker() throws Exception {
-        return new FileContentChangeChecker(SystemProperties.getKeyConfFile());
-    }
-
     @Override
     public SigningCtx getSigningCtx(ClientId clientId) {
         try {
-            if (keyConfHasChanged()) {
-                CachingKeyConfImpl.invalidateCaches();
-            }
             SigningInfo signingInfo = SIGNING_INFO_CACHE.get(clientId, () -> getSigningInfo(clientId));
             if (!signingInfo.verifyValidity(new Date())) {
                 SIGNING_INFO_CACHE.invalidate(clientId);
@@ -116,16 +119,47 @@ class CachingKeyConfImpl extends KeyConfImpl {
         SIGNING_INFO_CACHE.invalidateAll();
     }
 
+    /**
+     * Reloads the cached auth key and signing info in the background. The old
+     * values are served until the new ones are loaded. Refresh requests made
+     * while a refresh is pending are coalesced.
+     */
+    @Override
+    public void refresh() {
+        if (REFRESH_PENDING.compareAndSet(false, true)) {
+            REFRESH_EXECUTOR.execute(this::reloadCaches);
+        }
+    }
+
+    void reloadCaches() {
+        REFRESH_PENDING.set(false);
+
+        for (ClientId clientId : SIGNING_INFO_CACHE.asMap().keySet()) {
+            try {
+                SIGNING_INFO_CACHE.put(clientId, getSigningInfo(clientId));
+            } catch (Exception e) {
+                log.warn("Failed to refresh signing info for member '{}'", clientId, e);
+                // the next request will retry and report the error
+                SIGNING_INFO_CACHE.invalidate(clientId);
+            }
+        }
+
+        for (SecurityServerId serverId : AUTH_KEY_CACHE.asMap().keySet()) {
+            try {
+                AUTH_KEY_CACHE.put(serverId, getAuthKeyInfo(serverId));
+            } catch (Exception e) {
+                log.warn("Failed to refresh authentication key for security server '{}'", serverId, e);
+                AUTH_KEY_CACHE.invalidate(serverId);
+            }
+        }
+    }
+
 
     private static final AuthKey NULL_AUTH_KEY = new AuthKey(null, null);
 
     @Override
     public AuthKey getAuthKey() {
         try {
-            if (keyConfHasChanged()) {
-                CachingKeyConfImpl.invalidateCaches();
-            }
-
             final SecurityServerId serverId = ServerConf.getIdentifier();
             if (serverId == null) {
                 return NULL_AUTH_KEY;
@@ -144,15 +178,6 @@ class CachingKeyConfImpl extends KeyConfImpl {
         }
     }
 
-    boolean keyConfHasChanged() {
-        try {
-            return keyConfChangeChecker.hasChanged();
-        } catch (Exception e) {
-            log.error("Failed to check if key conf has changed", e);
-            return true;
-        }
-    }
-
     protected AuthKeyInfo getAuthKeyInfo(SecurityServerId serverId) throws Exception {
         log.debug("Retrieving authentication info for security server '{}'", serverId);
 
@@ -130,6 +130,22 @@ public final class KeyConf {
         return getInstance().getOcspResponse(certHash);
     }
 
+    /**
+     * Retrieves the OCSP responses of all given certificates with a single
+     * request to the signer.
+     *
+     * @param certHashes hashes of the certificates
+     * @return OCSP responses for the given certificate hashes. For OCSP
+     * responses that could not be found, the list contains null values
+     * @throws Exception in case of any errors
+     */
+    public static List<OCSPResp> getOcspResponsesByHash(List<String> certHashes)
+            throws Exception {
+        LOG.trace("getOcspResponsesByHash({} certs)", certHashes.size());
+
+        return getInstance().getOcspResponsesByHash(certHashes);
+    }
+
     /**
      * @param cert the certificate
      * @return the OCSP server response for the given certificate,
@@ -198,6 +214,19 @@ public final class KeyConf {
         getInstance().setOcspResponses(certs, responses);
     }
 
+    /**
+     * Asks the configuration to reload its cached data in the background.
+     */
+    public static void refresh() {
+        LOG.trace("refresh()");
+
+        KeyConfProvider conf = instance;
+
+        if (conf != null) {
+            conf.refresh();
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     private static void initInstance() {
@@ -0,0 +1,162 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.conf;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.util.FileContentChangeChecker;
+import ee.ria.xroad.signer.protocol.SignerClient;
+import ee.ria.xroad.signer.protocol.message.KeyConfChanged;
+import ee.ria.xroad.signer.protocol.message.SubscribeKeyConfChanges;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Cancellable;
+import akka.actor.Props;
+import akka.actor.UntypedAbstractActor;
+import lombok.extern.slf4j.Slf4j;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the cached key configuration up to date without involving request
+ * threads. Subscribes to key conf change events published by the signer and
+ * refreshes the caches when the version changes. In addition, the caches are
+ * refreshed ahead of expiry and when the key conf file changes, in case
+ * events are lost.
+ */
+@Slf4j
+public class KeyConfChangeListener extends UntypedAbstractActor {
+
+    public static final String KEY_CONF_CHANGE_LISTENER = "KeyConfChangeListener";
+
+    private static final int TICK_INTERVAL_SECONDS = 30;
+
+    private static final int SUBSCRIPTION_LEASE_SECONDS = 3 * TICK_INTERVAL_SECONDS;
+
+    // refresh the caches well before the cached data expires
+    private static final int REFRESH_AHEAD_TICKS = CachingKeyConfImpl.CACHE_PERIOD_SECONDS * 2 / 3
+            / TICK_INTERVAL_SECONDS;
+
+    private static final String TICK = "Tick";
+
+    private static final long UNKNOWN_VERSION = -1;
+
+    private long lastSeenVersion = UNKNOWN_VERSION;
+
+    private int ticksSinceRefresh;
+
+    private FileContentChangeChecker keyConfChangeChecker;
+
+    private Cancellable tickSchedule;
+
+    /**
+     * Starts listening to key conf changes using the provided actor system.
+     * @param actorSystem the actor system
+     */
+    public static void init(ActorSystem actorSystem) {
+        actorSystem.actorOf(Props.create(KeyConfChangeListener.class), KEY_CONF_CHANGE_LISTENER);
+    }
+
+    @Override
+    public void preStart() throws Exception {
+        FiniteDuration interval = FiniteDuration.create(TICK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        tickSchedule = getContext().system().scheduler().schedule(FiniteDuration.create(0, TimeUnit.SECONDS),
+                interval, getSelf(), TICK, getContext().dispatcher(), ActorRef.noSender());
+    }
+
+    @Override
+    public void postStop() {
+        if (tickSchedule != null) {
+            tickSchedule.cancel();
+        }
+    }
+
+    @Override
+    public void onReceive(Object message) {
+        if (TICK.equals(message)) {
+            handleTick();
+        } else if (message instanceof KeyConfChanged) {
+            handleKeyConfChanged((KeyConfChanged) message);
+        } else {
+            unhandled(message);
+        }
+    }
+
+    private void handleTick() {
+        subscribe();
+
+        if (++ticksSinceRefresh >= REFRESH_AHEAD_TICKS || keyConfFileHasChanged()) {
+            refresh();
+        }
+    }
+
+    private void handleKeyConfChanged(KeyConfChanged message) {
+        if (message.getVersion() != lastSeenVersion) {
+            log.debug("Key conf version changed from {} to {}", lastSeenVersion, message.getVersion());
+
+            // the first reply only tells the current version, the caches are up to date
+            boolean changed = lastSeenVersion != UNKNOWN_VERSION;
+
+            lastSeenVersion = message.getVersion();
+
+            if (changed) {
+                refresh();
+            }
+        }
+    }
+
+    private void subscribe() {
+        try {
+            SignerClient.execute(new SubscribeKeyConfChanges(SUBSCRIPTION_LEASE_SECONDS), getSelf());
+        } catch (Exception e) {
+            log.debug("Failed to subscribe to key conf changes: {}", e.getMessage());
+        }
+    }
+
+    private boolean keyConfFileHasChanged() {
+        try {
+            if (keyConfChangeChecker == null) {
+                keyConfChangeChecker = new FileContentChangeChecker(SystemProperties.getKeyConfFile());
+
+                return false;
+            }
+
+            return keyConfChangeChecker.hasChanged();
+        } catch (Exception e) {
+            log.error("Failed to check if key conf has changed", e);
+
+            return true;
+        }
+    }
+
+    private void refresh() {
+        ticksSinceRefresh = 0;
+
+        KeyConf.refresh();
+    }
+}
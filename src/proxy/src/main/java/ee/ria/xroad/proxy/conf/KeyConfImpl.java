@@ -135,12 +135,27 @@ class KeyConfImpl implements KeyConfProvider {
     @Override
     public List<OCSPResp> getOcspResponses(List<X509Certificate> certs)
             throws Exception {
+        return getOcspResponsesFromSigner(getCertHashes(certs));
+    }
+
+    @Override
+    public List<OCSPResp> getOcspResponsesByHash(List<String> certHashes)
+            throws Exception {
+        return getOcspResponsesFromSigner(certHashes.toArray(new String[0]));
+    }
+
+    private static List<OCSPResp> getOcspResponsesFromSigner(String[] certHashes)
+            throws Exception {
         GetOcspResponsesResponse response =
-                SignerClient.execute(
-                        new GetOcspResponses(getCertHashes(certs)));
+                SignerClient.execute(new GetOcspResponses(certHashes));
+
+        return decodeOcspResponses(response.getBase64EncodedResponses());
+    }
 
+    static List<OCSPResp> decodeOcspResponses(String[] base64EncodedResponses)
+            throws Exception {
         List<OCSPResp> ocspResponses = new ArrayList<>();
-        for (String base64Encoded : response.getBase64EncodedResponses()) {
+        for (String base64Encoded : base64EncodedResponses) {
             if (base64Encoded != null) {
                 ocspResponses.add(new OCSPResp(decodeBase64(base64Encoded)));
             } else {
@@ -31,6 +31,7 @@ import ee.ria.xroad.common.identifier.ClientId;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -73,6 +74,23 @@ public interface KeyConfProvider {
     List<OCSPResp> getOcspResponses(List<X509Certificate> certs)
             throws Exception;
 
+    /**
+     * @return OCSP responses for the given certificate hashes, in the same
+     * order. The list contains null for certificates that have no response.
+     * @param certHashes hashes of the certificates
+     * @throws Exception in case of any errors
+     */
+    default List<OCSPResp> getOcspResponsesByHash(List<String> certHashes)
+            throws Exception {
+        List<OCSPResp> responses = new ArrayList<>(certHashes.size());
+
+        for (String certHash : certHashes) {
+            responses.add(getOcspResponse(certHash));
+        }
+
+        return responses;
+    }
+
     /**
      * Updates the existing OCSP response or stores the OCSP response,
      * if it does not exist for the given certificate.
@@ -83,4 +101,12 @@ public interface KeyConfProvider {
     void setOcspResponses(List<X509Certificate> certs,
             List<OCSPResp> responses) throws Exception;
 
+    /**
+     * Notifies the provider that keys, certificates or OCSP responses may
+     * have changed. Providers that cache data should reload it without
+     * blocking the caller.
+     */
+    default void refresh() {
+    }
+
 }
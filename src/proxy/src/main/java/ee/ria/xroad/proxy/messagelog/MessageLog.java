@@ -67,7 +67,7 @@ public final class MessageLog {
 
     public static final String LOG_MANAGER = "LogManager";
 
-    private static final String LOG_MANAGER_IMPL_CLASS = SystemProperties.PREFIX + "proxy.messageLogManagerImpl";
+    public static final String LOG_MANAGER_IMPL_CLASS = SystemProperties.PREFIX + "proxy.messageLogManagerImpl";
     public static final String CONTROL_AWARE_DISPATCHER = "akka.control-aware-dispatcher";
 
     private static ActorRef logManager;
@@ -102,7 +102,7 @@ public final class MessageLog {
     public static void log(SoapMessageImpl message, SignatureData signature, boolean clientSide,
             String xRequestId) {
         try {
-            ask(new SoapLogMessage(message, signature, clientSide, xRequestId));
+            ask(AbstractLogManager.prepare(new SoapLogMessage(message, signature, clientSide, xRequestId)));
         } catch (Exception e) {
             throw translateWithPrefix(X_LOGGING_FAILED_X, e);
         }
@@ -114,8 +114,8 @@ public final class MessageLog {
     public static void log(RestRequest message, SignatureData signature, CacheInputStream body, boolean clientside,
             String xRequestId) {
         try {
-            ask(new RestLogMessage(message.getQueryId(), message.getClientId(), message.getServiceId(),
-                    message, signature, body, clientside, xRequestId));
+            ask(AbstractLogManager.prepare(new RestLogMessage(message.getQueryId(), message.getClientId(),
+                    message.getServiceId(), message, signature, body, clientside, xRequestId)));
         } catch (Exception e) {
             throw translateWithPrefix(X_LOGGING_FAILED_X, e);
         }
@@ -127,8 +127,8 @@ public final class MessageLog {
     public static void log(RestRequest request, RestResponse message,
             SignatureData signature, CacheInputStream body, boolean clientside, String xRequestId) {
         try {
-            ask(new RestLogMessage(request.getQueryId(), request.getClientId(), request.getServiceId(),
-                    message, signature, body, clientside, xRequestId));
+            ask(AbstractLogManager.prepare(new RestLogMessage(request.getQueryId(), request.getClientId(),
+                    request.getServiceId(), message, signature, body, clientside, xRequestId)));
         } catch (Exception e) {
             throw translateWithPrefix(X_LOGGING_FAILED_X, e);
         }
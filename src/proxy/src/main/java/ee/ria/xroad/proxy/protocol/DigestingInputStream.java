@@ -0,0 +1,134 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.protocol;
+
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.OperatorCreationException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static ee.ria.xroad.common.util.CryptoUtils.createDigestCalculator;
+
+/**
+ * Input stream that hashes and counts the bytes read through it, so that the digest of a message part
+ * is calculated while the part is streamed, from the caller's read buffer.
+ */
+final class DigestingInputStream extends FilterInputStream {
+
+    private static final int SKIP_BUFFER_SIZE = 4096;
+
+    private final DigestCalculator calculator;
+    private final OutputStream digestOut;
+
+    private long byteCount = 0;
+
+    /**
+     * @param in the stream to read from
+     * @param hashAlgoId hash algorithm id used to hash the content
+     * @throws OperatorCreationException if the digest calculator cannot be created
+     */
+    DigestingInputStream(InputStream in, String hashAlgoId) throws OperatorCreationException {
+        super(in);
+
+        this.calculator = createDigestCalculator(hashAlgoId);
+        this.digestOut = calculator.getOutputStream();
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+
+        if (b >= 0) {
+            digestOut.write(b);
+            byteCount++;
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+
+        if (n > 0) {
+            digestOut.write(b, off, n);
+            byteCount += n;
+        }
+
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // skipped bytes must be hashed as well
+        byte[] buffer = new byte[(int) Math.min(SKIP_BUFFER_SIZE, Math.max(n, 0))];
+        long skipped = 0;
+
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+
+            if (count < 0) {
+                break;
+            }
+
+            skipped += count;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * @return the number of bytes read so far
+     */
+    long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * @return the digest of the bytes read so far. Call once, after the content has been read.
+     */
+    byte[] getDigest() {
+        return calculator.getDigest();
+    }
+}
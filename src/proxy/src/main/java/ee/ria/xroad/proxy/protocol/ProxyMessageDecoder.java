@@ -34,7 +34,6 @@ import ee.ria.xroad.common.message.Soap;
 import ee.ria.xroad.common.message.SoapFault;
 import ee.ria.xroad.common.message.SoapMessageImpl;
 import ee.ria.xroad.common.signature.SignatureData;
-import ee.ria.xroad.common.util.CryptoUtils;
 import ee.ria.xroad.common.util.MessageFileNames;
 import ee.ria.xroad.common.util.MimeTypes;
 import ee.ria.xroad.common.util.MimeUtils;
@@ -42,8 +41,6 @@ import ee.ria.xroad.proxy.signedmessage.Verifier;
 
 import lombok.Getter;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.TeeInputStream;
-import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.parser.AbstractContentHandler;
 import org.apache.james.mime4j.parser.MimeStreamParser;
@@ -51,7 +48,6 @@ import org.apache.james.mime4j.stream.BodyDescriptor;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.stream.MimeConfig;
 import org.bouncycastle.cert.ocsp.OCSPResp;
-import org.bouncycastle.operator.DigestCalculator;
 import org.eclipse.jetty.http.HttpFields;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -328,8 +324,7 @@ public class ProxyMessageDecoder {
         try {
             LOG.trace("Looking for OCSP, got: {} {}", bd.getMimeType(),
                     bd.getCharset());
-            byte[] buffer = IOUtils.toByteArray(is);
-            OCSPResp response = new OCSPResp(buffer);
+            OCSPResp response = new OCSPResp(is);
             callback.ocspResponse(response);
         } catch (Exception ex) {
             throw translateException(ex);
@@ -369,8 +364,9 @@ public class ProxyMessageDecoder {
     private void handleRest(BodyDescriptor bd, InputStream is) {
         try {
             //The request size is unbounded; should have a limit?
-            final byte[] request = IOUtils.toByteArray(is);
-            final byte[] digest = CryptoUtils.calculateDigest(getHashAlgoId(), request);
+            final DigestingInputStream digestingIs = new DigestingInputStream(is, getHashAlgoId());
+            final byte[] request = IOUtils.toByteArray(digestingIs);
+            final byte[] digest = digestingIs.getDigest();
             callback.rest(new RestRequest(request));
             verifier.addPart(MessageFileNames.MESSAGE, getHashAlgoId(), digest, request);
         } catch (Exception ex) {
@@ -381,11 +377,12 @@ public class ProxyMessageDecoder {
     private void handleRestResponse(BodyDescriptor bd, InputStream is) {
         try {
             //The response size is unbounded; should have a limit?
-            final byte[] request = IOUtils.toByteArray(is);
+            final DigestingInputStream digestingIs = new DigestingInputStream(is, getHashAlgoId());
+            final byte[] request = IOUtils.toByteArray(digestingIs);
             callback.rest(RestResponse.of(request));
             verifier.addPart(MessageFileNames.MESSAGE,
                     getHashAlgoId(),
-                    CryptoUtils.calculateDigest(getHashAlgoId(), request),
+                    digestingIs.getDigest(),
                     request);
         } catch (Exception ex) {
             throw translateException(ex);
@@ -394,13 +391,11 @@ public class ProxyMessageDecoder {
 
     private void handleRestBody(BodyDescriptor bd, InputStream is) {
         try {
-            final DigestCalculator dc = CryptoUtils.createDigestCalculator(getHashAlgoId());
-            final CountingOutputStream cos = new CountingOutputStream(dc.getOutputStream());
-            final TeeInputStream proxyIs = new TeeInputStream(is, cos, true);
+            final DigestingInputStream digestingIs = new DigestingInputStream(is, getHashAlgoId());
 
-            callback.restBody(proxyIs);
-            attachmentsByteCount += cos.getByteCount();
-            restBodyDigest = dc.getDigest();
+            callback.restBody(digestingIs);
+            attachmentsByteCount += digestingIs.getByteCount();
+            restBodyDigest = digestingIs.getDigest();
             verifier.addPart(MessageFileNames.attachment(++attachmentNo), getHashAlgoId(), restBodyDigest);
         } catch (Exception ex) {
             throw translateException(ex);
@@ -450,19 +445,16 @@ public class ProxyMessageDecoder {
                     throws IOException {
                 LOG.trace("attachment body: {}", bd.getMimeType());
                 try {
-                    DigestCalculator dc =
-                            CryptoUtils.createDigestCalculator(getHashAlgoId());
-                    CountingOutputStream cos = new CountingOutputStream(
-                            dc.getOutputStream());
-                    TeeInputStream proxyIs = new TeeInputStream(is, cos, true);
+                    DigestingInputStream digestingIs =
+                            new DigestingInputStream(is, getHashAlgoId());
 
-                    callback.attachment(partContentType, proxyIs, headers);
+                    callback.attachment(partContentType, digestingIs, headers);
 
-                    attachmentsByteCount += cos.getByteCount();
+                    attachmentsByteCount += digestingIs.getByteCount();
 
                     verifier.addPart(
                             MessageFileNames.attachment(++attachmentNo),
-                            getHashAlgoId(), dc.getDigest());
+                            getHashAlgoId(), digestingIs.getDigest());
                 } catch (Exception ex) {
                     throw translateException(ex);
                 }
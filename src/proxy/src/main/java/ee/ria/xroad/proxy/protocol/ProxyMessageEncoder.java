@@ -39,24 +39,25 @@ import ee.ria.xroad.proxy.signedmessage.Signer;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.input.TeeInputStream;
-import org.apache.commons.io.output.CountingOutputStream;
 import org.bouncycastle.cert.ocsp.OCSPResp;
-import org.bouncycastle.operator.DigestCalculator;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import static ee.ria.xroad.common.ErrorCodes.translateException;
-import static ee.ria.xroad.common.util.CryptoUtils.createDigestCalculator;
 import static ee.ria.xroad.common.util.MimeUtils.randomBoundary;
 import static ee.ria.xroad.common.util.MimeUtils.toHeaders;
 
 /**
  * Encodes proxy SOAP messages from an output stream.
+ *
+ * Attachments and REST bodies are streamed into the output as they are read and hashed in flight, so they are
+ * never held in memory as a whole.
  */
 @Slf4j
 public class ProxyMessageEncoder implements ProxyMessageConsumer {
@@ -200,19 +201,15 @@ public class ProxyMessageEncoder implements ProxyMessageConsumer {
      * @throws Exception
      */
     public void restBody(byte[] head, int count, InputStream rest) throws Exception {
-        final DigestCalculator calc = createDigestCalculator(hashAlgoId);
-        final CountingOutputStream cos = new CountingOutputStream(calc.getOutputStream());
-
-        cos.write(head, 0, count);
-        final TeeInputStream proxyIs = new TeeInputStream(rest, cos, true);
+        final DigestingInputStream digestingIs = new DigestingInputStream(
+                new SequenceInputStream(new ByteArrayInputStream(head, 0, count), rest), hashAlgoId);
 
         mpEncoder.startPart("application/x-road-rest-body");
-        mpEncoder.write(head, 0, count);
-        mpEncoder.write(proxyIs);
+        mpEncoder.write(digestingIs);
 
-        restBodyDigest = calc.getDigest();
+        restBodyDigest = digestingIs.getDigest();
         signer.addPart(MessageFileNames.attachment(++attachmentNo), hashAlgoId, restBodyDigest);
-        attachmentsByteCount += cos.getByteCount();
+        attachmentsByteCount += digestingIs.getByteCount();
     }
 
     /**
@@ -263,18 +260,15 @@ public class ProxyMessageEncoder implements ProxyMessageConsumer {
             inAttachmentPart = true;
         }
 
-        DigestCalculator calc = createDigestCalculator(hashAlgoId);
-        CountingOutputStream cos = new CountingOutputStream(
-                calc.getOutputStream());
-        TeeInputStream proxyIs = new TeeInputStream(content, cos, true);
+        DigestingInputStream digestingIs = new DigestingInputStream(content, hashAlgoId);
 
         mpEncoder.startPart(contentType, toHeaders(additionalHeaders));
-        mpEncoder.write(proxyIs);
+        mpEncoder.write(digestingIs);
 
-        attachmentsByteCount += cos.getByteCount();
+        attachmentsByteCount += digestingIs.getByteCount();
 
         signer.addPart(MessageFileNames.attachment(++attachmentNo),
-                hashAlgoId, calc.getDigest());
+                hashAlgoId, digestingIs.getDigest());
     }
 
     @Override
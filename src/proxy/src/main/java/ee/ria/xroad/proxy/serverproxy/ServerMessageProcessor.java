@@ -57,6 +57,7 @@ import ee.ria.xroad.proxy.protocol.ProxyMessage;
 import ee.ria.xroad.proxy.protocol.ProxyMessageDecoder;
 import ee.ria.xroad.proxy.protocol.ProxyMessageEncoder;
 import ee.ria.xroad.proxy.util.MessageProcessorBase;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ArrayUtils;
@@ -246,7 +247,9 @@ class ServerMessageProcessor extends MessageProcessorBase {
         }
 
         if (handler.shouldVerifyAccess()) {
+            long start = stageTimer.start();
             verifyAccess();
+            stageTimer.stop(Stage.SERVERCONF, start);
         }
 
         if (handler.shouldVerifySignature()) {
@@ -258,7 +261,13 @@ class ServerMessageProcessor extends MessageProcessorBase {
         }
 
         try {
-            handler.startHandling(servletRequest, requestMessage, opMonitorHttpClient, opMonitoringData);
+            long start = stageTimer.start();
+            try {
+                handler.startHandling(servletRequest, requestMessage, opMonitorHttpClient, opMonitoringData);
+            } finally {
+                stageTimer.stop(Stage.REMOTE, start);
+            }
+
             parseResponse(handler);
         } finally {
             handler.finishHandling();
@@ -278,23 +287,32 @@ class ServerMessageProcessor extends MessageProcessorBase {
 
                 requestServiceId = soapMessage.getService();
 
+                long start = stageTimer.start();
                 verifySecurityServer();
                 verifyClientStatus();
+                stageTimer.stopWithin(Stage.PARSE, Stage.SERVERCONF, start);
 
+                start = stageTimer.start();
                 responseSigningCtx = KeyConf.getSigningCtx(requestServiceId.getClientId());
+                stageTimer.stopWithin(Stage.PARSE, Stage.SIGNING_CONTEXT, start);
 
                 if (SystemProperties.isSslEnabled()) {
+                    start = stageTimer.start();
                     verifySslClientCert();
+                    stageTimer.stopWithin(Stage.PARSE, Stage.VERIFY, start);
                 }
             }
         };
 
         decoder = new ProxyMessageDecoder(requestMessage, servletRequest.getContentType(), false,
                 getHashAlgoId(servletRequest));
+        long parseStart = stageTimer.start();
         try {
             decoder.parse(servletRequest.getInputStream());
         } catch (CodedException e) {
             throw e.withPrefix(X_SERVICE_FAILED_X);
+        } finally {
+            stageTimer.stop(Stage.PARSE, parseStart);
         }
 
         updateOpMonitoringDataByRequest();
@@ -428,20 +446,26 @@ class ServerMessageProcessor extends MessageProcessorBase {
     private void verifySignature() throws Exception {
         log.trace("verifySignature()");
 
+        long start = stageTimer.start();
         decoder.verify(requestMessage.getSoap().getClient(), requestMessage.getSignature());
+        stageTimer.stop(Stage.VERIFY, start);
     }
 
     private void logRequestMessage() throws Exception {
         log.trace("logRequestMessage()");
 
+        long start = stageTimer.start();
         MessageLog.log(requestMessage.getSoap(), requestMessage.getSignature(), false, xRequestId);
+        stageTimer.stop(Stage.MESSAGELOG, start);
     }
 
     private void logResponseMessage() throws Exception {
         if (responseSoap != null && encoder != null) {
             log.trace("logResponseMessage()");
 
+            long start = stageTimer.start();
             MessageLog.log(responseSoap, encoder.getSignature(), false, xRequestId);
+            stageTimer.stop(Stage.MESSAGELOG, start);
         }
     }
 
@@ -478,12 +502,15 @@ class ServerMessageProcessor extends MessageProcessorBase {
         // Preserve the original content type of the service response
         servletResponse.addHeader(HEADER_ORIGINAL_CONTENT_TYPE, handler.getResponseContentType());
 
+        long parseStart = stageTimer.start();
         try (SoapMessageHandler messageHandler = new SoapMessageHandler()) {
             SoapMessageDecoder soapMessageDecoder = new SoapMessageDecoder(handler.getResponseContentType(),
                     messageHandler, new ResponseSoapParserImpl());
             soapMessageDecoder.parse(handler.getResponseContent());
         } catch (Exception ex) {
             throw translateException(ex).withPrefix(X_SERVICE_FAILED_X);
+        } finally {
+            stageTimer.stop(Stage.PARSE, parseStart);
         }
 
         // If we received a fault from the service, we just send it back
@@ -513,7 +540,9 @@ class ServerMessageProcessor extends MessageProcessorBase {
     private void sign() throws Exception {
         log.trace("sign({})", requestServiceId.getClientId());
 
+        long start = stageTimer.start();
         encoder.sign(responseSigningCtx);
+        stageTimer.stop(Stage.SIGN, start);
     }
 
     private void writeSignature() throws Exception {
@@ -37,6 +37,8 @@ import ee.ria.xroad.common.util.PerformanceLogger;
 import ee.ria.xroad.proxy.ProxyMain;
 import ee.ria.xroad.proxy.opmonitoring.OpMonitoring;
 import ee.ria.xroad.proxy.util.MessageProcessorBase;
+import ee.ria.xroad.proxy.util.ProxyMetrics;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -79,6 +81,7 @@ class ServerProxyHandler extends HandlerBase {
         OpMonitoringData opMonitoringData = new OpMonitoringData(PRODUCER, getEpochMillisecond());
 
         long start = PerformanceLogger.log(log, "Received request from " + request.getRemoteAddr());
+        MessageProcessorBase processor = null;
 
         if (!SystemProperties.isServerProxySupportClientsPooledConnections()) {
             // if the header is added, the connections are closed and cannot be reused on the client side
@@ -95,7 +98,7 @@ class ServerProxyHandler extends HandlerBase {
 
             logProxyVersion(request);
             baseRequest.getHttpChannel().setIdleTimeout(idleTimeout);
-            final MessageProcessorBase processor = createRequestProcessor(request, response, opMonitoringData);
+            processor = createRequestProcessor(request, response, opMonitoringData);
             processor.process();
 
             final MessageInfo messageInfo = processor.createRequestMessageInfo();
@@ -117,8 +120,15 @@ class ServerProxyHandler extends HandlerBase {
             baseRequest.setHandled(true);
 
             opMonitoringData.setResponseOutTs(getEpochMillisecond(), false);
+
+            long opMonitoringStart = System.nanoTime();
             OpMonitoring.store(opMonitoringData);
 
+            if (processor != null) {
+                processor.getStageTimer().stop(Stage.OPMONITORING, opMonitoringStart);
+                ProxyMetrics.record(ProxyMetrics.SERVER_PROXY, processor);
+            }
+
             PerformanceLogger.log(log, start, "Request handled");
         }
     }
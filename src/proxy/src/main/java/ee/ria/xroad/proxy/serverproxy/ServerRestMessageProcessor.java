@@ -53,6 +53,7 @@ import ee.ria.xroad.proxy.protocol.ProxyMessage;
 import ee.ria.xroad.proxy.protocol.ProxyMessageDecoder;
 import ee.ria.xroad.proxy.protocol.ProxyMessageEncoder;
 import ee.ria.xroad.proxy.util.MessageProcessorBase;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.input.TeeInputStream;
@@ -240,7 +241,9 @@ class ServerRestMessageProcessor extends MessageProcessorBase {
         }
         log.trace("handler={}", handler);
         if (handler.shouldVerifyAccess()) {
+            long start = stageTimer.start();
             verifyAccess();
+            stageTimer.stop(Stage.SERVERCONF, start);
         }
         if (handler.shouldVerifySignature()) {
             verifySignature();
@@ -248,11 +251,13 @@ class ServerRestMessageProcessor extends MessageProcessorBase {
         if (handler.shouldLogSignature()) {
             logRequestMessage();
         }
+        long start = stageTimer.start();
         try {
             preprocess();
             handler.startHandling(servletRequest, requestMessage, decoder, encoder,
                     httpClient, null, opMonitoringData);
         } finally {
+            stageTimer.stop(Stage.REMOTE, start);
             handler.finishHandling();
             restResponse = handler.getRestResponse();
             restResponseBody = handler.getRestResponseBody();
@@ -267,20 +272,29 @@ class ServerRestMessageProcessor extends MessageProcessorBase {
             public void rest(RestRequest message) throws Exception {
                 super.rest(message);
                 requestServiceId = message.getServiceId();
+                long start = stageTimer.start();
                 verifyClientStatus();
+                stageTimer.stopWithin(Stage.PARSE, Stage.SERVERCONF, start);
+                start = stageTimer.start();
                 responseSigningCtx = KeyConf.getSigningCtx(requestServiceId.getClientId());
+                stageTimer.stopWithin(Stage.PARSE, Stage.SIGNING_CONTEXT, start);
                 if (SystemProperties.isSslEnabled()) {
+                    start = stageTimer.start();
                     verifySslClientCert();
+                    stageTimer.stopWithin(Stage.PARSE, Stage.VERIFY, start);
                 }
             }
         };
 
         decoder = new ProxyMessageDecoder(requestMessage, servletRequest.getContentType(), false,
                 getHashAlgoId(servletRequest));
+        long parseStart = stageTimer.start();
         try {
             decoder.parse(servletRequest.getInputStream());
         } catch (CodedException e) {
             throw e.withPrefix(X_SERVICE_FAILED_X);
+        } finally {
+            stageTimer.stop(Stage.PARSE, parseStart);
         }
 
         updateOpMonitoringDataByRequest();
@@ -376,24 +390,32 @@ class ServerRestMessageProcessor extends MessageProcessorBase {
     private void verifySignature() throws Exception {
         log.trace("verifySignature()");
 
+        long start = stageTimer.start();
         decoder.verify(requestMessage.getRest().getClientId(), requestMessage.getSignature());
+        stageTimer.stop(Stage.VERIFY, start);
     }
 
     private void logRequestMessage() {
         log.trace("logRequestMessage()");
+        long start = stageTimer.start();
         MessageLog.log(requestMessage.getRest(), requestMessage.getSignature(), requestMessage.getRestBody(),
                 false, xRequestId);
+        stageTimer.stop(Stage.MESSAGELOG, start);
     }
 
     private void logResponseMessage() {
         log.trace("log response message");
+        long start = stageTimer.start();
         MessageLog.log(requestMessage.getRest(), restResponse, encoder.getSignature(),
                 restResponseBody == null ? null : restResponseBody.getCachedContents(), false, xRequestId);
+        stageTimer.stop(Stage.MESSAGELOG, start);
     }
 
     private void sign() throws Exception {
         log.trace("sign({})", requestServiceId.getClientId());
+        long start = stageTimer.start();
         encoder.sign(responseSigningCtx);
+        stageTimer.stop(Stage.SIGN, start);
     }
 
     private void writeSignature() throws Exception {
@@ -31,8 +31,8 @@ import ee.ria.xroad.common.util.MimeUtils;
 import ee.ria.xroad.common.util.StartStop;
 import ee.ria.xroad.proxy.conf.KeyConf;
 
+import com.google.common.base.Ticker;
 import lombok.extern.slf4j.Slf4j;
-import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
@@ -50,7 +50,6 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -61,6 +60,9 @@ import java.util.List;
  *
  * To retrieve OCSP responses, send a GET request to this service:
  * http://<host>:<port>/?cert=hash1&cert=hash2&cert=hash3 ...
+ *
+ * The responses of all requested certificates are fetched from the signer with a single request. The encoded
+ * responses are kept in memory for a few seconds, so that repeated requests are answered without the signer.
  */
 @Slf4j
 public class CertHashBasedOcspResponder implements StartStop {
@@ -70,6 +72,9 @@ public class CertHashBasedOcspResponder implements StartStop {
 
     private static final String CERT_PARAM = "cert";
 
+    private final OcspResponseCache ocspResponseCache = new OcspResponseCache(Ticker.systemTicker(),
+            KeyConf::getOcspResponsesByHash);
+
     private final Server server = new Server();
 
     /**
@@ -143,7 +148,7 @@ public class CertHashBasedOcspResponder implements StartStop {
 
     private void doHandleRequest(HttpServletRequest request, HttpServletResponse response) throws Exception {
         String[] hashes = getCertHashes(request);
-        List<OCSPResp> ocspResponses = getOcspResponses(hashes);
+        List<byte[]> ocspResponses = ocspResponseCache.get(hashes);
 
         log.debug("Returning OCSP responses for cert hashes: " + Arrays.toString(hashes));
 
@@ -152,9 +157,9 @@ public class CertHashBasedOcspResponder implements StartStop {
         response.setContentType(MimeUtils.mpRelatedContentType(mpResponse.getBoundary(), MimeTypes.OCSP_RESPONSE));
         response.setStatus(HttpServletResponse.SC_OK);
 
-        for (OCSPResp ocsp : ocspResponses) {
+        for (byte[] ocsp : ocspResponses) {
             mpResponse.startPart(MimeTypes.OCSP_RESPONSE);
-            mpResponse.write(ocsp.getEncoded());
+            mpResponse.write(ocsp);
         }
 
         mpResponse.close();
@@ -190,26 +195,6 @@ public class CertHashBasedOcspResponder implements StartStop {
         }
     }
 
-    private static List<OCSPResp> getOcspResponses(String[] hashes) throws Exception {
-        List<OCSPResp> ocspResponses = new ArrayList<>(hashes.length);
-
-        for (String certHash : hashes) {
-            ocspResponses.add(getOcspResponse(certHash));
-        }
-
-        return ocspResponses;
-    }
-
-    private static OCSPResp getOcspResponse(String certHash) throws Exception {
-        OCSPResp ocsp = KeyConf.getOcspResponse(certHash);
-
-        if (ocsp == null) {
-            throw new Exception("Could not find OCSP response for certificate " + certHash);
-        }
-
-        return ocsp;
-    }
-
     private static String[] getCertHashes(HttpServletRequest request) throws Exception {
         String[] paramValues = request.getParameterValues(CERT_PARAM);
 
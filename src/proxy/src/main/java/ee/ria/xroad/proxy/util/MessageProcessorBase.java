@@ -64,6 +64,9 @@ public abstract class MessageProcessorBase {
     /** The http client instance. */
     protected final HttpClient httpClient;
 
+    /** Times the processing stages of the request. */
+    protected final StageTimer stageTimer = new StageTimer();
+
     protected MessageProcessorBase(HttpServletRequest servletRequest,
             HttpServletResponse servletResponse, HttpClient httpClient) {
         this.servletRequest = servletRequest;
@@ -73,6 +76,13 @@ public abstract class MessageProcessorBase {
         GlobalConf.verifyValidity();
     }
 
+    /**
+     * @return the stage timer of the request being processed
+     */
+    public StageTimer getStageTimer() {
+        return stageTimer;
+    }
+
     /**
      * Returns a new instance of http sender.
      */
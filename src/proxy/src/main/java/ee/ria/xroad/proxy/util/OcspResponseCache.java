@@ -0,0 +1,123 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.util;
+
+import ee.ria.xroad.proxy.conf.KeyConf;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the encoded OCSP responses served by {@link CertHashBasedOcspResponder} in memory for a short while,
+ * keyed by certificate hash. Responses that are not cached are fetched with one request, normally from
+ * {@link KeyConf#getOcspResponsesByHash(List)}.
+ */
+class OcspResponseCache {
+
+    /**
+     * Fetches the OCSP responses of the certificates that are not cached.
+     */
+    @FunctionalInterface
+    interface Fetcher {
+        /**
+         * @param certHashes hashes of the certificates
+         * @return OCSP responses in the same order, null for certificates that have no response
+         * @throws Exception in case of any errors
+         */
+        List<OCSPResp> fetch(List<String> certHashes) throws Exception;
+    }
+
+    static final long EXPIRE_AFTER_WRITE_SECONDS = 10;
+
+    private static final long MAXIMUM_SIZE = 1000;
+
+    private final Cache<String, byte[]> encodedResponses;
+    private final Fetcher fetcher;
+
+    /**
+     * @param ticker time source
+     * @param fetcher fetches the responses that are not cached
+     */
+    OcspResponseCache(Ticker ticker, Fetcher fetcher) {
+        this.fetcher = fetcher;
+        this.encodedResponses = CacheBuilder.newBuilder()
+                .expireAfterWrite(EXPIRE_AFTER_WRITE_SECONDS, TimeUnit.SECONDS)
+                .maximumSize(MAXIMUM_SIZE)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the encoded OCSP responses of the given certificates.
+     * @param hashes hashes of the certificates
+     * @return encoded OCSP responses in the same order as the hashes
+     * @throws Exception if a response could not be found or fetched
+     */
+    List<byte[]> get(String[] hashes) throws Exception {
+        Map<String, byte[]> responses = new HashMap<>(encodedResponses.getAllPresent(Arrays.asList(hashes)));
+
+        List<String> missingHashes = Arrays.stream(hashes)
+                .filter(certHash -> !responses.containsKey(certHash))
+                .distinct()
+                .collect(Collectors.toList());
+
+        if (!missingHashes.isEmpty()) {
+            List<OCSPResp> fetched = fetcher.fetch(missingHashes);
+
+            for (int i = 0; i < missingHashes.size(); i++) {
+                String certHash = missingHashes.get(i);
+                OCSPResp ocsp = fetched.get(i);
+
+                if (ocsp == null) {
+                    throw new Exception("Could not find OCSP response for certificate " + certHash);
+                }
+
+                byte[] encoded = ocsp.getEncoded();
+
+                responses.put(certHash, encoded);
+                encodedResponses.put(certHash, encoded);
+            }
+        }
+
+        List<byte[]> ocspResponses = new ArrayList<>(hashes.length);
+
+        for (String certHash : hashes) {
+            ocspResponses.add(responses.get(certHash));
+        }
+
+        return ocspResponses;
+    }
+}
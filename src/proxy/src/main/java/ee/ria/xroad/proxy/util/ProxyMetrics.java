@@ -0,0 +1,131 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.util;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.monitoring.MessageInfo;
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the metrics collected by the proxy itself. Currently these are the per-stage request processing times
+ * recorded by {@link StageTimer}, named e.g. {@code clientProxy.stage.sign} and {@code serverProxy.stage.total},
+ * with values in microseconds.
+ */
+@Slf4j
+public final class ProxyMetrics {
+
+    public static final String CLIENT_PROXY = "clientProxy";
+    public static final String SERVER_PROXY = "serverProxy";
+
+    static final String TOTAL = "total";
+
+    private static final boolean STAGE_METRICS_ENABLED = SystemProperties.isProxyStageMetricsEnabled();
+    private static final int SAMPLE_INTERVAL = SystemProperties.getProxyStageMetricsSampleInterval();
+
+    private static final MetricRegistry METRICS = new MetricRegistry();
+    private static final Map<String, Histogram[]> STAGE_HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final AtomicLong REQUEST_COUNTER = new AtomicLong();
+
+    private ProxyMetrics() {
+    }
+
+    /**
+     * @return the registry containing the proxy metrics
+     */
+    public static MetricRegistry getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * Updates the stage histograms with the times recorded for a handled request. Every
+     * {@code proxy.stage-metrics-sample-interval}th request is also logged with its full breakdown.
+     * @param proxy {@link #CLIENT_PROXY} or {@link #SERVER_PROXY}
+     * @param processor the processor that handled the request
+     */
+    public static void record(String proxy, MessageProcessorBase processor) {
+        if (!STAGE_METRICS_ENABLED) {
+            return;
+        }
+
+        StageTimer timer = processor.getStageTimer();
+        Histogram[] histograms = STAGE_HISTOGRAMS.computeIfAbsent(proxy, ProxyMetrics::createStageHistograms);
+
+        for (Stage stage : Stage.values()) {
+            if (timer.isRecorded(stage)) {
+                histograms[stage.ordinal()].update(timer.getElapsed(stage, TimeUnit.MICROSECONDS));
+            }
+        }
+
+        long total = timer.getTotalElapsed(TimeUnit.MICROSECONDS);
+        histograms[histograms.length - 1].update(total);
+
+        if (SAMPLE_INTERVAL > 0 && REQUEST_COUNTER.incrementAndGet() % SAMPLE_INTERVAL == 0) {
+            MessageInfo messageInfo = processor.createRequestMessageInfo();
+
+            log.info("Stage times of {} request {} (us): {}", proxy,
+                    messageInfo != null ? messageInfo.getQueryId() : null, formatBreakdown(timer, total));
+        }
+    }
+
+    static String getStageMetricName(String proxy, String stage) {
+        return MetricRegistry.name(proxy, "stage", stage);
+    }
+
+    private static Histogram[] createStageHistograms(String proxy) {
+        Stage[] stages = Stage.values();
+        Histogram[] histograms = new Histogram[stages.length + 1];
+
+        for (Stage stage : stages) {
+            histograms[stage.ordinal()] = METRICS.histogram(getStageMetricName(proxy, stage.getMetricName()));
+        }
+
+        histograms[stages.length] = METRICS.histogram(getStageMetricName(proxy, TOTAL));
+
+        return histograms;
+    }
+
+    private static String formatBreakdown(StageTimer timer, long total) {
+        StringBuilder sb = new StringBuilder();
+
+        for (Stage stage : Stage.values()) {
+            if (timer.isRecorded(stage)) {
+                sb.append(stage.getMetricName()).append('=')
+                        .append(timer.getElapsed(stage, TimeUnit.MICROSECONDS)).append(", ");
+            }
+        }
+
+        return sb.append(TOTAL).append('=').append(total).toString();
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates the time a single request spends in each processing stage. The timer is created together with the
+ * message processor and published to {@link ProxyMetrics} when the request has been handled.
+ * <p>
+ * Stages are timed independently and the same stage may be entered several times (e.g. the message log is written
+ * for both the request and the response). Since the proxies stream messages, stages handled by different threads
+ * may overlap and their sum can exceed the total time.
+ * <p>
+ * Usage:
+ * <pre>
+ * long start = stageTimer.start();
+ * ...
+ * stageTimer.stop(Stage.SIGN, start);
+ * </pre>
+ */
+public final class StageTimer {
+
+    /**
+     * Request processing stages.
+     */
+    public enum Stage {
+        /** Parsing the incoming request and the response received from the other side. */
+        PARSE("parse"),
+        /** Member status, client authentication and access right checks against server configuration. */
+        SERVERCONF("serverConf"),
+        /** Looking up the signing key and certificate of the member. */
+        SIGNING_CONTEXT("signingContext"),
+        /** Signing the message, i.e. the round trip to signer. */
+        SIGN("sign"),
+        /** Opening the connection to the server proxy, including the TLS handshake. */
+        CONNECT("connect"),
+        /** Sending the request to and waiting for the other side (the server proxy or the service). */
+        REMOTE("remote"),
+        /** Verifying the signature of the received message. */
+        VERIFY("verify"),
+        /** Writing the message to the message log. */
+        MESSAGELOG("messageLog"),
+        /** Passing the operational monitoring record to the buffer. */
+        OPMONITORING("opMonitoring");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * @return the name of the stage used in metric names and log messages
+         */
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long created = System.nanoTime();
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+    private final AtomicLongArray counts = new AtomicLongArray(STAGES.length);
+
+    /**
+     * @return the start time of a stage, to be passed to {@link #stop(Stage, long)}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to the stage.
+     * @param stage the stage
+     * @param startNanos value returned by {@link #start()}
+     */
+    public void stop(Stage stage, long startNanos) {
+        add(stage, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to the stage and excludes it from the enclosing stage,
+     * e.g. when the connection is opened or the request is signed while it is being sent.
+     * @param outer the enclosing stage, stopped after this one
+     * @param stage the stage
+     * @param startNanos value returned by {@link #start()}
+     */
+    public void stopWithin(Stage outer, Stage stage, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+
+        add(stage, elapsed);
+        nanos.addAndGet(outer.ordinal(), -elapsed);
+    }
+
+    /**
+     * @param stage the stage
+     * @return whether the stage was entered during the request
+     */
+    public boolean isRecorded(Stage stage) {
+        return counts.get(stage.ordinal()) > 0;
+    }
+
+    /**
+     * @param stage the stage
+     * @param unit time unit of the result
+     * @return the total time spent in the stage
+     */
+    public long getElapsed(Stage stage, TimeUnit unit) {
+        return unit.convert(Math.max(0, nanos.get(stage.ordinal())), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit time unit of the result
+     * @return the time elapsed since the timer was created
+     */
+    public long getTotalElapsed(TimeUnit unit) {
+        return unit.convert(System.nanoTime() - created, TimeUnit.NANOSECONDS);
+    }
+
+    private void add(Stage stage, long elapsed) {
+        nanos.addAndGet(stage.ordinal(), elapsed);
+        counts.incrementAndGet(stage.ordinal());
+    }
+}
@@ -28,18 +28,26 @@ package ee.ria.xroad.proxy.antidos;
 import ee.ria.xroad.common.conf.globalconf.EmptyGlobalConf;
 import ee.ria.xroad.common.conf.globalconf.GlobalConf;
 
+import lombok.extern.slf4j.Slf4j;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
  * Test to verify correct Anti-Dos behavior.
  */
+@Slf4j
 public class AntiDosConnectionManagerTest {
 
     private static final Set<String> KNOWN_ADDRESSES = new HashSet<>();
@@ -157,6 +165,80 @@ public class AntiDosConnectionManagerTest {
         cm.assertEmpty();
     }
 
+    /**
+     * Test to ensure known members are served fairly while connections are
+     * flooding in from several threads.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test(timeout = 60000)
+    public void knownMembersAreServedFairlyUnderConnectionFlood() throws Exception {
+        final int floodThreads = 8;
+        final int connectionsPerThread = 25000;
+        final int memberConnections = 100;
+
+        TestConfiguration conf = new TestConfiguration(5, 1.1);
+
+        TestSystemMetrics sm = new TestSystemMetrics();
+        sm.addLoad(7, 0.1);
+
+        TestConnectionManager cm = createConnectionManager(conf, sm);
+
+        ExecutorService executor = Executors.newFixedThreadPool(floodThreads);
+        List<Future<?>> floods = new ArrayList<>();
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < floodThreads; i++) {
+            final String attacker = "attacker" + i;
+
+            floods.add(executor.submit(() -> {
+                for (int j = 0; j < connectionsPerThread; j++) {
+                    cm.accept(createConnection(attacker));
+                }
+            }));
+        }
+
+        for (Future<?> flood : floods) {
+            flood.get();
+        }
+
+        long acceptNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        int floodConnections = floodThreads * connectionsPerThread;
+
+        log.info("Accepted {} connections in {} ms", floodConnections, acceptNanos / 1_000_000);
+
+        for (int i = 0; i < memberConnections; i++) {
+            cm.accept(createConnection("test1"), createConnection("test2"));
+        }
+
+        // Unknown addresses share one queue, so the members get two thirds
+        // of the connections processed after they have connected
+        int servedMembers = 0;
+        int served = 0;
+
+        while (servedMembers < 2 * memberConnections) {
+            TestSocketChannel next = cm.getNextConnection();
+            served++;
+
+            if (!next.getHostAddress().startsWith("attacker")) {
+                servedMembers++;
+            }
+        }
+
+        assertTrue("members were starved, served " + served, served <= 3 * memberConnections + 1);
+
+        // Every flood connection is delivered exactly once
+        while (served < floodConnections + 2 * memberConnections) {
+            cm.getNextConnection();
+            served++;
+        }
+
+        cm.assertEmpty();
+        assertEquals(floodConnections + 2 * memberConnections, served);
+    }
+
     // ------------------------------------------------------------------------
 
     private static TestConnectionManager createConnectionManager(
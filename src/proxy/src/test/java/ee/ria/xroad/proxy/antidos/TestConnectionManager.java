@@ -42,6 +42,7 @@ class TestConnectionManager
     protected TestSocketChannel getNextConnection()
             throws InterruptedException {
         systemMetrics.next();
+        sampleResources();
 
         return super.getNextConnection();
     }
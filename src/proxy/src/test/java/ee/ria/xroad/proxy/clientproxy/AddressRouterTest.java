@@ -0,0 +1,147 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.clientproxy;
+
+import ee.ria.xroad.common.FakeTicker;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests {@link AddressRouter}
+ */
+public class AddressRouterTest {
+
+    private static final long STALE_AFTER_SECONDS = 60;
+
+    private static final URI FIRST = URI.create("https://127.0.0.1:5500");
+    private static final URI SECOND = URI.create("https://127.0.0.2:5500");
+    private static final URI THIRD = URI.create("https://127.0.0.3:5500");
+    private static final URI[] ALL = new URI[] {FIRST, SECOND, THIRD};
+
+    private FakeTicker ticker;
+    private AddressRouter router;
+
+    @Before
+    public void setUp() {
+        ticker = new FakeTicker();
+        router = new AddressRouter(STALE_AFTER_SECONDS, 100, ticker);
+    }
+
+    @Test
+    public void racesUnknownAddresses() {
+        assertNull(router.route(ALL));
+
+        record(FIRST, 5);
+        record(SECOND, 50);
+        assertNull(router.route(ALL));
+    }
+
+    @Test
+    public void routesToClearlyBestAddress() {
+        record(FIRST, 50);
+        record(SECOND, 5);
+        record(THIRD, 80);
+
+        assertEquals(SECOND, router.route(ALL));
+        assertEquals(SECOND, router.route(new URI[] {THIRD, SECOND, FIRST}));
+    }
+
+    @Test
+    public void racesSingleAddress() {
+        record(FIRST, 5);
+        assertNull(router.route(new URI[] {FIRST}));
+    }
+
+    @Test
+    public void racesCloseScores() {
+        record(FIRST, 10);
+        record(SECOND, 11);
+        record(THIRD, 80);
+
+        assertNull(router.route(ALL));
+    }
+
+    @Test
+    public void racesStaleScores() {
+        record(FIRST, 5);
+        record(SECOND, 50);
+        record(THIRD, 80);
+        assertEquals(FIRST, router.route(ALL));
+
+        ticker.advance(STALE_AFTER_SECONDS + 1, TimeUnit.SECONDS);
+        assertNull(router.route(ALL));
+    }
+
+    @Test
+    public void avoidsFailingAddressUntilFailuresDecay() {
+        record(FIRST, 5);
+        record(SECOND, 50);
+        record(THIRD, 80);
+        router.recordFailure(FIRST);
+
+        assertEquals(SECOND, router.route(ALL));
+
+        // keep the scores fresh while the failure decays
+        for (int i = 0; i < 10; i++) {
+            ticker.advance(AddressRouter.FAILURE_HALF_LIFE_NANOS, TimeUnit.NANOSECONDS);
+            record(SECOND, 50);
+            record(THIRD, 80);
+            router.recordConnect(FIRST, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertEquals(FIRST, router.route(ALL));
+    }
+
+    @Test
+    public void racesWhenAllAddressesFail() {
+        for (URI address : ALL) {
+            router.recordFailure(address);
+        }
+        router.recordFailure(FIRST);
+
+        assertNull(router.route(ALL));
+    }
+
+    @Test
+    public void disabledRouterAlwaysRaces() {
+        router = new AddressRouter(0, 100, ticker);
+        record(FIRST, 5);
+        record(SECOND, 50);
+
+        assertNull(router.route(new URI[] {FIRST, SECOND}));
+    }
+
+    private void record(URI address, long millis) {
+        router.recordConnect(address, TimeUnit.MILLISECONDS.toNanos(millis));
+        router.recordHandshake(address, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
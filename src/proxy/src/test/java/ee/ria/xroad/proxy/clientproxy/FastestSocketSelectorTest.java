@@ -0,0 +1,201 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.clientproxy;
+
+import ee.ria.xroad.proxy.clientproxy.FastestSocketSelector.SocketInfo;
+
+import com.google.common.base.Ticker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static ee.ria.xroad.proxy.clientproxy.FastestConnectionSelectingSSLSocketFactory.closeQuietly;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link FastestSocketSelector} and {@link AddressRouter} against local listeners on several ports.
+ */
+public class FastestSocketSelectorTest {
+
+    private static final int TIMEOUT = 2000;
+
+    private ServerSocket first;
+    private ServerSocket second;
+    private URI firstUri;
+    private URI secondUri;
+    private URI refusingUri;
+    private AddressRouter router;
+
+    @Before
+    public void setUp() throws IOException {
+        final InetAddress localhost = InetAddress.getByName("127.0.0.1");
+        first = new ServerSocket(0, 50, localhost);
+        second = new ServerSocket(0, 50, localhost);
+        first.setSoTimeout(200);
+        second.setSoTimeout(200);
+        firstUri = uri(first.getLocalPort());
+        secondUri = uri(second.getLocalPort());
+
+        try (ServerSocket closed = new ServerSocket(0, 50, localhost)) {
+            refusingUri = uri(closed.getLocalPort());
+        }
+
+        router = new AddressRouter(60, 100, Ticker.systemTicker());
+    }
+
+    @After
+    public void tearDown() {
+        closeQuietly(first);
+        closeQuietly(second);
+    }
+
+    @Test
+    public void raceSkipsRefusingAddress() throws Exception {
+        final FastestSocketSelector selector = new FastestSocketSelector(router);
+        selector.addAll(refusingUri, firstUri);
+
+        final SocketInfo info = selector.select(TIMEOUT);
+        try {
+            assertEquals(firstUri, info.getUri());
+            assertTrue(info.getSocket().isConnected());
+            assertAccepted(first);
+        } finally {
+            closeQuietly(info.getSocket());
+        }
+    }
+
+    @Test
+    public void raceFailsWhenAllAddressesRefuse() {
+        final FastestSocketSelector selector = new FastestSocketSelector(router);
+        selector.addAll(refusingUri, refusingUri.resolve("/other"));
+
+        try {
+            selector.select(TIMEOUT);
+            fail("Expected connection failure");
+        } catch (IOException expected) {
+            // expected
+        }
+        assertTrue(selector.isEmpty());
+    }
+
+    @Test
+    public void racesScoreAllAddressesAndRoutingAvoidsRefusingAddress() throws Exception {
+        final URI[] addresses = new URI[] {refusingUri, firstUri, secondUri};
+        final FastestSocketSelector selector = new FastestSocketSelector(router);
+        selector.addAll(addresses);
+
+        final SocketInfo info = selector.select(TIMEOUT);
+        closeQuietly(info.getSocket());
+        assertFalse(refusingUri.equals(info.getUri()));
+
+        // wait for the losing attempt to be scored
+        Thread.sleep(SharedConnectSelector.PROBE_AFTER_WIN_MILLIS + 200);
+
+        final URI routed = router.route(addresses);
+        // the healthy addresses may be too close to call, but the refusing one is never picked
+        assertFalse(refusingUri.equals(routed));
+    }
+
+    @Test
+    public void routedConnectionDoesNotTouchOtherAddresses() throws Exception {
+        router.recordConnect(firstUri, TimeUnit.MILLISECONDS.toNanos(1));
+        router.recordHandshake(firstUri, TimeUnit.MILLISECONDS.toNanos(1));
+        router.recordConnect(secondUri, TimeUnit.MILLISECONDS.toNanos(50));
+        router.recordHandshake(secondUri, TimeUnit.MILLISECONDS.toNanos(50));
+
+        final URI routed = router.route(new URI[] {secondUri, firstUri});
+        assertEquals(firstUri, routed);
+
+        final FastestSocketSelector selector = new FastestSocketSelector(router);
+        selector.add(routed);
+        final SocketInfo info = selector.select(TIMEOUT);
+        try {
+            assertEquals(firstUri, info.getUri());
+            assertAccepted(first);
+            assertNotAccepted(second);
+        } finally {
+            closeQuietly(info.getSocket());
+        }
+    }
+
+    @Test
+    public void concurrentRacesShareSelector() throws Exception {
+        final int races = 20;
+        final Thread[] threads = new Thread[races];
+        final SocketInfo[] results = new SocketInfo[races];
+        for (int i = 0; i < races; i++) {
+            final int index = i;
+            threads[i] = new Thread(() -> {
+                final FastestSocketSelector selector = new FastestSocketSelector(router);
+                selector.addAll(refusingUri, firstUri, secondUri);
+                try {
+                    results[index] = selector.select(TIMEOUT);
+                } catch (IOException e) {
+                    results[index] = null;
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (SocketInfo result : results) {
+            assertNotNull(result);
+            assertFalse(refusingUri.equals(result.getUri()));
+            closeQuietly(result.getSocket());
+        }
+    }
+
+    private static URI uri(int port) {
+        return URI.create("https://127.0.0.1:" + port);
+    }
+
+    private static void assertAccepted(ServerSocket server) throws IOException {
+        try (Socket accepted = server.accept()) {
+            assertNotNull(accepted);
+        }
+    }
+
+    private static void assertNotAccepted(ServerSocket server) throws IOException {
+        try (Socket accepted = server.accept()) {
+            fail("Unexpected connection from " + accepted.getRemoteSocketAddress());
+        } catch (SocketTimeoutException expected) {
+            // expected
+        }
+    }
+}
@@ -25,19 +25,18 @@ package ee.ria.xroad.proxy.conf;
 import ee.ria.xroad.common.conf.serverconf.ServerConf;
 import ee.ria.xroad.common.identifier.ClientId;
 import ee.ria.xroad.common.identifier.SecurityServerId;
-import ee.ria.xroad.common.util.FileContentChangeChecker;
 import ee.ria.xroad.proxy.testsuite.EmptyServerConf;
 
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -60,8 +59,6 @@ public class CachingKeyConfImplTest {
     // some duplicates for more readability
     private static final BooleanSupplier ALWAYS_TRUE = () -> true;
     private static final BooleanSupplier ALWAYS_FALSE = () -> false;
-    private static final BooleanSupplier CHANGED_KEY_CONF = ALWAYS_TRUE;
-    private static final BooleanSupplier UNCHANGED_KEY_CONF = ALWAYS_FALSE;
     private static final BooleanSupplier VALID_AUTH_KEY = ALWAYS_TRUE;
     private static final BooleanSupplier INVALID_AUTH_KEY = ALWAYS_FALSE;
     private static final BooleanSupplier VALID_SIGNING_INFO = ALWAYS_TRUE;
@@ -90,7 +87,7 @@ public class CachingKeyConfImplTest {
         // first read keys from cache with 5 threads, key conf is not changing
         // should cause 3 cache refreshes (1 per client)
         doConcurrentSigningInfoReads(callsToGetInfo, clients,
-                UNCHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, 5, NO_DELAY);
+                VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, 5, NO_DELAY);
         expectedCacheHits = expectedCacheHits + 3;
         assertEquals(expectedCacheHits, callsToGetInfo.get());
 
@@ -110,60 +107,73 @@ public class CachingKeyConfImplTest {
             }
         };
         doConcurrentSigningInfoReads(callsToGetInfo, clients,
-                UNCHANGED_KEY_CONF, VALID_AUTH_KEY, suddenlyInvalid, 5, 5, NO_DELAY);
+                VALID_AUTH_KEY, suddenlyInvalid, 5, 5, NO_DELAY);
         expectedCacheHits = expectedCacheHits + 4;
         assertEquals(expectedCacheHits, callsToGetInfo.get());
 
-        // if we read with 5 threads, and key conf is always changed, what can happen:
-        // - all threads check "keyConfHasChanged()" at the same time,
-        // and invalidate caches at the same time -> only one extra hit
-        // - thread 1 checks "keyConfHasChanged()", reads value and causes extra hit,
-        // next thread 2 checks and causes extra hit, ... -> five extra hits
-        // - some combination between those two
-        doConcurrentAuthKeyReads(callsToGetInfo,
-                CHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
-        int expectedMinimumCacheHits = expectedCacheHits + 1;
-        int expectedMaximumCacheHits = expectedCacheHits + 5;
-        assertThat(callsToGetInfo.get(), allOf(
-                greaterThanOrEqualTo(expectedMinimumCacheHits),
-                lessThanOrEqualTo(expectedMaximumCacheHits)));
-        log.debug("total cache hits: {}", callsToGetInfo.get());
+        // refreshing reloads each cached item once, later reads are served from the cache
+        new TestCachingKeyConfImpl(callsToGetInfo, VALID_AUTH_KEY, VALID_SIGNING_INFO, NO_DELAY).reloadCaches();
+        expectedCacheHits = expectedCacheHits + 3;
+        assertEquals(expectedCacheHits, callsToGetInfo.get());
+
+        doConcurrentSigningInfoReads(callsToGetInfo, clients,
+                VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, 5, NO_DELAY);
+        assertEquals(expectedCacheHits, callsToGetInfo.get());
     }
 
     @Test(timeout = 5000)
-    public void testAuthKeyReadsWithChangedKeyConf() throws Exception {
+    public void testAuthKeyReadsWithRefresh() throws Exception {
         CachingKeyConfImpl.invalidateCaches();
         AtomicInteger callsToGetAuthKeyInfo = new AtomicInteger(0);
         int expectedCacheHits = 0;
-        // first read keys from cache with 5 threads, key conf is not changing
+        // first read keys from cache with 5 threads
         // should cause 1 cache refresh
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                UNCHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
+                VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
         expectedCacheHits = expectedCacheHits + 1;
         assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
 
-        // next read one key, but this time key conf has changed -> one more hit
-        doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                CHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, NO_LOOPING, NO_LOOPING, NO_DELAY);
+        // key conf has changed and the caches are refreshed -> one more hit
+        new TestCachingKeyConfImpl(callsToGetAuthKeyInfo, VALID_AUTH_KEY, VALID_SIGNING_INFO, NO_DELAY)
+                .reloadCaches();
         expectedCacheHits = expectedCacheHits + 1;
         assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
 
-        // if we read with 5 threads, and key conf is always changed, what can happen:
-        // - all threads check "keyConfHasChanged()" at the same time,
-        // and invalidate caches at the same time -> only one extra hit
-        // - thread 1 checks "keyConfHasChanged()", reads value and causes extra hit,
-        // next thread 2 checks and causes extra hit, ... -> five extra hits
-        // - some combination between those two
+        // reads after the refresh are served from the cache
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                CHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
-        int expectedMinimumCacheHits = expectedCacheHits + 1;
-        int expectedMaximumCacheHits = expectedCacheHits + 5;
-        log.debug("total cache hits: {}", callsToGetAuthKeyInfo.get());
-        assertThat(callsToGetAuthKeyInfo.get(), allOf(
-                greaterThanOrEqualTo(expectedMinimumCacheHits),
-                lessThanOrEqualTo(expectedMaximumCacheHits)));
+                VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
+        assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
     }
 
+    @Test(timeout = 5000)
+    public void testRefreshDoesNotBlockReads() throws Exception {
+        CachingKeyConfImpl.invalidateCaches();
+        AtomicInteger callsToGetInfo = new AtomicInteger(0);
+        ClientId client = ClientId.create("FI", "GOV", "1");
+        TestCachingKeyConfImpl keyConf = new TestCachingKeyConfImpl(
+                callsToGetInfo, VALID_AUTH_KEY, VALID_SIGNING_INFO, NO_DELAY);
+
+        keyConf.getSigningCtx(client);
+        keyConf.getAuthKey();
+        assertEquals(2, callsToGetInfo.get());
+
+        // the signer is slow to answer, but cached values are served meanwhile
+        keyConf.loadGate = new CountDownLatch(1);
+        keyConf.refresh();
+
+        for (int i = 0; i < 10; i++) {
+            keyConf.getSigningCtx(client);
+            keyConf.getAuthKey();
+        }
+
+        keyConf.loadGate.countDown();
+
+        while (callsToGetInfo.get() < 4) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(4, callsToGetInfo.get());
+    }
 
     @Test(timeout = 5000)
     public void testCachedAuthKeyIsInvalid() throws Exception {
@@ -177,14 +187,14 @@ public class CachingKeyConfImplTest {
         // first read keys from cache with 5 threads,
         // should cause 1 initial read and 1 cache refresh
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                UNCHANGED_KEY_CONF, keyValidity, VALID_SIGNING_INFO, 5, NO_LOOPING, NO_DELAY);
+                keyValidity, VALID_SIGNING_INFO, 5, NO_LOOPING, NO_DELAY);
         expectedCacheHits = expectedCacheHits + 1;
         assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
 
         // next read one key, but this time key is not valid -> one more hit
         keyValidity.setValue(false);
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                UNCHANGED_KEY_CONF, keyValidity, VALID_SIGNING_INFO, 1, NO_LOOPING, NO_DELAY);
+                keyValidity, VALID_SIGNING_INFO, 1, NO_LOOPING, NO_DELAY);
         expectedCacheHits = expectedCacheHits + 1;
         assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
 
@@ -195,7 +205,7 @@ public class CachingKeyConfImplTest {
         // next thread 2 checks and causes extra hit, ... -> five extra hits
         // - some combination between those two
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                UNCHANGED_KEY_CONF, keyValidity, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
+                keyValidity, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
         int expectedMinimumCacheHits = expectedCacheHits + 1;
         int expectedMaximumCacheHits = expectedCacheHits + 5;
         log.debug("total cache hits: {}", callsToGetAuthKeyInfo.get());
@@ -212,7 +222,7 @@ public class CachingKeyConfImplTest {
         // first read keys from cache with 5 threads, server id is not changing
         // should cause 1 cache refresh
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                UNCHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
+                VALID_AUTH_KEY, VALID_SIGNING_INFO, 5, NO_LOOPING, 500);
         expectedCacheHits++;
         assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
 
@@ -224,7 +234,7 @@ public class CachingKeyConfImplTest {
             }
         });
         doConcurrentAuthKeyReads(callsToGetAuthKeyInfo,
-                UNCHANGED_KEY_CONF, VALID_AUTH_KEY, VALID_SIGNING_INFO, 1, 2, NO_DELAY);
+                VALID_AUTH_KEY, VALID_SIGNING_INFO, 1, 2, NO_DELAY);
         expectedCacheHits++;
         assertEquals(expectedCacheHits, callsToGetAuthKeyInfo.get());
     }
@@ -245,7 +255,6 @@ public class CachingKeyConfImplTest {
     /**
      * Test signing info reads from cache concurrently with 1..n threads
      * @param dataRefreshes       counter for cache refreshes
-     * @param keyConfHasChanged   tells if key conf has changed
      * @param authKeyIsValid      tells if key is valid (only set for new items added to cache)
      * @param signingInfoIsValid  tells if signing info is valid
      * @param concurrentThreads   how many threads read from cache
@@ -254,7 +263,6 @@ public class CachingKeyConfImplTest {
      */
     private void doConcurrentSigningInfoReads(AtomicInteger dataRefreshes,
             List<ClientId> clients,
-            BooleanSupplier keyConfHasChanged,
             BooleanSupplier authKeyIsValid,
             BooleanSupplier signingInfoIsValid,
             int concurrentThreads,
@@ -264,7 +272,6 @@ public class CachingKeyConfImplTest {
 
         final TestCachingKeyConfImpl testCachingKeyConf = new TestCachingKeyConfImpl(
                 dataRefreshes,
-                keyConfHasChanged,
                 authKeyIsValid,
                 signingInfoIsValid,
                 slowCacheReadTimeMs);
@@ -288,7 +295,6 @@ public class CachingKeyConfImplTest {
     /**
      * Test auth key reads from cache concurrently with 1..n threads
      * @param dataRefreshes       counter for cache refreshes
-     * @param keyConfHasChanged   tells if key conf has changed
      * @param authKeyIsValid      tells if key is valid (only set for new items added to cache)
      * @param signingInfoIsValid  tells if signing info is valid
      * @param concurrentThreads   how many threads read from cache
@@ -296,7 +302,6 @@ public class CachingKeyConfImplTest {
      * @param slowCacheReadTimeMs how much cache refresh is slowed
      */
     private void doConcurrentAuthKeyReads(AtomicInteger dataRefreshes,
-            BooleanSupplier keyConfHasChanged,
             BooleanSupplier authKeyIsValid,
             BooleanSupplier signingInfoIsValid,
             int concurrentThreads,
@@ -306,7 +311,6 @@ public class CachingKeyConfImplTest {
 
         final TestCachingKeyConfImpl testCachingKeyConf = new TestCachingKeyConfImpl(
                 dataRefreshes,
-                keyConfHasChanged,
                 authKeyIsValid,
                 signingInfoIsValid,
                 slowCacheReadTimeMs);
@@ -350,46 +354,32 @@ public class CachingKeyConfImplTest {
     }
 
     /**
-     * Test cache implementation that allows for controlling key conf validity,
-     * auth key validity, and cache refresh delay
+     * Test cache implementation that allows for controlling auth key validity,
+     * signing info validity, and cache refresh delay
      */
     private class TestCachingKeyConfImpl extends CachingKeyConfImpl {
         final AtomicInteger dataRefreshes;
-        final BooleanSupplier keyConfHasChanged;
         final BooleanSupplier authKeyIsValid;
         final BooleanSupplier signingInfoIsValid;
         final int cacheReadDelayMs;
+        volatile CountDownLatch loadGate;
 
         TestCachingKeyConfImpl(AtomicInteger dataRefreshes,
-                BooleanSupplier keyConfHasChanged,
                 BooleanSupplier authKeyIsValid,
                 BooleanSupplier signingInfoIsValid,
                 int cacheReadDelayMs
         ) throws Exception {
             this.dataRefreshes = dataRefreshes;
-            this.keyConfHasChanged = keyConfHasChanged;
             this.authKeyIsValid = authKeyIsValid;
             this.signingInfoIsValid = signingInfoIsValid;
             this.cacheReadDelayMs = cacheReadDelayMs;
         }
 
-        @Override
-        protected FileContentChangeChecker getKeyConfChangeChecker() throws Exception {
-            return new FileContentChangeChecker("dummyFileName") {
-                @Override
-                protected String calculateConfFileChecksum(File file) throws Exception {
-                    return "dummyChecksum";
-                }
-
-                @Override
-                public boolean hasChanged() throws Exception {
-                    log.debug("asking if key conf has changed, answer: " + keyConfHasChanged.getAsBoolean());
-                    return keyConfHasChanged.getAsBoolean();
-                }
-            };
-        }
-
         private void delay(long delayMs) throws Exception {
+            CountDownLatch gate = loadGate;
+            if (gate != null) {
+                gate.await();
+            }
             if (cacheReadDelayMs > 0) {
                 log.debug("simulating a slow read");
                 Thread.currentThread().sleep(delayMs);
@@ -0,0 +1,151 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.conf;
+
+import ee.ria.xroad.proxy.testsuite.EmptyKeyConf;
+
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static ee.ria.xroad.common.util.CryptoUtils.encodeBase64;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests fetching OCSP responses of several certificates by their hashes.
+ */
+public class KeyConfOcspResponsesTest {
+
+    private KeyConfProvider originalKeyConf;
+
+    @Before
+    public void saveKeyConf() {
+        originalKeyConf = KeyConf.getInstance();
+    }
+
+    @After
+    public void restoreKeyConf() {
+        KeyConf.reload(originalKeyConf);
+    }
+
+    @Test
+    public void getOcspResponsesByHashReturnsNullsForMissingResponses() throws Exception {
+        OCSPResp first = ocspResponse(OCSPRespBuilder.TRY_LATER);
+        OCSPResp second = ocspResponse(OCSPRespBuilder.INTERNAL_ERROR);
+
+        BatchKeyConf keyConf = new BatchKeyConf();
+        keyConf.responses.put("hash1", first);
+        keyConf.responses.put("hash3", second);
+        KeyConf.reload(keyConf);
+
+        List<OCSPResp> responses = KeyConf.getOcspResponsesByHash(Arrays.asList("hash1", "hash2", "hash3"));
+
+        assertEquals(3, responses.size());
+        assertEquals(first, responses.get(0));
+        assertNull(responses.get(1));
+        assertEquals(second, responses.get(2));
+        assertEquals(1, keyConf.batches.size());
+        assertEquals(Arrays.asList("hash1", "hash2", "hash3"), keyConf.batches.get(0));
+    }
+
+    @Test
+    public void providerWithoutBatchLookupFallsBackToSingleLookups() throws Exception {
+        OCSPResp first = ocspResponse(OCSPRespBuilder.TRY_LATER);
+
+        SingleKeyConf keyConf = new SingleKeyConf();
+        keyConf.responses.put("hash1", first);
+        KeyConf.reload(keyConf);
+
+        List<OCSPResp> responses = KeyConf.getOcspResponsesByHash(Arrays.asList("hash2", "hash1"));
+
+        assertEquals(2, responses.size());
+        assertNull(responses.get(0));
+        assertEquals(first, responses.get(1));
+        assertEquals(Arrays.asList("hash2", "hash1"), keyConf.lookups);
+    }
+
+    @Test
+    public void signerResponsesAreDecodedInOrder() throws Exception {
+        OCSPResp first = ocspResponse(OCSPRespBuilder.TRY_LATER);
+        OCSPResp second = ocspResponse(OCSPRespBuilder.UNAUTHORIZED);
+
+        List<OCSPResp> responses = KeyConfImpl.decodeOcspResponses(new String[] {
+            encodeBase64(first.getEncoded()), null, encodeBase64(second.getEncoded())});
+
+        assertEquals(3, responses.size());
+        assertArrayEquals(first.getEncoded(), responses.get(0).getEncoded());
+        assertNull(responses.get(1));
+        assertArrayEquals(second.getEncoded(), responses.get(2).getEncoded());
+    }
+
+    private static OCSPResp ocspResponse(int status) throws Exception {
+        return new OCSPRespBuilder().build(status, null);
+    }
+
+    private static class BatchKeyConf extends EmptyKeyConf {
+        final Map<String, OCSPResp> responses = new HashMap<>();
+        final List<List<String>> batches = new ArrayList<>();
+
+        @Override
+        public OCSPResp getOcspResponse(String certHash) {
+            throw new AssertionError("Unexpected single lookup of " + certHash);
+        }
+
+        @Override
+        public List<OCSPResp> getOcspResponsesByHash(List<String> certHashes) {
+            batches.add(new ArrayList<>(certHashes));
+
+            List<OCSPResp> result = new ArrayList<>();
+            for (String certHash : certHashes) {
+                result.add(responses.get(certHash));
+            }
+
+            return result;
+        }
+    }
+
+    private static class SingleKeyConf extends EmptyKeyConf {
+        final Map<String, OCSPResp> responses = new HashMap<>();
+        final List<String> lookups = new ArrayList<>();
+
+        @Override
+        public OCSPResp getOcspResponse(String certHash) {
+            lookups.add(certHash);
+
+            return responses.get(certHash);
+        }
+    }
+}
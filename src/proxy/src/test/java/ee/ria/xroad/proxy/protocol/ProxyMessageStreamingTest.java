@@ -0,0 +1,262 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.protocol;
+
+import ee.ria.xroad.common.message.RestMessage;
+import ee.ria.xroad.common.message.RestRequest;
+import ee.ria.xroad.common.message.SoapFault;
+import ee.ria.xroad.common.message.SoapMessageImpl;
+import ee.ria.xroad.common.signature.SignatureData;
+import ee.ria.xroad.common.util.CryptoUtils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.http.message.BasicHeader;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.operator.DigestCalculator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static ee.ria.xroad.common.util.CryptoUtils.createDigestCalculator;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streams a large REST body through the proxy message encoder and decoder and checks that the body is copied
+ * once on each side and never held in memory as a whole.
+ */
+@Slf4j
+public class ProxyMessageStreamingTest {
+
+    private static final long BODY_SIZE = 32L * 1024 * 1024;
+    private static final int PIPE_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final long MAX_ENCODING_OVERHEAD = 8 * 1024;
+
+    private static final String HASH_ALGO_ID = CryptoUtils.DEFAULT_DIGEST_ALGORITHM_ID;
+
+    /**
+     * Test to ensure that a large REST body is streamed from the encoder to the decoder.
+     * @throws Exception in case of any unexpected errors
+     */
+    @Test
+    public void largeRestBodyIsStreamed() throws Exception {
+        PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+        CountingOutputStream out = new CountingOutputStream(new PipedOutputStream(in));
+        ProxyMessageEncoder encoder = new ProxyMessageEncoder(out, HASH_ALGO_ID);
+        GeneratedInputStream body = new GeneratedInputStream(BODY_SIZE);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Long> encoding = executor.submit(() -> {
+                long allocatedBefore = allocatedBytes();
+
+                encoder.restRequest(createRequest());
+                encoder.restBody(body);
+                encoder.close();
+
+                return allocatedBytes() - allocatedBefore;
+            });
+
+            BodyConsumer consumer = new BodyConsumer();
+            ProxyMessageDecoder decoder = new ProxyMessageDecoder(consumer, encoder.getContentType(), HASH_ALGO_ID);
+
+            long allocatedBefore = allocatedBytes();
+            decoder.parse(in);
+            long decoderAllocated = allocatedBytes() - allocatedBefore;
+            long encoderAllocated = encoding.get();
+
+            log.info("Streamed {} bytes, encoder allocated {} bytes, decoder allocated {} bytes",
+                    BODY_SIZE, encoderAllocated, decoderAllocated);
+
+            // every byte is read from the source once and written to the wire once
+            assertEquals(BODY_SIZE, body.getBytesRead());
+            assertEquals(BODY_SIZE, consumer.bytesRead);
+            assertTrue("Encoded message is too large: " + out.getByteCount(),
+                    out.getByteCount() < BODY_SIZE + MAX_ENCODING_OVERHEAD);
+
+            byte[] expectedDigest = digestOf(new GeneratedInputStream(BODY_SIZE));
+            assertArrayEquals(expectedDigest, encoder.getRestBodyDigest());
+            assertArrayEquals(expectedDigest, decoder.getRestBodyDigest());
+            assertArrayEquals(expectedDigest, consumer.digest);
+            assertEquals(BODY_SIZE, encoder.getAttachmentsByteCount());
+            assertEquals(BODY_SIZE, decoder.getAttachmentsByteCount());
+
+            // neither side may buffer the body
+            if (encoderAllocated >= 0 && decoderAllocated >= 0) {
+                assertTrue("Encoder allocated " + encoderAllocated + " bytes", encoderAllocated < BODY_SIZE / 2);
+                assertTrue("Decoder allocated " + decoderAllocated + " bytes", decoderAllocated < BODY_SIZE / 2);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static RestRequest createRequest() {
+        return new RestRequest(
+                "POST",
+                String.format("/r%d/EE/GOV/1234/SUB/service", RestMessage.PROTOCOL_VERSION),
+                null,
+                Arrays.asList(
+                        new BasicHeader("X-Road-Client", "EE/GOV/5678/SUB"),
+                        new BasicHeader("X-Road-Id", "42")),
+                "xid");
+    }
+
+    private static byte[] digestOf(InputStream content) throws Exception {
+        DigestCalculator calculator = createDigestCalculator(HASH_ALGO_ID);
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int count;
+
+        while ((count = content.read(buffer)) != -1) {
+            calculator.getOutputStream().write(buffer, 0, count);
+        }
+
+        return calculator.getDigest();
+    }
+
+    /**
+     * @return bytes allocated by the current thread, or -1 if the JVM does not support measuring it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+
+            if (threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled()) {
+                return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Produces deterministic content without holding it in memory.
+     */
+    private static final class GeneratedInputStream extends InputStream {
+        private final long size;
+        private long position = 0;
+
+        GeneratedInputStream(long size) {
+            this.size = size;
+        }
+
+        long getBytesRead() {
+            return position;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? valueAt(position++) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+
+            int count = (int) Math.min(len, size - position);
+
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) valueAt(position++);
+            }
+
+            return count;
+        }
+
+        private static int valueAt(long index) {
+            return (int) ((index * 31 + (index >>> 11)) & 0xFF);
+        }
+    }
+
+    /**
+     * Hashes the received REST body with a reused buffer.
+     */
+    private static final class BodyConsumer implements ProxyMessageConsumer {
+        private long bytesRead;
+        private byte[] digest;
+
+        @Override
+        public void rest(RestRequest message) {
+            // headers only
+        }
+
+        @Override
+        public void restBody(InputStream content) throws Exception {
+            DigestCalculator calculator = createDigestCalculator(HASH_ALGO_ID);
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int count;
+
+            while ((count = content.read(buffer)) != -1) {
+                calculator.getOutputStream().write(buffer, 0, count);
+                bytesRead += count;
+            }
+
+            digest = calculator.getDigest();
+        }
+
+        @Override
+        public void soap(SoapMessageImpl message, Map<String, String> additionalHeaders) {
+            throw new IllegalStateException("Unexpected SOAP message");
+        }
+
+        @Override
+        public void attachment(String contentType, InputStream content, Map<String, String> additionalHeaders)
+                throws IOException {
+            throw new IllegalStateException("Unexpected attachment");
+        }
+
+        @Override
+        public void ocspResponse(OCSPResp resp) {
+            throw new IllegalStateException("Unexpected OCSP response");
+        }
+
+        @Override
+        public void signature(SignatureData signature) {
+            // not sent
+        }
+
+        @Override
+        public void fault(SoapFault fault) {
+            throw new IllegalStateException("Unexpected fault");
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the allocation rate and garbage collection pauses of the JVM running the load test, which hosts both
+ * the client and the server proxy.
+ */
+@Slf4j
+final class JvmMonitor implements NotificationListener {
+
+    private final List<Long> gcPauses = new ArrayList<>();
+    private final Map<Long, Long> allocatedAtStart = new HashMap<>();
+    private long gcTimeAtStart;
+
+    /**
+     * Starts collecting.
+     */
+    void start() {
+        synchronized (gcPauses) {
+            gcPauses.clear();
+        }
+
+        allocatedAtStart.clear();
+        allocatedAtStart.putAll(allocatedBytesPerThread());
+        gcTimeAtStart = totalGcTime();
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    /**
+     * Stops collecting.
+     * @param elapsedNanos length of the measured period
+     * @return statistics of the measured period
+     */
+    Statistics stop(long elapsedNanos) {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) gc).removeNotificationListener(this);
+                } catch (ListenerNotFoundException e) {
+                    log.debug("GC listener was not registered for {}", gc.getName());
+                }
+            }
+        }
+
+        long allocated = 0;
+
+        for (Map.Entry<Long, Long> entry : allocatedBytesPerThread().entrySet()) {
+            allocated += entry.getValue() - allocatedAtStart.getOrDefault(entry.getKey(), 0L);
+        }
+
+        long[] pauses;
+
+        synchronized (gcPauses) {
+            pauses = gcPauses.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        return new Statistics(allocated, elapsedNanos, pauses, totalGcTime() - gcTimeAtStart);
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+
+        synchronized (gcPauses) {
+            gcPauses.add(info.getGcInfo().getDuration());
+        }
+    }
+
+    private static long totalGcTime() {
+        long total = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionTime(), 0);
+        }
+
+        return total;
+    }
+
+    /**
+     * Allocation is measured per live thread, so bytes allocated by threads that terminate during the run are
+     * not counted. The proxies serve requests from thread pools, which makes the loss negligible.
+     */
+    private static Map<Long, Long> allocatedBytesPerThread() {
+        Map<Long, Long> result = new HashMap<>();
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (!(bean instanceof ThreadMXBean)) {
+            return result;
+        }
+
+        ThreadMXBean threadBean = (ThreadMXBean) bean;
+
+        if (!threadBean.isThreadAllocatedMemorySupported() || !threadBean.isThreadAllocatedMemoryEnabled()) {
+            return result;
+        }
+
+        long[] ids = threadBean.getAllThreadIds();
+        long[] allocated = threadBean.getThreadAllocatedBytes(ids);
+
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] >= 0) {
+                result.put(ids[i], allocated[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * JVM statistics of a measured period.
+     */
+    static final class Statistics {
+        final long allocatedBytes;
+        final double allocationRateMBps;
+        final int gcCount;
+        final long gcTimeMillis;
+        final long gcPauseP50Millis;
+        final long gcPauseP99Millis;
+        final long gcPauseMaxMillis;
+
+        Statistics(long allocatedBytes, long elapsedNanos, long[] sortedPauses, long gcTimeMillis) {
+            this.allocatedBytes = allocatedBytes;
+            this.allocationRateMBps = elapsedNanos > 0
+                    ? allocatedBytes / (1024.0 * 1024.0) / (elapsedNanos / 1e9) : 0;
+            this.gcCount = sortedPauses.length;
+            this.gcTimeMillis = gcTimeMillis;
+            this.gcPauseP50Millis = LatencyRecorder.percentile(sortedPauses, 50);
+            this.gcPauseP99Millis = LatencyRecorder.percentile(sortedPauses, 99);
+            this.gcPauseMaxMillis = sortedPauses.length > 0 ? sortedPauses[sortedPauses.length - 1] : 0;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Records request latencies of one load test client. Recorders of all clients are merged once the run is over,
+ * so recording needs no synchronization.
+ */
+final class LatencyRecorder {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private long[] latencies = new long[INITIAL_CAPACITY];
+    private int count;
+
+    void record(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+
+        latencies[count++] = latencyNanos;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @param recorders recorders to merge
+     * @return sorted latencies of all the recorders, in nanoseconds
+     */
+    static long[] merge(Collection<LatencyRecorder> recorders) {
+        int total = 0;
+
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.count;
+        }
+
+        long[] merged = new long[total];
+        int position = 0;
+
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged, position, recorder.count);
+            position += recorder.count;
+        }
+
+        Arrays.sort(merged);
+
+        return merged;
+    }
+
+    /**
+     * @param sorted sorted values
+     * @param percentile percentile, 0..100
+     * @return the value at the given percentile using the nearest-rank method, or 0 if there are no values
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+
+        return sorted[Math.min(Math.max(rank, 1), sorted.length) - 1];
+    }
+}
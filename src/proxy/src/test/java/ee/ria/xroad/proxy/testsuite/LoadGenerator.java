@@ -0,0 +1,288 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.util.MimeTypes;
+import ee.ria.xroad.common.util.MimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a mix of SOAP and REST requests to the client proxy from concurrent clients, each waiting for the
+ * response before sending the next request.
+ */
+@Slf4j
+final class LoadGenerator {
+
+    private static final int REQUEST_TIMEOUT_MILLIS = 60000;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int RESPONSE_HEAD_SIZE = 4096;
+    private static final int MAX_LOGGED_ERRORS = 10;
+
+    private final LoadTestConfig config;
+    private final LoadMessages messages;
+
+    private final String soapUrl = "http://localhost:" + SystemProperties.getClientProxyHttpPort();
+    private final String restUrl = soapUrl + "/r1/EE/BUSINESS/producer/" + LoadMessages.REST_SERVICE
+            + LoadMessages.REST_PATH;
+
+    private final AtomicLong queryIds = new AtomicLong();
+    private final AtomicInteger loggedErrors = new AtomicInteger();
+
+    LoadGenerator(LoadTestConfig config, LoadMessages messages) {
+        this.config = config;
+        this.messages = messages;
+    }
+
+    /**
+     * Runs the warm-up and the measured period.
+     * @return results of the measured period
+     * @throws Exception if the clients could not be run
+     */
+    LoadReport run() throws Exception {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getThreads());
+        connectionManager.setDefaultMaxPerRoute(config.getThreads());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(REQUEST_TIMEOUT_MILLIS)
+                .setSocketTimeout(REQUEST_TIMEOUT_MILLIS)
+                .build();
+
+        try (CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableAutomaticRetries()
+                .build()) {
+            if (config.getWarmupSeconds() > 0) {
+                log.info("Warming up for {} s", config.getWarmupSeconds());
+                runPhase(client, config.getWarmupSeconds());
+            }
+
+            log.info("Measuring for {} s with {} clients", config.getDurationSeconds(), config.getThreads());
+
+            JvmMonitor monitor = new JvmMonitor();
+            monitor.start();
+
+            long start = System.nanoTime();
+            List<Client> clients = runPhase(client, config.getDurationSeconds());
+            long elapsed = System.nanoTime() - start;
+
+            return new LoadReport(config, clients, elapsed, monitor.stop(elapsed));
+        }
+    }
+
+    private List<Client> runPhase(CloseableHttpClient httpClient, int seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        List<Client> clients = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < config.getThreads(); i++) {
+                Client client = new Client(httpClient, deadline, new Random(i));
+                clients.add(client);
+                futures.add(executor.submit(client));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return clients;
+    }
+
+    /**
+     * Kinds of requests sent during the load test.
+     */
+    enum RequestKind {
+        SOAP, SOAP_ATTACHMENT, REST
+    }
+
+    /**
+     * A single load test client.
+     */
+    final class Client implements Runnable {
+        final Map<RequestKind, LatencyRecorder> latencies = new EnumMap<>(RequestKind.class);
+        final Map<RequestKind, Long> errors = new EnumMap<>(RequestKind.class);
+        long requestBytes;
+        long responseBytes;
+
+        private final CloseableHttpClient httpClient;
+        private final long deadline;
+        private final Random random;
+        private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+        Client(CloseableHttpClient httpClient, long deadline, Random random) {
+            this.httpClient = httpClient;
+            this.deadline = deadline;
+            this.random = random;
+
+            for (RequestKind kind : RequestKind.values()) {
+                latencies.put(kind, new LatencyRecorder());
+                errors.put(kind, 0L);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                RequestKind kind = nextKind();
+
+                try {
+                    HttpPost request = createRequest(kind);
+
+                    long start = System.nanoTime();
+                    boolean success = execute(request);
+                    long latency = System.nanoTime() - start;
+
+                    if (success) {
+                        latencies.get(kind).record(latency);
+                    } else {
+                        errors.merge(kind, 1L, Long::sum);
+                    }
+                } catch (Exception e) {
+                    errors.merge(kind, 1L, Long::sum);
+                    logError("{} request failed", kind, e);
+                }
+            }
+        }
+
+        private RequestKind nextKind() {
+            if (random.nextDouble() < config.getRestRatio()) {
+                return RequestKind.REST;
+            }
+
+            return random.nextDouble() < config.getAttachmentRatio() ? RequestKind.SOAP_ATTACHMENT : RequestKind.SOAP;
+        }
+
+        private HttpPost createRequest(RequestKind kind) throws Exception {
+            int payloadSize = config.getPayloadSizes().next(random);
+            int responseSize = config.getResponseSizes().next(random);
+            String queryId = "load-" + queryIds.incrementAndGet();
+
+            HttpPost request;
+            byte[] body;
+            String contentType;
+
+            switch (kind) {
+                case REST:
+                    request = new HttpPost(restUrl + "?" + LoadMessages.RESPONSE_SIZE_PARAM + "=" + responseSize);
+                    request.addHeader(MimeUtils.HEADER_CLIENT_ID, "EE/BUSINESS/consumer");
+                    request.addHeader(MimeUtils.HEADER_REQUEST_ID, queryId);
+                    body = messages.restBody(payloadSize);
+                    contentType = MimeTypes.JSON;
+                    break;
+                case SOAP_ATTACHMENT:
+                    request = new HttpPost(soapUrl);
+                    body = messages.soapRequestWithAttachment(queryId, payloadSize, responseSize);
+                    contentType = LoadMessages.MULTIPART_CONTENT_TYPE;
+                    break;
+                default:
+                    request = new HttpPost(soapUrl);
+                    body = messages.soapRequest(queryId, payloadSize, responseSize);
+                    contentType = MimeTypes.TEXT_XML_UTF8;
+                    break;
+            }
+
+            request.setEntity(new ByteArrayEntity(body, ContentType.parse(contentType)));
+            requestBytes += body.length;
+
+            return request;
+        }
+
+        private boolean execute(HttpPost request) throws Exception {
+            HttpResponse response = httpClient.execute(request);
+            int status = response.getStatusLine().getStatusCode();
+            int headLength = 0;
+            long length = 0;
+
+            if (response.getEntity() != null) {
+                try (InputStream in = response.getEntity().getContent()) {
+                    int count;
+
+                    while ((count = in.read(readBuffer, headLength, readBuffer.length - headLength)) != -1) {
+                        length += count;
+
+                        if (headLength < RESPONSE_HEAD_SIZE) {
+                            headLength = (int) Math.min(length, RESPONSE_HEAD_SIZE);
+                        }
+                    }
+                }
+            }
+
+            responseBytes += length;
+
+            if (status / 100 != 2) {
+                logError("Request to {} failed with HTTP status {}", request.getURI(), status);
+                return false;
+            }
+
+            // the client proxy returns SOAP faults with status 200
+            String head = new String(readBuffer, 0, headLength, StandardCharsets.UTF_8);
+
+            if (head.contains(":Fault>")) {
+                logError("Request to {} failed with fault {}", request.getURI(), head);
+                return false;
+            }
+
+            return true;
+        }
+
+        private void logError(String format, Object... arguments) {
+            if (loggedErrors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                log.warn(format, arguments);
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the load test messages from the test suite query and answer files. The messages are assembled from
+ * pre-encoded fragments, so that the load clients and the service spend as little time as possible on them.
+ */
+final class LoadMessages {
+
+    static final String REST_SERVICE = "restService";
+    static final String REST_PATH = "/items";
+    static final String RESPONSE_SIZE_PARAM = "responseSize";
+
+    static final String ATTACHMENT_BOUNDARY = "xroadLoadTestBoundary";
+    static final String MULTIPART_CONTENT_TYPE =
+            "multipart/related; charset=UTF-8; boundary=" + ATTACHMENT_BOUNDARY;
+
+    private static final String ID_START = "<xroad:id>";
+    private static final String ID_END = "</xroad:id>";
+    private static final String REQUEST_START = "<request>";
+    private static final String ANSWER_START = "<answer>";
+    private static final String ANSWER_END = "</answer>";
+    private static final String RESPONSE_SIZE_START = "<" + RESPONSE_SIZE_PARAM + ">";
+    private static final String RESPONSE_SIZE_END = "</" + RESPONSE_SIZE_PARAM + ">";
+
+    private static final byte[] PADDING_PATTERN =
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] queryBeforeId;
+    private final byte[] queryBeforeBody;
+    private final byte[] queryAfterBody;
+
+    private final byte[] answerBeforeId;
+    private final byte[] answerBeforeBody;
+    private final byte[] answerAfterBody;
+
+    private final Map<Integer, byte[]> paddings = new ConcurrentHashMap<>();
+
+    LoadMessages() throws IOException {
+        String query = read("simple.query");
+        queryBeforeId = bytes(StringUtils.substringBefore(query, ID_START) + ID_START);
+        queryBeforeBody = bytes(ID_END + StringUtils.substringBetween(query, ID_END, REQUEST_START) + REQUEST_START);
+        queryAfterBody = bytes(StringUtils.substringAfter(query, REQUEST_START));
+
+        String answer = read("simple.answer");
+        answerBeforeId = bytes(StringUtils.substringBefore(answer, ID_START) + ID_START);
+        answerBeforeBody = bytes(ID_END + StringUtils.substringBetween(answer, ID_END, ANSWER_START) + ANSWER_START);
+        answerAfterBody = bytes(ANSWER_END + StringUtils.substringAfter(answer, ANSWER_END));
+    }
+
+    /**
+     * @return SOAP request asking for a response of the given size, with the payload inlined in the body
+     */
+    byte[] soapRequest(String queryId, int payloadSize, int responseSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payloadSize + 2048);
+        writeSoapRequest(out, queryId, payloadSize, responseSize);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * @return multipart SOAP request asking for a response of the given size, with the payload as an attachment
+     */
+    byte[] soapRequestWithAttachment(String queryId, int payloadSize, int responseSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payloadSize + 2048);
+
+        out.write(bytes("--" + ATTACHMENT_BOUNDARY + "\r\nContent-Type: text/xml; charset=UTF-8\r\n\r\n"));
+        writeSoapRequest(out, queryId, 0, responseSize);
+        out.write(bytes("\r\n--" + ATTACHMENT_BOUNDARY + "\r\nContent-Type: application/octet-stream\r\n\r\n"));
+        out.write(padding(payloadSize));
+        out.write(bytes("\r\n--" + ATTACHMENT_BOUNDARY + "--\r\n"));
+
+        return out.toByteArray();
+    }
+
+    /**
+     * @return JSON document of roughly the given size
+     */
+    byte[] restBody(int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 16);
+
+        out.write(bytes("{\"data\":\""));
+        out.write(padding(size));
+        out.write(bytes("\"}"));
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes the SOAP response matching the request whose beginning is given.
+     * @param requestHead the first bytes of the request, containing the SOAP header and the requested response size
+     * @param out stream the response is written to
+     */
+    void writeSoapResponse(String requestHead, OutputStream out) throws IOException {
+        out.write(answerBeforeId);
+        out.write(bytes(StringUtils.substringBetween(requestHead, ID_START, ID_END)));
+        out.write(answerBeforeBody);
+        out.write(padding(Integer.parseInt(
+                StringUtils.substringBetween(requestHead, RESPONSE_SIZE_START, RESPONSE_SIZE_END))));
+        out.write(answerAfterBody);
+    }
+
+    private void writeSoapRequest(OutputStream out, String queryId, int payloadSize, int responseSize)
+            throws IOException {
+        out.write(queryBeforeId);
+        out.write(bytes(queryId));
+        out.write(queryBeforeBody);
+        out.write(bytes(RESPONSE_SIZE_START + responseSize + RESPONSE_SIZE_END));
+
+        if (payloadSize > 0) {
+            out.write(bytes("<data>"));
+            out.write(padding(payloadSize));
+            out.write(bytes("</data>"));
+        }
+
+        out.write(queryAfterBody);
+    }
+
+    byte[] padding(int size) {
+        return paddings.computeIfAbsent(size, s -> {
+            byte[] padding = new byte[s];
+
+            for (int i = 0; i < s; i++) {
+                padding[i] = PADDING_PATTERN[i % PADDING_PATTERN.length];
+            }
+
+            return padding;
+        });
+    }
+
+    private static String read(String fileName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(MessageTestCase.QUERIES_DIR, fileName)),
+                StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.proxy.testsuite.LoadGenerator.Client;
+import ee.ria.xroad.proxy.testsuite.LoadGenerator.RequestKind;
+
+import com.google.gson.GsonBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of a load test run. Serialized as is to the JSON report, so that runs can be compared.
+ */
+@Slf4j
+final class LoadReport {
+
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private final Map<String, Latency> latencies = new LinkedHashMap<>();
+    private final double durationSeconds;
+    private final long requests;
+    private final long errors;
+    private final double throughputPerSecond;
+    private final double requestMBps;
+    private final double responseMBps;
+    private final JvmMonitor.Statistics jvm;
+
+    LoadReport(LoadTestConfig config, List<Client> clients, long elapsedNanos, JvmMonitor.Statistics jvm) {
+        parameters.put("threads", config.getThreads());
+        parameters.put("durationSeconds", config.getDurationSeconds());
+        parameters.put("restRatio", config.getRestRatio());
+        parameters.put("attachmentRatio", config.getAttachmentRatio());
+        parameters.put("payloadSizes", config.getPayloadSizes().toString());
+        parameters.put("responseSizes", config.getResponseSizes().toString());
+        parameters.put("messageLog", config.isMessageLogEnabled());
+        parameters.put("opMonitoring", config.isOpMonitoringEnabled());
+
+        List<LatencyRecorder> all = new ArrayList<>();
+        long totalErrors = 0;
+        long totalRequestBytes = 0;
+        long totalResponseBytes = 0;
+
+        for (RequestKind kind : RequestKind.values()) {
+            List<LatencyRecorder> recorders = new ArrayList<>();
+            long kindErrors = 0;
+
+            for (Client client : clients) {
+                recorders.add(client.latencies.get(kind));
+                kindErrors += client.errors.get(kind);
+            }
+
+            all.addAll(recorders);
+            totalErrors += kindErrors;
+            latencies.put(kind.name(), new Latency(LatencyRecorder.merge(recorders), kindErrors));
+        }
+
+        for (Client client : clients) {
+            totalRequestBytes += client.requestBytes;
+            totalResponseBytes += client.responseBytes;
+        }
+
+        Latency total = new Latency(LatencyRecorder.merge(all), totalErrors);
+        latencies.put("ALL", total);
+
+        this.durationSeconds = elapsedNanos / 1e9;
+        this.requests = total.count;
+        this.errors = totalErrors;
+        this.throughputPerSecond = requests / durationSeconds;
+        this.requestMBps = totalRequestBytes / (1024.0 * 1024.0) / durationSeconds;
+        this.responseMBps = totalResponseBytes / (1024.0 * 1024.0) / durationSeconds;
+        this.jvm = jvm;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    void log() {
+        StringBuilder sb = new StringBuilder("Load test results:\n");
+
+        sb.append(String.format("\tparameters: %s%n", parameters));
+        sb.append(String.format("\t%d requests, %d errors in %.1f s, %.1f requests/s, %.1f MB/s in, %.1f MB/s out%n",
+                requests, errors, durationSeconds, throughputPerSecond, requestMBps, responseMBps));
+
+        for (Map.Entry<String, Latency> entry : latencies.entrySet()) {
+            Latency l = entry.getValue();
+            sb.append(String.format("\t%-16s count %8d errors %6d  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms"
+                    + "  max %8.2f ms%n", entry.getKey(), l.count, l.errors, l.p50Millis, l.p99Millis, l.p999Millis,
+                    l.maxMillis));
+        }
+
+        sb.append(String.format("\tallocation %.1f MB/s, %d GCs, %d ms total, pause p50 %d ms, p99 %d ms, max %d ms",
+                jvm.allocationRateMBps, jvm.gcCount, jvm.gcTimeMillis, jvm.gcPauseP50Millis, jvm.gcPauseP99Millis,
+                jvm.gcPauseMaxMillis));
+
+        log.info("{}", sb);
+    }
+
+    void write(String fileName) throws IOException {
+        Path file = Paths.get(fileName);
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(this, writer);
+        }
+
+        log.info("Load test report written to {}", file.toAbsolutePath());
+    }
+
+    /**
+     * Latency percentiles of one kind of request.
+     */
+    static final class Latency {
+        final long count;
+        final long errors;
+        final double p50Millis;
+        final double p99Millis;
+        final double p999Millis;
+        final double maxMillis;
+
+        Latency(long[] sorted, long errors) {
+            this.count = sorted.length;
+            this.errors = errors;
+            this.p50Millis = toMillis(LatencyRecorder.percentile(sorted, 50));
+            this.p99Millis = toMillis(LatencyRecorder.percentile(sorted, 99));
+            this.p999Millis = toMillis(LatencyRecorder.percentile(sorted, 99.9));
+            this.maxMillis = toMillis(sorted.length > 0 ? sorted[sorted.length - 1] : 0);
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.common.util.MimeTypes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The test case in effect during a load test. Every query is allowed and the service answers directly with a
+ * response of the size the client asked for, without the consistency checks of the functional test cases.
+ */
+@Slf4j
+final class LoadTestCase extends MessageTestCase {
+
+    /** The SOAP header and the requested response size are within this many bytes from the start. */
+    private static final int REQUEST_HEAD_SIZE = 4096;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<byte[]> READ_BUFFER = ThreadLocal.withInitial(() -> new byte[READ_BUFFER_SIZE]);
+
+    private final LoadMessages messages;
+    private final AbstractHandler serviceHandler = new LoadServiceHandler();
+
+    LoadTestCase(LoadMessages messages) {
+        this.messages = messages;
+        setId("LoadTest");
+    }
+
+    @Override
+    public AbstractHandler getServiceHandler() {
+        return serviceHandler;
+    }
+
+    private class LoadServiceHandler extends AbstractHandler {
+        @Override
+        public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) throws IOException {
+            try {
+                if (target.startsWith("/" + LoadMessages.REST_SERVICE)) {
+                    handleRest(request, response);
+                } else {
+                    handleSoap(request, response);
+                }
+            } catch (Exception e) {
+                log.error("Load test service failed to handle request {}", target, e);
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+            } finally {
+                baseRequest.setHandled(true);
+            }
+        }
+
+        private void handleSoap(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            String head = readHead(request.getInputStream());
+
+            response.setContentType(MimeTypes.TEXT_XML_UTF8);
+            response.setStatus(HttpServletResponse.SC_OK);
+            messages.writeSoapResponse(head, response.getOutputStream());
+        }
+
+        private void handleRest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            readHead(request.getInputStream());
+
+            String responseSize = request.getParameter(LoadMessages.RESPONSE_SIZE_PARAM);
+
+            response.setContentType(MimeTypes.JSON);
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.getOutputStream().write(messages.restBody(responseSize != null
+                    ? Integer.parseInt(responseSize) : 0));
+        }
+
+        /**
+         * Reads the request to the end and returns its beginning.
+         */
+        private String readHead(InputStream in) throws IOException {
+            byte[] buffer = READ_BUFFER.get();
+            int headLength = 0;
+            int count;
+
+            while ((count = in.read(buffer, headLength, buffer.length - headLength)) != -1) {
+                if (headLength < REQUEST_HEAD_SIZE) {
+                    headLength = Math.min(headLength + count, REQUEST_HEAD_SIZE);
+                }
+            }
+
+            return new String(buffer, 0, headLength, StandardCharsets.UTF_8);
+        }
+    }
+}
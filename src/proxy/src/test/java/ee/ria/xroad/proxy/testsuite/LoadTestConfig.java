@@ -0,0 +1,162 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.proxy.messagelog.MessageLog;
+import ee.ria.xroad.proxy.opmonitoring.OpMonitoring;
+
+import lombok.Getter;
+
+import java.util.Random;
+
+/**
+ * Load test parameters, read from the <code>loadtest.*</code> system properties.
+ */
+@Getter
+final class LoadTestConfig {
+
+    static final String PREFIX = "loadtest.";
+
+    /** Number of concurrent clients. */
+    static final String THREADS = PREFIX + "threads";
+    /** Length of the measured run in seconds. */
+    static final String DURATION = PREFIX + "duration";
+    /** Length of the warm-up run in seconds, not included in the results. */
+    static final String WARMUP = PREFIX + "warmup";
+    /** Share of REST requests, 0..1. The rest are SOAP requests. */
+    static final String REST_RATIO = PREFIX + "rest-ratio";
+    /** Share of SOAP requests that carry an attachment, 0..1. */
+    static final String ATTACHMENT_RATIO = PREFIX + "attachment-ratio";
+    /** Payload size distribution as comma separated size:weight pairs, e.g. 1024:80,65536:15,1048576:5. */
+    static final String PAYLOAD_SIZES = PREFIX + "payload-sizes";
+    /** Response payload size distribution, same format as request payload sizes. */
+    static final String RESPONSE_SIZES = PREFIX + "response-sizes";
+    /** Whether messages are passed to an in-memory message log. */
+    static final String MESSAGELOG = PREFIX + "messagelog";
+    /** Whether operational monitoring data is passed to an in-memory buffer. */
+    static final String OPMONITORING = PREFIX + "opmonitoring";
+    /** File the JSON report is written to. */
+    static final String REPORT_FILE = PREFIX + "report";
+
+    private final int threads = Integer.getInteger(THREADS, 16);
+    private final int durationSeconds = Integer.getInteger(DURATION, 60);
+    private final int warmupSeconds = Integer.getInteger(WARMUP, 10);
+    private final double restRatio = getDouble(REST_RATIO, 0.5);
+    private final double attachmentRatio = getDouble(ATTACHMENT_RATIO, 0.1);
+    private final SizeDistribution payloadSizes =
+            SizeDistribution.parse(System.getProperty(PAYLOAD_SIZES, "1024:80,65536:15,1048576:5"));
+    private final SizeDistribution responseSizes =
+            SizeDistribution.parse(System.getProperty(RESPONSE_SIZES, "1024:90,65536:10"));
+    private final boolean messageLogEnabled = Boolean.getBoolean(MESSAGELOG);
+    private final boolean opMonitoringEnabled = Boolean.getBoolean(OPMONITORING);
+    private final String reportFile = System.getProperty(REPORT_FILE, "build/loadtest-report.json");
+
+    /**
+     * Selects the in-memory message log and operational monitoring implementations if they are enabled and
+     * no other implementation has been configured, so that the run needs no database or monitoring daemon.
+     */
+    void selectLoggingImplementations() {
+        if (messageLogEnabled && System.getProperty(MessageLog.LOG_MANAGER_IMPL_CLASS) == null) {
+            System.setProperty(MessageLog.LOG_MANAGER_IMPL_CLASS, LoadTestLogManager.class.getName());
+        }
+
+        if (opMonitoringEnabled && System.getProperty(OpMonitoring.OP_MONITORING_BUFFER_IMPL_CLASS) == null) {
+            System.setProperty(OpMonitoring.OP_MONITORING_BUFFER_IMPL_CLASS,
+                    LoadTestOpMonitoringBuffer.class.getName());
+        }
+    }
+
+    private static double getDouble(String property, double defaultValue) {
+        String value = System.getProperty(property);
+
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    /**
+     * Weighted discrete distribution of payload sizes.
+     */
+    static final class SizeDistribution {
+        private final int[] sizes;
+        private final int[] cumulativeWeights;
+
+        private SizeDistribution(int[] sizes, int[] cumulativeWeights) {
+            this.sizes = sizes;
+            this.cumulativeWeights = cumulativeWeights;
+        }
+
+        static SizeDistribution parse(String spec) {
+            String[] entries = spec.split(",");
+            int[] sizes = new int[entries.length];
+            int[] cumulativeWeights = new int[entries.length];
+            int total = 0;
+
+            for (int i = 0; i < entries.length; i++) {
+                String[] parts = entries[i].trim().split(":");
+
+                if (parts.length > 2) {
+                    throw new IllegalArgumentException("Invalid size distribution entry: " + entries[i]);
+                }
+
+                int weight = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : 1;
+
+                if (weight <= 0) {
+                    throw new IllegalArgumentException("Size distribution weights must be positive: " + spec);
+                }
+
+                sizes[i] = Integer.parseInt(parts[0].trim());
+                total += weight;
+                cumulativeWeights[i] = total;
+            }
+
+            return new SizeDistribution(sizes, cumulativeWeights);
+        }
+
+        int next(Random random) {
+            int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (value < cumulativeWeights[i]) {
+                    return sizes[i];
+                }
+            }
+
+            return sizes[sizes.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            int previous = 0;
+
+            for (int i = 0; i < sizes.length; i++) {
+                sb.append(i > 0 ? "," : "").append(sizes[i]).append(':').append(cumulativeWeights[i] - previous);
+                previous = cumulativeWeights[i];
+            }
+
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.common.messagelog.AbstractLogManager;
+import ee.ria.xroad.common.messagelog.LogMessage;
+import ee.ria.xroad.common.messagelog.LogRecord;
+import ee.ria.xroad.common.messagelog.RestLogMessage;
+import ee.ria.xroad.common.messagelog.SoapLogMessage;
+import ee.ria.xroad.common.messagelog.TimestampRecord;
+import ee.ria.xroad.common.util.CryptoUtils;
+import ee.ria.xroad.common.util.JobManager;
+
+import org.bouncycastle.operator.DigestCalculator;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static ee.ria.xroad.common.util.CryptoUtils.calculateDigest;
+
+/**
+ * Message log used by the load test when the message log is enabled. Does the in-memory part of the work of
+ * the message log add-on (copying the message text, hashing the signature and reading the REST body), but
+ * stores nothing, so that no database is needed.
+ */
+class LoadTestLogManager extends AbstractLogManager {
+
+    private static final String HASH_ALGO_ID = CryptoUtils.DEFAULT_DIGEST_ALGORITHM_ID;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    LoadTestLogManager(JobManager jobManager) {
+        super(jobManager);
+    }
+
+    @Override
+    protected void log(LogMessage message) throws Exception {
+        calculateDigest(HASH_ALGO_ID, message.getSignature().getSignatureXml().getBytes(StandardCharsets.UTF_8));
+
+        if (message instanceof SoapLogMessage) {
+            ((SoapLogMessage) message).getMessage().getXml();
+        } else if (message instanceof RestLogMessage) {
+            RestLogMessage restMessage = (RestLogMessage) message;
+            restMessage.getMessage().getMessageBytes();
+
+            if (restMessage.getBody() != null) {
+                digest(restMessage.getBody());
+            }
+        }
+    }
+
+    @Override
+    protected LogRecord findByQueryId(String queryId, Date startTime, Date endTime) {
+        return null;
+    }
+
+    @Override
+    protected TimestampRecord timestamp(Long messageRecordId) {
+        return null;
+    }
+
+    private void digest(InputStream body) throws Exception {
+        DigestCalculator calculator = CryptoUtils.createDigestCalculator(HASH_ALGO_ID);
+        OutputStream out = calculator.getOutputStream();
+        int count;
+
+        while ((count = body.read(readBuffer)) != -1) {
+            out.write(readBuffer, 0, count);
+        }
+
+        calculator.getDigest();
+    }
+}
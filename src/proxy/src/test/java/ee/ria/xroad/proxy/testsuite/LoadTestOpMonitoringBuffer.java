@@ -0,0 +1,74 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.common.opmonitoring.AbstractOpMonitoringBuffer;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringData;
+import ee.ria.xroad.common.opmonitoring.OpMonitoringSystemProperties;
+import ee.ria.xroad.common.opmonitoring.StoreOpMonitoringDataRequest;
+import ee.ria.xroad.common.util.JsonUtils;
+
+import com.google.gson.Gson;
+
+/**
+ * Operational monitoring buffer used by the load test when operational monitoring is enabled. Collects the
+ * records and serializes them into store requests like the operational monitoring add-on, but discards the
+ * requests instead of sending them to the monitoring daemon.
+ */
+class LoadTestOpMonitoringBuffer extends AbstractOpMonitoringBuffer {
+
+    private static final Gson GSON = JsonUtils.getSerializer();
+
+    private static final int MAX_RECORDS_IN_MESSAGE =
+            OpMonitoringSystemProperties.getOpMonitorBufferMaxRecordsInMessage();
+
+    private StoreOpMonitoringDataRequest request = new StoreOpMonitoringDataRequest();
+
+    @Override
+    protected void store(OpMonitoringData data) {
+        request.addRecord(data.getData());
+
+        if (request.getRecords().size() >= MAX_RECORDS_IN_MESSAGE) {
+            send();
+        }
+    }
+
+    @Override
+    protected void send() {
+        GSON.toJson(request);
+        request = new StoreOpMonitoringDataRequest();
+    }
+
+    @Override
+    protected void sendingSuccess() {
+        // nothing is sent
+    }
+
+    @Override
+    protected void sendingFailure() {
+        // nothing is sent
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.testsuite;
+
+import ee.ria.xroad.common.SystemProperties;
+import ee.ria.xroad.common.util.StartStop;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Load test program. Starts the client proxy, the server proxy and the test service of the proxy test suite
+ * on this host and drives concurrent SOAP and REST traffic through them, reporting latency percentiles,
+ * throughput, allocation rate and garbage collection pauses.
+ *
+ * The load is configured with the <code>loadtest.*</code> system properties described in
+ * {@link LoadTestConfig}. The report is logged and written as JSON to <code>loadtest.report</code>.
+ */
+@Slf4j
+public final class LoadTestSuite {
+
+    private LoadTestSuite() {
+    }
+
+    /**
+     * Main program entry point.
+     * @param args command-line arguments, not used
+     * @throws Exception in case of any errors
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        config.selectLoggingImplementations();
+
+        ProxyTestSuite.setPropsIfNotSet();
+        ProxyTestSuite.setUp();
+
+        // Load test traffic is plain HTTP between the proxies
+        System.setProperty(SystemProperties.PROXY_SSL_SUPPORT, "false");
+
+        LoadMessages messages = new LoadMessages();
+        ProxyTestSuite.currentTestCase = new LoadTestCase(messages);
+
+        LoadReport report = null;
+
+        try {
+            ProxyTestSuite.initLogging();
+
+            List<StartStop> services = ProxyTestSuite.getDefaultServices();
+
+            for (StartStop service : services) {
+                service.start();
+            }
+
+            try {
+                report = new LoadGenerator(config, messages).run();
+            } finally {
+                for (StartStop service : services) {
+                    service.stop();
+                }
+            }
+
+            report.log();
+            report.write(config.getReportFile());
+        } finally {
+            ProxyTestSuite.tearDown();
+        }
+
+        System.exit(report.getErrors() == 0 ? 0 : 1);
+    }
+}
@@ -102,16 +102,14 @@ public final class ProxyTestSuite {
         startWatchdog();
 
         try {
-            MessageLog.init(actorSystem, jobManager);
-            OpMonitoring.init(actorSystem);
+            initLogging();
 
             runNormalTestCases(normalTestCases);
             runSslTestCases(sslTestCases);
             runIsolatedSslTestCases(isolatedSslTestCases);
 
         } finally {
-            jobManager.stop();
-            Await.ready(actorSystem.terminate(), Duration.Inf());
+            tearDown();
 
             List<MessageTestCase> failed = getFailedTestcases(testCasesToRun);
 
@@ -135,7 +133,7 @@ public final class ProxyTestSuite {
         }
     }
 
-    private static void setPropsIfNotSet() {
+    static void setPropsIfNotSet() {
 
         PropsSolver solver = new PropsSolver();
 
@@ -157,7 +155,7 @@ public final class ProxyTestSuite {
         }
     }
 
-    private static void setUp() throws Exception {
+    static void setUp() throws Exception {
         KeyConf.reload(new TestSuiteKeyConf());
         ServerConf.reload(new TestSuiteServerConf());
         GlobalConf.reload(new TestSuiteGlobalConf());
@@ -175,6 +173,16 @@ public final class ProxyTestSuite {
         }
     }
 
+    static void initLogging() throws Exception {
+        MessageLog.init(actorSystem, jobManager);
+        OpMonitoring.init(actorSystem);
+    }
+
+    static void tearDown() throws Exception {
+        jobManager.stop();
+        Await.ready(actorSystem.terminate(), Duration.Inf());
+    }
+
     private static void runNormalTestCases(List<MessageTestCase> tc) throws Exception {
         if (tc.isEmpty()) {
             return;
@@ -283,7 +291,7 @@ public final class ProxyTestSuite {
         return failed;
     }
 
-    private static List<StartStop> getDefaultServices() throws Exception {
+    static List<StartStop> getDefaultServices() throws Exception {
         clientProxy = new ClientProxy();
         // listen at localhost to let dummy proxy listen at 127.0.0.2
         serverProxy = new ServerProxy("127.0.0.1");
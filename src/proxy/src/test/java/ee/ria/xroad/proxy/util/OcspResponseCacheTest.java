@@ -0,0 +1,116 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.util;
+
+import ee.ria.xroad.common.FakeTicker;
+
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link OcspResponseCache}
+ */
+public class OcspResponseCacheTest {
+
+    private FakeTicker ticker;
+    private OcspResponseCache cache;
+    private TestFetcher fetcher;
+
+    @Before
+    public void setUp() throws Exception {
+        ticker = new FakeTicker();
+        fetcher = new TestFetcher();
+        fetcher.responses.put("hash1", new OCSPRespBuilder().build(OCSPRespBuilder.TRY_LATER, null));
+        fetcher.responses.put("hash2", new OCSPRespBuilder().build(OCSPRespBuilder.INTERNAL_ERROR, null));
+        cache = new OcspResponseCache(ticker, fetcher);
+    }
+
+    @Test
+    public void missingResponsesAreFetchedWithOneRequest() throws Exception {
+        cache.get(new String[] {"hash1"});
+
+        List<byte[]> responses = cache.get(new String[] {"hash2", "hash1", "hash2"});
+
+        assertEquals(3, responses.size());
+        assertArrayEquals(encoded("hash2"), responses.get(0));
+        assertArrayEquals(encoded("hash1"), responses.get(1));
+        assertArrayEquals(encoded("hash2"), responses.get(2));
+        assertEquals(Arrays.asList(singletonList("hash1"), singletonList("hash2")), fetcher.batches);
+    }
+
+    @Test
+    public void cachedResponsesExpire() throws Exception {
+        cache.get(new String[] {"hash1"});
+        ticker.advance(OcspResponseCache.EXPIRE_AFTER_WRITE_SECONDS - 1, TimeUnit.SECONDS);
+        cache.get(new String[] {"hash1"});
+
+        assertEquals(1, fetcher.batches.size());
+
+        ticker.advance(1, TimeUnit.SECONDS);
+        cache.get(new String[] {"hash1"});
+
+        assertEquals(2, fetcher.batches.size());
+    }
+
+    @Test(expected = Exception.class)
+    public void unknownCertificateIsRejected() throws Exception {
+        cache.get(new String[] {"hash1", "unknown"});
+    }
+
+    private byte[] encoded(String certHash) throws Exception {
+        return fetcher.responses.get(certHash).getEncoded();
+    }
+
+    private static class TestFetcher implements OcspResponseCache.Fetcher {
+        final Map<String, OCSPResp> responses = new HashMap<>();
+        final List<List<String>> batches = new ArrayList<>();
+
+        @Override
+        public List<OCSPResp> fetch(List<String> certHashes) {
+            batches.add(new ArrayList<>(certHashes));
+
+            List<OCSPResp> result = new ArrayList<>();
+            for (String certHash : certHashes) {
+                result.add(responses.get(certHash));
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.proxy.util;
+
+import ee.ria.xroad.proxy.util.StageTimer.Stage;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link StageTimer}
+ */
+public class StageTimerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void shouldAccumulateRepeatedStages() {
+        StageTimer timer = new StageTimer();
+
+        timer.stop(Stage.MESSAGELOG, timer.start() - 3 * MILLIS);
+        timer.stop(Stage.MESSAGELOG, timer.start() - 2 * MILLIS);
+
+        assertTrue(timer.isRecorded(Stage.MESSAGELOG));
+        assertFalse(timer.isRecorded(Stage.SIGN));
+        assertEquals(5, timer.getElapsed(Stage.MESSAGELOG, TimeUnit.MILLISECONDS));
+        assertEquals(0, timer.getElapsed(Stage.SIGN, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldExcludeNestedStageFromOuterStage() {
+        StageTimer timer = new StageTimer();
+        long remoteStart = timer.start() - 10 * MILLIS;
+
+        timer.stopWithin(Stage.REMOTE, Stage.CONNECT, timer.start() - 4 * MILLIS);
+        timer.stop(Stage.REMOTE, remoteStart);
+
+        assertEquals(4, timer.getElapsed(Stage.CONNECT, TimeUnit.MILLISECONDS));
+        assertEquals(6, timer.getElapsed(Stage.REMOTE, TimeUnit.MILLISECONDS));
+    }
+}
@@ -50,6 +50,8 @@ public final class ComponentNames {
 
     public static final String OCSP_CLIENT_RELOAD = "OcspClientReload";
 
+    public static final String KEY_CONF_CHANGE_PUBLISHER = "KeyConfChangePublisher";
+
     private ComponentNames() {
     }
 }
@@ -32,6 +32,7 @@ import ee.ria.xroad.common.util.filewatcher.FileWatcherRunner;
 import ee.ria.xroad.signer.certmanager.OcspClientWorker;
 import ee.ria.xroad.signer.certmanager.OcspResponseManager;
 import ee.ria.xroad.signer.protocol.SignerRequestProcessor;
+import ee.ria.xroad.signer.tokenmanager.KeyConfChangePublisher;
 import ee.ria.xroad.signer.tokenmanager.TokenManager;
 import ee.ria.xroad.signer.tokenmanager.module.AbstractModuleManager;
 import ee.ria.xroad.signer.tokenmanager.module.DefaultModuleManagerImpl;
@@ -49,6 +50,7 @@ import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
 import static ee.ria.xroad.common.SystemProperties.NodeType.SLAVE;
+import static ee.ria.xroad.signer.protocol.ComponentNames.KEY_CONF_CHANGE_PUBLISHER;
 import static ee.ria.xroad.signer.protocol.ComponentNames.MODULE_MANAGER;
 import static ee.ria.xroad.signer.protocol.ComponentNames.OCSP_CLIENT;
 import static ee.ria.xroad.signer.protocol.ComponentNames.OCSP_CLIENT_JOB;
@@ -99,6 +101,7 @@ public class Signer implements StartStop {
         createComponent(OCSP_CLIENT_JOB, OcspClientJob.class);
         createComponent(OCSP_CLIENT_RELOAD, OcspClientReload.class);
         createComponent(ModuleManagerJob.class);
+        createComponent(KEY_CONF_CHANGE_PUBLISHER, KeyConfChangePublisher.class);
 
         createComponent(REQUEST_PROCESSOR, SignerRequestProcessor.class);
     }
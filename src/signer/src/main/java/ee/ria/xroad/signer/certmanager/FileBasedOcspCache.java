@@ -28,17 +28,9 @@ package ee.ria.xroad.signer.certmanager;
 import ee.ria.xroad.common.ocsp.OcspCache;
 
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Date;
@@ -47,18 +39,28 @@ import static ee.ria.xroad.common.ErrorCodes.translateException;
 import static ee.ria.xroad.common.SystemProperties.getOcspCachePath;
 
 /**
- * OCSP cache that holds the OCSP responses on disk.
+ * OCSP cache that holds the OCSP responses on disk, in an {@link OcspResponseStore} in the OCSP cache directory.
  */
 @Slf4j
 public class FileBasedOcspCache extends OcspCache {
 
-    /** The OCSP response file extension. */
-    private static final String OCSP_FILE_EXTENSION = ".ocsp";
+    private final OcspResponseStore store;
+
+    /**
+     * Creates a cache backed by a store in the configured OCSP cache directory.
+     */
+    public FileBasedOcspCache() {
+        this(Paths.get(getOcspCachePath()));
+    }
+
+    FileBasedOcspCache(Path cachePath) {
+        this.store = new OcspResponseStore(cachePath);
+    }
 
     /**
      * Returns the OCSP response for the given certificate or null, if the
      * response is not available.
-     * @param certHash for which to get the response
+     * @param key the certificate hash for which to get the response
      * @return the OCSP response object or null, if no response is available
      */
     @Override
@@ -71,11 +73,10 @@ public class FileBasedOcspCache extends OcspCache {
             }
         }
 
-        File file = getOcspResponseFile(getOcspCachePath(), key);
         try {
-            response = loadResponseFromFileIfNotExpired(file, atDate);
+            response = loadResponseIfNotExpired(key.toString(), atDate);
         } catch (Exception e) {
-            // Failed to load OCSP response from file
+            // Failed to load OCSP response from the store
             throw translateException(e);
         }
 
@@ -86,10 +87,9 @@ public class FileBasedOcspCache extends OcspCache {
     public OCSPResp put(String key, OCSPResp value) {
         OCSPResp response = super.put(key, value);
         try {
-            File file = getOcspResponseFile(getOcspCachePath(), key);
-            saveResponseToFile(file, value);
+            saveResponse(key, value);
         } catch (IOException e) {
-            // Failed to save OCSP response to file
+            // Failed to save OCSP response to the store
             throw translateException(e);
         }
 
@@ -97,45 +97,40 @@ public class FileBasedOcspCache extends OcspCache {
     }
 
     void reloadFromDisk() throws Exception {
-        Path path = Paths.get(getOcspCachePath());
+        store.open();
 
-        try (DirectoryStream<Path> stream =
-                Files.newDirectoryStream(path, this::isOcspFile)) {
-            for (Path entry : stream) {
-                loadResponseFromFileIfNotExpired(entry.toFile(), new Date());
-            }
+        Date now = new Date();
+
+        for (String key : store.keys()) {
+            loadResponseIfNotExpired(key, now);
         }
     }
 
-    boolean isOcspFile(Path p) {
-        return Files.isRegularFile(p)
-                && p.toString().endsWith(OCSP_FILE_EXTENSION);
+    /**
+     * Flushes the responses to disk and closes the store.
+     * @throws IOException if closing the store fails
+     */
+    void close() throws IOException {
+        store.close();
     }
 
-    void saveResponseToFile(File file, OCSPResp ocspResponse)
-            throws IOException {
-        createIntermediateDirectories(file);
+    void saveResponse(String key, OCSPResp ocspResponse) throws IOException {
+        store.put(key, ocspResponse.getEncoded());
 
-        try (OutputStream os = new FileOutputStream(file)) {
-            os.write(ocspResponse.getEncoded());
-        }
-
-        log.trace("Saved OCSP response to file '{}'", file);
+        log.trace("Saved OCSP response for cert hash {}", key);
     }
 
-    OCSPResp loadResponseFromFileIfNotExpired(File file, Date atDate)
-            throws Exception {
-        OCSPResp response = loadResponseFromFile(file);
+    OCSPResp loadResponseIfNotExpired(String key, Date atDate) throws Exception {
+        OCSPResp response = loadResponse(key);
         if (response != null) {
-            String key = getFileNameWithoutExtension(file);
             if (!isExpired(response, atDate)) {
                 log.trace("Loaded OCSP response for cert hash {}", key);
 
                 super.put(key, response); // store in memory
             } else {
                 log.trace("Cached OCSP response for certificate '{}' "
-                        + "has expired, deleting the file '{}'", key, file);
-                delete(file);
+                        + "has expired, removing it from the store", key);
+                store.remove(key);
                 return null;
             }
         }
@@ -143,45 +138,17 @@ public class FileBasedOcspCache extends OcspCache {
         return response;
     }
 
-    OCSPResp loadResponseFromFile(File file) throws IOException {
-        if (!file.exists()) {
-            return null;
-        }
+    OCSPResp loadResponse(String key) throws IOException {
+        store.open();
 
-        if (file.length() == 0L) {
-            log.error("Cannot load OCSP response from file '{}': "
-                    + "file is empty", file);
-            delete(file);
-            return null;
-        }
+        byte[] encoded = store.get(key);
 
-        log.trace("Retrieving OCSP response from file '{}'", file);
-        try (InputStream is = new FileInputStream(file)) {
-            return new OCSPResp(IOUtils.toByteArray(is));
-        }
-    }
-
-    private static void createIntermediateDirectories(File file)
-            throws IOException {
-        File path = file.getParentFile();
-        if (!path.exists() && !path.mkdirs()) {
-            throw new IOException("Could not create path " + path);
+        if (encoded == null) {
+            return null;
         }
-    }
 
-    private static File getOcspResponseFile(String path, Object certHash) {
-        return new File(path, certHash + OCSP_FILE_EXTENSION);
-    }
-
-    private static void delete(File file) {
-        try {
-            Files.delete(file.toPath());
-        } catch (Exception e) {
-            log.warn("Failed to delete {}: {}", file, e);
-        }
-    }
+        log.trace("Retrieving OCSP response for cert hash {} from the store", key);
 
-    private static String getFileNameWithoutExtension(File file) {
-        return file.getName().split("[.]")[0];
+        return new OCSPResp(encoded);
     }
 }
@@ -29,6 +29,7 @@ import ee.ria.xroad.common.CertificationServiceDiagnostics;
 import ee.ria.xroad.common.CertificationServiceStatus;
 import ee.ria.xroad.common.DiagnosticsErrorCodes;
 import ee.ria.xroad.common.OcspResponderStatus;
+import ee.ria.xroad.common.SystemProperties;
 import ee.ria.xroad.common.cert.CertChain;
 import ee.ria.xroad.common.conf.globalconf.GlobalConf;
 import ee.ria.xroad.common.conf.globalconfextension.GlobalConfExtensions;
@@ -37,6 +38,7 @@ import ee.ria.xroad.common.ocsp.OcspVerifier;
 import ee.ria.xroad.common.ocsp.OcspVerifierOptions;
 import ee.ria.xroad.common.util.CertUtils;
 import ee.ria.xroad.signer.OcspClientJob;
+import ee.ria.xroad.signer.certmanager.OcspFetchEngine.FetchCycle;
 import ee.ria.xroad.signer.certmanager.OcspResponseManager.IsCachedOcspResponse;
 import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
 import ee.ria.xroad.signer.protocol.message.SetOcspResponses;
@@ -64,6 +66,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static ee.ria.xroad.common.util.CryptoUtils.calculateCertHexHash;
 import static ee.ria.xroad.common.util.CryptoUtils.encodeBase64;
@@ -77,7 +80,8 @@ import static java.util.Collections.emptyList;
  * This class is responsible for retrieving the OCSP responses from the OCSP
  * server and providing the responses to the message signer.
  *
- * The certificate status is queried from the server at a fixed interval.
+ * The certificate status is queried from the server at a fixed interval. The statuses of different certificates
+ * are queried in parallel, see {@link OcspFetchEngine}.
  */
 @Slf4j
 @RequiredArgsConstructor
@@ -100,11 +104,21 @@ public class OcspClientWorker extends AbstractSignerActor {
 
     private CertificationServiceDiagnostics certServDiagnostics;
 
+    private OcspFetchEngine fetchEngine;
+
     @Override
     public void preStart() throws Exception {
         super.preStart();
         changeChecker = new GlobalConfChangeChecker();
         certServDiagnostics = new CertificationServiceDiagnostics();
+        fetchEngine = new OcspFetchEngine(SystemProperties.getOcspFetchThreads(),
+                SystemProperties.getOcspFetchMaxConcurrentPerResponder());
+    }
+
+    @Override
+    public void postStop() throws Exception {
+        fetchEngine.shutdown();
+        super.postStop();
     }
 
     @Override
@@ -211,26 +225,36 @@ public class OcspClientWorker extends AbstractSignerActor {
 
         log.info("Fetching OCSP responses for {} certificates", certs.size());
 
-        Boolean failed = false;
+        OcspVerifierOptions verifierOptions = new OcspVerifierOptions(
+                GlobalConfExtensions.getInstance().shouldVerifyOcspNextUpdate());
+
+        boolean failed = false;
         Map<String, OCSPResp> statuses = new HashMap<>();
 
-        for (X509Certificate subject : certs) {
-            try {
-                OCSPResp status = queryCertStatus(subject, new OcspVerifierOptions(
-                        GlobalConfExtensions.getInstance().shouldVerifyOcspNextUpdate()));
-                if (status != null) {
-                    String subjectHash = calculateCertHexHash(subject);
-                    statuses.put(subjectHash, status);
-                } else {
-                    failed = true;
-                }
-            } catch (Exception e) {
-                failed = true;
+        try {
+            Map<X509Certificate, OCSPResp> responses = fetchEngine.fetchAll(certs, this::getResponderAddresses,
+                    (subject, cycle) -> queryCertStatus(subject, verifierOptions, cycle),
+                    TimeUnit.SECONDS.toMillis(SystemProperties.getOcspFetchTimeout()));
 
-                log.error("Error when querying certificate '{}'", subject.getSerialNumber(), e);
+            failed = responses.size() < certs.size();
+
+            for (Entry<X509Certificate, OCSPResp> e : responses.entrySet()) {
+                statuses.put(calculateCertHexHash(e.getKey()), e.getValue());
             }
+        } catch (InterruptedException e) {
+            failed = true;
+
+            log.error("Interrupted while fetching OCSP responses");
+
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed = true;
+
+            log.error("Error when fetching OCSP responses", e);
         }
 
+        log.info("OCSP-response refresh cycle fetched {} of {} responses", statuses.size(), certs.size());
+
         if (failed) {
             getSender().tell(FAILED, getSelf());
         } else {
@@ -286,6 +310,11 @@ public class OcspClientWorker extends AbstractSignerActor {
     }
 
     OCSPResp queryCertStatus(X509Certificate subject, OcspVerifierOptions verifierOptions) throws Exception {
+        return queryCertStatus(subject, verifierOptions, new FetchCycle());
+    }
+
+    OCSPResp queryCertStatus(X509Certificate subject, OcspVerifierOptions verifierOptions, FetchCycle cycle)
+            throws Exception {
         X509Certificate issuer = GlobalConf.getCaCert(GlobalConf.getInstanceIdentifier(), subject);
 
         PrivateKey signerKey = OcspClient.getOcspRequestKey(subject);
@@ -303,13 +332,22 @@ public class OcspClientWorker extends AbstractSignerActor {
         OCSPResp response = null;
 
         for (String responderURI : responderURIs) {
+            if (cycle.isUnavailable(issuer, responderURI)) {
+                log.debug("Skipping responder {} that repeatedly failed to respond during this cycle", responderURI);
+
+                continue;
+            }
+
             final OffsetDateTime prevUpdate = OffsetDateTime.now();
             final OffsetDateTime nextUpdate =
                     prevUpdate.plusSeconds(GlobalConfExtensions.getInstance().getOcspFetchInterval());
 
             try {
                 log.debug("Fetching response from: {}", responderURI);
-                response = OcspClient.fetchResponse(responderURI, subject, issuer, signerKey, signer, signAlgoId);
+                response = fetchEngine.callResponder(responderURI,
+                        () -> OcspClient.fetchResponse(responderURI, subject, issuer, signerKey, signer, signAlgoId));
+
+                cycle.markResponded(issuer, responderURI);
 
                 if (response != null) {
                     reportOcspDiagnostics(issuer, responderURI, DiagnosticsErrorCodes.RETURN_SUCCESS, prevUpdate,
@@ -319,10 +357,15 @@ public class OcspClientWorker extends AbstractSignerActor {
             } catch (OCSPException e) {
                 log.error("Parsing OCSP response from " + responderURI + " failed", e);
 
+                cycle.markResponded(issuer, responderURI);
+
                 reportOcspDiagnostics(issuer, responderURI, DiagnosticsErrorCodes.ERROR_CODE_OCSP_RESPONSE_INVALID,
                         prevUpdate, nextUpdate);
             } catch (IOException e) {
                 log.error("Unable to connect to responder at " + responderURI, e);
+
+                cycle.markFailed(issuer, responderURI);
+
                 reportOcspDiagnostics(issuer, responderURI, DiagnosticsErrorCodes.ERROR_CODE_OCSP_CONNECTION_ERROR,
                         prevUpdate, nextUpdate);
             } catch (Exception e) {
@@ -349,6 +392,15 @@ public class OcspClientWorker extends AbstractSignerActor {
         }
     }
 
+    private List<String> getResponderAddresses(X509Certificate subject) {
+        try {
+            return GlobalConf.getOcspResponderAddresses(subject);
+        } catch (Exception e) {
+            // The query of the certificate will report the error
+            return emptyList();
+        }
+    }
+
     private void reportOcspDiagnostics(X509Certificate issuer, String responderURI, int statusCode,
             OffsetDateTime prevUpdate, OffsetDateTime nextUpdate) {
 
@@ -358,17 +410,20 @@ public class OcspClientWorker extends AbstractSignerActor {
 
         CertificationServiceStatus serviceStatus;
 
-        Map<String, CertificationServiceStatus> serviceStatusMap =
-                certServDiagnostics.getCertificationServiceStatusMap();
+        // Called concurrently from the fetch threads
+        synchronized (certServDiagnostics) {
+            Map<String, CertificationServiceStatus> serviceStatusMap =
+                    certServDiagnostics.getCertificationServiceStatusMap();
 
-        if (!serviceStatusMap.containsKey(subjectName)) {
-            serviceStatus = new CertificationServiceStatus(subjectName);
-            serviceStatusMap.put(subjectName, serviceStatus);
-        } else {
-            serviceStatus = serviceStatusMap.get(subjectName);
-        }
+            if (!serviceStatusMap.containsKey(subjectName)) {
+                serviceStatus = new CertificationServiceStatus(subjectName);
+                serviceStatusMap.put(subjectName, serviceStatus);
+            } else {
+                serviceStatus = serviceStatusMap.get(subjectName);
+            }
 
-        serviceStatus.getOcspResponderStatusMap().put(responderURI, responderStatus);
+            serviceStatus.getOcspResponderStatusMap().put(responderURI, responderStatus);
+        }
     }
 
     void updateCertStatuses(Map<String, OCSPResp> statuses) throws Exception {
@@ -461,6 +516,12 @@ public class OcspClientWorker extends AbstractSignerActor {
     }
 
     private void initializeDiagnostics() {
+        synchronized (certServDiagnostics) {
+            initializeCertificationServiceStatuses();
+        }
+    }
+
+    private void initializeCertificationServiceStatuses() {
         for (X509Certificate caCertificate : GlobalConf.getAllCaCerts()) {
             try {
                 final String key = caCertificate.getSubjectDN().toString();
@@ -0,0 +1,241 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the OCSP response queries of a refresh cycle in parallel on a bounded thread pool.
+ *
+ * Certificates that are checked against the same responders are coalesced into one group. The certificates of a
+ * group are processed by a limited number of lanes, each of which runs the queries of the group one after another,
+ * so that a large number of certificates does not flood a responder and a slow responder only occupies the threads
+ * of its own lanes. Queries that have not finished within the cycle timeout are cancelled.
+ */
+@Slf4j
+class OcspFetchEngine {
+
+    private final ExecutorService executor;
+
+    private final int maxConcurrentPerResponder;
+
+    private final ConcurrentMap<String, Semaphore> responderPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Query that retrieves the OCSP response for a single certificate.
+     */
+    @FunctionalInterface
+    interface CertStatusQuery {
+        /**
+         * @param subject the certificate whose status is queried
+         * @param cycle the refresh cycle the query belongs to
+         * @return the verified OCSP response or null if no valid response was received
+         * @throws Exception if the query fails
+         */
+        OCSPResp query(X509Certificate subject, FetchCycle cycle) throws Exception;
+    }
+
+    /**
+     * @param threads the number of threads used for running the queries
+     * @param maxConcurrentPerResponder the maximum number of concurrent requests to a single responder
+     */
+    OcspFetchEngine(int threads, int maxConcurrentPerResponder) {
+        this.executor = Executors.newFixedThreadPool(threads, new FetchThreadFactory());
+        this.maxConcurrentPerResponder = maxConcurrentPerResponder;
+    }
+
+    /**
+     * Runs the query for each of the given certificates and waits for the queries to finish.
+     * @param certs the certificates whose status is queried
+     * @param responders returns the responder addresses of a certificate, certificates with the same responders
+     * are grouped together
+     * @param query the query to run for each certificate
+     * @param timeoutMillis the time after which unfinished queries are cancelled
+     * @return the successfully retrieved responses by certificate, certificates for which the query failed, returned
+     * null or timed out are not present in the result
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    Map<X509Certificate, OCSPResp> fetchAll(Collection<X509Certificate> certs,
+            Function<X509Certificate, List<String>> responders, CertStatusQuery query, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        FetchCycle cycle = new FetchCycle();
+        Map<X509Certificate, OCSPResp> responses = new ConcurrentHashMap<>();
+        List<Future<?>> lanes = new ArrayList<>();
+
+        for (Queue<X509Certificate> group : groupByResponders(certs, responders)) {
+            int laneCount = Math.min(maxConcurrentPerResponder, group.size());
+
+            for (int i = 0; i < laneCount; i++) {
+                lanes.add(executor.submit(() -> runLane(group, query, cycle, responses, deadline)));
+            }
+        }
+
+        for (Future<?> lane : lanes) {
+            try {
+                lane.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException | CancellationException | ExecutionException e) {
+                lane.cancel(true);
+            }
+        }
+
+        if (responses.size() < certs.size() && System.nanoTime() - deadline >= 0) {
+            log.error("Fetching OCSP responses did not finish in {} ms, unfinished queries were cancelled",
+                    timeoutMillis);
+        }
+
+        return new HashMap<>(responses);
+    }
+
+    private static Collection<Queue<X509Certificate>> groupByResponders(Collection<X509Certificate> certs,
+            Function<X509Certificate, List<String>> responders) {
+        Map<List<String>, Queue<X509Certificate>> groups = new LinkedHashMap<>();
+
+        for (X509Certificate subject : certs) {
+            groups.computeIfAbsent(responders.apply(subject), r -> new ConcurrentLinkedQueue<>()).add(subject);
+        }
+
+        return groups.values();
+    }
+
+    private static void runLane(Queue<X509Certificate> group, CertStatusQuery query, FetchCycle cycle,
+            Map<X509Certificate, OCSPResp> responses, long deadline) {
+        while (System.nanoTime() - deadline < 0 && !Thread.currentThread().isInterrupted()) {
+            X509Certificate subject = group.poll();
+
+            if (subject == null) {
+                return;
+            }
+
+            try {
+                OCSPResp response = query.query(subject, cycle);
+
+                if (response != null) {
+                    responses.put(subject, response);
+                }
+            } catch (Exception e) {
+                log.error("Error when querying certificate '{}'", subject.getSerialNumber(), e);
+            }
+        }
+    }
+
+    /**
+     * Calls the given responder, waiting until the number of concurrent requests to the responder is below the
+     * limit.
+     * @param responderURI the responder address
+     * @param call the request to the responder
+     * @param <T> the result type of the request
+     * @return the result of the request
+     * @throws Exception if the request fails or the thread is interrupted while waiting
+     */
+    <T> T callResponder(String responderURI, Callable<T> call) throws Exception {
+        Semaphore permits = responderPermits.computeIfAbsent(responderURI,
+                uri -> new Semaphore(maxConcurrentPerResponder, true));
+
+        permits.acquire();
+
+        try {
+            return call.call();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Stops the fetch threads, interrupting any running queries.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * State shared by the queries of a single refresh cycle. Certificates of the same issuer are checked against the
+     * same responders, so once a responder has repeatedly failed to respond for them, the queries of the other
+     * certificates go directly to the next responder instead of waiting for the same failure again. A single failure
+     * (for example a read timeout) does not make the responder unavailable.
+     */
+    static final class FetchCycle {
+
+        static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+        private final Map<String, Integer> consecutiveFailures = new ConcurrentHashMap<>();
+
+        boolean isUnavailable(X509Certificate issuer, String responderURI) {
+            return consecutiveFailures.getOrDefault(key(issuer, responderURI), 0) >= MAX_CONSECUTIVE_FAILURES;
+        }
+
+        void markFailed(X509Certificate issuer, String responderURI) {
+            consecutiveFailures.merge(key(issuer, responderURI), 1, Integer::sum);
+        }
+
+        void markResponded(X509Certificate issuer, String responderURI) {
+            consecutiveFailures.remove(key(issuer, responderURI));
+        }
+
+        private static String key(X509Certificate issuer, String responderURI) {
+            return issuer.getSubjectX500Principal().getName() + "|" + responderURI;
+        }
+    }
+
+    private static final class FetchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ocsp-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
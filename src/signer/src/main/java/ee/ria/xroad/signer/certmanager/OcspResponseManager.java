@@ -41,7 +41,10 @@ import org.bouncycastle.cert.ocsp.OCSPResp;
 
 import java.io.Serializable;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import static ee.ria.xroad.common.util.CryptoUtils.calculateCertHexHash;
@@ -56,13 +59,13 @@ import static ee.ria.xroad.common.util.CryptoUtils.encodeBase64;
  * the entire certificate.
  *
  * When an OCSP response is added to the manager, it is first cached in memory
- * (overwriting any existing response) and then attempted to be written to disk
- * (overwriting any existing response file).
+ * (overwriting any existing response) and then attempted to be written to the
+ * OCSP response store on disk (replacing any existing response).
  *
  * When an OCSP response is queried from the manager, first the cache is checked
  * for the response. If the response exists in the memory cache, it is returned.
  * If the response does not exist in the memory cache, the response will be
- * loaded from disk, if it exists and is cached in memory as well.
+ * loaded from the store, if it exists and is cached in memory as well.
  */
 @Slf4j
 public class OcspResponseManager extends AbstractSignerActor {
@@ -126,14 +129,27 @@ public class OcspResponseManager extends AbstractSignerActor {
         try {
             responseCache.reloadFromDisk();
 
+            Map<String, OCSPResp> responses = new HashMap<>();
+
             for (Entry<String, OCSPResp> e : responseCache.entrySet()) {
-                TokenManager.setOcspResponse(e.getKey(), e.getValue());
+                responses.put(e.getKey(), e.getValue());
             }
+
+            TokenManager.setOcspResponses(responses);
         } catch (Exception e) {
             log.error("Failed to load OCSP responses from disk", e);
         }
     }
 
+    @Override
+    public void postStop() throws Exception {
+        try {
+            responseCache.close();
+        } finally {
+            super.postStop();
+        }
+    }
+
     /**
      * Depending on given <code>message</code> parameter, sends back either nothing,
      * data (eg. ocsp responses) or Exception which occurred
@@ -170,16 +186,20 @@ public class OcspResponseManager extends AbstractSignerActor {
     void handleSetOcspResponses(SetOcspResponses message) throws Exception {
         log.trace("handleSetOcspResponses()");
 
+        Map<String, OCSPResp> responses = new HashMap<>();
+
         for (int i = 0; i < message.getCertHashes().length; i++) {
-            setResponse(message.getCertHashes()[i], new OCSPResp(
+            responses.put(message.getCertHashes()[i], new OCSPResp(
                     decodeBase64(message.getBase64EncodedResponses()[i])));
         }
+
+        setResponses(responses);
     }
 
     void handleIsCachedOcspResponse(IsCachedOcspResponse message)
             throws Exception {
         OCSPResp response = responseCache.get(message.getCertHash(), message.getAtDate());
-        TokenManager.setOcspResponse(message.getCertHash(), response);
+        TokenManager.setOcspResponses(Collections.singletonMap(message.getCertHash(), response));
         sendResponse(Boolean.FALSE);
     }
 
@@ -188,11 +208,17 @@ public class OcspResponseManager extends AbstractSignerActor {
     }
 
     void setResponse(String certHash, OCSPResp response) throws Exception {
-        log.debug("Setting a new response to cache for cert: {}", certHash);
+        setResponses(Collections.singletonMap(certHash, response));
+    }
+
+    void setResponses(Map<String, OCSPResp> responses) throws Exception {
         try {
-            responseCache.put(certHash, response);
+            for (Entry<String, OCSPResp> e : responses.entrySet()) {
+                log.debug("Setting a new response to cache for cert: {}", e.getKey());
+                responseCache.put(e.getKey(), e.getValue());
+            }
         } finally {
-            TokenManager.setOcspResponse(certHash, response);
+            TokenManager.setOcspResponses(responses);
         }
     }
 
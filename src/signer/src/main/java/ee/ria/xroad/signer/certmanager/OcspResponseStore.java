@@ -0,0 +1,509 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store of encoded OCSP responses in a single memory-mapped file.
+ *
+ * Each put or remove appends a record to the end of the file and then updates the in-memory index, which maps
+ * the key to the location of the latest value in the mapped file. Reads go through the index directly to the
+ * mapped memory without locking or system calls. Records are protected by a checksum, so a record that was
+ * only partly written (for example due to a crash) ends the log when the store is opened. A file whose header
+ * was never written is initialized as a new store, and a file with an unknown header is moved aside.
+ *
+ * When the space taken by overwritten and removed records exceeds the space of the live records, the store is
+ * compacted in the background by writing the live records to a new file that atomically replaces the old one.
+ *
+ * When the store is opened, any OCSP responses stored by earlier versions as separate {@code <certHash>.ocsp}
+ * files in the same directory are imported into the store and the files are deleted.
+ */
+@Slf4j
+class OcspResponseStore {
+
+    static final String STORE_FILE_NAME = "ocsp-responses.dat";
+    static final String LEGACY_FILE_EXTENSION = ".ocsp";
+    static final String CORRUPT_FILE_SUFFIX = ".corrupt";
+
+    private static final String COMPACTION_FILE_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x4f435350; // "OCSP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    // key length, value length, checksum
+    private static final int RECORD_OVERHEAD = 3 * Integer.BYTES;
+    private static final int TOMBSTONE = -1;
+
+    private static final int INITIAL_MAPPED_SIZE = 1024 * 1024;
+    private static final int MIN_COMPACTION_DEAD_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final Path storeFile;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ocsp-store-compaction");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    private volatile boolean opened;
+
+    // The fields below are guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private long liveBytes;
+    private long deadBytes;
+
+    /**
+     * @param directory the directory of the store file
+     */
+    OcspResponseStore(Path directory) {
+        this.directory = directory;
+        this.storeFile = directory.resolve(STORE_FILE_NAME);
+    }
+
+    /**
+     * Opens the store file, creating it if necessary, and builds the index from its records.
+     * @throws IOException if the store cannot be opened
+     */
+    void open() throws IOException {
+        if (!opened) {
+            openStore();
+        }
+    }
+
+    private synchronized void openStore() throws IOException {
+        if (opened) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+
+        openChannel(storeFile);
+
+        ByteBuffer header = buffer.duplicate();
+        int magic = header.getInt();
+        int version = header.getInt();
+
+        if (magic == MAGIC && version == VERSION) {
+            readRecords();
+        } else {
+            // A file with an all-zero header is new, or its header never reached the disk
+            if (magic != 0 || version != 0) {
+                moveCorruptStore();
+            }
+
+            writeHeader(buffer);
+            buffer.force();
+            writePosition = HEADER_SIZE;
+        }
+
+        opened = true;
+
+        migrateLegacyFiles();
+
+        log.debug("Opened OCSP response store {} with {} responses", storeFile, index.size());
+    }
+
+    /**
+     * @param key the key
+     * @return the stored value or null if there is no value for the key
+     */
+    byte[] get(String key) {
+        Entry entry = index.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        byte[] value = new byte[entry.length];
+
+        ByteBuffer view = entry.buffer.duplicate();
+        view.position(entry.position);
+        view.get(value);
+
+        return value;
+    }
+
+    /**
+     * @return the keys that currently have a value
+     */
+    Set<String> keys() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Stores the value for the key, replacing the previous value.
+     * @param key the key
+     * @param value the value
+     * @throws IOException if the value cannot be stored
+     */
+    synchronized void put(String key, byte[] value) throws IOException {
+        open();
+
+        int valuePosition = append(key, value);
+
+        replaceEntry(key, new Entry(buffer, valuePosition, value.length));
+        liveBytes += recordSize(key, value);
+
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Removes the value of the key, if any.
+     * @param key the key
+     * @throws IOException if the removal cannot be stored
+     */
+    synchronized void remove(String key) throws IOException {
+        open();
+
+        if (!index.containsKey(key)) {
+            return;
+        }
+
+        append(key, null);
+
+        replaceEntry(key, null);
+        deadBytes += recordSize(key, null);
+
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Rewrites the live records to a new file that atomically replaces the current store file.
+     * @throws IOException if compaction fails, in which case the current file remains in use
+     */
+    synchronized void compact() throws IOException {
+        open();
+
+        Path compactionFile = storeFile.resolveSibling(STORE_FILE_NAME + COMPACTION_FILE_SUFFIX);
+        Map<String, Entry> compacted = new ConcurrentHashMap<>();
+        int size = HEADER_SIZE;
+
+        try (FileChannel target = FileChannel.open(compactionFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer targetBuffer = target.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(INITIAL_MAPPED_SIZE, HEADER_SIZE + liveBytes));
+
+            writeHeader(targetBuffer);
+
+            for (Map.Entry<String, Entry> e : index.entrySet()) {
+                byte[] value = get(e.getKey());
+                int valuePosition = writeRecord(targetBuffer, size, e.getKey(), value);
+
+                compacted.put(e.getKey(), new Entry(targetBuffer, valuePosition, value.length));
+                size += recordSize(e.getKey(), value);
+            }
+
+            targetBuffer.force();
+        }
+
+        Files.move(compactionFile, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();
+        openChannel(storeFile);
+
+        // Point the entries to the mapping of the new file
+        for (Map.Entry<String, Entry> e : compacted.entrySet()) {
+            index.put(e.getKey(), new Entry(buffer, e.getValue().position, e.getValue().length));
+        }
+
+        log.debug("Compacted OCSP response store from {} to {} bytes", writePosition, size);
+
+        writePosition = size;
+        deadBytes = 0;
+    }
+
+    /**
+     * Flushes the store to disk and closes it.
+     * @throws IOException if closing fails
+     */
+    synchronized void close() throws IOException {
+        compactionExecutor.shutdownNow();
+
+        if (opened) {
+            buffer.force();
+            channel.close();
+            opened = false;
+        }
+    }
+
+    private void openChannel(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAPPED_SIZE, channel.size()));
+    }
+
+    /**
+     * Moves a store file with an unknown header aside and opens a new, empty store file in its place.
+     */
+    private void moveCorruptStore() throws IOException {
+        Path corruptFile = storeFile.resolveSibling(STORE_FILE_NAME + CORRUPT_FILE_SUFFIX);
+
+        log.warn("Unsupported OCSP response store file {}, moving it to {}", storeFile, corruptFile);
+
+        channel.close();
+        Files.move(storeFile, corruptFile, StandardCopyOption.REPLACE_EXISTING);
+        openChannel(storeFile);
+    }
+
+    private void readRecords() {
+        int position = HEADER_SIZE;
+
+        while (true) {
+            Record record = readRecord(position);
+
+            if (record == null) {
+                break;
+            }
+
+            if (record.valueLength == TOMBSTONE) {
+                replaceEntry(record.key, null);
+            } else {
+                replaceEntry(record.key, new Entry(buffer, record.valuePosition, record.valueLength));
+                liveBytes += record.size;
+            }
+
+            deadBytes += record.valueLength == TOMBSTONE ? record.size : 0;
+            position += record.size;
+        }
+
+        writePosition = position;
+    }
+
+    /**
+     * @return the record at the given position or null if the position is at the end of the log, which is
+     * either the unused space at the end of the file or a record that was not completely written
+     */
+    private Record readRecord(int position) {
+        ByteBuffer view = buffer.duplicate();
+
+        if (position + RECORD_OVERHEAD > view.capacity()) {
+            return null;
+        }
+
+        view.position(position);
+
+        int keyLength = view.getInt();
+        int valueLength = view.getInt();
+        int dataLength = keyLength + Math.max(valueLength, 0);
+
+        if (keyLength <= 0 || valueLength < TOMBSTONE
+                || (long) position + RECORD_OVERHEAD + dataLength > view.capacity()) {
+            return null;
+        }
+
+        byte[] data = new byte[dataLength];
+        view.get(data);
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        if (view.getInt() != (int) crc.getValue()) {
+            log.warn("Ignoring incomplete record at position {} of OCSP response store {}", position, storeFile);
+
+            return null;
+        }
+
+        String key = new String(data, 0, keyLength, StandardCharsets.UTF_8);
+
+        return new Record(key, position + 2 * Integer.BYTES + keyLength, valueLength,
+                RECORD_OVERHEAD + dataLength);
+    }
+
+    private int append(String key, byte[] value) throws IOException {
+        int size = recordSize(key, value);
+
+        if ((long) writePosition + size > Integer.MAX_VALUE) {
+            throw new IOException("OCSP response store " + storeFile + " is full");
+        }
+
+        if (writePosition + size > buffer.capacity()) {
+            long newSize = Math.min(Integer.MAX_VALUE, Math.max(2L * buffer.capacity(), writePosition + size));
+
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        }
+
+        int valuePosition = writeRecord(buffer, writePosition, key, value);
+
+        writePosition += size;
+
+        return valuePosition;
+    }
+
+    /**
+     * @return the position of the value in the buffer
+     */
+    private static int writeRecord(MappedByteBuffer target, int position, String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+
+        ByteBuffer view = target.duplicate();
+        view.position(position);
+        view.putInt(keyBytes.length);
+        view.putInt(value != null ? value.length : TOMBSTONE);
+        view.put(keyBytes);
+
+        int valuePosition = view.position();
+
+        if (value != null) {
+            view.put(value);
+            crc.update(value);
+        }
+
+        view.putInt((int) crc.getValue());
+
+        return valuePosition;
+    }
+
+    private static void writeHeader(MappedByteBuffer target) {
+        ByteBuffer view = target.duplicate();
+        view.putInt(MAGIC);
+        view.putInt(VERSION);
+    }
+
+    private static int recordSize(String key, byte[] value) {
+        return RECORD_OVERHEAD + key.getBytes(StandardCharsets.UTF_8).length + (value != null ? value.length : 0);
+    }
+
+    private void replaceEntry(String key, Entry entry) {
+        Entry previous = entry != null ? index.put(key, entry) : index.remove(key);
+
+        if (previous != null) {
+            int previousSize = RECORD_OVERHEAD + key.getBytes(StandardCharsets.UTF_8).length + previous.length;
+
+            liveBytes -= previousSize;
+            deadBytes += previousSize;
+        }
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if (deadBytes < MIN_COMPACTION_DEAD_BYTES || deadBytes < liveBytes) {
+            return;
+        }
+
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactionExecutor.execute(() -> {
+                try {
+                    compactIfOpen();
+                } catch (Exception e) {
+                    log.error("Failed to compact OCSP response store {}", storeFile, e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private synchronized void compactIfOpen() throws IOException {
+        // The store may have been closed after the compaction was scheduled
+        if (opened) {
+            compact();
+        }
+    }
+
+    private void migrateLegacyFiles() throws IOException {
+        int migrated = 0;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(LEGACY_FILE_EXTENSION))) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                String key = fileName.substring(0, fileName.length() - LEGACY_FILE_EXTENSION.length());
+                byte[] value = Files.readAllBytes(file);
+
+                if (value.length > 0) {
+                    put(key, value);
+                    migrated++;
+                }
+
+                Files.delete(file);
+            }
+        }
+
+        if (migrated > 0) {
+            log.info("Migrated {} OCSP responses from {} to {}", migrated, directory, storeFile);
+        }
+    }
+
+    /**
+     * Location of a value in a mapped store file.
+     */
+    private static final class Entry {
+        private final MappedByteBuffer buffer;
+        private final int position;
+        private final int length;
+
+        Entry(MappedByteBuffer buffer, int position, int length) {
+            this.buffer = buffer;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    private static final class Record {
+        private final String key;
+        private final int valuePosition;
+        private final int valueLength;
+        private final int size;
+
+        Record(String key, int valuePosition, int valueLength, int size) {
+            this.key = key;
+            this.valuePosition = valuePosition;
+            this.valueLength = valueLength;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager;
+
+import ee.ria.xroad.signer.protocol.message.KeyConfChanged;
+import ee.ria.xroad.signer.protocol.message.SubscribeKeyConfChanges;
+
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import akka.actor.UntypedAbstractActor;
+import lombok.extern.slf4j.Slf4j;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link KeyConfChanged} events to the subscribed components
+ * (e.g. proxy), so that they can refresh their cached signing information
+ * when keys, certificates or OCSP responses change.
+ *
+ * The token state version is polled periodically, which also coalesces bursts
+ * of changes into one event. Remote death watch is not used, subscriptions
+ * expire unless the subscriber renews them.
+ */
+@Slf4j
+public class KeyConfChangePublisher extends UntypedAbstractActor {
+
+    private static final FiniteDuration CHECK_INTERVAL = FiniteDuration.create(1, TimeUnit.SECONDS);
+
+    private static final String CHECK = "Check";
+
+    // subscriber -> lease expiration time in milliseconds
+    private final Map<ActorRef, Long> subscribers = new HashMap<>();
+
+    private long publishedVersion = TokenManager.getVersion();
+
+    private Cancellable checkSchedule;
+
+    @Override
+    public void preStart() throws Exception {
+        checkSchedule = getContext().system().scheduler().schedule(CHECK_INTERVAL, CHECK_INTERVAL,
+                getSelf(), CHECK, getContext().dispatcher(), ActorRef.noSender());
+    }
+
+    @Override
+    public void postStop() {
+        if (checkSchedule != null) {
+            checkSchedule.cancel();
+        }
+    }
+
+    @Override
+    public void onReceive(Object message) {
+        if (CHECK.equals(message)) {
+            publishIfChanged();
+        } else if (message instanceof SubscribeKeyConfChanges) {
+            handleSubscribe((SubscribeKeyConfChanges) message);
+        } else {
+            unhandled(message);
+        }
+    }
+
+    private void handleSubscribe(SubscribeKeyConfChanges message) {
+        if (getSender() == ActorRef.noSender()) {
+            return;
+        }
+
+        long expires = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(message.getLeaseSeconds());
+
+        if (subscribers.put(getSender(), expires) == null) {
+            log.debug("Added key conf change subscriber {}", getSender());
+        }
+
+        getSender().tell(new KeyConfChanged(TokenManager.getVersion()), getSelf());
+    }
+
+    private void publishIfChanged() {
+        long now = System.currentTimeMillis();
+
+        subscribers.entrySet().removeIf(e -> {
+            boolean expired = e.getValue() < now;
+
+            if (expired) {
+                log.debug("Subscription of {} has expired", e.getKey());
+            }
+
+            return expired;
+        });
+
+        long version = TokenManager.getVersion();
+
+        if (version == publishedVersion) {
+            return;
+        }
+
+        publishedVersion = version;
+
+        log.trace("Publishing key conf version {} to {} subscribers", version, subscribers.size());
+
+        KeyConfChanged event = new KeyConfChanged(version);
+
+        subscribers.keySet().forEach(s -> s.tell(event, getSelf()));
+    }
+}
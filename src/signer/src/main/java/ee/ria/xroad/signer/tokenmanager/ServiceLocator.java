@@ -28,6 +28,7 @@ package ee.ria.xroad.signer.tokenmanager;
 import akka.actor.ActorContext;
 import akka.actor.ActorSelection;
 
+import static ee.ria.xroad.signer.protocol.ComponentNames.KEY_CONF_CHANGE_PUBLISHER;
 import static ee.ria.xroad.signer.protocol.ComponentNames.MODULE_MANAGER;
 import static ee.ria.xroad.signer.protocol.ComponentNames.OCSP_RESPONSE_MANAGER;
 import static ee.ria.xroad.signer.protocol.ComponentNames.REQUEST_PROCESSOR;
@@ -52,6 +53,15 @@ public final class ServiceLocator {
         return context.actorSelection("/user/" + REQUEST_PROCESSOR);
     }
 
+    /**
+     * @param context the actor context
+     * @return the key conf change publisher actor
+     */
+    public static ActorSelection getKeyConfChangePublisher(
+            ActorContext context) {
+        return context.actorSelection("/user/" + KEY_CONF_CHANGE_PUBLISHER);
+    }
+
     /**
      * @param context the actor context
      * @return the OCSP response manager actor
@@ -42,7 +42,6 @@ import ee.ria.xroad.signer.tokenmanager.merge.MergeOntoFileTokensStrategy;
 import ee.ria.xroad.signer.tokenmanager.merge.TokenMergeAddedCertificatesListener;
 import ee.ria.xroad.signer.tokenmanager.merge.TokenMergeStrategy;
 import ee.ria.xroad.signer.tokenmanager.merge.TokenMergeStrategy.MergeResult;
-import ee.ria.xroad.signer.tokenmanager.module.SoftwareModuleType;
 import ee.ria.xroad.signer.tokenmanager.token.TokenType;
 import ee.ria.xroad.signer.util.SignerUtil;
 import ee.ria.xroad.signer.util.TokenAndKey;
@@ -52,12 +51,12 @@ import org.bouncycastle.cert.ocsp.OCSPResp;
 
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import static ee.ria.xroad.common.ErrorCodes.X_WRONG_CERT_USAGE;
 import static ee.ria.xroad.signer.util.ExceptionHelper.certWithHashNotFound;
@@ -69,11 +68,20 @@ import static java.util.Collections.unmodifiableList;
 
 /**
  * Manages the current state of tokens, their keys and certificates.
+ *
+ * Changes are made to the token model while holding the class lock, after
+ * which an immutable {@link TokenSnapshot} is published. Queries are served
+ * from the latest snapshot without locking.
  */
 @Slf4j
 public final class TokenManager {
 
-    private static volatile List<Token> currentTokens = new ArrayList<>();
+    private static List<Token> currentTokens = new ArrayList<>();
+
+    private static volatile TokenSnapshot snapshot = TokenSnapshot.EMPTY;
+
+    // starts from the current time, so that versions are not repeated after a restart
+    private static volatile long version = System.currentTimeMillis();
 
     private static boolean initialized;
 
@@ -95,7 +103,10 @@ public final class TokenManager {
             log.error("Failed to load token conf", e);
         }
 
-        currentTokens = new ArrayList<>(TokenConf.getInstance().getTokens());
+        synchronized (TokenManager.class) {
+            currentTokens = new ArrayList<>(TokenConf.getInstance().getTokens());
+            publish();
+        }
 
         initialized = true;
     }
@@ -136,6 +147,7 @@ public final class TokenManager {
             synchronized (TokenManager.class) {
                 result = mergeStrategy.merge(fileTokens, currentTokens);
                 currentTokens = result.getResultTokens();
+                publish();
             }
             if (listener != null) {
                 listener.mergeDone(result.getAddedCertificates());
@@ -149,16 +161,21 @@ public final class TokenManager {
         }
     }
 
+    /**
+     * @return the version of the token state, which changes every time
+     * tokens, keys, certificates or OCSP responses change
+     */
+    public static long getVersion() {
+        return version;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
      * @return list of tokens
      */
-    public static synchronized List<TokenInfo> listTokens() {
-        return unmodifiableList(
-                currentTokens.stream()
-                        .map(t -> t.toDTO())
-                        .collect(Collectors.toList()));
+    public static List<TokenInfo> listTokens() {
+        return snapshot.getTokens();
     }
 
     /**
@@ -187,6 +204,7 @@ public final class TokenManager {
         token.setAvailable(true);
 
         currentTokens.add(token);
+        publish();
 
         return token.toDTO();
     }
@@ -209,13 +227,12 @@ public final class TokenManager {
      * @param tokenId the token id
      * @return the token info DTO for the token id or null of not found
      */
-    public static synchronized TokenInfo getTokenInfo(String tokenId) {
+    public static TokenInfo getTokenInfo(String tokenId) {
         log.trace("getTokenInfo({})", tokenId);
 
-        return currentTokens.stream()
-                .filter(t -> t.getId().equals(tokenId))
-                .map(t -> t.toDTO())
-                .findFirst().orElse(null);
+        TokenSnapshot.TokenEntry token = snapshot.getToken(tokenId);
+
+        return token != null ? token.getTokenInfo() : null;
     }
 
     /**
@@ -223,82 +240,85 @@ public final class TokenManager {
      * @return the token info DTO for the token
      * @throws Exception if key was not found
      */
-    public static synchronized TokenInfo findTokenInfoForKeyId(String keyId) {
+    public static TokenInfo findTokenInfoForKeyId(String keyId) {
         log.trace("getTokenInfoForKeyId({})", keyId);
-        String tokenId = findTokenIdForKeyId(keyId);
-        return getTokenInfo(tokenId);
+
+        TokenSnapshot current = snapshot;
+
+        return current.getToken(findKeyEntry(current, keyId).getTokenId()).getTokenInfo();
     }
 
     /**
      * @param keyId the key id
      * @return the token and key or throws exception if not found
      */
-    public static synchronized TokenAndKey findTokenAndKey(String keyId) {
+    public static TokenAndKey findTokenAndKey(String keyId) {
         log.trace("findTokenAndKey({})", keyId);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
-                (t, k) -> new TokenAndKey(t.getId(), k.toDTO()))
-                .orElseThrow(() -> keyNotFound(keyId));
+        TokenSnapshot.KeyEntry key = findKeyEntry(snapshot, keyId);
+
+        return new TokenAndKey(key.getTokenId(), key.getKeyInfo());
     }
 
     /**
      * @param certHash the certificate hash
      * @return the tokenInfo and key id, or throws exception if not found
      */
-    public static synchronized TokenInfoAndKeyId findTokenAndKeyIdForCertHash(String certHash) {
+    public static TokenInfoAndKeyId findTokenAndKeyIdForCertHash(String certHash) {
         log.trace("findTokenAndKeyIdForCertHash({})", certHash);
 
-        String keyId = forCert((k, c) -> certHash.equals(c.getHash()),
-                (k, c) -> k.getId())
-                .orElseThrow(() -> certWithHashNotFound(certHash));
+        TokenSnapshot current = snapshot;
+        TokenSnapshot.CertEntry cert = current.getCertForHash(certHash);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
-                (t, k) -> new TokenInfoAndKeyId(t.toDTO(), keyId))
-                .orElseThrow(() -> keyNotFound(keyId));
+        if (cert == null) {
+            throw certWithHashNotFound(certHash);
+        }
+
+        return toTokenInfoAndKeyId(current, cert.getKeyId());
     }
 
     /**
      * @param certRequestId the certificate request id
      * @return the tokenInfo and key id, or throws exception if not found
      */
-    public static synchronized TokenInfoAndKeyId findTokenAndKeyIdForCertRequestId(String certRequestId) {
+    public static TokenInfoAndKeyId findTokenAndKeyIdForCertRequestId(String certRequestId) {
         log.trace("findTokenAndKeyIdForCertRequestId({})", certRequestId);
 
-        String keyId = forCertRequest((k, c) -> certRequestId.equals(c.getId()),
-                (k, c) -> k.getId())
-                .orElseThrow(() -> csrWithIdNotFound(certRequestId));
+        TokenSnapshot current = snapshot;
+        TokenSnapshot.CertRequestEntry certRequest = current.getCertRequest(certRequestId);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
-                (t, k) -> new TokenInfoAndKeyId(t.toDTO(), keyId))
-                .orElseThrow(() -> keyNotFound(keyId));
+        if (certRequest == null) {
+            throw csrWithIdNotFound(certRequestId);
+        }
+
+        return toTokenInfoAndKeyId(current, certRequest.getKeyId());
     }
 
     /**
      * @param keyId the key id
      * @return the token id for the key id or throws exception if not found
      */
-    public static synchronized String findTokenIdForKeyId(String keyId) {
+    public static String findTokenIdForKeyId(String keyId) {
         log.trace("findTokenIdForKeyId({})", keyId);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
-                (t, k) -> t.getId()).orElseThrow(() -> keyNotFound(keyId));
+        return findKeyEntry(snapshot, keyId).getTokenId();
     }
 
     /**
      * @return the software token id
      */
-    public static synchronized String getSoftwareTokenId() {
-        return forToken(t -> t.getType().equals(SoftwareModuleType.TYPE),
-                t -> t.getId()).orElse(null);
+    public static String getSoftwareTokenId() {
+        return snapshot.getSoftwareTokenId();
     }
 
     /**
      * @param tokenId the token id
      * @return the module id for the token id or null if not found
      */
-    public static synchronized String getModuleId(String tokenId) {
-        return forToken(t -> t.getId().equals(tokenId),
-                t -> t.getModuleId()).orElse(null);
+    public static String getModuleId(String tokenId) {
+        TokenSnapshot.TokenEntry token = snapshot.getToken(tokenId);
+
+        return token != null ? token.getModuleId() : null;
     }
 
     /**
@@ -318,47 +338,25 @@ public final class TokenManager {
      * @param keyId the key id
      * @return the key info for the key id or null if not found
      */
-    public static synchronized KeyInfo getKeyInfo(String keyId) {
+    public static KeyInfo getKeyInfo(String keyId) {
         log.trace("getKeyInfo({})", keyId);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
-                (t, k) -> k.toDTO()).orElse(null);
+        TokenSnapshot.KeyEntry key = snapshot.getKey(keyId);
+
+        return key != null ? key.getKeyInfo() : null;
     }
 
     /**
      * @param clientId the client id
      * @return the list of keys for the given client id
      */
-    public static synchronized List<KeyInfo> getKeyInfo(ClientId clientId) {
+    public static List<KeyInfo> getKeyInfo(ClientId clientId) {
         log.trace("getKeyInfo({})", clientId);
 
-        List<KeyInfo> keyInfo = new ArrayList<>();
-
-        for (Token token : currentTokens) {
-            if (token.isInActive()) {
-                // Ignore inactive (not usable) tokens
-                continue;
-            }
-
-            for (Key key : token.getKeys()) {
-                if (!key.isValidForSigning()) {
-                    // Ignore authentication keys
-                    continue;
-                }
-
-                for (Cert cert : key.getCerts()) {
-                    if (cert.isInvalid()) {
-                        // Ignore inactive and invalid certificates
-                        continue;
-                    }
+        List<KeyInfo> keyInfo = snapshot.getSigningKeys(clientId);
 
-                    if (certBelongsToMember(cert.toDTO(), clientId)) {
-                        log.debug("Found key '{}' for client '{}'",
-                                key.getId(), cert.getMemberId());
-                        keyInfo.add(key.toDTO());
-                    }
-                }
-            }
+        if (log.isDebugEnabled()) {
+            keyInfo.forEach(k -> log.debug("Found key '{}' for client '{}'", k.getId(), clientId));
         }
 
         return keyInfo;
@@ -382,49 +380,45 @@ public final class TokenManager {
      * @param certId the certificate id
      * @return the certificate info for the certificate id or null if not found
      */
-    public static synchronized CertificateInfo getCertificateInfo(
-            String certId) {
+    public static CertificateInfo getCertificateInfo(String certId) {
         log.trace("getCertificateInfo({})", certId);
 
-        return forCert((k, c) -> c.getId().equals(certId), (k, c) -> c.toDTO())
-                .orElse(null);
+        TokenSnapshot.CertEntry cert = snapshot.getCert(certId);
+
+        return cert != null ? cert.getCertificateInfo() : null;
     }
 
     /**
      * @param certHash the certificate hash
      * @return the certificate info for the certificate hash or null
      */
-    public static synchronized CertificateInfo getCertificateInfoForCertHash(
-            String certHash) {
+    public static CertificateInfo getCertificateInfoForCertHash(String certHash) {
         log.trace("getCertificateInfoForCertHash({})", certHash);
 
-        return forCert((k, c) -> certHash.equals(c.getHash()),
-                (k, c) -> c.toDTO()).orElse(null);
+        TokenSnapshot.CertEntry cert = snapshot.getCertForHash(certHash);
+
+        return cert != null ? cert.getCertificateInfo() : null;
     }
 
     /**
      * @param certHash the certificate hash
      * @return the certificate for the certificate hash or null
      */
-    public static synchronized X509Certificate getCertificateForCertHash(
-            String certHash) {
+    public static X509Certificate getCertificateForCertHash(String certHash) {
         log.trace("getCertificateForCertHash({})", certHash);
 
-        return forCert((k, c) -> certHash.equals(c.getHash()),
-                (k, c) -> c.getCertificate()).orElse(null);
+        TokenSnapshot.CertEntry cert = snapshot.getCertForHash(certHash);
+
+        return cert != null ? cert.getCertificate() : null;
     }
 
     /**
      * @return all certificates
      */
-    public static synchronized List<CertificateInfo> getAllCerts() {
+    public static List<CertificateInfo> getAllCerts() {
         log.trace("getAllCerts()");
 
-        return currentTokens.stream()
-                .flatMap(t -> t.getKeys().stream())
-                .flatMap(k -> k.getCerts().stream())
-                .map(c -> c.toDTO())
-                .collect(Collectors.toList());
+        return new ArrayList<>(snapshot.getAllCerts());
     }
 
     /**
@@ -433,15 +427,41 @@ public final class TokenManager {
      * @param certHash the certificate hash
      * @param response the OCSP response
      */
-    public static synchronized void setOcspResponse(String certHash,
-                                                    OCSPResp response) {
-        log.trace("setOcspResponse({})", certHash);
+    public static void setOcspResponse(String certHash, OCSPResp response) {
+        setOcspResponses(Collections.singletonMap(certHash, response));
+    }
 
-        forCert((k, c) -> certHash.equals(c.getHash()),
-                (k, c) -> {
-                    c.setOcspResponse(response);
-                    return null;
-                });
+    /**
+     * Sets the OCSP responses for the certificates. A new snapshot is published
+     * at most once, regardless of the number of responses.
+     *
+     * @param responses the OCSP responses by certificate hash
+     */
+    public static synchronized void setOcspResponses(Map<String, OCSPResp> responses) {
+        log.trace("setOcspResponses({})", responses.keySet());
+
+        boolean changed = false;
+
+        for (Token token : currentTokens) {
+            for (Key key : token.getKeys()) {
+                for (Cert cert : key.getCerts()) {
+                    if (!responses.containsKey(cert.getHash())) {
+                        continue;
+                    }
+
+                    OCSPResp response = responses.get(cert.getHash());
+
+                    if (cert.getOcspResponse() != response) {
+                        cert.setOcspResponse(response);
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        if (changed) {
+            publish();
+        }
     }
 
     /**
@@ -449,49 +469,50 @@ public final class TokenManager {
      * @param memberId the member id
      * @return the certificate request info or null if not found
      */
-    public static synchronized CertRequestInfo getCertRequestInfo(String keyId,
-                                                                  ClientId memberId) {
+    public static CertRequestInfo getCertRequestInfo(String keyId, ClientId memberId) {
         log.trace("getCertRequestInfo({}, {})", keyId, memberId);
 
-        Key key = findKey(keyId);
+        KeyInfo key = findKeyEntry(snapshot, keyId).getKeyInfo();
         return key.getCertRequests().stream()
                 .filter(c -> key.getUsage() == KeyUsageInfo.AUTHENTICATION
                         || memberId.equals(c.getMemberId()))
-                .map(c -> c.toDTO()).findFirst().orElse(null);
+                .findFirst().orElse(null);
     }
 
     /**
      * @param certReqId cert request id
      * @return the certificate request info or null if not found
      */
-    public static synchronized CertRequestInfo getCertRequestInfo(String certReqId) {
+    public static CertRequestInfo getCertRequestInfo(String certReqId) {
         log.trace("getCertRequestInfo({})", certReqId);
 
-        return forCertRequest((k, c) -> certReqId.equals(c.getId()),
-                (k, c) -> c.toDTO())
-                .orElse(null);
+        TokenSnapshot.CertRequestEntry certRequest = snapshot.getCertRequest(certReqId);
+
+        return certRequest != null ? certRequest.getCertRequestInfo() : null;
     }
 
     /**
      * @param certHash the certificate hash
      * @return key info for the certificate hash
      */
-    public static synchronized KeyInfo getKeyInfoForCertHash(String certHash) {
+    public static KeyInfo getKeyInfoForCertHash(String certHash) {
         log.trace("getKeyInfoForCertHash({})", certHash);
 
-        return forCert((k, c) -> certHash.equals(c.getHash()),
-                (k, c) -> k.toDTO()).orElse(null);
+        TokenSnapshot.CertEntry cert = snapshot.getCertForHash(certHash);
+
+        return cert != null ? cert.getKeyInfo() : null;
     }
 
     /**
      * @param certId the certificate id
      * @return key info for certificate id
      */
-    public static synchronized KeyInfo getKeyInfoForCertId(String certId) {
+    public static KeyInfo getKeyInfoForCertId(String certId) {
         log.trace("getKeyInfoForCertId({})", certId);
 
-        return forCert((k, c) -> c.getId().equals(certId),
-                (k, c) -> k.toDTO()).orElse(null);
+        TokenSnapshot.CertEntry cert = snapshot.getCert(certId);
+
+        return cert != null ? cert.getKeyInfo() : null;
     }
 
     /**
@@ -509,20 +530,20 @@ public final class TokenManager {
      * @param tokenId the token id
      * @return true if token is available
      */
-    public static synchronized boolean isTokenAvailable(String tokenId) {
+    public static boolean isTokenAvailable(String tokenId) {
         log.trace("isTokenAvailable({})", tokenId);
 
-        return findToken(tokenId).isAvailable();
+        return findTokenEntry(tokenId).getTokenInfo().isAvailable();
     }
 
     /**
      * @param tokenId the token id
      * @return true if token is active (logged in)
      */
-    public static synchronized boolean isTokenActive(String tokenId) {
+    public static boolean isTokenActive(String tokenId) {
         log.trace("isTokenActive({})", tokenId);
 
-        return findToken(tokenId).isActive();
+        return findTokenEntry(tokenId).getTokenInfo().isActive();
     }
 
     /**
@@ -540,6 +561,7 @@ public final class TokenManager {
         Token token = findToken(tokenId);
         token.setAvailable(available);
         token.setModuleId(tokenType.getModuleType());
+        publish();
     }
 
     /**
@@ -552,6 +574,7 @@ public final class TokenManager {
         log.trace("setTokenAvailable({}, {})", tokenId, available);
 
         findToken(tokenId).setAvailable(available);
+        publish();
     }
 
     /**
@@ -565,6 +588,7 @@ public final class TokenManager {
         log.trace("setTokenActive({}, {})", tokenId, active);
 
         findToken(tokenId).setActive(active);
+        publish();
     }
 
     /**
@@ -578,16 +602,17 @@ public final class TokenManager {
         log.trace("setTokenFriendlyName({}, {})", tokenId, friendlyName);
 
         findToken(tokenId).setFriendlyName(friendlyName);
+        publish();
     }
 
     /**
      * @param tokenId the token if
      * @return the token status info
      */
-    public static synchronized TokenStatusInfo getTokenStatus(String tokenId) {
+    public static TokenStatusInfo getTokenStatus(String tokenId) {
         log.trace("getTokenStatus({})", tokenId);
 
-        return findToken(tokenId).getStatus();
+        return findTokenEntry(tokenId).getTokenInfo().getStatus();
     }
 
     /**
@@ -601,6 +626,7 @@ public final class TokenManager {
         log.trace("setTokenStatus({}, {})", tokenId, status);
 
         findToken(tokenId).setStatus(status);
+        publish();
     }
 
     /**
@@ -614,16 +640,17 @@ public final class TokenManager {
         log.trace("setKeyAvailable({}, {})", keyId, available);
 
         findKey(keyId).setAvailable(available);
+        publish();
     }
 
     /**
      * @param keyId the key id
      * @return true if key is available
      */
-    public static synchronized boolean isKeyAvailable(String keyId) {
+    public static boolean isKeyAvailable(String keyId) {
         log.trace("isKeyAvailable()");
 
-        return findKey(keyId).isAvailable();
+        return findKeyEntry(snapshot, keyId).getKeyInfo().isAvailable();
     }
 
     /**
@@ -637,6 +664,7 @@ public final class TokenManager {
         log.trace("setKeyFriendlyName({}, {})", keyId, friendlyName);
 
         findKey(keyId).setFriendlyName(friendlyName);
+        publish();
     }
 
     /**
@@ -649,6 +677,7 @@ public final class TokenManager {
         log.trace("setKeyLabel({}, {})", keyId, label);
 
         findKey(keyId).setLabel(label);
+        publish();
     }
 
     /**
@@ -662,6 +691,7 @@ public final class TokenManager {
         log.trace("setKeyUsage({}, {})", keyId, keyUsage);
 
         findKey(keyId).setUsage(keyUsage);
+        publish();
     }
 
     /**
@@ -681,6 +711,7 @@ public final class TokenManager {
         key.setPublicKey(publicKeyBase64);
 
         token.addKey(key);
+        publish();
 
         return key.toDTO();
     }
@@ -694,8 +725,11 @@ public final class TokenManager {
     public static synchronized boolean removeKey(String keyId) {
         log.trace("removeKey({})", keyId);
 
-        return forKey((t, k) -> k.getId().equals(keyId),
+        boolean removed = forKey((t, k) -> k.getId().equals(keyId),
                 (t, k) -> t.getKeys().remove(k)).orElse(false);
+        publish();
+
+        return removed;
     }
 
     /**
@@ -709,6 +743,7 @@ public final class TokenManager {
         log.trace("setPublicKey({}, {})", keyId, publicKeyBase64);
 
         findKey(keyId).setPublicKey(publicKeyBase64);
+        publish();
     }
 
     /**
@@ -726,6 +761,7 @@ public final class TokenManager {
         cert.setCertificate(certBytes);
 
         key.addCert(cert);
+        publish();
     }
 
     /**
@@ -749,6 +785,7 @@ public final class TokenManager {
         cert.setStatus(certInfo.getStatus());
 
         key.addCert(cert);
+        publish();
     }
 
     /**
@@ -762,6 +799,7 @@ public final class TokenManager {
         log.trace("setCertActive({}, {})", certId, active);
 
         findCert(certId).setActive(active);
+        publish();
     }
 
     /**
@@ -775,6 +813,7 @@ public final class TokenManager {
         log.trace("setCertStatus({}, {})", certId, status);
 
         findCert(certId).setStatus(status);
+        publish();
     }
 
     /**
@@ -786,8 +825,11 @@ public final class TokenManager {
     public static synchronized boolean removeCert(String certId) {
         log.trace("removeCert({})", certId);
 
-        return forCert((k, c) -> c.getId().equals(certId),
+        boolean removed = forCert((k, c) -> c.getId().equals(certId),
                 (k, c) -> k.getCerts().remove(c)).orElse(false);
+        publish();
+
+        return removed;
     }
 
     /**
@@ -813,6 +855,7 @@ public final class TokenManager {
         }
 
         key.setUsage(keyUsage);
+        publish();
 
         for (CertRequest certRequest : key.getCertRequests()) {
             ClientId crMember = certRequest.getMemberId();
@@ -830,6 +873,7 @@ public final class TokenManager {
 
         String certId = SignerUtil.randomId();
         key.addCertRequest(new CertRequest(certId, memberId, subjectName));
+        publish();
 
         log.info("Added new certificate request (memberId: {}, "
                         + "subjectId: {}) under key {}",
@@ -847,7 +891,7 @@ public final class TokenManager {
     public static synchronized String removeCertRequest(String certReqId) {
         log.trace("removeCertRequest({})", certReqId);
 
-        return forCertRequest((k, c) -> c.getId().equals(certReqId),
+        String keyId = forCertRequest((k, c) -> c.getId().equals(certReqId),
                 (k, c) -> {
                     if (!k.getCertRequests().remove(c)) {
                         return null;
@@ -855,6 +899,9 @@ public final class TokenManager {
 
                     return k.getId();
                 }).orElse(null);
+        publish();
+
+        return keyId;
     }
 
     /**
@@ -865,20 +912,56 @@ public final class TokenManager {
      */
     public static synchronized void setTokenInfo(String tokenId, Map<String, String> info) {
         findToken(tokenId).setInfo(info);
+        publish();
     }
 
     /**
      * @param tokenId the token id
      * @return true if batch signing is enabled for a token
      */
-    public static synchronized boolean isBatchSigningEnabled(String tokenId) {
+    public static boolean isBatchSigningEnabled(String tokenId) {
         log.trace("isBatchSigningEnabled({})", tokenId);
 
-        return findToken(tokenId).isBatchSigningEnabled();
+        return findTokenEntry(tokenId).isBatchSigningEnabled();
     }
 
     // ------------------------------------------------------------------------
 
+    /**
+     * Publishes a new snapshot of the current tokens. Must be called while
+     * holding the class lock after every change to the token model.
+     */
+    private static void publish() {
+        snapshot = new TokenSnapshot(currentTokens);
+        version++;
+    }
+
+    private static TokenSnapshot.TokenEntry findTokenEntry(String tokenId) {
+        TokenSnapshot.TokenEntry token = snapshot.getToken(tokenId);
+
+        if (token == null) {
+            throw tokenNotFound(tokenId);
+        }
+
+        return token;
+    }
+
+    private static TokenSnapshot.KeyEntry findKeyEntry(TokenSnapshot current, String keyId) {
+        TokenSnapshot.KeyEntry key = current.getKey(keyId);
+
+        if (key == null) {
+            throw keyNotFound(keyId);
+        }
+
+        return key;
+    }
+
+    private static TokenInfoAndKeyId toTokenInfoAndKeyId(TokenSnapshot current, String keyId) {
+        TokenSnapshot.KeyEntry key = findKeyEntry(current, keyId);
+
+        return new TokenInfoAndKeyId(current.getToken(key.getTokenId()).getTokenInfo(), keyId);
+    }
+
     private static <T> Optional<T> forToken(Function<Token, Boolean> tester, Function<Token, T> mapper) {
         for (Token token : currentTokens) {
             if (tester.apply(token)) {
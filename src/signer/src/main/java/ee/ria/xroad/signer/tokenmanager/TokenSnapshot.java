@@ -0,0 +1,227 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager;
+
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.common.identifier.XRoadObjectType;
+import ee.ria.xroad.signer.model.Cert;
+import ee.ria.xroad.signer.model.Key;
+import ee.ria.xroad.signer.model.Token;
+import ee.ria.xroad.signer.protocol.dto.CertRequestInfo;
+import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
+import ee.ria.xroad.signer.protocol.dto.KeyInfo;
+import ee.ria.xroad.signer.protocol.dto.TokenInfo;
+import ee.ria.xroad.signer.tokenmanager.module.SoftwareModuleType;
+
+import lombok.Value;
+
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Immutable view of the token state, indexed by token id, key id,
+ * certificate id, certificate hash, certificate request id and member id.
+ * The snapshot is built by {@link TokenManager} whenever the tokens change,
+ * so that lookups do not need to lock or scan the token list.
+ */
+final class TokenSnapshot {
+
+    static final TokenSnapshot EMPTY = new TokenSnapshot(Collections.emptyList());
+
+    private final List<TokenInfo> tokens;
+
+    private final List<CertificateInfo> allCerts;
+
+    private final String softwareTokenId;
+
+    private final Map<String, TokenEntry> tokensById = new HashMap<>();
+
+    private final Map<String, KeyEntry> keysById = new HashMap<>();
+
+    private final Map<String, CertEntry> certsById = new HashMap<>();
+
+    private final Map<String, CertEntry> certsByHash = new HashMap<>();
+
+    private final Map<String, CertRequestEntry> certRequestsById = new HashMap<>();
+
+    private final Map<ClientId, List<SigningKeyEntry>> signingKeysByMemberId = new HashMap<>();
+
+    /**
+     * Builds the snapshot from the current token model. Must be called
+     * while holding the lock that guards the model.
+     * @param currentTokens the tokens
+     */
+    TokenSnapshot(List<Token> currentTokens) {
+        List<TokenInfo> tokenInfos = new ArrayList<>(currentTokens.size());
+        List<CertificateInfo> certInfos = new ArrayList<>();
+        String softTokenId = null;
+        int signingKeyOrder = 0;
+
+        for (Token token : currentTokens) {
+            TokenInfo tokenInfo = token.toDTO();
+
+            tokenInfos.add(tokenInfo);
+            tokensById.putIfAbsent(token.getId(), new TokenEntry(tokenInfo, token.getModuleId(),
+                    token.isBatchSigningEnabled()));
+
+            if (softTokenId == null && SoftwareModuleType.TYPE.equals(token.getType())) {
+                softTokenId = token.getId();
+            }
+
+            // DTO lists are created in the same order as the model lists
+            List<Key> keys = token.getKeys();
+
+            for (int i = 0; i < keys.size(); i++) {
+                Key key = keys.get(i);
+                KeyInfo keyInfo = tokenInfo.getKeyInfo().get(i);
+                boolean signingKey = !token.isInActive() && key.isValidForSigning();
+
+                keysById.putIfAbsent(key.getId(), new KeyEntry(token.getId(), keyInfo));
+
+                List<Cert> certs = key.getCerts();
+
+                for (int j = 0; j < certs.size(); j++) {
+                    Cert cert = certs.get(j);
+                    CertificateInfo certInfo = keyInfo.getCerts().get(j);
+                    CertEntry certEntry = new CertEntry(key.getId(), keyInfo, certInfo, cert.getCertificate());
+
+                    certInfos.add(certInfo);
+                    certsById.putIfAbsent(cert.getId(), certEntry);
+
+                    if (cert.getHash() != null) {
+                        certsByHash.putIfAbsent(cert.getHash(), certEntry);
+                    }
+
+                    if (signingKey && !cert.isInvalid()) {
+                        signingKeysByMemberId.computeIfAbsent(cert.getMemberId(), m -> new ArrayList<>())
+                                .add(new SigningKeyEntry(signingKeyOrder++, keyInfo));
+                    }
+                }
+
+                for (CertRequestInfo certRequestInfo : keyInfo.getCertRequests()) {
+                    certRequestsById.putIfAbsent(certRequestInfo.getId(),
+                            new CertRequestEntry(key.getId(), certRequestInfo));
+                }
+            }
+        }
+
+        this.tokens = unmodifiableList(tokenInfos);
+        this.allCerts = unmodifiableList(certInfos);
+        this.softwareTokenId = softTokenId;
+    }
+
+    List<TokenInfo> getTokens() {
+        return tokens;
+    }
+
+    List<CertificateInfo> getAllCerts() {
+        return allCerts;
+    }
+
+    String getSoftwareTokenId() {
+        return softwareTokenId;
+    }
+
+    TokenEntry getToken(String tokenId) {
+        return tokensById.get(tokenId);
+    }
+
+    KeyEntry getKey(String keyId) {
+        return keysById.get(keyId);
+    }
+
+    CertEntry getCert(String certId) {
+        return certsById.get(certId);
+    }
+
+    CertEntry getCertForHash(String certHash) {
+        return certsByHash.get(certHash);
+    }
+
+    CertRequestEntry getCertRequest(String certRequestId) {
+        return certRequestsById.get(certRequestId);
+    }
+
+    /**
+     * Returns the signing keys of active tokens that have a valid certificate
+     * belonging to the given client. A subsystem also matches the certificates
+     * of its member. A key is listed once for every matching certificate.
+     * @param clientId the client id
+     * @return the list of keys
+     */
+    List<KeyInfo> getSigningKeys(ClientId clientId) {
+        List<SigningKeyEntry> entries = new ArrayList<>(
+                signingKeysByMemberId.getOrDefault(clientId, Collections.emptyList()));
+
+        if (clientId.getObjectType() == XRoadObjectType.SUBSYSTEM) {
+            entries.addAll(signingKeysByMemberId.getOrDefault(clientId.getMemberId(), Collections.emptyList()));
+            entries.sort(Comparator.comparingInt(SigningKeyEntry::getOrder));
+        }
+
+        return entries.stream().map(SigningKeyEntry::getKeyInfo).collect(Collectors.toList());
+    }
+
+    @Value
+    static class TokenEntry {
+        private final TokenInfo tokenInfo;
+        private final String moduleId;
+        private final boolean batchSigningEnabled;
+    }
+
+    @Value
+    static class KeyEntry {
+        private final String tokenId;
+        private final KeyInfo keyInfo;
+    }
+
+    @Value
+    static class CertEntry {
+        private final String keyId;
+        private final KeyInfo keyInfo;
+        private final CertificateInfo certificateInfo;
+        private final X509Certificate certificate;
+    }
+
+    @Value
+    static class CertRequestEntry {
+        private final String keyId;
+        private final CertRequestInfo certRequestInfo;
+    }
+
+    @Value
+    private static class SigningKeyEntry {
+        private final int order;
+        private final KeyInfo keyInfo;
+    }
+}
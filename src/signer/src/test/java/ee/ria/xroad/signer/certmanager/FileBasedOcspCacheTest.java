@@ -33,20 +33,22 @@ import ee.ria.xroad.common.conf.globalconf.GlobalConf;
 import org.bouncycastle.cert.ocsp.CertificateStatus;
 import org.bouncycastle.cert.ocsp.OCSPResp;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
-import org.mockito.Mockito;
+import org.junit.rules.TemporaryFolder;
 
-import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 /**
  * Tests the file based OCSP cache.
@@ -58,26 +60,20 @@ public class FileBasedOcspCacheTest {
     static X509Certificate signer;
     static PrivateKey signerKey;
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     /**
      * Test.
      * @throws Exception if an error occurs
      */
     @Test
     public void putGet() throws Exception {
-        Date thisUpdate = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
-        OCSPResp ocsp = OcspTestUtils.createOCSPResponse(subject, issuer,
-                signer, signerKey, CertificateStatus.GOOD, thisUpdate, null);
-
-        FileBasedOcspCache cache = new FileBasedOcspCache();
-        FileBasedOcspCache spy = Mockito.spy(cache);
-
-        Mockito.doNothing().when(spy).saveResponseToFile(
-                Mockito.any(File.class), Mockito.any(OCSPResp.class));
+        OCSPResp ocsp = createResponse(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
 
-        spy.put("foo", ocsp);
+        FileBasedOcspCache cache = new FileBasedOcspCache(tempFolder.getRoot().toPath());
 
-        Mockito.verify(spy).saveResponseToFile(Mockito.any(File.class),
-                Mockito.any(OCSPResp.class));
+        cache.put("foo", ocsp);
 
         assertNotNull(cache.get("foo"));
     }
@@ -88,21 +84,15 @@ public class FileBasedOcspCacheTest {
      */
     @Test
     public void expiredResponse() throws Exception {
-        Date thisUpdate = Date.from(Instant.now().minus(1, ChronoUnit.DAYS));
-        OCSPResp ocsp = OcspTestUtils.createOCSPResponse(subject, issuer,
-                signer, signerKey, CertificateStatus.GOOD, thisUpdate, null);
+        OCSPResp ocsp = createResponse(Date.from(Instant.now().minus(1, ChronoUnit.DAYS)));
 
-        FileBasedOcspCache cache = new FileBasedOcspCache();
-        FileBasedOcspCache spy = Mockito.spy(cache);
+        FileBasedOcspCache cache = new FileBasedOcspCache(tempFolder.getRoot().toPath());
 
-        Mockito.doNothing().when(spy).saveResponseToFile(
-                Mockito.any(File.class), Mockito.any(OCSPResp.class));
+        assertNull(cache.put("foo", ocsp));
+        assertNull(cache.get("foo"));
 
-        Mockito.doReturn(ocsp).when(spy).loadResponseFromFile(
-                Mockito.any(File.class));
-
-        assertNull(spy.put("foo", ocsp));
-        assertNull(spy.get("foo"));
+        // The expired response is removed from the store as well
+        assertNull(cache.loadResponse("foo"));
     }
 
     /**
@@ -110,28 +100,20 @@ public class FileBasedOcspCacheTest {
      * @throws Exception if an error occurs
      */
     @Test
-    public void saveLoadOcspResponseToFile() throws Exception {
-        Date thisUpdate = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
-        OCSPResp ocsp = OcspTestUtils.createOCSPResponse(subject, issuer,
-                signer, signerKey, CertificateStatus.GOOD, thisUpdate, null);
-
-        FileBasedOcspCache cache = new FileBasedOcspCache();
-        FileBasedOcspCache spy = Mockito.spy(cache);
-
-        Mockito.doNothing().when(spy).saveResponseToFile(
-                Mockito.any(File.class), Mockito.any(OCSPResp.class));
+    public void saveLoadOcspResponse() throws Exception {
+        OCSPResp ocsp = createResponse(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
 
-        spy.put("foo", ocsp);
+        FileBasedOcspCache cache = new FileBasedOcspCache(tempFolder.getRoot().toPath());
 
-        Mockito.verify(spy).saveResponseToFile(Mockito.any(File.class),
-                Mockito.any(OCSPResp.class));
+        cache.put("foo", ocsp);
+        cache.clear();
 
-        spy.clear();
+        assertNotNull(cache.get("foo"));
 
-        Mockito.doReturn(ocsp).when(spy).loadResponseFromFile(
-                Mockito.any(File.class));
+        FileBasedOcspCache reloaded = new FileBasedOcspCache(tempFolder.getRoot().toPath());
+        reloaded.reloadFromDisk();
 
-        assertNotNull(spy.get("foo"));
+        assertArrayEquals(ocsp.getEncoded(), reloaded.entrySet().iterator().next().getValue().getEncoded());
     }
 
     /**
@@ -139,15 +121,26 @@ public class FileBasedOcspCacheTest {
      * @throws Exception if an error occurs
      */
     @Test
-    public void readOcspFromEmptyFile() throws Exception {
-        FileBasedOcspCache cache = new FileBasedOcspCache();
+    public void migrateResponseFiles() throws Exception {
+        OCSPResp ocsp = createResponse(Date.from(Instant.now().plus(1, ChronoUnit.DAYS)));
+
+        Path root = tempFolder.getRoot().toPath();
+        Path responseFile = Files.write(root.resolve("foo.ocsp"), ocsp.getEncoded());
+        Path emptyFile = Files.write(root.resolve("bar.ocsp"), new byte[0]);
+
+        FileBasedOcspCache cache = new FileBasedOcspCache(root);
+        cache.reloadFromDisk();
 
-        File f = mock(File.class);
-        when(f.exists()).thenReturn(true);
-        when(f.length()).thenReturn(0L);
-        when(f.delete()).thenReturn(true);
+        assertNotNull(cache.get("foo"));
+        assertNull(cache.get("bar"));
+
+        assertFalse(Files.exists(responseFile));
+        assertFalse(Files.exists(emptyFile));
+    }
 
-        assertNull(cache.loadResponseFromFile(f));
+    private static OCSPResp createResponse(Date thisUpdate) throws Exception {
+        return OcspTestUtils.createOCSPResponse(subject, issuer, signer, signerKey, CertificateStatus.GOOD,
+                thisUpdate, null);
     }
 
     /**
@@ -31,6 +31,7 @@ import ee.ria.xroad.common.conf.globalconf.GlobalConf;
 import ee.ria.xroad.common.conf.globalconf.GlobalConfProvider;
 import ee.ria.xroad.common.ocsp.OcspVerifier;
 import ee.ria.xroad.common.ocsp.OcspVerifierOptions;
+import ee.ria.xroad.signer.certmanager.OcspFetchEngine.FetchCycle;
 
 import akka.actor.ActorSystem;
 import akka.actor.Props;
@@ -71,6 +72,7 @@ import java.util.Map;
 
 import static ee.ria.xroad.common.util.CryptoUtils.calculateCertHexHash;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -152,6 +154,50 @@ public class OcspClientTest {
         verifier.verifyValidityAndStatus(ocsp, subject, GlobalConf.getCaCert("EE", subject));
     }
 
+    /**
+     * Test that a single failed request does not make the responder unavailable for the rest of the cycle.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void responderIsRetriedAfterSingleFailure() throws Exception {
+        X509Certificate subject = getDefaultClientCert();
+
+        GlobalConf.reload(getTestGlobalConf());
+
+        FetchCycle cycle = new FetchCycle();
+
+        // empty response fails with IOException, like a connection reset
+        responseData = null;
+        assertNull(ocspClient.queryCertStatus(subject, new OcspVerifierOptions(true), cycle));
+
+        responseData = createGoodResponse(subject);
+        assertNotNull(ocspClient.queryCertStatus(subject, new OcspVerifierOptions(true), cycle));
+    }
+
+    /**
+     * Test that a responder is skipped for the rest of the cycle after repeated failures.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void responderIsSkippedAfterRepeatedFailures() throws Exception {
+        X509Certificate subject = getDefaultClientCert();
+
+        GlobalConf.reload(getTestGlobalConf());
+
+        FetchCycle cycle = new FetchCycle();
+
+        responseData = null;
+        for (int i = 0; i < FetchCycle.MAX_CONSECUTIVE_FAILURES; i++) {
+            assertNull(ocspClient.queryCertStatus(subject, new OcspVerifierOptions(true), cycle));
+        }
+
+        responseData = createGoodResponse(subject);
+        assertNull(ocspClient.queryCertStatus(subject, new OcspVerifierOptions(true), cycle));
+
+        // a new cycle tries the responder again
+        assertNotNull(ocspClient.queryCertStatus(subject, new OcspVerifierOptions(true), new FetchCycle()));
+    }
+
     /**
      * Test.
      * @throws Exception if an error occurs
@@ -304,6 +350,13 @@ public class OcspClientTest {
         return TestCertUtil.getConsumer().certChain[0];
     }
 
+    private static byte[] createGoodResponse(X509Certificate subject) throws Exception {
+        Date thisUpdate = Date.from(Instant.now().plus(1, ChronoUnit.DAYS));
+
+        return OcspTestUtils.createOCSPResponse(subject, GlobalConf.getCaCert("EE", subject), ocspResponderCert,
+                getOcspSignerKey(), CertificateStatus.GOOD, thisUpdate, null).getEncoded();
+    }
+
     private static String hash(X509Certificate cert) throws Exception {
         return calculateCertHexHash(cert);
     }
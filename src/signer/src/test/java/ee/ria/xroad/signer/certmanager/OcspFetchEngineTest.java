@@ -0,0 +1,235 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import ee.ria.xroad.common.OcspTestUtils;
+import ee.ria.xroad.common.TestCertUtil;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the parallel OCSP fetch engine against local mock responders that respond with a delay.
+ */
+@Slf4j
+public class OcspFetchEngineTest {
+
+    private static final int FAST_RESPONDER_PORT = 8095;
+    private static final int SLOW_RESPONDER_PORT = 8096;
+
+    private static final String FAST_RESPONDER_URI = "http://127.0.0.1:" + FAST_RESPONDER_PORT;
+    private static final String SLOW_RESPONDER_URI = "http://127.0.0.1:" + SLOW_RESPONDER_PORT;
+
+    private static final long FAST_RESPONDER_DELAY_MS = 100;
+    private static final long SLOW_RESPONDER_DELAY_MS = 5000;
+
+    private static final int THREADS = 8;
+    private static final int MAX_CONCURRENT_PER_RESPONDER = 4;
+    private static final int CERT_COUNT = 32;
+
+    private static final long TIMEOUT_MS = 30000;
+
+    private static Server fastResponder;
+    private static Server slowResponder;
+
+    private static X509Certificate subject;
+    private static X509Certificate issuer;
+    private static byte[] responseData;
+
+    private static DelayedResponder fastHandler;
+
+    private OcspFetchEngine engine;
+
+    /**
+     * Starts the mock responders.
+     * @throws Exception if an error occurs
+     */
+    @BeforeClass
+    public static void startResponders() throws Exception {
+        subject = TestCertUtil.getConsumer().certChain[0];
+        issuer = TestCertUtil.getCaCert();
+        responseData = OcspTestUtils.createOCSPResponse(subject, issuer, TestCertUtil.getOcspSigner().certChain[0],
+                TestCertUtil.getOcspSigner().key, CertificateStatus.GOOD).getEncoded();
+
+        fastHandler = new DelayedResponder(FAST_RESPONDER_DELAY_MS);
+        fastResponder = new Server(FAST_RESPONDER_PORT);
+        fastResponder.setHandler(fastHandler);
+        fastResponder.start();
+
+        slowResponder = new Server(SLOW_RESPONDER_PORT);
+        slowResponder.setHandler(new DelayedResponder(SLOW_RESPONDER_DELAY_MS));
+        slowResponder.start();
+    }
+
+    /**
+     * Stops the mock responders.
+     * @throws Exception if an error occurs
+     */
+    @AfterClass
+    public static void stopResponders() throws Exception {
+        fastResponder.stop();
+        slowResponder.stop();
+    }
+
+    @Before
+    public void createEngine() {
+        engine = new OcspFetchEngine(THREADS, MAX_CONCURRENT_PER_RESPONDER);
+        fastHandler.maxConcurrent.set(0);
+    }
+
+    @After
+    public void shutdownEngine() {
+        engine.shutdown();
+    }
+
+    /**
+     * Measures the refresh cycle time of fetching responses for a number of certificates from a responder.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void refreshCycleFetchesResponsesInParallel() throws Exception {
+        List<X509Certificate> certs = createCerts(CERT_COUNT);
+
+        long start = System.currentTimeMillis();
+
+        Map<X509Certificate, OCSPResp> responses = engine.fetchAll(certs,
+                cert -> singletonList(FAST_RESPONDER_URI), (cert, cycle) -> fetch(FAST_RESPONDER_URI), TIMEOUT_MS);
+
+        long cycleTime = System.currentTimeMillis() - start;
+
+        log.info("Fetched {} OCSP responses in {} ms (sequential minimum {} ms)", responses.size(), cycleTime,
+                CERT_COUNT * FAST_RESPONDER_DELAY_MS);
+
+        assertEquals(CERT_COUNT, responses.size());
+        assertTrue("Responder concurrency limit exceeded",
+                fastHandler.maxConcurrent.get() <= MAX_CONCURRENT_PER_RESPONDER);
+        // With the per responder limit the cycle takes at least CERT_COUNT / MAX_CONCURRENT_PER_RESPONDER rounds,
+        // which is still a fraction of the time of fetching the responses one at a time.
+        assertTrue("Refresh cycle took " + cycleTime + " ms", cycleTime < CERT_COUNT * FAST_RESPONDER_DELAY_MS / 2);
+    }
+
+    /**
+     * Verifies that a slow responder does not block the responses of other responders beyond the cycle timeout.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void unfinishedQueriesAreCancelledAfterTimeout() throws Exception {
+        List<X509Certificate> fastCerts = createCerts(CERT_COUNT / 2);
+        List<X509Certificate> slowCerts = createCerts(CERT_COUNT / 2);
+
+        List<X509Certificate> certs = new ArrayList<>(slowCerts);
+        certs.addAll(fastCerts);
+
+        long timeoutMs = SLOW_RESPONDER_DELAY_MS / 2;
+        long start = System.currentTimeMillis();
+
+        Function<X509Certificate, String> responder =
+                cert -> slowCerts.contains(cert) ? SLOW_RESPONDER_URI : FAST_RESPONDER_URI;
+
+        Map<X509Certificate, OCSPResp> responses = engine.fetchAll(certs,
+                cert -> singletonList(responder.apply(cert)), (cert, cycle) -> fetch(responder.apply(cert)),
+                timeoutMs);
+
+        long cycleTime = System.currentTimeMillis() - start;
+
+        log.info("Fetched {} of {} OCSP responses in {} ms", responses.size(), certs.size(), cycleTime);
+
+        assertEquals(fastCerts.size(), responses.size());
+        assertTrue(responses.keySet().containsAll(fastCerts));
+        assertTrue("Refresh cycle took " + cycleTime + " ms", cycleTime < SLOW_RESPONDER_DELAY_MS);
+    }
+
+    private OCSPResp fetch(String responderURI) throws Exception {
+        return engine.callResponder(responderURI,
+                () -> OcspClient.fetchResponse(responderURI, subject, issuer, null, null, null));
+    }
+
+    private static List<X509Certificate> createCerts(int count) {
+        List<X509Certificate> certs = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            certs.add(mock(X509Certificate.class));
+        }
+
+        return certs;
+    }
+
+    private static final class DelayedResponder extends AbstractHandler {
+
+        private final long delayMs;
+
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        DelayedResponder(long delayMs) {
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public void handle(String target, Request baseRequest, HttpServletRequest request,
+                HttpServletResponse response) throws IOException {
+            int current = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+
+            try {
+                Thread.sleep(delayMs);
+
+                response.setContentType("application/ocsp-response");
+                response.getOutputStream().write(responseData);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                baseRequest.setHandled(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.certmanager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the memory-mapped OCSP response store.
+ */
+public class OcspResponseStoreTest {
+
+    private static final int RESPONSE_SIZE = 2048;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path directory;
+    private OcspResponseStore store;
+
+    @Before
+    public void openStore() throws Exception {
+        directory = tempFolder.getRoot().toPath();
+        store = new OcspResponseStore(directory);
+        store.open();
+    }
+
+    @After
+    public void closeStore() throws Exception {
+        store.close();
+    }
+
+    @Test
+    public void putGetRemove() throws Exception {
+        assertNull(store.get("foo"));
+
+        store.put("foo", value(1));
+        store.put("bar", value(2));
+        store.put("foo", value(3));
+
+        assertArrayEquals(value(3), store.get("foo"));
+        assertArrayEquals(value(2), store.get("bar"));
+
+        store.remove("bar");
+
+        assertNull(store.get("bar"));
+        assertEquals(1, store.keys().size());
+    }
+
+    @Test
+    public void reopenRestoresLatestValues() throws Exception {
+        store.put("foo", value(1));
+        store.put("bar", value(2));
+        store.put("foo", value(3));
+        store.remove("bar");
+        store.close();
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertArrayEquals(value(3), store.get("foo"));
+        assertNull(store.get("bar"));
+        assertEquals(1, store.keys().size());
+    }
+
+    @Test
+    public void growsBeyondInitialMapping() throws Exception {
+        int count = 1000;
+
+        for (int i = 0; i < count; i++) {
+            store.put("key" + i, value(i));
+        }
+
+        store.close();
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertEquals(count, store.keys().size());
+
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals(value(i), store.get("key" + i));
+        }
+    }
+
+    @Test
+    public void compactionKeepsLiveValues() throws Exception {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 100; i++) {
+                store.put("key" + i, value(round + i));
+            }
+        }
+
+        store.compact();
+
+        long compactedSize = Files.size(directory.resolve(OcspResponseStore.STORE_FILE_NAME));
+
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(value(9 + i), store.get("key" + i));
+        }
+
+        store.put("new", value(42));
+        store.close();
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertEquals(101, store.keys().size());
+        assertArrayEquals(value(9 + 99), store.get("key99"));
+        assertArrayEquals(value(42), store.get("new"));
+        assertTrue(compactedSize < 10 * 100 * RESPONSE_SIZE);
+    }
+
+    @Test
+    public void incompleteRecordIsIgnored() throws Exception {
+        store.put("foo", value(1));
+        store.put("bar", value(2));
+        store.close();
+
+        // Corrupt the last byte of the value of the last record
+        Path storeFile = directory.resolve(OcspResponseStore.STORE_FILE_NAME);
+        int lastValueEnd = 2 * Integer.BYTES + 2 * (3 * Integer.BYTES + "foo".length() + RESPONSE_SIZE)
+                - Integer.BYTES;
+
+        try (RandomAccessFile file = new RandomAccessFile(storeFile.toFile(), "rw")) {
+            file.seek(lastValueEnd - 1);
+            file.write(0xFF ^ value(2)[RESPONSE_SIZE - 1]);
+        }
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertArrayEquals(value(1), store.get("foo"));
+        assertNull(store.get("bar"));
+
+        // New records are appended over the incomplete one
+        store.put("baz", value(3));
+        store.close();
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertArrayEquals(value(3), store.get("baz"));
+    }
+
+    @Test
+    public void emptyFileIsOpenedAsNewStore() throws Exception {
+        store.close();
+
+        // A crash before the header reached the disk leaves an empty file
+        Path storeFile = directory.resolve(OcspResponseStore.STORE_FILE_NAME);
+        Files.write(storeFile, new byte[0]);
+
+        store = new OcspResponseStore(directory);
+        store.open();
+        store.put("foo", value(1));
+        store.close();
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertArrayEquals(value(1), store.get("foo"));
+        assertFalse(Files.exists(corruptFile()));
+    }
+
+    @Test
+    public void unknownHeaderIsMovedAside() throws Exception {
+        store.close();
+
+        Path storeFile = directory.resolve(OcspResponseStore.STORE_FILE_NAME);
+        byte[] garbage = "not an OCSP response store".getBytes(StandardCharsets.UTF_8);
+        Files.write(storeFile, garbage);
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertTrue(store.keys().isEmpty());
+        assertArrayEquals(garbage, Files.readAllBytes(corruptFile()));
+
+        store.put("foo", value(1));
+        store.close();
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertArrayEquals(value(1), store.get("foo"));
+    }
+
+    @Test
+    public void migratesResponseFiles() throws Exception {
+        store.close();
+
+        Files.delete(directory.resolve(OcspResponseStore.STORE_FILE_NAME));
+        Files.write(directory.resolve("foo" + OcspResponseStore.LEGACY_FILE_EXTENSION), value(1));
+        Files.write(directory.resolve("bar" + OcspResponseStore.LEGACY_FILE_EXTENSION), value(2));
+        Files.write(directory.resolve("other.txt"), "other".getBytes(StandardCharsets.UTF_8));
+
+        store = new OcspResponseStore(directory);
+        store.open();
+
+        assertArrayEquals(value(1), store.get("foo"));
+        assertArrayEquals(value(2), store.get("bar"));
+        assertEquals(2, store.keys().size());
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(p -> p.toString().endsWith(OcspResponseStore.LEGACY_FILE_EXTENSION)));
+        }
+    }
+
+    private Path corruptFile() {
+        return directory.resolve(OcspResponseStore.STORE_FILE_NAME + OcspResponseStore.CORRUPT_FILE_SUFFIX);
+    }
+
+    private static byte[] value(int seed) {
+        byte[] value = new byte[RESPONSE_SIZE];
+        Arrays.fill(value, (byte) seed);
+        value[0] = (byte) (seed >> 8);
+
+        return value;
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * The MIT License
+ * Copyright (c) 2019- Nordic Institute for Interoperability Solutions (NIIS)
+ * Copyright (c) 2018 Estonian Information System Authority (RIA),
+ * Nordic Institute for Interoperability Solutions (NIIS), Population Register Centre (VRK)
+ * Copyright (c) 2015-2017 Estonian Information System Authority (RIA), Population Register Centre (VRK)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ee.ria.xroad.signer.tokenmanager;
+
+import ee.ria.xroad.common.CodedException;
+import ee.ria.xroad.common.OcspTestUtils;
+import ee.ria.xroad.common.TestCertUtil;
+import ee.ria.xroad.common.identifier.ClientId;
+import ee.ria.xroad.signer.protocol.dto.CertificateInfo;
+import ee.ria.xroad.signer.protocol.dto.KeyUsageInfo;
+import ee.ria.xroad.signer.tokenmanager.token.TokenType;
+import ee.ria.xroad.signer.util.SignerUtil;
+
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPResp;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static ee.ria.xroad.common.util.CryptoUtils.calculateCertHexHash;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that {@link TokenManager} lookups reflect the changes made to the tokens.
+ */
+public class TokenManagerTest {
+
+    private static final ClientId MEMBER = ClientId.create("EE", "BUSINESS", "producer");
+    private static final ClientId SUBSYSTEM = ClientId.create("EE", "BUSINESS", "producer", "sub");
+    private static final ClientId OTHER_MEMBER = ClientId.create("EE", "BUSINESS", "consumer");
+
+    private String tokenId;
+    private String keyId;
+    private String certId;
+    private String certHash;
+    private X509Certificate cert;
+
+    /**
+     * Creates a token with an active signing key and certificate.
+     * @throws Exception if an error occurs
+     */
+    @Before
+    public void setUp() throws Exception {
+        tokenId = SignerUtil.randomId();
+        keyId = SignerUtil.randomId();
+        certId = SignerUtil.randomId();
+
+        TokenType tokenType = mock(TokenType.class);
+        when(tokenType.getId()).thenReturn(tokenId);
+        when(tokenType.getModuleType()).thenReturn("testModule");
+        when(tokenType.getSlotIndex()).thenReturn(0);
+
+        TokenManager.createToken(tokenType);
+        TokenManager.setTokenActive(tokenId, true);
+        TokenManager.addKey(tokenId, keyId, "publicKey");
+        TokenManager.setKeyUsage(keyId, KeyUsageInfo.SIGNING);
+        TokenManager.setKeyAvailable(keyId, true);
+
+        cert = TestCertUtil.getProducer().certChain[0];
+        certHash = calculateCertHexHash(cert);
+
+        TokenManager.addCert(keyId, new CertificateInfo(MEMBER, true, true,
+                CertificateInfo.STATUS_REGISTERED, certId, cert.getEncoded(), null));
+    }
+
+    /**
+     * Removes the key, so that the certificate of the next test is the only one with the same hash.
+     */
+    @After
+    public void tearDown() {
+        TokenManager.removeKey(keyId);
+    }
+
+    @Test
+    public void findsTokenKeyAndCert() {
+        assertEquals(tokenId, TokenManager.findTokenIdForKeyId(keyId));
+        assertEquals(tokenId, TokenManager.findTokenAndKey(keyId).getTokenId());
+        assertEquals(tokenId, TokenManager.findTokenInfoForKeyId(keyId).getId());
+        assertEquals("testModule", TokenManager.getModuleId(tokenId));
+        assertTrue(TokenManager.isTokenActive(tokenId));
+        assertTrue(TokenManager.isKeyAvailable(keyId));
+
+        assertEquals(certId, TokenManager.getCertificateInfoForCertHash(certHash).getId());
+        assertEquals(keyId, TokenManager.getKeyInfoForCertHash(certHash).getId());
+        assertEquals(keyId, TokenManager.getKeyInfoForCertId(certId).getId());
+        assertEquals(keyId, TokenManager.findTokenAndKeyIdForCertHash(certHash).getKeyId());
+        assertNotNull(TokenManager.getCertificateForCertHash(certHash));
+        assertTrue(TokenManager.getAllCerts().stream().anyMatch(c -> c.getId().equals(certId)));
+    }
+
+    @Test
+    public void findsSigningKeysForMemberAndSubsystem() {
+        assertEquals(1, TokenManager.getKeyInfo(MEMBER).stream().filter(k -> k.getId().equals(keyId)).count());
+        assertEquals(1, TokenManager.getKeyInfo(SUBSYSTEM).stream().filter(k -> k.getId().equals(keyId)).count());
+        assertTrue(TokenManager.getKeyInfo(OTHER_MEMBER).stream().noneMatch(k -> k.getId().equals(keyId)));
+
+        TokenManager.setCertActive(certId, false);
+
+        assertTrue(TokenManager.getKeyInfo(MEMBER).stream().noneMatch(k -> k.getId().equals(keyId)));
+    }
+
+    @Test
+    public void findsCertRequests() {
+        String certRequestId = TokenManager.addCertRequest(keyId, MEMBER, "CN=producer", KeyUsageInfo.SIGNING);
+
+        assertEquals(keyId, TokenManager.findTokenAndKeyIdForCertRequestId(certRequestId).getKeyId());
+        assertEquals(certRequestId, TokenManager.getCertRequestInfo(keyId, MEMBER).getId());
+
+        assertEquals(keyId, TokenManager.removeCertRequest(certRequestId));
+        assertNull(TokenManager.getCertRequestInfo(certRequestId));
+    }
+
+    @Test
+    public void setsOcspResponsesInOneSnapshot() throws Exception {
+        TestCertUtil.PKCS12 ocspSigner = TestCertUtil.getOcspSigner();
+        OCSPResp response = OcspTestUtils.createOCSPResponse(cert, TestCertUtil.getCaCert(),
+                ocspSigner.certChain[0], ocspSigner.key, CertificateStatus.GOOD);
+
+        Map<String, OCSPResp> responses = new HashMap<>();
+        responses.put(certHash, response);
+        responses.put("unknown", response);
+
+        long version = TokenManager.getVersion();
+        TokenManager.setOcspResponses(responses);
+
+        assertEquals(version + 1, TokenManager.getVersion());
+        assertNotNull(TokenManager.getCertificateInfoForCertHash(certHash).getOcspBytes());
+
+        // setting the same responses again does not publish a new snapshot
+        TokenManager.setOcspResponses(responses);
+
+        assertEquals(version + 1, TokenManager.getVersion());
+    }
+
+    @Test(expected = CodedException.class)
+    public void removedKeyIsNotFound() {
+        assertTrue(TokenManager.removeKey(keyId));
+
+        assertNull(TokenManager.getKeyInfo(keyId));
+        assertNull(TokenManager.getCertificateInfo(certId));
+
+        TokenManager.findTokenAndKey(keyId);
+    }
+}